@@ -1,18 +1,25 @@
 package edu.uade.prog3.tpo;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.concurrent.ForkJoinPool;
 
 @SpringBootApplication
+@EnableScheduling
 public class TpoApplication {
     public static void main(String[] args) {
         SpringApplication.run(TpoApplication.class, args); 
     }
 
     @Bean
+    @Profile("!archivo")
     CommandLineRunner testNeo4j(Neo4jClient client) {
         return args -> {
             var ok = client.query("RETURN 1 AS ok").fetch().first();
@@ -20,5 +27,14 @@ public class TpoApplication {
         };
     }
 
+    /**
+     * Pool compartido por las búsquedas en paralelo (matriz de distancias, lotes de Dijkstra,
+     * desvíos de Yen y exploración por niveles), así los hilos no se multiplican por servicio.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    ForkJoinPool poolBusquedas(@Value("${tpo.paralelo.hilos:0}") int hilos) {
+        return new ForkJoinPool(hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors());
+    }
+
 
 }
@@ -0,0 +1,74 @@
+package edu.uade.prog3.tpo.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.servicio.ServicioDijkstra;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/grafos")
+public class ControladorAlcance {
+
+    private final ServicioDijkstra service;
+    private final ObjectMapper mapper;
+
+    public ControladorAlcance(ServicioDijkstra service, ObjectMapper mapper) {
+        this.service = service;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Todos los Hubs (y opcionalmente los Clientes que atienden) a los que se llega desde
+     * alguno de los orígenes sin pasar el presupuesto, con su costo y predecesor.
+     * Una sola búsqueda para todos los orígenes; el arreglo JSON se escribe a medida que
+     * se asientan los nodos (de menor a mayor costo).
+     * Ejemplos:
+     *  http://localhost:8080/api/grafos/alcance?origenes=DEP_SUR&presupuesto=30&criterio=TIEMPO
+     *  http://localhost:8080/api/grafos/alcance?origenes=DEP_SUR,DEP_NORTE&presupuesto=15&clientes=true
+     */
+    @GetMapping("/alcance")
+    public ResponseEntity<StreamingResponseBody> alcance(
+            @RequestParam String origenes,
+            @RequestParam double presupuesto,
+            @RequestParam(defaultValue = "DISTANCIA") CriterioPeso criterio,
+            @RequestParam(defaultValue = "1.0") double factorPeaje,
+            @RequestParam(defaultValue = "false") boolean clientes
+    ) {
+        List<String> origenIds = new ArrayList<>();
+        for (String o : origenes.split(",")) {
+            if (!o.isBlank()) origenIds.add(o.trim());
+        }
+        try {
+            service.validarAlcance(origenIds, criterio, factorPeaje, presupuesto);
+        } catch (IllegalArgumentException ex) {
+            // el tipo de respuesta tiene que ser StreamingResponseBody también para el error
+            byte[] mensaje = ex.getMessage().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(out -> out.write(mensaje));
+        }
+
+        StreamingResponseBody cuerpo = out -> {
+            try (JsonGenerator json = mapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                service.alcanzables(origenIds, criterio, factorPeaje, presupuesto, clientes, n -> {
+                    try {
+                        json.writeObject(n);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(cuerpo);
+    }
+}
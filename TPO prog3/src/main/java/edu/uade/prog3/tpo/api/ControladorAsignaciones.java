@@ -0,0 +1,37 @@
+package edu.uade.prog3.tpo.api;
+
+import edu.uade.prog3.tpo.repositorio.DiarioAsignaciones;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Seguimiento de las asignaciones hechas en modo asíncrono (greedy / dp con asincrono=true).
+ *
+ * Ejemplos:
+ *  http://localhost:8080/api/asignaciones/3f6c0a1e-...      (estado del ticket: PENDIENTE / ESCRITO / FALLIDO)
+ *  http://localhost:8080/api/asignaciones                   (cola y contadores del escritor)
+ */
+@RestController
+@RequestMapping("/api/asignaciones")
+public class ControladorAsignaciones {
+
+    private final DiarioAsignaciones diario;
+
+    public ControladorAsignaciones(DiarioAsignaciones diario) {
+        this.diario = diario;
+    }
+
+    @GetMapping("/{ticket}")
+    public ResponseEntity<Map<String, Object>> estado(@PathVariable String ticket) {
+        return diario.estadoDe(ticket)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> estadisticas() {
+        return ResponseEntity.ok(diario.estadisticas());
+    }
+}
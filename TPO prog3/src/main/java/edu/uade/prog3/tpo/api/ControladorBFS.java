@@ -1,6 +1,7 @@
 // src/main/java/edu/uade/prog3/tpo/api/ControladorBFS.java
 package edu.uade.prog3.tpo.api;
 
+import edu.uade.prog3.tpo.dominio.ModoBusqueda;
 import edu.uade.prog3.tpo.dominio.ResultadoBFS;
 import edu.uade.prog3.tpo.servicio.ServicioBFS;
 import org.springframework.http.ResponseEntity;
@@ -24,16 +25,19 @@ public class ControladorBFS {
      * Ejemplos:
      *  http://localhost:8080/api/grafos/bfs?origenId=DEP_SUR&destinoId=SUC_PALERMO
      *  http://localhost:8080/api/grafos/bfs?origenId=DEP_SUR&destinoId=CLI_PAL_2&incluirClientes=true
+     *  http://localhost:8080/api/grafos/bfs?origenId=DEP_SUR&destinoId=CLI_PAL_2&incluirClientes=true&modo=BIDIRECCIONAL
+     *  (modo=BIDIRECCIONAL busca desde las dos puntas a la vez)
      */
     @GetMapping("/bfs")
     public ResponseEntity<?> bfs(
             @RequestParam String origenId,
             @RequestParam String destinoId,
             @RequestParam(required = false) Integer maxProfundidad,
-            @RequestParam(defaultValue = "false") boolean incluirClientes
+            @RequestParam(defaultValue = "false") boolean incluirClientes,
+            @RequestParam(defaultValue = "UNIDIRECCIONAL") ModoBusqueda modo
     ) {
         try {
-            ResultadoBFS resultado = ServicioBFS.bfs(origenId, destinoId, maxProfundidad, incluirClientes);
+            ResultadoBFS resultado = ServicioBFS.bfs(origenId, destinoId, maxProfundidad, incluirClientes, modo);
             if (resultado.getCaminoIds().isEmpty()) return ResponseEntity.notFound().build();
             return ResponseEntity.ok(resultado);
         } catch (IllegalArgumentException ex) {
@@ -2,6 +2,7 @@
 package edu.uade.prog3.tpo.api;
 
 import edu.uade.prog3.tpo.dominio.ResultadoDFS;
+import edu.uade.prog3.tpo.dominio.ResultadoExploracion;
 import edu.uade.prog3.tpo.servicio.ServicioDFS;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,6 +17,7 @@ public class ControladorDFS {
 
     //ejemplos de uso del endpoint:
     // http://localhost:8080/api/grafos/dfs-camino?origenId=DEP_SUR&destinoId=SUC_PALERMO&maxProfundidad=5&incluirClientes=true
+    // http://localhost:8080/api/grafos/exploracion?origenId=DEP_SUR&incluirClientes=true
 
     /** Busca UN camino de origen a destino con DFS. */
     @GetMapping("/dfs-camino")
@@ -49,4 +51,22 @@ public class ControladorDFS {
             return ResponseEntity.badRequest().body(ex.getMessage());
         }
     }
+
+    /**
+     * Todo lo alcanzable desde origen con su nivel (saltos), en paralelo y en orden determinista
+     * (nivel por nivel, como una BFS). Para recorrer la red entera cuando no hace falta el preorden.
+     */
+    @GetMapping("/exploracion")
+    public ResponseEntity<?> exploracion(
+            @RequestParam String origenId,
+            @RequestParam(required = false) Integer maxProfundidad,
+            @RequestParam(defaultValue = "false") boolean incluirClientes
+    ) {
+        try {
+            ResultadoExploracion r = service.exploracion(origenId, maxProfundidad, incluirClientes);
+            return ResponseEntity.ok(r);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
 }
@@ -2,19 +2,30 @@
 package edu.uade.prog3.tpo.api;
 
 import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.dominio.ModoBusqueda;
+import edu.uade.prog3.tpo.dominio.ParOrigenDestino;
 import edu.uade.prog3.tpo.dominio.ResultadoDijkstra;
+import edu.uade.prog3.tpo.servicio.ServicioCaminosAlternativos;
 import edu.uade.prog3.tpo.servicio.ServicioDijkstra;
+import edu.uade.prog3.tpo.servicio.ServicioLoteDijkstra;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/grafos")
 public class ControladorDijkstra {
 
     private final ServicioDijkstra service;
+    private final ServicioLoteDijkstra lote;
+    private final ServicioCaminosAlternativos alternativas;
 
-    public ControladorDijkstra(ServicioDijkstra service) {
+    public ControladorDijkstra(ServicioDijkstra service, ServicioLoteDijkstra lote,
+                               ServicioCaminosAlternativos alternativas) {
         this.service = service;
+        this.lote = lote;
+        this.alternativas = alternativas;
     }
 
     /**
@@ -23,6 +34,11 @@ public class ControladorDijkstra {
      *  http://localhost:8080/api/grafos/dijkstra?origenId=DEP_SUR&destinoId=CLI_NOR_MULTI_2&criterio=DISTANCIA
      *  http://localhost:8080/api/grafos/dijkstra?origenId=DEP_SUR&destinoId=SUC_PALERMO&criterio=TIEMPO
      *  /api/grafos/dijkstra?origenId=DEP_SUR&destinoId=SUC_PALERMO&criterio=COSTO&factorPeaje=1.0
+     *  /api/grafos/dijkstra?origenId=DEP_SUR&destinoId=SUC_PALERMO&modo=BIDIRECCIONAL
+     *  /api/grafos/dijkstra?origenId=DEP_SUR&destinoId=SUC_PALERMO&modo=ALT
+     *  /api/grafos/dijkstra?origenId=DEP_SUR&destinoId=SUC_PALERMO&modo=CH
+     *  (nodosAsentados en la respuesta permite comparar cuánto recorre cada modo;
+     *   los totales por modo están en /api/metricas/dijkstra)
      */
 
     @GetMapping("/dijkstra")
@@ -30,14 +46,61 @@ public class ControladorDijkstra {
             @RequestParam String origenId,
             @RequestParam String destinoId,
             @RequestParam(defaultValue = "DISTANCIA") CriterioPeso criterio,
-            @RequestParam(defaultValue = "1.0") double factorPeaje
+            @RequestParam(defaultValue = "1.0") double factorPeaje,
+            @RequestParam(defaultValue = "UNIDIRECCIONAL") ModoBusqueda modo
     ) {
         try {
-            ResultadoDijkstra r = service.dijkstra(origenId, destinoId, criterio, factorPeaje);
+            ResultadoDijkstra r = service.dijkstra(origenId, destinoId, criterio, factorPeaje, modo);
             if (r.getCaminoIds().isEmpty()) return ResponseEntity.notFound().build();
             return ResponseEntity.ok(r);
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(ex.getMessage());
         }
     }
+
+    /**
+     * Muchos pares en una sola llamada: un árbol de caminos mínimos por origen, orígenes en paralelo.
+     * Resultados en el mismo orden que los pares; sin camino → caminoIds vacío.
+     * Ejemplo:
+     *  POST http://localhost:8080/api/grafos/dijkstra/lote?criterio=TIEMPO
+     *  [{"origenId":"DEP_SUR","destinoId":"SUC_PALERMO"},{"origenId":"DEP_SUR","destinoId":"CLI_NOR_MULTI_2"}]
+     *  (máximo tpo.lote.max-pares pares por lote)
+     */
+    @PostMapping("/dijkstra/lote")
+    public ResponseEntity<?> dijkstraLote(
+            @RequestBody List<ParOrigenDestino> pares,
+            @RequestParam(defaultValue = "DISTANCIA") CriterioPeso criterio,
+            @RequestParam(defaultValue = "1.0") double factorPeaje
+    ) {
+        try {
+            return ResponseEntity.ok(lote.resolver(pares, criterio, factorPeaje));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    /**
+     * Los k caminos más cortos sin ciclos entre dos Hubs (Yen), de menor a mayor peso.
+     * El primero es el de /dijkstra; los otros son alternativas por si se corta una ruta.
+     * Ejemplos:
+     *  http://localhost:8080/api/grafos/dijkstra/alternativas?origenId=DEP_SUR&destinoId=SUC_PALERMO&k=3
+     *  /api/grafos/dijkstra/alternativas?origenId=DEP_SUR&destinoId=SUC_PALERMO&k=5&criterio=TIEMPO
+     *  (k hasta tpo.alternativas.max-k)
+     */
+    @GetMapping("/dijkstra/alternativas")
+    public ResponseEntity<?> alternativas(
+            @RequestParam String origenId,
+            @RequestParam String destinoId,
+            @RequestParam(defaultValue = "3") int k,
+            @RequestParam(defaultValue = "DISTANCIA") CriterioPeso criterio,
+            @RequestParam(defaultValue = "1.0") double factorPeaje
+    ) {
+        try {
+            List<ResultadoDijkstra> rs = alternativas.caminos(origenId, destinoId, k, criterio, factorPeaje);
+            if (rs.isEmpty()) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(rs);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
 }
@@ -1,31 +1,52 @@
 package edu.uade.prog3.tpo.api;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.uade.prog3.tpo.servicio.ServicioDivideYVenceras;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 @RestController
 @RequestMapping("/dyv")
 public class ControladorDivideYVenceras {
 
     private final ServicioDivideYVenceras servicio;
+    private final ObjectMapper mapper;
 
-    public ControladorDivideYVenceras(ServicioDivideYVenceras servicio) {
+    public ControladorDivideYVenceras(ServicioDivideYVenceras servicio, ObjectMapper mapper) {
         this.servicio = servicio;
+        this.mapper = mapper;
     }
 
     /**
+     * El arreglo JSON se escribe a medida que salen los paquetes ordenados
+     * (no se arma la lista de la respuesta ni el JSON completo en memoria).
+     *
      * Ejemplo:
      * http://localhost:8080/dyv/ordenarPaquetes?depositoId=DEP_NORTE
      */
     @GetMapping("/ordenarPaquetes")
-    public ResponseEntity<List<Map<String, Object>>> ordenarPaquetes(
+    public ResponseEntity<StreamingResponseBody> ordenarPaquetes(
             @RequestParam String depositoId
     ) {
-        List<Map<String, Object>> ordenados = servicio.ordenarPaquetesPorDyV(depositoId);
-        return ResponseEntity.ok(ordenados);
+        StreamingResponseBody cuerpo = out -> {
+            try (JsonGenerator json = mapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                servicio.ordenarPaquetesPorDyV(depositoId, p -> {
+                    try {
+                        json.writeObject(p);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(cuerpo);
     }
 }
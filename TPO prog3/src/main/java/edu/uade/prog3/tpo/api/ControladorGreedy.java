@@ -1,6 +1,9 @@
 package edu.uade.prog3.tpo.api;
 
+import edu.uade.prog3.tpo.repositorio.ColaAsignacionesLlenaException;
+import edu.uade.prog3.tpo.repositorio.PaqueteEnColaException;
 import edu.uade.prog3.tpo.servicio.ServicioGreedy;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -12,6 +15,8 @@ import java.util.Map;
  * MATCH (p:Paquete) SET p.estado = 'pendiente';
  * ejemplos:
  * http://localhost:8080/greedy/cargar?depositoId=DEP_SUR&vehiculoId=CAMION_DEP_SUR&destino=SUC_PALERMO
+ * http://localhost:8080/greedy/cargar?depositoId=DEP_SUR&destino=SUC_PALERMO&asincrono=true
+ *   (responde enseguida con un ticket; ver /api/asignaciones/{ticket})
  */
 
 @RestController
@@ -25,12 +30,25 @@ public class ControladorGreedy {
     }
 
     @GetMapping("/cargar")
-    public ResponseEntity<Map<String, Object>> ejecutar(
+    public ResponseEntity<?> ejecutar(
             @RequestParam String depositoId,
             @RequestParam(required = false) String vehiculoId,
-            @RequestParam(required = false) String destino
+            @RequestParam(required = false) String destino,
+            @RequestParam(defaultValue = "false") boolean asincrono,
+            @RequestParam(defaultValue = "0") int noAsignadosDesde,
+            @RequestParam(required = false) Integer maxNoAsignados
     ) {
-        Map<String, Object> resultado = ServicioGreedy.ejecutarGreedy(depositoId, vehiculoId, destino);
-        return ResponseEntity.ok(resultado);
+        try {
+            Map<String, Object> resultado = ServicioGreedy.ejecutarGreedy(depositoId, vehiculoId, destino, asincrono,
+                    noAsignadosDesde, maxNoAsignados);
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        } catch (ColaAsignacionesLlenaException ex) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+        } catch (PaqueteEnColaException ex) {
+            // otro pedido reservó alguno de los paquetes mientras tanto
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        }
     }
 }
@@ -0,0 +1,74 @@
+package edu.uade.prog3.tpo.api;
+
+import edu.uade.prog3.tpo.repositorio.CacheNombres;
+import edu.uade.prog3.tpo.servicio.CacheArbolesCaminos;
+import edu.uade.prog3.tpo.servicio.ServicioComponentes;
+import edu.uade.prog3.tpo.servicio.ServicioDijkstra;
+import edu.uade.prog3.tpo.servicio.ServicioMatrizDistancias;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Métricas internas de las caches (para monitorear su efectividad).
+ *
+ * Ejemplo:
+ *  http://localhost:8080/api/metricas/nombres
+ *  http://localhost:8080/api/metricas/dijkstra
+ *  http://localhost:8080/api/metricas/matriz
+ *  http://localhost:8080/api/metricas/arboles
+ *  http://localhost:8080/api/metricas/componentes
+ */
+@RestController
+@RequestMapping("/api/metricas")
+public class ControladorMetricas {
+
+    private final CacheNombres cacheNombres;
+    private final ServicioDijkstra servicioDijkstra;
+    private final ServicioMatrizDistancias matriz;
+    private final CacheArbolesCaminos arboles;
+    private final ServicioComponentes componentes;
+
+    public ControladorMetricas(CacheNombres cacheNombres, ServicioDijkstra servicioDijkstra,
+                               ServicioMatrizDistancias matriz, CacheArbolesCaminos arboles,
+                               ServicioComponentes componentes) {
+        this.cacheNombres = cacheNombres;
+        this.servicioDijkstra = servicioDijkstra;
+        this.matriz = matriz;
+        this.arboles = arboles;
+        this.componentes = componentes;
+    }
+
+    /** Aciertos, fallos y desalojos de la cache de nombres. */
+    @GetMapping("/nombres")
+    public ResponseEntity<Map<String, Object>> nombres() {
+        return ResponseEntity.ok(cacheNombres.estadisticas());
+    }
+
+    /** Consultas y nodos asentados por modo de Dijkstra, y los landmarks de ALT vigentes. */
+    @GetMapping("/dijkstra")
+    public ResponseEntity<Map<String, Object>> dijkstra() {
+        return ResponseEntity.ok(servicioDijkstra.estadisticas());
+    }
+
+    /** Estado de la matriz de distancias entre Hubs que usan Backtracking y Branch & Bound. */
+    @GetMapping("/matriz")
+    public ResponseEntity<Map<String, Object>> matriz() {
+        return ResponseEntity.ok(matriz.estadisticas());
+    }
+
+    /** Aciertos, fallos, desalojos y memoria de la cache de árboles de caminos mínimos. */
+    @GetMapping("/arboles")
+    public ResponseEntity<Map<String, Object>> arboles() {
+        return ResponseEntity.ok(arboles.estadisticas());
+    }
+
+    /** Componentes conexas de la foto vigente y cuántas consultas se descartaron sin buscar. */
+    @GetMapping("/componentes")
+    public ResponseEntity<Map<String, Object>> componentes() {
+        return ResponseEntity.ok(componentes.estadisticas());
+    }
+}
@@ -0,0 +1,39 @@
+package edu.uade.prog3.tpo.api;
+
+import edu.uade.prog3.tpo.dominio.ResultadoPareto;
+import edu.uade.prog3.tpo.servicio.ServicioPareto;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/grafos")
+public class ControladorPareto {
+
+    private final ServicioPareto service;
+
+    public ControladorPareto(ServicioPareto service) {
+        this.service = service;
+    }
+
+    /**
+     * Todas las rutas Pareto-óptimas en (distKm, tiempoMin, peaje) en una sola búsqueda:
+     * cada una es la mejor en algún compromiso entre los tres (ninguna otra gana en todo).
+     * Ejemplos:
+     *  http://localhost:8080/api/grafos/pareto?origenId=DEP_SUR&destinoId=SUC_PALERMO
+     *  http://localhost:8080/api/grafos/pareto?origenId=DEP_SUR&destinoId=CLI_NOR_MULTI_2
+     *  (recortado=true si se llegó al tope tpo.pareto.max-etiquetas en algún nodo)
+     */
+    @GetMapping("/pareto")
+    public ResponseEntity<?> pareto(
+            @RequestParam String origenId,
+            @RequestParam String destinoId
+    ) {
+        try {
+            ResultadoPareto r = service.rutas(origenId, destinoId);
+            if (r.getRutas().isEmpty()) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(r);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package edu.uade.prog3.tpo.api;
 
+import edu.uade.prog3.tpo.repositorio.ColaAsignacionesLlenaException;
+import edu.uade.prog3.tpo.repositorio.PaqueteEnColaException;
 import edu.uade.prog3.tpo.servicio.ServicioProgramacionDinamica;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,15 +22,24 @@ public class ControladorProgramacionDinamica {
     /**
      * Ejemplo:
      * http://localhost:8080/dp/mochila?depositoId=DEP_NORTE&vehiculoId=CAMIONETA_DEP_NORTE&destino=CLI_NOR_MULTI_1
+     * http://localhost:8080/dp/mochila?depositoId=DEP_NORTE&asincrono=true
      */
     @GetMapping("/mochila")
-    public ResponseEntity<Map<String, Object>> ejecutar(
+    public ResponseEntity<?> ejecutar(
             @RequestParam String depositoId,
             @RequestParam(required = false) String vehiculoId,
-            @RequestParam(required = false) String destino
+            @RequestParam(required = false) String destino,
+            @RequestParam(defaultValue = "false") boolean asincrono
     ) {
-        Map<String, Object> resultado =
-                servicio.ejecutarMochilaDp(depositoId, vehiculoId, destino);
-        return ResponseEntity.ok(resultado);
+        try {
+            Map<String, Object> resultado =
+                    servicio.ejecutarMochilaDp(depositoId, vehiculoId, destino, asincrono);
+            return ResponseEntity.ok(resultado);
+        } catch (ColaAsignacionesLlenaException ex) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+        } catch (PaqueteEnColaException ex) {
+            // otro pedido reservó alguno de los paquetes mientras tanto
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        }
     }
 }
@@ -0,0 +1,8 @@
+package edu.uade.prog3.tpo.dominio;
+
+public enum ModoBusqueda {
+    UNIDIRECCIONAL,  // Dijkstra clásico desde el origen
+    BIDIRECCIONAL,   // desde el origen (salientes) y desde el destino (entrantes) hasta encontrarse
+    ALT,             // A* desde el origen con cotas de landmarks (desigualdad triangular)
+    CH               // Contraction Hierarchies: bidireccional solo hacia nodos de mayor rango
+}
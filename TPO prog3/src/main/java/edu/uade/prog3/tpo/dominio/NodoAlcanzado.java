@@ -0,0 +1,27 @@
+package edu.uade.prog3.tpo.dominio;
+
+/** Un nodo dentro del presupuesto de una búsqueda de alcance. */
+public class NodoAlcanzado {
+    private final String id;
+    private final String nombre;
+    private final boolean cliente;
+    private final double costo;            // según el criterio, desde el origen más cercano
+    private final String predecesorId;     // null en los orígenes; en un Cliente, la sucursal que lo atiende
+    private final String origenId;         // de cuál de los orígenes sale el camino
+
+    public NodoAlcanzado(String id, String nombre, boolean cliente, double costo, String predecesorId, String origenId) {
+        this.id = id;
+        this.nombre = nombre;
+        this.cliente = cliente;
+        this.costo = costo;
+        this.predecesorId = predecesorId;
+        this.origenId = origenId;
+    }
+
+    public String getId() { return id; }
+    public String getNombre() { return nombre; }
+    public boolean isCliente() { return cliente; }
+    public double getCosto() { return costo; }
+    public String getPredecesorId() { return predecesorId; }
+    public String getOrigenId() { return origenId; }
+}
@@ -0,0 +1,20 @@
+package edu.uade.prog3.tpo.dominio;
+
+/** Un par del lote de Dijkstra: origen Hub y destino Hub o Cliente. */
+public class ParOrigenDestino {
+
+    private String origenId;
+    private String destinoId;
+
+    public ParOrigenDestino() {}
+
+    public ParOrigenDestino(String origenId, String destinoId) {
+        this.origenId = origenId;
+        this.destinoId = destinoId;
+    }
+
+    public String getOrigenId() { return origenId; }
+    public String getDestinoId() { return destinoId; }
+    public void setOrigenId(String origenId) { this.origenId = origenId; }
+    public void setDestinoId(String destinoId) { this.destinoId = destinoId; }
+}
@@ -13,10 +13,20 @@ public class ResultadoDijkstra {
     private final double pesoTotal;         // según el criterio elegido
     private final CriterioPeso criterio;
     private final Map<String, Double> acumulados; // dist a cada nodo (debug/explicativo)
+    private final ModoBusqueda modo;
+    private final int nodosAsentados;             // nodos que salieron del heap (para comparar modos)
 
     public ResultadoDijkstra(String origenId, String destinoId, List<String> caminoIds,
                              List<String> caminoNombres, List<AristaRuta> aristas,
                              double pesoTotal, CriterioPeso criterio, Map<String, Double> acumulados) {
+        this(origenId, destinoId, caminoIds, caminoNombres, aristas, pesoTotal, criterio, acumulados,
+                ModoBusqueda.UNIDIRECCIONAL, 0);
+    }
+
+    public ResultadoDijkstra(String origenId, String destinoId, List<String> caminoIds,
+                             List<String> caminoNombres, List<AristaRuta> aristas,
+                             double pesoTotal, CriterioPeso criterio, Map<String, Double> acumulados,
+                             ModoBusqueda modo, int nodosAsentados) {
         this.origenId = origenId;
         this.destinoId = destinoId;
         this.caminoIds = caminoIds;
@@ -25,6 +35,8 @@ public class ResultadoDijkstra {
         this.pesoTotal = pesoTotal;
         this.criterio = criterio;
         this.acumulados = acumulados;
+        this.modo = modo;
+        this.nodosAsentados = nodosAsentados;
     }
 
     public String getOrigenId() { return origenId; }
@@ -35,4 +47,6 @@ public class ResultadoDijkstra {
     public double getPesoTotal() { return pesoTotal; }
     public CriterioPeso getCriterio() { return criterio; }
     public Map<String, Double> getAcumulados() { return acumulados; }
+    public ModoBusqueda getModo() { return modo; }
+    public int getNodosAsentados() { return nodosAsentados; }
 }
@@ -0,0 +1,26 @@
+package edu.uade.prog3.tpo.dominio;
+
+import java.util.List;
+
+public class ResultadoExploracion {
+    private final String origenId;
+    private final List<String> recorridoIds;      // alcanzados, nivel por nivel (orden de una BFS con cola FIFO)
+    private final List<String> recorridoNombres;
+    private final List<Integer> niveles;          // saltos desde el origen de cada nodo de recorridoIds
+    private final List<Integer> cantidadPorNivel; // nodos en el nivel 0, 1, 2, ...
+
+    public ResultadoExploracion(String origenId, List<String> recorridoIds, List<String> recorridoNombres,
+                                List<Integer> niveles, List<Integer> cantidadPorNivel) {
+        this.origenId = origenId;
+        this.recorridoIds = recorridoIds;
+        this.recorridoNombres = recorridoNombres;
+        this.niveles = niveles;
+        this.cantidadPorNivel = cantidadPorNivel;
+    }
+
+    public String getOrigenId() { return origenId; }
+    public List<String> getRecorridoIds() { return recorridoIds; }
+    public List<String> getRecorridoNombres() { return recorridoNombres; }
+    public List<Integer> getNiveles() { return niveles; }
+    public List<Integer> getCantidadPorNivel() { return cantidadPorNivel; }
+}
@@ -0,0 +1,26 @@
+package edu.uade.prog3.tpo.dominio;
+
+import java.util.List;
+
+public class ResultadoPareto {
+    private final String origenId;
+    private final String destinoId;
+    private final List<RutaPareto> rutas;     // ordenadas por distKm, tiempoMin, peaje
+    private final int etiquetasAsentadas;     // etiquetas que salieron del heap (trabajo de la búsqueda)
+    private final boolean recortado;          // se descartaron etiquetas por el tope por nodo
+
+    public ResultadoPareto(String origenId, String destinoId, List<RutaPareto> rutas,
+                           int etiquetasAsentadas, boolean recortado) {
+        this.origenId = origenId;
+        this.destinoId = destinoId;
+        this.rutas = rutas;
+        this.etiquetasAsentadas = etiquetasAsentadas;
+        this.recortado = recortado;
+    }
+
+    public String getOrigenId() { return origenId; }
+    public String getDestinoId() { return destinoId; }
+    public List<RutaPareto> getRutas() { return rutas; }
+    public int getEtiquetasAsentadas() { return etiquetasAsentadas; }
+    public boolean isRecortado() { return recortado; }
+}
@@ -0,0 +1,30 @@
+package edu.uade.prog3.tpo.dominio;
+
+import java.util.List;
+
+/** Una ruta del frente de Pareto: ninguna otra es mejor o igual en los tres totales a la vez. */
+public class RutaPareto {
+    private final List<String> caminoIds;
+    private final List<String> caminoNombres;
+    private final List<AristaRuta> aristas;   // detalle tramo a tramo
+    private final double distKm;
+    private final double tiempoMin;
+    private final double peaje;
+
+    public RutaPareto(List<String> caminoIds, List<String> caminoNombres, List<AristaRuta> aristas,
+                      double distKm, double tiempoMin, double peaje) {
+        this.caminoIds = caminoIds;
+        this.caminoNombres = caminoNombres;
+        this.aristas = aristas;
+        this.distKm = distKm;
+        this.tiempoMin = tiempoMin;
+        this.peaje = peaje;
+    }
+
+    public List<String> getCaminoIds() { return caminoIds; }
+    public List<String> getCaminoNombres() { return caminoNombres; }
+    public List<AristaRuta> getAristas() { return aristas; }
+    public double getDistKm() { return distKm; }
+    public double getTiempoMin() { return tiempoMin; }
+    public double getPeaje() { return peaje; }
+}
@@ -0,0 +1,12 @@
+package edu.uade.prog3.tpo.dominio;
+
+public enum TipoNodo {
+    DEPOSITO,   // :Hub:Deposito
+    SUCURSAL,   // :Hub:Sucursal
+    HUB,        // :Hub sin etiqueta más específica
+    CLIENTE;    // :Cliente
+
+    public boolean esHub() {
+        return this != CLIENTE;
+    }
+}
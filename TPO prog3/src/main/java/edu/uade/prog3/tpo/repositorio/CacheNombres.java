@@ -0,0 +1,148 @@
+package edu.uade.prog3.tpo.repositorio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache acotada (LRU + vencimiento por tiempo) de nombres legibles de Hubs y Clientes.
+ *
+ * - Al arrancar precarga los nombres de la base, hasta llenar la capacidad (sin desalojar).
+ * - Lo que no está (o venció) se trae en UNA sola consulta por respuesta.
+ * - Cuenta aciertos, fallos y desalojos para poder monitorearla.
+ *
+ * Reemplaza a repo.nombreDe / repo.nombresDe en los servicios, con el mismo contrato:
+ * si un id no tiene nombre, nombresDe devuelve el id y nombreDe devuelve vacío.
+ */
+@Component
+public class CacheNombres {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheNombres.class);
+
+    /** nombre puede ser null: el id no existe o no tiene nombre (también se cachea). */
+    private record Entrada(String nombre, long venceEn) {}
+
+    private final IRepositorioGrafo repo;
+    private final int capacidad;
+    private final long ttlMs;
+    private final LinkedHashMap<String, Entrada> entradas;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+
+    public CacheNombres(IRepositorioGrafo repo,
+                        @Value("${tpo.nombres.capacidad:10000}") int capacidad,
+                        @Value("${tpo.nombres.ttl-minutos:60}") long ttlMinutos) {
+        this.repo = repo;
+        this.capacidad = capacidad;
+        this.ttlMs = ttlMinutos * 60_000L;
+        // accessOrder=true → el más viejo es el menos usado recientemente
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                if (size() > CacheNombres.this.capacidad) {
+                    desalojos.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargar() {
+        try {
+            Map<String, String> todos = repo.nombresDeHubsYClientes();
+            long vence = System.currentTimeMillis() + ttlMs;
+            int cargados = 0;
+            synchronized (entradas) {
+                // hasta llenar la capacidad: precargar no desaloja nada
+                for (Map.Entry<String, String> e : todos.entrySet()) {
+                    if (entradas.size() >= capacidad) break;
+                    if (entradas.putIfAbsent(e.getKey(), new Entrada(e.getValue(), vence)) == null) cargados++;
+                }
+            }
+            if (cargados < todos.size()) {
+                log.info("Nombres precargados: {} de {} (capacidad {})", cargados, todos.size(), capacidad);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("No se pudieron precargar los nombres: {}", ex.getMessage());
+        }
+    }
+
+    public Optional<String> nombreDe(String id) {
+        return Optional.ofNullable(resolver(List.of(id)).get(id));
+    }
+
+    public List<String> nombresDe(List<String> ids) {
+        if (ids == null || ids.isEmpty()) return List.of();
+        Map<String, String> nombres = resolver(ids);
+        return ids.stream().map(i -> {
+            String n = nombres.get(i);
+            return n == null ? i : n;
+        }).toList();
+    }
+
+    /** Aciertos, fallos, desalojos y ocupación actual. */
+    public Map<String, Object> estadisticas() {
+        long a = aciertos.get();
+        long f = fallos.get();
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("aciertos", a);
+        res.put("fallos", f);
+        res.put("desalojos", desalojos.get());
+        res.put("tasaAciertos", a + f == 0 ? 0.0 : (double) a / (a + f));
+        synchronized (entradas) {
+            res.put("tamanio", entradas.size());
+        }
+        res.put("capacidad", capacidad);
+        return res;
+    }
+
+    // ---------- helpers ----------
+
+    private Map<String, String> resolver(Collection<String> ids) {
+        Map<String, String> res = new HashMap<>();
+        Set<String> faltan = new LinkedHashSet<>();
+        long ahora = System.currentTimeMillis();
+
+        synchronized (entradas) {
+            for (String id : ids) {
+                Entrada e = entradas.get(id);
+                if (e != null && e.venceEn() > ahora) {
+                    aciertos.incrementAndGet();
+                    res.put(id, e.nombre());
+                } else {
+                    fallos.incrementAndGet();
+                    faltan.add(id);
+                }
+            }
+        }
+
+        if (!faltan.isEmpty()) {
+            List<String> pedidos = new ArrayList<>(faltan);
+            Map<String, String> cargados = repo.nombresPorIds(pedidos);
+            guardar(cargados, pedidos);
+            for (String id : pedidos) res.put(id, cargados.get(id));
+        }
+        return res;
+    }
+
+    /** Guarda los nombres cargados; los ids pedidos que no vinieron quedan cacheados sin nombre. */
+    private void guardar(Map<String, String> cargados, List<String> pedidos) {
+        long vence = System.currentTimeMillis() + ttlMs;
+        synchronized (entradas) {
+            cargados.forEach((id, nombre) -> entradas.put(id, new Entrada(nombre, vence)));
+            for (String id : pedidos) {
+                if (!cargados.containsKey(id)) entradas.put(id, new Entrada(null, vence));
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package edu.uade.prog3.tpo.repositorio;
+
+/** La cola de asignaciones asíncronas siguió llena después de la espera configurada. */
+public class ColaAsignacionesLlenaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ColaAsignacionesLlenaException(String mensaje) {
+        super(mensaje);
+    }
+}
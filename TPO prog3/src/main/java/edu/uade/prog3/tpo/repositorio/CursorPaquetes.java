@@ -0,0 +1,76 @@
+package edu.uade.prog3.tpo.repositorio;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterador de paquetes pendientes que pide la siguiente página recién cuando
+ * se terminó la actual (keyset sobre prioridad, peso_kg, id).
+ *
+ * No es seguro entre hilos; cada consulta crea el suyo.
+ */
+public final class CursorPaquetes implements Iterator<Map<String, Object>> {
+
+    private final IRepositorioGrafo repo;
+    private final String depositoId;
+    private final int tamPagina;
+
+    private List<Map<String, Object>> pagina = List.of();
+    private int posicion;
+    private boolean ultimaPagina;
+
+    // clave del último paquete entregado (null = todavía no se pidió nada)
+    private Long prioridad;
+    private Double peso;
+    private String id;
+
+    CursorPaquetes(IRepositorioGrafo repo, String depositoId, int tamPagina) {
+        if (tamPagina <= 0) throw new IllegalArgumentException("tamPagina debe ser positivo.");
+        this.repo = repo;
+        this.depositoId = depositoId;
+        this.tamPagina = tamPagina;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (posicion < pagina.size()) return true;
+        if (ultimaPagina) return false;
+        pagina = repo.paginaPaquetesPendientes(depositoId, prioridad, peso, id, tamPagina);
+        posicion = 0;
+        ultimaPagina = pagina.size() < tamPagina;
+        return !pagina.isEmpty();
+    }
+
+    @Override
+    public Map<String, Object> next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Map<String, Object> p = pagina.get(posicion++);
+        prioridad = prioridadDe(p);
+        peso = pesoDe(p);
+        id = (String) p.get("id");
+        return p;
+    }
+
+    /** Prioridad para ordenar (vacía = 999, al final). */
+    static long prioridadDe(Map<String, Object> p) {
+        Object pr = p.get("prioridad");
+        return pr == null ? 999 : ((Number) pr).longValue();
+    }
+
+    /** Peso para ordenar (vacío = Double.MAX_VALUE, al final). */
+    static double pesoDe(Map<String, Object> p) {
+        Object pes = p.get("peso_kg");
+        return pes == null ? Double.MAX_VALUE : ((Number) pes).doubleValue();
+    }
+
+    /** Compara un paquete contra una clave (prioridad, peso, id). */
+    static int compararConClave(Map<String, Object> p, long prioridad, double peso, String id) {
+        int c = Long.compare(prioridadDe(p), prioridad);
+        if (c != 0) return c;
+        c = Double.compare(pesoDe(p), peso);
+        if (c != 0) return c;
+        return ((String) p.get("id")).compareTo(id);
+    }
+}
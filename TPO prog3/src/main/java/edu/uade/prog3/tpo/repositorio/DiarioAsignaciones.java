@@ -0,0 +1,446 @@
+package edu.uade.prog3.tpo.repositorio;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escritura diferida de asignaciones de paquetes (modo asíncrono de Greedy y DP).
+ *
+ * - Cada asignación se anota en un diario local (un renglón por entrada) y entra
+ *   a una cola acotada; la respuesta vuelve enseguida con un ticket.
+ * - Un hilo escritor saca lo que haya en la cola y lo manda a la base por lotes
+ *   (las asignaciones con el mismo vehículo/estado/destino van en un solo UNWIND).
+ *   Si la base falla, reintenta ese grupo solo, con espera creciente, hasta tpo.diario.max-intentos
+ *   veces; después sus tickets quedan FALLIDO y sus altas siguen en el diario sin marca de
+ *   escrito (y sus paquetes reservados) hasta que se retomen al arrancar.
+ * - Contrapresión: si la cola está llena se espera tpo.diario.espera-ms y, si sigue
+ *   llena, se rechaza con {@link ColaAsignacionesLlenaException}.
+ * - Los paquetes se reservan junto con el alta en el diario (bajo el mismo lock): si dos
+ *   pedidos quieren el mismo paquete, el segundo se rechaza con {@link PaqueteEnColaException}.
+ * - Al arrancar, lo que quedó anotado sin marca de escrito (caída del proceso) lo escribe
+ *   primero el hilo escritor, sin pasar por la cola (el arranque no espera a la base).
+ * - Cada renglón se fuerza a disco (fsync). Cuando el diario junta tpo.diario.compactar-renglones
+ *   renglones se reescribe solo con lo que falta escribir.
+ *
+ * Formato del diario: "A ticket vehiculo estado destino id1,id2,..." al encolar
+ * y "F ticket" cuando quedó escrito (campos separados por tab y codificados como URL).
+ */
+@Component
+public class DiarioAsignaciones {
+
+    private static final Logger log = LoggerFactory.getLogger(DiarioAsignaciones.class);
+
+    public enum EstadoTicket { PENDIENTE, ESCRITO, FALLIDO }
+
+    private record Asignacion(String ticket, String vehiculoId, List<String> paqueteIds,
+                              String estado, String destino) {}
+
+    /** Lo que se informa por ticket (se guardan los últimos, acotado). */
+    private static final class Seguimiento {
+        final int paquetes;
+        final long encoladoEn;
+        volatile EstadoTicket estado = EstadoTicket.PENDIENTE;
+        volatile long escritoEn;
+        volatile int intentos;
+        volatile String ultimoError;
+
+        Seguimiento(int paquetes) {
+            this.paquetes = paquetes;
+            this.encoladoEn = System.currentTimeMillis();
+        }
+    }
+
+    private final IRepositorioGrafo repo;
+    private final Path archivo;
+    private final long esperaMs;
+    private final int maxLote;
+    private final int compactarRenglones;
+    private final int maxIntentos;
+    private final BlockingQueue<Asignacion> cola;
+    private final Map<String, Seguimiento> tickets;
+    private final Set<String> paquetesEnCola = ConcurrentHashMap.newKeySet();
+
+    // anotadas en el diario y todavía sin marca de escrito (con el lock de this)
+    private final Map<String, Asignacion> sinEscribir = new LinkedHashMap<>();
+    private int renglones;
+
+    private final AtomicLong encolados = new AtomicLong();
+    private final AtomicLong escritos = new AtomicLong();
+    private final AtomicLong rechazados = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+
+    private BufferedWriter diario;
+    private FileChannel canal;
+    private List<Asignacion> reencoladas = List.of();
+    private Thread escritor;
+    private volatile boolean corriendo;
+
+    public DiarioAsignaciones(IRepositorioGrafo repo,
+                              @Value("${tpo.diario.archivo:./cache/asignaciones.diario}") String archivo,
+                              @Value("${tpo.diario.capacidad:1000}") int capacidad,
+                              @Value("${tpo.diario.espera-ms:2000}") long esperaMs,
+                              @Value("${tpo.diario.max-lote:200}") int maxLote,
+                              @Value("${tpo.diario.tickets:10000}") int maxTickets,
+                              @Value("${tpo.diario.compactar-renglones:10000}") int compactarRenglones,
+                              @Value("${tpo.diario.max-intentos:5}") int maxIntentos) {
+        this.repo = repo;
+        this.archivo = Path.of(archivo);
+        this.esperaMs = esperaMs;
+        this.maxLote = maxLote;
+        this.compactarRenglones = compactarRenglones;
+        this.maxIntentos = Math.max(1, maxIntentos);
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.tickets = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Seguimiento> eldest) {
+                return size() > maxTickets && eldest.getValue().estado == EstadoTicket.ESCRITO;
+            }
+        });
+    }
+
+    /** Retoma lo que quedó sin escribir, compacta el diario y arranca el escritor. */
+    @PostConstruct
+    public void iniciar() throws IOException {
+        Path carpeta = archivo.toAbsolutePath().getParent();
+        if (carpeta != null) Files.createDirectories(carpeta);
+
+        List<Asignacion> pendientes = leerPendientes();
+        synchronized (this) {
+            for (Asignacion a : pendientes) {
+                sinEscribir.put(a.ticket(), a);
+                paquetesEnCola.addAll(a.paqueteIds());
+                registrar(a);
+            }
+            compactar();
+        }
+
+        // las retoma el escritor antes que la cola: pueden ser más que su capacidad
+        reencoladas = pendientes;
+        corriendo = true;
+        escritor = new Thread(this::escribirEnLoop, "diario-asignaciones");
+        escritor.setDaemon(true);
+        escritor.start();
+        if (!pendientes.isEmpty()) {
+            log.info("Diario de asignaciones: {} entradas sin escribir se retoman en segundo plano", pendientes.size());
+        }
+    }
+
+    /** Espera a que se vacíe la cola (con tope) antes de bajar el proceso. */
+    @PreDestroy
+    public void detener() {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!cola.isEmpty() && System.currentTimeMillis() < limite) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        corriendo = false;
+        if (escritor != null) escritor.interrupt();
+        synchronized (this) {
+            try {
+                if (diario != null) diario.close();
+                if (canal != null) canal.close();
+            } catch (IOException ex) {
+                log.warn("No se pudo cerrar el diario de asignaciones: {}", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reserva los paquetes, anota la asignación y la deja en cola para el escritor. Devuelve el ticket.
+     * Si algún paquete ya está reservado por otra asignación pendiente, la rechaza con
+     * PaqueteEnColaException; si la cola sigue llena después de la espera, con ColaAsignacionesLlenaException.
+     */
+    public String encolar(String vehiculoId, List<String> paqueteIds, String estado, String destino) {
+        Asignacion a = new Asignacion(UUID.randomUUID().toString(), vehiculoId, List.copyOf(paqueteIds), estado, destino);
+        synchronized (this) {
+            // chequear y reservar juntos: dos pedidos por el mismo paquete no pueden pasar los dos
+            List<String> tomados = a.paqueteIds().stream().filter(paquetesEnCola::contains).toList();
+            if (!tomados.isEmpty()) {
+                rechazados.incrementAndGet();
+                throw new PaqueteEnColaException(tomados);
+            }
+            anotar(List.of(renglonAlta(a)));
+            sinEscribir.put(a.ticket(), a);
+            paquetesEnCola.addAll(a.paqueteIds());
+        }
+        registrar(a);
+        boolean entro;
+        try {
+            entro = cola.offer(a, esperaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            entro = false;
+        }
+        if (!entro) {
+            // queda anotado como escrito para que no se reintente al arrancar
+            terminar(List.of(a));
+            tickets.remove(a.ticket());
+            rechazados.incrementAndGet();
+            throw new ColaAsignacionesLlenaException("La cola de asignaciones está llena, reintentar en unos segundos.");
+        }
+        encolados.incrementAndGet();
+        return a.ticket();
+    }
+
+    /** Paquetes asignados en modo asíncrono que todavía no llegaron a la base. */
+    public boolean estaEnCola(String paqueteId) {
+        return paquetesEnCola.contains(paqueteId);
+    }
+
+    /** Estado de un ticket, o vacío si no se conoce (o ya se descartó por antigüedad). */
+    public Optional<Map<String, Object>> estadoDe(String ticket) {
+        Seguimiento s = tickets.get(ticket);
+        if (s == null) return Optional.empty();
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("ticket", ticket);
+        res.put("estado", s.estado);
+        res.put("paquetes", s.paquetes);
+        res.put("intentos", s.intentos);
+        res.put("encoladoEn", s.encoladoEn);
+        if (s.estado == EstadoTicket.ESCRITO) res.put("escritoEn", s.escritoEn);
+        if (s.ultimoError != null) res.put("ultimoError", s.ultimoError);
+        return Optional.of(res);
+    }
+
+    /** Tamaño de la cola y contadores del escritor. */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("enCola", cola.size());
+        res.put("capacidad", cola.size() + cola.remainingCapacity());
+        res.put("encolados", encolados.get());
+        res.put("escritos", escritos.get());
+        res.put("rechazados", rechazados.get());
+        res.put("fallosDeEscritura", fallos.get());
+        res.put("asignacionesFallidas", fallidos.get());
+        return res;
+    }
+
+    // ---------- escritor ----------
+
+    private void escribirEnLoop() {
+        List<Asignacion> previas = reencoladas;
+        reencoladas = List.of();
+        try {
+            for (int i = 0; i < previas.size(); i += maxLote) {
+                escribirConReintentos(previas.subList(i, Math.min(previas.size(), i + maxLote)));
+            }
+        } catch (InterruptedException ex) {
+            if (!corriendo) return;
+        }
+
+        List<Asignacion> lote = new ArrayList<>();
+        while (corriendo || !cola.isEmpty()) {
+            try {
+                Asignacion primera = cola.poll(500, TimeUnit.MILLISECONDS);
+                if (primera == null) continue;
+                lote.add(primera);
+                cola.drainTo(lote, maxLote - 1);
+                escribirConReintentos(lote);
+                lote.clear();
+            } catch (InterruptedException ex) {
+                if (!corriendo) break;
+            }
+        }
+    }
+
+    /** Cada grupo (vehículo, estado, destino) del lote se escribe y reintenta por separado. */
+    private void escribirConReintentos(List<Asignacion> lote) throws InterruptedException {
+        Map<List<String>, List<Asignacion>> grupos = new LinkedHashMap<>();
+        for (Asignacion a : lote) {
+            grupos.computeIfAbsent(Arrays.asList(a.vehiculoId(), a.estado(), a.destino()), k -> new ArrayList<>()).add(a);
+        }
+        for (List<Asignacion> grupo : grupos.values()) escribirGrupo(grupo);
+    }
+
+    private void escribirGrupo(List<Asignacion> grupo) throws InterruptedException {
+        long espera = 200;
+        for (int intento = 1; ; intento++) {
+            try {
+                escribir(grupo);
+                return;
+            } catch (RuntimeException ex) {
+                fallos.incrementAndGet();
+                for (Asignacion a : grupo) {
+                    Seguimiento s = tickets.get(a.ticket());
+                    if (s != null) {
+                        s.intentos++;
+                        s.ultimoError = ex.getMessage();
+                    }
+                }
+                if (intento >= maxIntentos) {
+                    abandonar(grupo);
+                    log.error("No se pudieron escribir {} asignaciones de {} después de {} intentos; quedan en el diario "
+                            + "para retomarse al arrancar: {}", grupo.size(), grupo.get(0).vehiculoId(), intento, ex.getMessage());
+                    return;
+                }
+                log.warn("No se pudo escribir un grupo de {} asignaciones, reintento en {} ms: {}",
+                        grupo.size(), espera, ex.getMessage());
+                Thread.sleep(espera);
+                espera = Math.min(espera * 2, 30_000);
+            }
+        }
+    }
+
+    /** Un UNWIND con los paquetes de todas las asignaciones del grupo (mismo vehículo, estado y destino). */
+    private void escribir(List<Asignacion> grupo) {
+        Asignacion primera = grupo.get(0);
+        List<String> ids = new ArrayList<>();
+        for (Asignacion a : grupo) ids.addAll(a.paqueteIds());
+        repo.asignarPaquetes(primera.vehiculoId(), ids, primera.estado(), primera.destino());
+
+        long ahora = System.currentTimeMillis();
+        terminar(grupo);
+        for (Asignacion a : grupo) {
+            Seguimiento s = tickets.get(a.ticket());
+            if (s != null) {
+                s.intentos++;
+                s.escritoEn = ahora;
+                s.estado = EstadoTicket.ESCRITO;
+            }
+        }
+        escritos.addAndGet(grupo.size());
+    }
+
+    /**
+     * Se agotaron los intentos: los tickets pasan a FALLIDO. El alta queda en el diario sin
+     * marca de escrito (la compactación la conserva) y los paquetes siguen reservados, así
+     * ningún otro pedido los toma antes de que se retome al arrancar.
+     */
+    private void abandonar(List<Asignacion> grupo) {
+        for (Asignacion a : grupo) {
+            Seguimiento s = tickets.get(a.ticket());
+            if (s != null) s.estado = EstadoTicket.FALLIDO;
+        }
+        fallidos.addAndGet(grupo.size());
+    }
+
+    // ---------- diario en disco ----------
+
+    private void registrar(Asignacion a) {
+        tickets.put(a.ticket(), new Seguimiento(a.paqueteIds().size()));
+    }
+
+    /**
+     * Marca las asignaciones como escritas (o descartadas), libera sus paquetes y,
+     * si el diario ya es largo, lo compacta.
+     */
+    private synchronized void terminar(List<Asignacion> asignaciones) {
+        List<String> fines = new ArrayList<>(asignaciones.size());
+        for (Asignacion a : asignaciones) fines.add(renglonFin(a.ticket()));
+        anotar(fines);
+        for (Asignacion a : asignaciones) {
+            sinEscribir.remove(a.ticket());
+            paquetesEnCola.removeAll(a.paqueteIds());
+        }
+        if (renglones >= compactarRenglones) {
+            try {
+                compactar();
+            } catch (IOException ex) {
+                log.warn("No se pudo compactar el diario de asignaciones: {}", ex.getMessage());
+            }
+        }
+    }
+
+    /** Escribe los renglones y los fuerza a disco con un solo fsync (el llamador tiene el lock). */
+    private void anotar(List<String> nuevos) {
+        try {
+            for (String r : nuevos) diario.write(r);
+            diario.flush();
+            canal.force(true);
+            renglones += nuevos.size();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("No se pudo escribir el diario de asignaciones", ex);
+        }
+    }
+
+    /**
+     * Reescribe el diario solo con las altas sin escribir (archivo temporal + move atómico)
+     * y lo vuelve a abrir para agregar (el llamador tiene el lock).
+     */
+    private void compactar() throws IOException {
+        Path tmp = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile());
+             BufferedWriter w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            for (Asignacion a : sinEscribir.values()) w.write(renglonAlta(a));
+            w.flush();
+            out.getChannel().force(true);
+        }
+        if (diario != null) {
+            diario.close();
+            canal.close();
+        }
+        Files.move(tmp, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        FileOutputStream out = new FileOutputStream(archivo.toFile(), true);
+        canal = out.getChannel();
+        diario = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        renglones = sinEscribir.size();
+    }
+
+    private List<Asignacion> leerPendientes() throws IOException {
+        if (!Files.isRegularFile(archivo)) return List.of();
+        Map<String, Asignacion> pendientes = new LinkedHashMap<>();
+        for (String renglon : Files.readAllLines(archivo, StandardCharsets.UTF_8)) {
+            String[] c = renglon.split("\t", -1);
+            if (c.length == 6 && c[0].equals("A")) {
+                List<String> ids = c[5].isEmpty() ? List.of()
+                        : Arrays.stream(c[5].split(",")).map(DiarioAsignaciones::decodificar).toList();
+                pendientes.put(c[1], new Asignacion(c[1], decodificar(c[2]), ids, decodificar(c[3]), decodificarNull(c[4])));
+            } else if (c.length == 2 && c[0].equals("F")) {
+                pendientes.remove(c[1]);
+            }
+            // un renglón cortado por la caída se ignora
+        }
+        return new ArrayList<>(pendientes.values());
+    }
+
+    private static String renglonAlta(Asignacion a) {
+        StringJoiner ids = new StringJoiner(",");
+        for (String id : a.paqueteIds()) ids.add(codificar(id));
+        return String.join("\t", "A", a.ticket(), codificar(a.vehiculoId()), codificar(a.estado()),
+                a.destino() == null ? "" : codificar(a.destino()), ids.toString()) + "\n";
+    }
+
+    private static String renglonFin(String ticket) {
+        return "F\t" + ticket + "\n";
+    }
+
+    private static String codificar(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+    private static String decodificar(String s) {
+        return URLDecoder.decode(s, StandardCharsets.UTF_8);
+    }
+
+    private static String decodificarNull(String s) {
+        return s.isEmpty() ? null : decodificar(s);
+    }
+}
@@ -0,0 +1,257 @@
+package edu.uade.prog3.tpo.repositorio;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mantiene en memoria la foto del grafo (ver {@link SnapshotGrafo}).
+ *
+ * - Se carga completa una sola vez desde Neo4j y los recorridos no consultan la base.
+ * - Un refresco en segundo plano compara la versión de (:GraphMeta {id:'grafo'});
+ *   si cambió, trae solo los Hubs/Clientes tocados desde la última marca,
+ *   arma una foto NUEVA y la publica con un swap atómico de la referencia.
+ *   Los lectores nunca se bloquean ni ven un cambio aplicado a medias.
+ *
+ * Quien edite rutas en la base tiene que marcar lo que tocó, por ejemplo:
+ *   MATCH (a:Hub {id:'SUC_X'})-[r:RUTA]->(:Hub {id:'SUC_Y'}) SET r.dist_km = 4.2, r.updated_at = datetime();
+ *   MATCH (a:Hub {id:'SUC_X'}) SET a.updated_at = datetime();   // al borrar una RUTA saliente
+ *   MATCH (c:Cliente {id:'CLI_X'}) SET c.updated_at = datetime(); // al cambiar sus :ATIENDE
+ *   MERGE (m:GraphMeta {id:'grafo'}) SET m.version = coalesce(m.version, 0) + 1;
+ * Si después del refresco incremental los conteos no coinciden con la base
+ * (por ejemplo, se borró un Hub), se hace una recarga completa.
+ *
+ * Arranque en caliente (tpo.grafo.archivo): cada foto publicada se exporta a un archivo
+ * binario. Al iniciar, si el archivo existe se mapea y se publica antes de tocar la base,
+ * así las consultas se atienden enseguida. El primer refresco del scheduler (que corre
+ * apenas levanta el contexto) la valida contra la base: si la versión difiere aplica los
+ * cambios desde la marca guardada, y si los conteos no coinciden la recarga completa.
+ *
+ * Cada foto nueva que publica el refresco (o {@link #recargar}) se avisa con un
+ * {@link GrafoPublicado}, para que se rearmen las estructuras derivadas de ella.
+ *
+ * Con tpo.grafo.en-memoria=false, BFS y DFS vuelven a expandir contra Neo4j.
+ */
+@Component
+public class GrafoEnMemoria {
+
+    private static final Logger log = LoggerFactory.getLogger(GrafoEnMemoria.class);
+
+    private final IRepositorioGrafo repo;
+    private final ApplicationEventPublisher eventos;
+    private final boolean habilitado;
+    private final Path archivo;
+    private final AtomicReference<SnapshotGrafo> actual = new AtomicReference<>();
+
+    /** La foto publicada salió del archivo y todavía no se comparó con la base. */
+    private volatile boolean sinValidar;
+    private volatile long versionExportada = Long.MIN_VALUE;
+    /** Última foto avisada con {@link GrafoPublicado}. */
+    private final AtomicReference<SnapshotGrafo> avisada = new AtomicReference<>();
+
+    public GrafoEnMemoria(IRepositorioGrafo repo,
+                          ApplicationEventPublisher eventos,
+                          @Value("${tpo.grafo.en-memoria:true}") boolean habilitado,
+                          @Value("${tpo.grafo.archivo:}") String archivo) {
+        this.repo = repo;
+        this.eventos = eventos;
+        this.habilitado = habilitado;
+        this.archivo = archivo == null || archivo.isBlank() ? null : Path.of(archivo);
+    }
+
+    /** Levanta la última foto exportada (si hay) antes de que arranque el scheduler. */
+    @PostConstruct
+    public void arrancarDesdeArchivo() {
+        if (archivo == null || !Files.isRegularFile(archivo)) return;
+        try {
+            SnapshotGrafo s = SnapshotGrafo.leerDe(archivo);
+            if (actual.compareAndSet(null, s)) {
+                sinValidar = true;
+                versionExportada = s.version();
+                log.info("Grafo en memoria levantado de {} (versión {}, {} nodos, {} rutas); se valida contra la base en segundo plano",
+                        archivo, s.version(), s.cantidadNodos(), s.cantidadAristas());
+            }
+        } catch (IOException ex) {
+            log.warn("No se pudo usar la foto del grafo en {}: {}", archivo, ex.getMessage());
+        }
+    }
+
+    /** Si es false, los recorridos que lo soportan consultan la base en vez de la foto. */
+    public boolean habilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Devuelve la foto vigente. Solo bloquea si todavía no se cargó nunca;
+     * cada consulta debería pedirla una vez y usar esa misma foto hasta el final.
+     */
+    public SnapshotGrafo snapshot() {
+        SnapshotGrafo s = actual.get();
+        if (s == null) {
+            synchronized (this) {
+                s = actual.get();
+                if (s == null) {
+                    s = cargarCompleto();
+                    actual.set(s);
+                }
+            }
+        }
+        return s;
+    }
+
+    /** Versión de la foto publicada, o -1 si todavía no se cargó (no dispara la carga). */
+    public long versionPublicada() {
+        SnapshotGrafo s = actual.get();
+        return s == null ? -1 : s.version();
+    }
+
+    /** Fuerza una recarga completa desde la base. */
+    public SnapshotGrafo recargar() {
+        SnapshotGrafo s;
+        synchronized (this) {
+            s = cargarCompleto();
+            actual.set(s);
+        }
+        avisar();
+        return s;
+    }
+
+    /**
+     * Refresco periódico (en el hilo del scheduler, nunca en el de una consulta).
+     * Después de publicar, exporta la foto al archivo si cambió de versión.
+     */
+    @Scheduled(fixedDelayString = "${tpo.grafo.refresco-ms:30000}")
+    public void refrescar() {
+        try {
+            synchronized (this) {
+                SnapshotGrafo previa = actual.get();
+                if (previa == null) {
+                    actual.set(cargarCompleto());
+                } else {
+                    Map<String, Object> estado = repo.estadoGrafo();
+                    long version = toLong(estado.get("version"));
+                    if (version != previa.version()) {
+                        SnapshotGrafo nueva = aplicarCambios(previa, version, toLong(estado.get("ahora")));
+                        if (!coincideConLaBase(nueva)) {
+                            log.info("Refresco incremental inconsistente con la base, recargando el grafo completo");
+                            nueva = cargarCompleto();
+                        }
+                        actual.compareAndSet(previa, nueva);
+                        log.info("Grafo en memoria actualizado a la versión {}", nueva.version());
+                    } else if (sinValidar && !coincideConLaBase(previa)) {
+                        log.info("La foto de {} no coincide con la base, recargando el grafo completo", archivo);
+                        actual.compareAndSet(previa, cargarCompleto());
+                    }
+                }
+                sinValidar = false;
+                exportar(actual.get());
+            }
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo refrescar el grafo en memoria: {}", ex.getMessage());
+        }
+        avisar();
+    }
+
+    /** Publica {@link GrafoPublicado} si la foto vigente todavía no se avisó. */
+    private void avisar() {
+        SnapshotGrafo s = actual.get();
+        if (s == null || avisada.getAndSet(s) == s) return;
+        try {
+            eventos.publishEvent(new GrafoPublicado(s));
+        } catch (RuntimeException ex) {
+            log.warn("Falló un oyente de la foto del grafo (versión {}): {}", s.version(), ex.getMessage());
+        }
+    }
+
+    private void exportar(SnapshotGrafo s) {
+        if (archivo == null || s.version() == versionExportada) return;
+        try {
+            Path carpeta = archivo.toAbsolutePath().getParent();
+            if (carpeta != null) Files.createDirectories(carpeta);
+            s.guardarEn(archivo);
+            versionExportada = s.version();
+            log.info("Foto del grafo (versión {}) exportada a {}", s.version(), archivo);
+        } catch (IOException ex) {
+            log.warn("No se pudo exportar la foto del grafo a {}: {}", archivo, ex.getMessage());
+        }
+    }
+
+    private SnapshotGrafo aplicarCambios(SnapshotGrafo previa, long version, long ahora) {
+        Set<String> hubsTocados = new HashSet<>();
+        List<SnapshotGrafo.Ruta> rutas = new ArrayList<>();
+        for (var r : repo.rutasDeHubsModificadosDesde(previa.marca())) {
+            hubsTocados.add((String) r.get("desde"));
+            if (r.get("hasta") != null) rutas.add(aRuta(r));
+        }
+
+        Set<String> clientesTocados = new HashSet<>();
+        List<SnapshotGrafo.Atencion> atenciones = new ArrayList<>();
+        for (var r : repo.atencionesDeClientesModificadosDesde(previa.marca())) {
+            clientesTocados.add((String) r.get("cliente"));
+            if (r.get("hub") != null) atenciones.add(aAtencion(r));
+        }
+
+        return previa.conCambios(version, ahora, hubsTocados, rutas, clientesTocados, atenciones);
+    }
+
+    private boolean coincideConLaBase(SnapshotGrafo s) {
+        Map<String, Object> c = repo.conteosGrafo();
+        return toLong(c.get("hubs")) == s.hubs().size()
+                && toLong(c.get("rutas")) == s.cantidadAristas()
+                && toLong(c.get("clientes")) == s.clientes().size()
+                && toLong(c.get("atenciones")) == s.cantidadAtenciones();
+    }
+
+    private SnapshotGrafo cargarCompleto() {
+        // la marca se toma ANTES de leer: lo que cambie durante la carga se vuelve a traer
+        Map<String, Object> estado = repo.estadoGrafo();
+
+        List<SnapshotGrafo.Ruta> rutas = repo.todasLasRutas().stream()
+                .map(GrafoEnMemoria::aRuta)
+                .toList();
+
+        List<SnapshotGrafo.Atencion> atenciones = repo.todasLasAtenciones().stream()
+                .map(GrafoEnMemoria::aAtencion)
+                .toList();
+
+        return SnapshotGrafo.construir(
+                toLong(estado.get("version")),
+                toLong(estado.get("ahora")),
+                repo.todosLosHubs(), repo.todosLosClientes(), rutas, atenciones);
+    }
+
+    private static SnapshotGrafo.Ruta aRuta(Map<String, Object> r) {
+        return new SnapshotGrafo.Ruta(
+                (String) r.get("desde"),
+                (String) r.get("hasta"),
+                toDouble(r.get("dist")),
+                toDouble(r.get("tiempo")),
+                toDouble(r.get("peaje")));
+    }
+
+    private static SnapshotGrafo.Atencion aAtencion(Map<String, Object> r) {
+        return new SnapshotGrafo.Atencion((String) r.get("hub"), (String) r.get("cliente"));
+    }
+
+    private static double toDouble(Object o) {
+        if (o == null) return 0.0;
+        if (o instanceof Number n) return n.doubleValue();
+        return Double.parseDouble(o.toString());
+    }
+
+    private static long toLong(Object o) {
+        if (o == null) return 0L;
+        if (o instanceof Number n) return n.longValue();
+        return Long.parseLong(o.toString());
+    }
+}
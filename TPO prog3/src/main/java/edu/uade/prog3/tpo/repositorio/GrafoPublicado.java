@@ -0,0 +1,8 @@
+package edu.uade.prog3.tpo.repositorio;
+
+/**
+ * Evento de Spring: {@link GrafoEnMemoria} publicó una foto nueva.
+ * Se emite en el hilo del refresco, fuera del lock, para que quien arme
+ * estructuras derivadas de la foto (p. ej. landmarks) no frene las consultas.
+ */
+public record GrafoPublicado(SnapshotGrafo snapshot) {}
@@ -1,231 +1,139 @@
-// src/main/java/edu/uade/prog3/tpo/repositorio/IRepositorioGrafo.java
 package edu.uade.prog3.tpo.repositorio;
 
-import org.springframework.data.neo4j.core.Neo4jClient;
-import org.springframework.stereotype.Repository;
-
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
-
-@Repository
-public class IRepositorioGrafo {
-
-    private final Neo4jClient neo4j;
 
-    public IRepositorioGrafo(Neo4jClient neo4j) {
-        this.neo4j = neo4j;
-    }
+/**
+ * Acceso a la red logística (Hubs, RUTAs, Clientes, Paquetes y Vehículos).
+ *
+ * Implementaciones (se elige por perfil de Spring):
+ * - {@link RepositorioGrafoNeo4j}: la base Neo4j (perfil por defecto).
+ * - {@link RepositorioGrafoArchivo}: archivos CSV locales (perfil "archivo"),
+ *   para levantar nodos de prueba sin Bolt y medir los algoritmos sin ruido de red.
+ *
+ * Las filas se devuelven como Map con las mismas claves que usan las consultas Cypher.
+ */
+public interface IRepositorioGrafo {
 
-    public boolean existeHubPorId(String id) {
-        String q = """
-            MATCH (h:Hub {id:$id}) RETURN count(h) AS c
-        """;
-        return neo4j.query(q).bind(id).to("id").fetchAs(Long.class).one().orElse(0L) > 0;
-    }
+    // =========================
+    //  NODOS
+    // =========================
 
-    public boolean existeClientePorId(String id) {
-        String q = """
-            MATCH (c:Cliente {id:$id}) RETURN count(c) AS c
-        """;
-        return neo4j.query(q).bind(id).to("id").fetchAs(Long.class).one().orElse(0L) > 0;
-    }
+    boolean existeHubPorId(String id);
 
-    /** Vecinos solo por rutas entre Hubs (:RUTA, sin dirección). */
-    public List<String> vecinosHubs(String hubId) {
-        String q = """
-            MATCH (n:Hub {id:$id})-[:RUTA]-(m:Hub)
-            RETURN DISTINCT m.id AS vecino
-            ORDER BY vecino
-        """;
-        return neo4j.query(q).bind(hubId).to("id").fetch().all().stream()
-                .map(r -> (String) r.get("vecino")).toList();
-    }
+    boolean existeClientePorId(String id);
 
-    /** Vecinos incluyendo Clientes (hop por :ATIENDE de/desde una Sucursal). */
-    public List<String> vecinosIncluyendoClientes(String nodoId) {
-        String q = """
-        CALL {
-          WITH $id AS id
-          MATCH (n {id:id})-[:RUTA]-(h:Hub)
-          RETURN h.id AS vecino
-          UNION
-          WITH $id AS id
-          MATCH (n {id:id})-[:ATIENDE]-(c:Cliente)
-          RETURN c.id AS vecino
-        }
-        RETURN DISTINCT vecino
-        ORDER BY vecino
-    """;
-        return neo4j.query(q)
-                .bind(nodoId).to("id")
-                .fetch().all().stream()
-                .map(r -> (String) r.get("vecino"))
-                .toList();
-    }
+    /** Una fila por id: etiquetas del Hub (null si no es Hub) y si es Cliente. */
+    List<Map<String, Object>> tiposDeNodos(List<String> ids);
 
     /** Nombre legible (sirve para Deposito/Sucursal/Cliente indistintamente). */
-    public Optional<String> nombreDe(String id) {
-        String q = """
-            MATCH (n {id:$id}) RETURN n.nombre AS nombre LIMIT 1
-        """;
-        return neo4j.query(q).bind(id).to("id").fetch().one().map(m -> (String) m.get("nombre"));
-    }
+    Optional<String> nombreDe(String id);
 
+    /** Nombres en el mismo orden que los ids (si no tiene nombre, el id). */
+    List<String> nombresDe(List<String> ids);
 
-    /** Utilidad para nombres masivos. */
-    public List<String> nombresDe(List<String> ids) {
-        if (ids == null || ids.isEmpty()) return List.of();
-        String q = """
-            UNWIND $ids AS i
-            MATCH (n {id:i})
-            RETURN i AS id, n.nombre AS nombre
-        """;
-        Map<String, String> nombres = neo4j.query(q)
-                .bind(ids).to("ids")
-                .fetch().all().stream()
-                .collect(Collectors.toMap(
-                        r -> (String) r.get("id"),
-                        r -> (String) r.getOrDefault("nombre", r.get("id")),
-                        //si viene la misma key dos veces, uso la primera para no romper el map
-                        (n1, n2) -> n1
-
-                ));
-        return ids.stream().map(i -> nombres.getOrDefault(i, i)).toList();
-    }
-
+    /** Nombres de un lote de Hubs/Clientes; los ids que no existen no aparecen. */
+    Map<String, String> nombresPorIds(List<String> ids);
 
+    /** Nombres de todos los Hubs y Clientes. */
+    Map<String, String> nombresDeHubsYClientes();
 
     /** Dado un cliente, devuelve la sucursal que lo atiende (para atajo a nivel de negocio). */
-    public Optional<String> sucursalQueAtiendeCliente(String clienteId) {
-        String q = """
-            MATCH (s:Sucursal)-[:ATIENDE]->(c:Cliente {id:$id})
-            RETURN s.id AS suc LIMIT 1
-        """;
-        return neo4j.query(q).bind(clienteId).to("id").fetch().one().map(m -> (String) m.get("suc"));
-    }
+    Optional<String> sucursalQueAtiendeCliente(String clienteId);
 
     /** Dado un cliente, devuelve todas las sucursales que lo atienden. */
-    public List<String> sucursalesQueAtiendenCliente(String clienteId) {
-        String q = """
-        MATCH (s:Sucursal:Hub)-[:ATIENDE]->(c:Cliente {id:$id})
-        RETURN s.id AS suc
-    """;
-        return neo4j.query(q)
-                .bind(clienteId).to("id")
-                .fetch().all().stream()
-                .map(r -> (String) r.get("suc"))
-                .toList();
-    }
+    List<String> sucursalesQueAtiendenCliente(String clienteId);
 
+    // =========================
+    //  VECINOS
+    // =========================
 
+    /** Vecinos solo por rutas entre Hubs (:RUTA, sin dirección), ordenados. */
+    List<String> vecinosHubs(String hubId);
 
+    /** Vecinos incluyendo Clientes (hop por :ATIENDE de/desde una Sucursal), ordenados. */
+    List<String> vecinosIncluyendoClientes(String nodoId);
 
-    /** Devuelve vecinos Hub -> Hub, con pesos de la relación :RUTA (solo OUTGOING). */
-    // java
-    public List<Map<String, Object>> vecinosConPesos(String hubId) {
-        String q = """
-        MATCH (n:Hub {id:$id})-[r:RUTA]->(m:Hub)
-        RETURN m.id AS vecino, r.dist_km AS dist, r.tiempo_min AS tiempo, r.peaje AS peaje
-        ORDER BY vecino
-    """;
-        return neo4j.query(q).bind(hubId).to("id").fetch().all().stream().toList();
-    }
+    /** Versión por lotes de vecinosHubs, agrupada por id de origen. */
+    Map<String, List<String>> vecinosHubsDe(List<String> hubIds);
 
-    public List<String> todosLosHubs() {
-        String q = "MATCH (h:Hub) RETURN h.id AS id ORDER BY id";
-        return neo4j.query(q).fetch().all().stream()
-                .map(r -> (String) r.get("id")).toList();
-    }
+    /** Versión por lotes de vecinosIncluyendoClientes, agrupada por id de origen. */
+    Map<String, List<String>> vecinosIncluyendoClientesDe(List<String> nodoIds);
+
+    /** Vecinos Hub -> Hub con pesos de la :RUTA (solo salientes): vecino, dist, tiempo, peaje. */
+    List<Map<String, Object>> vecinosConPesos(String hubId);
+
+    // =========================
+    //  CARGA MASIVA (grafo en memoria)
+    // =========================
+
+    List<String> todosLosHubs();
+
+    List<String> todosLosClientes();
+
+    /** Todas las :RUTA: desde, hasta, dist, tiempo, peaje. */
+    List<Map<String, Object>> todasLasRutas();
+
+    /** Pares Hub–Cliente unidos por :ATIENDE: hub, cliente. */
+    List<Map<String, Object>> todasLasAtenciones();
+
+    // =========================
+    //  VERSIÓN DEL GRAFO / CAMBIOS INCREMENTALES
+    // =========================
+
+    /** version (de :GraphMeta) y ahora (hora de la base, epoch ms). */
+    Map<String, Object> estadoGrafo();
+
+    /** hubs, rutas, clientes, atenciones. */
+    Map<String, Object> conteosGrafo();
+
+    /** Rutas salientes actuales de los Hubs tocados desde la marca (hasta = null si no tiene). */
+    List<Map<String, Object>> rutasDeHubsModificadosDesde(long desdeEpochMillis);
+
+    /** Hubs actuales de los Clientes tocados desde la marca (hub = null si no tiene). */
+    List<Map<String, Object>> atencionesDeClientesModificadosDesde(long desdeEpochMillis);
 
     // =========================
     //  PAQUETES / VEHÍCULOS
     // =========================
 
-    /**
-     * Devuelve los paquetes pendientes originados en un depósito.
-     * MATCH (d:Deposito {id:$depositoId})-[:ORIGINA]->(p:Paquete {estado:'pendiente'})
-     */
-    public List<Map<String, Object>> paquetesPendientesDeDeposito(String depositoId) {
-        String q = """
-                MATCH (d:Deposito:Hub {id:$dep})-[:ORIGINA]->(p:Paquete)
-                WHERE p.estado = 'pendiente'
-                RETURN p.id AS id,
-                       p.peso_kg AS peso_kg,
-                       p.volumen_m3 AS volumen_m3,
-                       p.prioridad AS prioridad,
-                       p.estado AS estado
-                ORDER BY prioridad ASC, peso_kg ASC
-                """;
-        return neo4j.query(q)
-                .bind(depositoId).to("dep")
-                .fetch().all().stream().toList();
-    }
+    /** Paquetes pendientes originados en un depósito, por prioridad y peso ascendentes. */
+    List<Map<String, Object>> paquetesPendientesDeDeposito(String depositoId);
 
     /**
-     * Devuelve los vehículos que tiene un depósito.
-     * MATCH (d:Deposito {id:$depositoId})-[:TIENE_VEHICULO]->(v:Vehiculo)
+     * Una página de pendientes en orden (prioridad, peso_kg, id), empezando después de la
+     * clave dada (prioridad null = primera página). Prioridad vacía cuenta como 999 y
+     * peso vacío como Double.MAX_VALUE, igual que en los servicios.
      */
-    public List<Map<String, Object>> vehiculosDeDeposito(String depositoId) {
-        String q = """
-                MATCH (d:Deposito:Hub {id:$dep})-[:TIENE_VEHICULO]->(v:Vehiculo)
-                RETURN v.id AS id,
-                       v.patente AS patente,
-                       v.capacidad_kg AS capacidad_kg,
-                       v.volumen_m3 AS volumen_m3,
-                       v.costo_km AS costo_km,
-                       v.tipo AS tipo
-                ORDER BY id
-                """;
-        return neo4j.query(q)
-                .bind(depositoId).to("dep")
-                .fetch().all().stream().toList();
-    }
+    List<Map<String, Object>> paginaPaquetesPendientes(String depositoId,
+                                                       Long despuesPrioridad,
+                                                       Double despuesPeso,
+                                                       String despuesId,
+                                                       int limite);
 
     /**
-     * Actualiza el estado de un paquete.
+     * Recorre los pendientes de un depósito de a una página por vez: en memoria
+     * nunca hay más de tamPagina filas (ver {@link CursorPaquetes}).
      */
-    public void actualizarEstadoPaquete(String paqueteId, String nuevoEstado) {
-        String q = """
-                MATCH (p:Paquete {id:$id})
-                SET p.estado = $estado
-                """;
-        neo4j.query(q)
-                .bind(paqueteId).to("id")
-                .bind(nuevoEstado).to("estado")
-                .run();
+    default Iterator<Map<String, Object>> recorrerPaquetesPendientes(String depositoId, int tamPagina) {
+        return new CursorPaquetes(this, depositoId, tamPagina);
     }
 
-    /**
-     * Setea el destino en el paquete (porque vos lo pasás por endpoint).
-     */
-    public void setearDestinoPaquete(String paqueteId, String destino) {
-        String q = """
-                MATCH (p:Paquete {id:$id})
-                SET p.destino = $destino
-                """;
-        neo4j.query(q)
-                .bind(paqueteId).to("id")
-                .bind(destino).to("destino")
-                .run();
-    }
+    /** Vehículos que tiene un depósito, ordenados por id. */
+    List<Map<String, Object>> vehiculosDeDeposito(String depositoId);
+
+    void actualizarEstadoPaquete(String paqueteId, String nuevoEstado);
+
+    void setearDestinoPaquete(String paqueteId, String destino);
+
+    /** Relación de viaje (v)-[:TRANSPORTA {destino, fecha}]->(p). */
+    void crearRelacionTransporte(String vehiculoId, String paqueteId, String destino);
 
     /**
-     * (Opcional) Crear relación de viaje: (v)-[:TRANSPORTA {destino:..., fecha:datetime()}]->(p)
+     * Asigna un lote de paquetes a un vehículo de una sola vez: estado, destino
+     * (si viene vacío no se toca) y la relación :TRANSPORTA de cada uno.
      */
-    public void crearRelacionTransporte(String vehiculoId, String paqueteId, String destino) {
-        String q = """
-                MATCH (v:Vehiculo {id:$veh}), (p:Paquete {id:$paq})
-                MERGE (v)-[t:TRANSPORTA]->(p)
-                SET t.destino = $destino,
-                    t.fecha = datetime()
-                """;
-        neo4j.query(q)
-                .bind(vehiculoId).to("veh")
-                .bind(paqueteId).to("paq")
-                .bind(destino).to("destino")
-                .run();
-    }
-
+    void asignarPaquetes(String vehiculoId, List<String> paqueteIds, String estado, String destino);
 }
@@ -0,0 +1,18 @@
+package edu.uade.prog3.tpo.repositorio;
+
+import java.util.List;
+
+/** Algún paquete ya está reservado por otra asignación asíncrona que todavía no se escribió. */
+public class PaqueteEnColaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> paqueteIds;
+
+    public PaqueteEnColaException(List<String> paqueteIds) {
+        super("Paquetes ya asignados en otra asignación pendiente de escribir: " + paqueteIds);
+        this.paqueteIds = paqueteIds;
+    }
+
+    public List<String> getPaqueteIds() { return paqueteIds; }
+}
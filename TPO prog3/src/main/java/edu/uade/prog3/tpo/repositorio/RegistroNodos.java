@@ -0,0 +1,120 @@
+package edu.uade.prog3.tpo.repositorio;
+
+import edu.uade.prog3.tpo.dominio.TipoNodo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro cacheado de nodos: qué tipo es cada id (Deposito/Sucursal/Hub/Cliente)
+ * y qué sucursales atienden a cada cliente.
+ *
+ * Reemplaza los existeHubPorId / existeClientePorId / sucursalesQueAtiendenCliente
+ * que se hacían en cada llamada (Backtracking y Branch & Bound llaman a Dijkstra
+ * cientos de veces por request). Un id se resuelve con una sola consulta y queda
+ * cacheado. Todo se descarta cuando cambia la versión del grafo.
+ * Un id que no existe no se cachea: si se crea después, se reconoce en la próxima consulta
+ * aunque la versión del grafo todavía no haya cambiado.
+ */
+@Component
+public class RegistroNodos {
+
+    /** Resultado para "este id no existe" (no se cachea). */
+    private static final Optional<TipoNodo> INEXISTENTE = Optional.empty();
+
+    private final IRepositorioGrafo repo;
+    private final GrafoEnMemoria grafo;
+    private final int capacidad;
+
+    private final Map<String, Optional<TipoNodo>> tipos = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> sucursalesPorCliente = new ConcurrentHashMap<>();
+    private volatile long version = Long.MIN_VALUE;
+
+    public RegistroNodos(IRepositorioGrafo repo,
+                         GrafoEnMemoria grafo,
+                         @Value("${tpo.registro.capacidad:50000}") int capacidad) {
+        this.repo = repo;
+        this.grafo = grafo;
+        this.capacidad = capacidad;
+    }
+
+    public Optional<TipoNodo> tipoDe(String id) {
+        if (id == null) return INEXISTENTE;
+        vigilarVersion();
+        Optional<TipoNodo> t = tipos.get(id);
+        if (t != null) return t;
+        return tiposDe(List.of(id)).get(id);
+    }
+
+    /** Resuelve varios ids juntos (los que falten, en una sola consulta). */
+    public Map<String, Optional<TipoNodo>> tiposDe(Collection<String> ids) {
+        vigilarVersion();
+        Map<String, Optional<TipoNodo>> res = new HashMap<>();
+        List<String> faltan = new ArrayList<>();
+        for (String id : ids) {
+            Optional<TipoNodo> t = tipos.get(id);
+            if (t != null) res.put(id, t);
+            else if (!faltan.contains(id)) faltan.add(id);
+        }
+        if (faltan.isEmpty()) return res;
+
+        if (tipos.size() + faltan.size() > capacidad) tipos.clear();
+        for (Map<String, Object> fila : repo.tiposDeNodos(faltan)) {
+            String id = (String) fila.get("id");
+            Optional<TipoNodo> t = aTipo(fila);
+            if (t.isPresent()) tipos.put(id, t);
+            res.put(id, t);
+        }
+        for (String id : faltan) res.putIfAbsent(id, INEXISTENTE);
+        return res;
+    }
+
+    public boolean esHub(String id) {
+        return tipoDe(id).map(TipoNodo::esHub).orElse(false);
+    }
+
+    public boolean esCliente(String id) {
+        return tipoDe(id).map(t -> t == TipoNodo.CLIENTE).orElse(false);
+    }
+
+    /** Sucursales que atienden al cliente (cacheado). */
+    public List<String> sucursalesQueAtienden(String clienteId) {
+        vigilarVersion();
+        List<String> sucs = sucursalesPorCliente.get(clienteId);
+        if (sucs != null) return sucs;
+        if (sucursalesPorCliente.size() >= capacidad) sucursalesPorCliente.clear();
+        sucs = List.copyOf(repo.sucursalesQueAtiendenCliente(clienteId));
+        sucursalesPorCliente.put(clienteId, sucs);
+        return sucs;
+    }
+
+    // ---------- helpers ----------
+
+    /** Si el grafo cambió de versión, lo cacheado puede estar viejo: se descarta. */
+    private void vigilarVersion() {
+        long v = grafo.versionPublicada();
+        if (v != version) {
+            synchronized (this) {
+                if (v != version) {
+                    tipos.clear();
+                    sucursalesPorCliente.clear();
+                    version = v;
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Optional<TipoNodo> aTipo(Map<String, Object> fila) {
+        List<String> etiquetas = (List<String>) fila.get("etiquetas");
+        if (etiquetas != null) {
+            if (etiquetas.contains("Deposito")) return Optional.of(TipoNodo.DEPOSITO);
+            if (etiquetas.contains("Sucursal")) return Optional.of(TipoNodo.SUCURSAL);
+            return Optional.of(TipoNodo.HUB);
+        }
+        if (Boolean.TRUE.equals(fila.get("esCliente"))) return Optional.of(TipoNodo.CLIENTE);
+        return INEXISTENTE;
+    }
+}
@@ -0,0 +1,488 @@
+package edu.uade.prog3.tpo.repositorio;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.*;
+
+/**
+ * Implementación sobre archivos CSV locales (perfil "archivo").
+ * Sirve para levantar nodos de prueba sin un servidor Neo4j y para medir
+ * los algoritmos sin ruido de red.
+ *
+ * Lee de tpo.archivo.ubicacion (ej. file:./datos/ o classpath:datos/) estos archivos,
+ * todos con encabezado y separados por coma (los valores pueden ir entre comillas):
+ *   hubs.csv       id,nombre,etiquetas          (etiquetas: Deposito | Sucursal, separadas por ';')
+ *   rutas.csv      desde,hasta,dist_km,tiempo_min,peaje
+ *   clientes.csv   id,nombre
+ *   atiende.csv    sucursal,cliente
+ *   paquetes.csv   id,deposito,peso_kg,volumen_m3,prioridad,estado,destino
+ *   vehiculos.csv  id,deposito,patente,capacidad_kg,volumen_m3,costo_km,tipo
+ *
+ * Los cambios sobre paquetes quedan en memoria (no se escriben a los archivos).
+ * Los pendientes de cada depósito se ordenan una sola vez por versión de los paquetes
+ * (cada cambio de estado la sube) y las páginas se cortan de esa lista con búsqueda binaria.
+ */
+@Repository
+@Profile("archivo")
+public class RepositorioGrafoArchivo implements IRepositorioGrafo {
+
+    private final Map<String, String> nombres = new HashMap<>();
+    private final Map<String, Set<String>> etiquetasHub = new TreeMap<>();
+    private final Set<String> clientes = new TreeSet<>();
+    private final List<Map<String, Object>> rutas = new ArrayList<>();
+    private final Map<String, List<Map<String, Object>>> rutasSalientes = new HashMap<>();
+    private final Map<String, TreeSet<String>> vecinosRuta = new HashMap<>();
+    private final Map<String, TreeSet<String>> clientesAtendidos = new HashMap<>();
+    private final Map<String, List<String>> sucursalesDeCliente = new HashMap<>();
+    private final Map<String, Map<String, Object>> paquetes = new LinkedHashMap<>();
+    private final List<Map<String, Object>> vehiculos = new ArrayList<>();
+    private final Map<String, Map<String, Object>> transportes = new HashMap<>();
+
+    /** Pendientes de un depósito en orden (prioridad, peso_kg, id). */
+    private record Pendientes(long version, List<Map<String, Object>> porClave) {}
+
+    // con el lock de paquetes
+    private long versionPaquetes;
+    private final Map<String, Pendientes> pendientesPorDeposito = new HashMap<>();
+
+    public RepositorioGrafoArchivo(ResourceLoader recursos,
+                                   @Value("${tpo.archivo.ubicacion:file:./datos/}") String ubicacion) {
+        String base = ubicacion.endsWith("/") ? ubicacion : ubicacion + "/";
+
+        for (Map<String, String> f : leer(recursos.getResource(base + "hubs.csv"))) {
+            Set<String> etiquetas = new TreeSet<>();
+            for (String e : f.getOrDefault("etiquetas", "").split(";")) {
+                if (!e.isBlank()) etiquetas.add(e.trim());
+            }
+            etiquetasHub.put(f.get("id"), etiquetas);
+            nombres.put(f.get("id"), vacioANull(f.get("nombre")));
+        }
+        for (Map<String, String> f : leer(recursos.getResource(base + "clientes.csv"))) {
+            clientes.add(f.get("id"));
+            nombres.put(f.get("id"), vacioANull(f.get("nombre")));
+        }
+        for (Map<String, String> f : leer(recursos.getResource(base + "rutas.csv"))) {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("desde", f.get("desde"));
+            r.put("hasta", f.get("hasta"));
+            r.put("dist", valor(f.get("dist_km")));
+            r.put("tiempo", valor(f.get("tiempo_min")));
+            r.put("peaje", valor(f.get("peaje")));
+            rutas.add(r);
+            rutasSalientes.computeIfAbsent(f.get("desde"), k -> new ArrayList<>()).add(r);
+            vecinosRuta.computeIfAbsent(f.get("desde"), k -> new TreeSet<>()).add(f.get("hasta"));
+            vecinosRuta.computeIfAbsent(f.get("hasta"), k -> new TreeSet<>()).add(f.get("desde"));
+        }
+        for (Map<String, String> f : leer(recursos.getResource(base + "atiende.csv"))) {
+            String suc = f.get("sucursal");
+            String cli = f.get("cliente");
+            clientesAtendidos.computeIfAbsent(suc, k -> new TreeSet<>()).add(cli);
+            sucursalesDeCliente.computeIfAbsent(cli, k -> new ArrayList<>()).add(suc);
+        }
+        for (Map<String, String> f : leer(recursos.getResource(base + "paquetes.csv"))) {
+            Map<String, Object> p = new LinkedHashMap<>();
+            f.forEach((k, v) -> p.put(k, valor(v)));
+            p.put("id", f.get("id"));
+            paquetes.put(f.get("id"), p);
+        }
+        for (Map<String, String> f : leer(recursos.getResource(base + "vehiculos.csv"))) {
+            Map<String, Object> v = new LinkedHashMap<>();
+            f.forEach((k, val) -> v.put(k, valor(val)));
+            v.put("id", f.get("id"));
+            v.put("patente", f.get("patente"));
+            vehiculos.add(v);
+        }
+        vehiculos.sort(Comparator.comparing(v -> (String) v.get("id")));
+    }
+
+    // =========================
+    //  NODOS
+    // =========================
+
+    @Override
+    public boolean existeHubPorId(String id) {
+        return etiquetasHub.containsKey(id);
+    }
+
+    @Override
+    public boolean existeClientePorId(String id) {
+        return clientes.contains(id);
+    }
+
+    @Override
+    public List<Map<String, Object>> tiposDeNodos(List<String> ids) {
+        if (ids == null || ids.isEmpty()) return List.of();
+        List<Map<String, Object>> res = new ArrayList<>();
+        for (String id : ids) {
+            Map<String, Object> fila = new HashMap<>();
+            fila.put("id", id);
+            Set<String> etiquetas = etiquetasHub.get(id);
+            if (etiquetas != null) {
+                List<String> labels = new ArrayList<>(List.of("Hub"));
+                labels.addAll(etiquetas);
+                fila.put("etiquetas", labels);
+            } else {
+                fila.put("etiquetas", null);
+            }
+            fila.put("esCliente", clientes.contains(id));
+            res.add(fila);
+        }
+        return res;
+    }
+
+    @Override
+    public Optional<String> nombreDe(String id) {
+        return Optional.ofNullable(nombres.get(id));
+    }
+
+    @Override
+    public List<String> nombresDe(List<String> ids) {
+        if (ids == null || ids.isEmpty()) return List.of();
+        return ids.stream().map(i -> {
+            String n = nombres.get(i);
+            return n == null ? i : n;
+        }).toList();
+    }
+
+    @Override
+    public Map<String, String> nombresPorIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) return Map.of();
+        Map<String, String> res = new HashMap<>();
+        for (String id : ids) {
+            if (nombres.containsKey(id)) res.put(id, nombres.get(id));
+        }
+        return res;
+    }
+
+    @Override
+    public Map<String, String> nombresDeHubsYClientes() {
+        return new HashMap<>(nombres);
+    }
+
+    @Override
+    public Optional<String> sucursalQueAtiendeCliente(String clienteId) {
+        return sucursalesQueAtiendenCliente(clienteId).stream().findFirst();
+    }
+
+    @Override
+    public List<String> sucursalesQueAtiendenCliente(String clienteId) {
+        return sucursalesDeCliente.getOrDefault(clienteId, List.of()).stream()
+                .filter(s -> etiquetasHub.getOrDefault(s, Set.of()).contains("Sucursal"))
+                .toList();
+    }
+
+    // =========================
+    //  VECINOS
+    // =========================
+
+    @Override
+    public List<String> vecinosHubs(String hubId) {
+        if (!etiquetasHub.containsKey(hubId)) return List.of();
+        return List.copyOf(vecinosRuta.getOrDefault(hubId, new TreeSet<>()));
+    }
+
+    @Override
+    public List<String> vecinosIncluyendoClientes(String nodoId) {
+        TreeSet<String> res = new TreeSet<>(vecinosRuta.getOrDefault(nodoId, new TreeSet<>()));
+        res.addAll(clientesAtendidos.getOrDefault(nodoId, new TreeSet<>()));
+        return List.copyOf(res);
+    }
+
+    @Override
+    public Map<String, List<String>> vecinosHubsDe(List<String> hubIds) {
+        if (hubIds == null || hubIds.isEmpty()) return Map.of();
+        Map<String, List<String>> res = new HashMap<>();
+        for (String id : hubIds) {
+            List<String> v = vecinosHubs(id);
+            if (!v.isEmpty()) res.put(id, v);
+        }
+        return res;
+    }
+
+    @Override
+    public Map<String, List<String>> vecinosIncluyendoClientesDe(List<String> nodoIds) {
+        if (nodoIds == null || nodoIds.isEmpty()) return Map.of();
+        Map<String, List<String>> res = new HashMap<>();
+        for (String id : nodoIds) {
+            List<String> v = vecinosIncluyendoClientes(id);
+            if (!v.isEmpty()) res.put(id, v);
+        }
+        return res;
+    }
+
+    @Override
+    public List<Map<String, Object>> vecinosConPesos(String hubId) {
+        List<Map<String, Object>> res = new ArrayList<>();
+        for (Map<String, Object> r : rutasSalientes.getOrDefault(hubId, List.of())) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("vecino", r.get("hasta"));
+            fila.put("dist", r.get("dist"));
+            fila.put("tiempo", r.get("tiempo"));
+            fila.put("peaje", r.get("peaje"));
+            res.add(fila);
+        }
+        res.sort(Comparator.comparing(f -> (String) f.get("vecino")));
+        return res;
+    }
+
+    // =========================
+    //  CARGA MASIVA
+    // =========================
+
+    @Override
+    public List<String> todosLosHubs() {
+        return List.copyOf(etiquetasHub.keySet());
+    }
+
+    @Override
+    public List<String> todosLosClientes() {
+        return List.copyOf(clientes);
+    }
+
+    @Override
+    public List<Map<String, Object>> todasLasRutas() {
+        return List.copyOf(rutas);
+    }
+
+    @Override
+    public List<Map<String, Object>> todasLasAtenciones() {
+        List<Map<String, Object>> res = new ArrayList<>();
+        clientesAtendidos.forEach((hub, clis) -> {
+            if (!etiquetasHub.containsKey(hub)) return;
+            for (String c : clis) {
+                if (clientes.contains(c)) res.add(Map.of("hub", hub, "cliente", c));
+            }
+        });
+        return res;
+    }
+
+    // =========================
+    //  VERSIÓN DEL GRAFO (los archivos no cambian mientras corre)
+    // =========================
+
+    @Override
+    public Map<String, Object> estadoGrafo() {
+        return Map.of("version", 0L, "ahora", System.currentTimeMillis());
+    }
+
+    @Override
+    public Map<String, Object> conteosGrafo() {
+        return Map.of(
+                "hubs", (long) etiquetasHub.size(),
+                "rutas", (long) rutas.size(),
+                "clientes", (long) clientes.size(),
+                "atenciones", (long) todasLasAtenciones().size());
+    }
+
+    @Override
+    public List<Map<String, Object>> rutasDeHubsModificadosDesde(long desdeEpochMillis) {
+        return List.of();
+    }
+
+    @Override
+    public List<Map<String, Object>> atencionesDeClientesModificadosDesde(long desdeEpochMillis) {
+        return List.of();
+    }
+
+    // =========================
+    //  PAQUETES / VEHÍCULOS
+    // =========================
+
+    @Override
+    public List<Map<String, Object>> paquetesPendientesDeDeposito(String depositoId) {
+        return pendientes(depositoId).porClave();
+    }
+
+    @Override
+    public List<Map<String, Object>> paginaPaquetesPendientes(String depositoId,
+                                                              Long despuesPrioridad,
+                                                              Double despuesPeso,
+                                                              String despuesId,
+                                                              int limite) {
+        List<Map<String, Object>> todos = pendientes(depositoId).porClave();
+        int desde = 0;
+        if (despuesPrioridad != null) {
+            // primer paquete con clave mayor a la dada
+            int hasta = todos.size();
+            while (desde < hasta) {
+                int medio = (desde + hasta) >>> 1;
+                if (CursorPaquetes.compararConClave(todos.get(medio), despuesPrioridad, despuesPeso, despuesId) <= 0) {
+                    desde = medio + 1;
+                } else {
+                    hasta = medio;
+                }
+            }
+        }
+        return List.copyOf(todos.subList(desde, Math.min(todos.size(), desde + limite)));
+    }
+
+    @Override
+    public List<Map<String, Object>> vehiculosDeDeposito(String depositoId) {
+        if (!etiquetasHub.getOrDefault(depositoId, Set.of()).contains("Deposito")) return List.of();
+        List<Map<String, Object>> res = new ArrayList<>();
+        for (Map<String, Object> v : vehiculos) {
+            if (!depositoId.equals(v.get("deposito"))) continue;
+            Map<String, Object> fila = new LinkedHashMap<>();
+            for (String k : List.of("id", "patente", "capacidad_kg", "volumen_m3", "costo_km", "tipo")) {
+                fila.put(k, v.get(k));
+            }
+            res.add(fila);
+        }
+        return res;
+    }
+
+    @Override
+    public void actualizarEstadoPaquete(String paqueteId, String nuevoEstado) {
+        synchronized (paquetes) {
+            Map<String, Object> p = paquetes.get(paqueteId);
+            if (p != null && !Objects.equals(p.get("estado"), nuevoEstado)) {
+                p.put("estado", nuevoEstado);
+                versionPaquetes++;
+            }
+        }
+    }
+
+    @Override
+    public void setearDestinoPaquete(String paqueteId, String destino) {
+        synchronized (paquetes) {
+            Map<String, Object> p = paquetes.get(paqueteId);
+            if (p != null) p.put("destino", destino);
+        }
+    }
+
+    @Override
+    public void crearRelacionTransporte(String vehiculoId, String paqueteId, String destino) {
+        boolean existeVehiculo = vehiculos.stream().anyMatch(v -> vehiculoId.equals(v.get("id")));
+        synchronized (paquetes) {
+            if (!existeVehiculo || !paquetes.containsKey(paqueteId)) return;
+            Map<String, Object> t = new HashMap<>();
+            t.put("destino", destino);
+            t.put("fecha", ZonedDateTime.now());
+            transportes.put(vehiculoId + "->" + paqueteId, t);
+        }
+    }
+
+    @Override
+    public void asignarPaquetes(String vehiculoId, List<String> paqueteIds, String estado, String destino) {
+        if (paqueteIds == null || paqueteIds.isEmpty()) return;
+        synchronized (paquetes) {
+            for (String id : paqueteIds) {
+                actualizarEstadoPaquete(id, estado);
+                if (destino != null && !destino.isBlank()) setearDestinoPaquete(id, destino);
+                crearRelacionTransporte(vehiculoId, id, destino);
+            }
+        }
+    }
+
+    // =========================
+    //  helpers
+    // =========================
+
+    /** Pendientes del depósito para la versión actual de los paquetes (se arman y ordenan una vez por versión). */
+    private Pendientes pendientes(String depositoId) {
+        if (!etiquetasHub.getOrDefault(depositoId, Set.of()).contains("Deposito")) {
+            return new Pendientes(0, List.of());
+        }
+        synchronized (paquetes) {
+            Pendientes cacheados = pendientesPorDeposito.get(depositoId);
+            if (cacheados != null && cacheados.version() == versionPaquetes) return cacheados;
+
+            List<Map<String, Object>> res = new ArrayList<>();
+            for (Map<String, Object> p : paquetes.values()) {
+                if (!depositoId.equals(p.get("deposito")) || !"pendiente".equals(p.get("estado"))) continue;
+                Map<String, Object> fila = new LinkedHashMap<>();
+                fila.put("id", p.get("id"));
+                fila.put("peso_kg", p.get("peso_kg"));
+                fila.put("volumen_m3", p.get("volumen_m3"));
+                fila.put("prioridad", p.get("prioridad"));
+                fila.put("estado", p.get("estado"));
+                res.add(Collections.unmodifiableMap(fila));
+            }
+            res.sort(Comparator
+                    .comparingLong(CursorPaquetes::prioridadDe)
+                    .thenComparingDouble(CursorPaquetes::pesoDe)
+                    .thenComparing(p -> (String) p.get("id")));
+            Pendientes nuevos = new Pendientes(versionPaquetes, List.copyOf(res));
+            pendientesPorDeposito.put(depositoId, nuevos);
+            return nuevos;
+        }
+    }
+
+    /** Lee un CSV con encabezado; si el archivo no existe, no hay filas. */
+    private static List<Map<String, String>> leer(Resource recurso) {
+        if (!recurso.exists()) return List.of();
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(recurso.getInputStream(), StandardCharsets.UTF_8))) {
+            String linea = in.readLine();
+            if (linea == null) return List.of();
+            List<String> encabezado = separar(linea.replace("\uFEFF", ""));
+            List<Map<String, String>> filas = new ArrayList<>();
+            while ((linea = in.readLine()) != null) {
+                if (linea.isBlank()) continue;
+                List<String> valores = separar(linea);
+                Map<String, String> fila = new LinkedHashMap<>();
+                for (int i = 0; i < encabezado.size(); i++) {
+                    fila.put(encabezado.get(i).trim(), i < valores.size() ? valores.get(i).trim() : "");
+                }
+                filas.add(fila);
+            }
+            return filas;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("No se pudo leer " + recurso.getDescription(), ex);
+        }
+    }
+
+    /** Separa una línea CSV respetando comillas dobles. */
+    private static List<String> separar(String linea) {
+        List<String> res = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (c == '"') {
+                if (entreComillas && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else {
+                    entreComillas = !entreComillas;
+                }
+            } else if (c == ',' && !entreComillas) {
+                res.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        res.add(actual.toString());
+        return res;
+    }
+
+    /** Igual que Neo4j: enteros como Long, decimales como Double, vacío como null. */
+    private static Object valor(String s) {
+        if (s == null || s.isBlank()) return null;
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException ignored) {
+            // no es entero
+        }
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException ignored) {
+            return s;
+        }
+    }
+
+    private static String vacioANull(String s) {
+        return s == null || s.isBlank() ? null : s;
+    }
+}
@@ -0,0 +1,501 @@
+// src/main/java/edu/uade/prog3/tpo/repositorio/RepositorioGrafoNeo4j.java
+package edu.uade.prog3.tpo.repositorio;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/** Implementación sobre Neo4j (perfil por defecto). */
+@Repository
+@Profile("!archivo")
+public class RepositorioGrafoNeo4j implements IRepositorioGrafo {
+
+    private final Neo4jClient neo4j;
+
+    public RepositorioGrafoNeo4j(Neo4jClient neo4j) {
+        this.neo4j = neo4j;
+    }
+
+    @Override
+    public boolean existeHubPorId(String id) {
+        String q = """
+            MATCH (h:Hub {id:$id}) RETURN count(h) AS c
+        """;
+        return neo4j.query(q).bind(id).to("id").fetchAs(Long.class).one().orElse(0L) > 0;
+    }
+
+    @Override
+    public boolean existeClientePorId(String id) {
+        String q = """
+            MATCH (c:Cliente {id:$id}) RETURN count(c) AS c
+        """;
+        return neo4j.query(q).bind(id).to("id").fetchAs(Long.class).one().orElse(0L) > 0;
+    }
+
+    /**
+     * Resuelve en una sola consulta qué es cada id: etiquetas del Hub (si lo es) y si es Cliente.
+     * Devuelve una fila por id pedido.
+     */
+    @Override
+    public List<Map<String, Object>> tiposDeNodos(List<String> ids) {
+        if (ids == null || ids.isEmpty()) return List.of();
+        String q = """
+            UNWIND $ids AS i
+            OPTIONAL MATCH (h:Hub {id:i})
+            OPTIONAL MATCH (c:Cliente {id:i})
+            RETURN i AS id, labels(h) AS etiquetas, c IS NOT NULL AS esCliente
+        """;
+        return neo4j.query(q).bind(ids).to("ids").fetch().all().stream().toList();
+    }
+
+    /** Vecinos solo por rutas entre Hubs (:RUTA, sin dirección). */
+    @Override
+    public List<String> vecinosHubs(String hubId) {
+        String q = """
+            MATCH (n:Hub {id:$id})-[:RUTA]-(m:Hub)
+            RETURN DISTINCT m.id AS vecino
+            ORDER BY vecino
+        """;
+        return neo4j.query(q).bind(hubId).to("id").fetch().all().stream()
+                .map(r -> (String) r.get("vecino")).toList();
+    }
+
+    /** Vecinos incluyendo Clientes (hop por :ATIENDE de/desde una Sucursal). */
+    @Override
+    public List<String> vecinosIncluyendoClientes(String nodoId) {
+        String q = """
+        CALL {
+          WITH $id AS id
+          MATCH (n {id:id})-[:RUTA]-(h:Hub)
+          RETURN h.id AS vecino
+          UNION
+          WITH $id AS id
+          MATCH (n {id:id})-[:ATIENDE]-(c:Cliente)
+          RETURN c.id AS vecino
+        }
+        RETURN DISTINCT vecino
+        ORDER BY vecino
+    """;
+        return neo4j.query(q)
+                .bind(nodoId).to("id")
+                .fetch().all().stream()
+                .map(r -> (String) r.get("vecino"))
+                .toList();
+    }
+
+    /**
+     * Versión por lotes de vecinosHubs: expande toda una frontera en un solo viaje a la base.
+     * Devuelve, por cada id de origen, sus vecinos ordenados (los ids sin vecinos no aparecen).
+     */
+    @Override
+    public Map<String, List<String>> vecinosHubsDe(List<String> hubIds) {
+        if (hubIds == null || hubIds.isEmpty()) return Map.of();
+        String q = """
+            UNWIND $ids AS id
+            MATCH (n:Hub {id:id})-[:RUTA]-(m:Hub)
+            WITH DISTINCT id, m.id AS vecino
+            RETURN id, collect(vecino) AS vecinos
+        """;
+        return agruparVecinos(neo4j.query(q).bind(hubIds).to("ids").fetch().all());
+    }
+
+    /** Versión por lotes de vecinosIncluyendoClientes (mismo formato que vecinosHubsDe). */
+    @Override
+    public Map<String, List<String>> vecinosIncluyendoClientesDe(List<String> nodoIds) {
+        if (nodoIds == null || nodoIds.isEmpty()) return Map.of();
+        String q = """
+            UNWIND $ids AS id
+            CALL {
+              WITH id
+              MATCH (n {id:id})-[:RUTA]-(h:Hub)
+              RETURN h.id AS vecino
+              UNION
+              WITH id
+              MATCH (n {id:id})-[:ATIENDE]-(c:Cliente)
+              RETURN c.id AS vecino
+            }
+            RETURN id, collect(vecino) AS vecinos
+        """;
+        return agruparVecinos(neo4j.query(q).bind(nodoIds).to("ids").fetch().all());
+    }
+
+    /** Ordena cada lista de vecinos igual que el ORDER BY vecino de las consultas de a un nodo. */
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<String>> agruparVecinos(Collection<Map<String, Object>> filas) {
+        Map<String, List<String>> res = new HashMap<>();
+        for (Map<String, Object> r : filas) {
+            List<String> vecinos = new ArrayList<>((List<String>) r.get("vecinos"));
+            vecinos.sort(String::compareTo);
+            res.put((String) r.get("id"), vecinos);
+        }
+        return res;
+    }
+
+    /** Nombre legible (sirve para Deposito/Sucursal/Cliente indistintamente). */
+    @Override
+    public Optional<String> nombreDe(String id) {
+        String q = """
+            MATCH (n {id:$id}) RETURN n.nombre AS nombre LIMIT 1
+        """;
+        return neo4j.query(q).bind(id).to("id").fetch().one().map(m -> (String) m.get("nombre"));
+    }
+
+
+    /** Utilidad para nombres masivos. */
+    @Override
+    public List<String> nombresDe(List<String> ids) {
+        if (ids == null || ids.isEmpty()) return List.of();
+        String q = """
+            UNWIND $ids AS i
+            MATCH (n {id:i})
+            RETURN i AS id, n.nombre AS nombre
+        """;
+        Map<String, String> nombres = neo4j.query(q)
+                .bind(ids).to("ids")
+                .fetch().all().stream()
+                .collect(Collectors.toMap(
+                        r -> (String) r.get("id"),
+                        r -> (String) r.getOrDefault("nombre", r.get("id")),
+                        //si viene la misma key dos veces, uso la primera para no romper el map
+                        (n1, n2) -> n1
+
+                ));
+        return ids.stream().map(i -> nombres.getOrDefault(i, i)).toList();
+    }
+
+
+
+    /**
+     * Nombres de un lote de ids (Hub o Cliente), buscando por etiqueta para usar los índices.
+     * Los ids que no existen no aparecen; si el nodo no tiene nombre, el valor es null.
+     */
+    @Override
+    public Map<String, String> nombresPorIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) return Map.of();
+        String q = """
+            UNWIND $ids AS i
+            OPTIONAL MATCH (h:Hub {id:i})
+            OPTIONAL MATCH (c:Cliente {id:i})
+            WITH i, coalesce(h, c) AS n
+            WHERE n IS NOT NULL
+            RETURN i AS id, n.nombre AS nombre
+        """;
+        Map<String, String> res = new HashMap<>();
+        for (Map<String, Object> r : neo4j.query(q).bind(ids).to("ids").fetch().all()) {
+            res.putIfAbsent((String) r.get("id"), (String) r.get("nombre"));
+        }
+        return res;
+    }
+
+    /** Nombres de todos los Hubs y Clientes (para precargar la cache de nombres). */
+    @Override
+    public Map<String, String> nombresDeHubsYClientes() {
+        String q = """
+            MATCH (n) WHERE n:Hub OR n:Cliente
+            RETURN n.id AS id, n.nombre AS nombre
+        """;
+        Map<String, String> res = new HashMap<>();
+        for (Map<String, Object> r : neo4j.query(q).fetch().all()) {
+            res.putIfAbsent((String) r.get("id"), (String) r.get("nombre"));
+        }
+        return res;
+    }
+
+    /** Dado un cliente, devuelve la sucursal que lo atiende (para atajo a nivel de negocio). */
+    @Override
+    public Optional<String> sucursalQueAtiendeCliente(String clienteId) {
+        String q = """
+            MATCH (s:Sucursal)-[:ATIENDE]->(c:Cliente {id:$id})
+            RETURN s.id AS suc LIMIT 1
+        """;
+        return neo4j.query(q).bind(clienteId).to("id").fetch().one().map(m -> (String) m.get("suc"));
+    }
+
+    /** Dado un cliente, devuelve todas las sucursales que lo atienden. */
+    @Override
+    public List<String> sucursalesQueAtiendenCliente(String clienteId) {
+        String q = """
+        MATCH (s:Sucursal:Hub)-[:ATIENDE]->(c:Cliente {id:$id})
+        RETURN s.id AS suc
+    """;
+        return neo4j.query(q)
+                .bind(clienteId).to("id")
+                .fetch().all().stream()
+                .map(r -> (String) r.get("suc"))
+                .toList();
+    }
+
+
+
+
+    /** Devuelve vecinos Hub -> Hub, con pesos de la relación :RUTA (solo OUTGOING). */
+    // java
+    @Override
+    public List<Map<String, Object>> vecinosConPesos(String hubId) {
+        String q = """
+        MATCH (n:Hub {id:$id})-[r:RUTA]->(m:Hub)
+        RETURN m.id AS vecino, r.dist_km AS dist, r.tiempo_min AS tiempo, r.peaje AS peaje
+        ORDER BY vecino
+    """;
+        return neo4j.query(q).bind(hubId).to("id").fetch().all().stream().toList();
+    }
+
+    @Override
+    public List<String> todosLosHubs() {
+        String q = "MATCH (h:Hub) RETURN h.id AS id ORDER BY id";
+        return neo4j.query(q).fetch().all().stream()
+                .map(r -> (String) r.get("id")).toList();
+    }
+
+    // =========================
+    //  CARGA MASIVA (grafo en memoria)
+    // =========================
+
+    @Override
+    public List<String> todosLosClientes() {
+        String q = "MATCH (c:Cliente) RETURN c.id AS id ORDER BY id";
+        return neo4j.query(q).fetch().all().stream()
+                .map(r -> (String) r.get("id")).toList();
+    }
+
+    /** Todas las :RUTA entre Hubs, con sus pesos. */
+    @Override
+    public List<Map<String, Object>> todasLasRutas() {
+        String q = """
+            MATCH (a:Hub)-[r:RUTA]->(b:Hub)
+            RETURN a.id AS desde, b.id AS hasta, r.dist_km AS dist, r.tiempo_min AS tiempo, r.peaje AS peaje
+        """;
+        return neo4j.query(q).fetch().all().stream().toList();
+    }
+
+    /** Pares Hub–Cliente unidos por :ATIENDE (en cualquier sentido). */
+    @Override
+    public List<Map<String, Object>> todasLasAtenciones() {
+        String q = """
+            MATCH (h:Hub)-[:ATIENDE]-(c:Cliente)
+            RETURN DISTINCT h.id AS hub, c.id AS cliente
+        """;
+        return neo4j.query(q).fetch().all().stream().toList();
+    }
+
+    // =========================
+    //  VERSIÓN DEL GRAFO / CAMBIOS INCREMENTALES
+    // =========================
+
+    /**
+     * Versión publicada en el nodo (:GraphMeta {id:'grafo'}) y la hora actual de la base.
+     * La hora se usa como marca para pedir después solo lo que cambió.
+     */
+    @Override
+    public Map<String, Object> estadoGrafo() {
+        String q = """
+            OPTIONAL MATCH (m:GraphMeta {id:'grafo'})
+            RETURN coalesce(m.version, 0) AS version, datetime().epochMillis AS ahora
+        """;
+        return neo4j.query(q).fetch().one().orElse(Map.of("version", 0L, "ahora", 0L));
+    }
+
+    /** Cantidad de Hubs, :RUTA, Clientes y pares :ATIENDE (para validar un refresco incremental). */
+    @Override
+    public Map<String, Object> conteosGrafo() {
+        String q = """
+            CALL { MATCH (h:Hub) RETURN count(h) AS hubs }
+            CALL { MATCH (:Hub)-[r:RUTA]->(:Hub) RETURN count(r) AS rutas }
+            CALL { MATCH (c:Cliente) RETURN count(c) AS clientes }
+            CALL { MATCH (h:Hub)-[:ATIENDE]-(c:Cliente) WITH DISTINCT h, c RETURN count(*) AS atenciones }
+            RETURN hubs, rutas, clientes, atenciones
+        """;
+        return neo4j.query(q).fetch().one().orElse(Map.of());
+    }
+
+    /**
+     * Hubs tocados desde la marca (h.updated_at o alguna :RUTA saliente con r.updated_at posterior),
+     * con TODAS sus :RUTA salientes actuales. Si el hub quedó sin rutas, viene una fila con hasta = null.
+     */
+    @Override
+    public List<Map<String, Object>> rutasDeHubsModificadosDesde(long desdeEpochMillis) {
+        String q = """
+            MATCH (h:Hub)
+            WHERE h.updated_at > datetime({epochMillis:$desde})
+               OR EXISTS { MATCH (h)-[r:RUTA]->(:Hub) WHERE r.updated_at > datetime({epochMillis:$desde}) }
+            OPTIONAL MATCH (h)-[r:RUTA]->(m:Hub)
+            RETURN h.id AS desde, m.id AS hasta, r.dist_km AS dist, r.tiempo_min AS tiempo, r.peaje AS peaje
+        """;
+        return neo4j.query(q).bind(desdeEpochMillis).to("desde").fetch().all().stream().toList();
+    }
+
+    /**
+     * Clientes tocados desde la marca (c.updated_at), con todos sus Hubs por :ATIENDE.
+     * Si el cliente quedó sin sucursal, viene una fila con hub = null.
+     */
+    @Override
+    public List<Map<String, Object>> atencionesDeClientesModificadosDesde(long desdeEpochMillis) {
+        String q = """
+            MATCH (c:Cliente)
+            WHERE c.updated_at > datetime({epochMillis:$desde})
+            OPTIONAL MATCH (h:Hub)-[:ATIENDE]-(c)
+            RETURN DISTINCT h.id AS hub, c.id AS cliente
+        """;
+        return neo4j.query(q).bind(desdeEpochMillis).to("desde").fetch().all().stream().toList();
+    }
+
+    // =========================
+    //  PAQUETES / VEHÍCULOS
+    // =========================
+
+    /**
+     * Devuelve los paquetes pendientes originados en un depósito.
+     * MATCH (d:Deposito {id:$depositoId})-[:ORIGINA]->(p:Paquete {estado:'pendiente'})
+     */
+    @Override
+    public List<Map<String, Object>> paquetesPendientesDeDeposito(String depositoId) {
+        String q = """
+                MATCH (d:Deposito:Hub {id:$dep})-[:ORIGINA]->(p:Paquete)
+                WHERE p.estado = 'pendiente'
+                RETURN p.id AS id,
+                       p.peso_kg AS peso_kg,
+                       p.volumen_m3 AS volumen_m3,
+                       p.prioridad AS prioridad,
+                       p.estado AS estado
+                ORDER BY prioridad ASC, peso_kg ASC
+                """;
+        return neo4j.query(q)
+                .bind(depositoId).to("dep")
+                .fetch().all().stream().toList();
+    }
+
+    /**
+     * Página de pendientes por keyset (prioridad, peso_kg, id): cada página es una consulta
+     * chica con LIMIT, en vez de traer todo el depósito con fetch().all().
+     */
+    @Override
+    public List<Map<String, Object>> paginaPaquetesPendientes(String depositoId,
+                                                              Long despuesPrioridad,
+                                                              Double despuesPeso,
+                                                              String despuesId,
+                                                              int limite) {
+        String q = """
+                MATCH (d:Deposito:Hub {id:$dep})-[:ORIGINA]->(p:Paquete)
+                WHERE p.estado = 'pendiente'
+                WITH p, coalesce(p.prioridad, 999) AS kPrioridad, coalesce(p.peso_kg, $pesoVacio) AS kPeso
+                WHERE $prioridad IS NULL
+                   OR kPrioridad > $prioridad
+                   OR (kPrioridad = $prioridad AND (kPeso > $peso OR (kPeso = $peso AND p.id > $id)))
+                RETURN p.id AS id,
+                       p.peso_kg AS peso_kg,
+                       p.volumen_m3 AS volumen_m3,
+                       p.prioridad AS prioridad,
+                       p.estado AS estado
+                ORDER BY kPrioridad ASC, kPeso ASC, id ASC
+                LIMIT $limite
+                """;
+        return neo4j.query(q)
+                .bind(depositoId).to("dep")
+                .bind(Double.MAX_VALUE).to("pesoVacio")
+                .bind(despuesPrioridad).to("prioridad")
+                .bind(despuesPeso).to("peso")
+                .bind(despuesId).to("id")
+                .bind(limite).to("limite")
+                .fetch().all().stream().toList();
+    }
+
+    /**
+     * Devuelve los vehículos que tiene un depósito.
+     * MATCH (d:Deposito {id:$depositoId})-[:TIENE_VEHICULO]->(v:Vehiculo)
+     */
+    @Override
+    public List<Map<String, Object>> vehiculosDeDeposito(String depositoId) {
+        String q = """
+                MATCH (d:Deposito:Hub {id:$dep})-[:TIENE_VEHICULO]->(v:Vehiculo)
+                RETURN v.id AS id,
+                       v.patente AS patente,
+                       v.capacidad_kg AS capacidad_kg,
+                       v.volumen_m3 AS volumen_m3,
+                       v.costo_km AS costo_km,
+                       v.tipo AS tipo
+                ORDER BY id
+                """;
+        return neo4j.query(q)
+                .bind(depositoId).to("dep")
+                .fetch().all().stream().toList();
+    }
+
+    /**
+     * Actualiza el estado de un paquete.
+     */
+    @Override
+    public void actualizarEstadoPaquete(String paqueteId, String nuevoEstado) {
+        String q = """
+                MATCH (p:Paquete {id:$id})
+                SET p.estado = $estado
+                """;
+        neo4j.query(q)
+                .bind(paqueteId).to("id")
+                .bind(nuevoEstado).to("estado")
+                .run();
+    }
+
+    /**
+     * Setea el destino en el paquete (porque vos lo pasás por endpoint).
+     */
+    @Override
+    public void setearDestinoPaquete(String paqueteId, String destino) {
+        String q = """
+                MATCH (p:Paquete {id:$id})
+                SET p.destino = $destino
+                """;
+        neo4j.query(q)
+                .bind(paqueteId).to("id")
+                .bind(destino).to("destino")
+                .run();
+    }
+
+    /**
+     * (Opcional) Crear relación de viaje: (v)-[:TRANSPORTA {destino:..., fecha:datetime()}]->(p)
+     */
+    @Override
+    public void crearRelacionTransporte(String vehiculoId, String paqueteId, String destino) {
+        String q = """
+                MATCH (v:Vehiculo {id:$veh}), (p:Paquete {id:$paq})
+                MERGE (v)-[t:TRANSPORTA]->(p)
+                SET t.destino = $destino,
+                    t.fecha = datetime()
+                """;
+        neo4j.query(q)
+                .bind(vehiculoId).to("veh")
+                .bind(paqueteId).to("paq")
+                .bind(destino).to("destino")
+                .run();
+    }
+
+    /**
+     * Lo mismo que actualizarEstadoPaquete + setearDestinoPaquete + crearRelacionTransporte
+     * para todo el lote, en UNA sentencia (un viaje a la base y una sola transacción).
+     */
+    @Override
+    public void asignarPaquetes(String vehiculoId, List<String> paqueteIds, String estado, String destino) {
+        if (paqueteIds == null || paqueteIds.isEmpty()) return;
+        String q = """
+                UNWIND $ids AS pid
+                MATCH (p:Paquete {id:pid})
+                SET p.estado = $estado
+                FOREACH (_ IN CASE WHEN coalesce(trim($destino), '') = '' THEN [] ELSE [1] END |
+                    SET p.destino = $destino)
+                WITH p
+                MATCH (v:Vehiculo {id:$veh})
+                MERGE (v)-[t:TRANSPORTA]->(p)
+                SET t.destino = $destino,
+                    t.fecha = datetime()
+                """;
+        neo4j.query(q)
+                .bind(paqueteIds).to("ids")
+                .bind(estado).to("estado")
+                .bind(destino).to("destino")
+                .bind(vehiculoId).to("veh")
+                .run();
+    }
+
+}
@@ -0,0 +1,569 @@
+package edu.uade.prog3.tpo.repositorio;
+
+import edu.uade.prog3.tpo.dominio.AristaRuta;
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Foto inmutable de la red (:Hub, :RUTA, :Cliente, :ATIENDE) cargada en memoria.
+ *
+ * - Los ids se internan a enteros en orden alfabético, así recorrer por índice
+ *   respeta el mismo orden que el ORDER BY vecino de las consultas Cypher.
+ * - Las :RUTA salientes se guardan en formato CSR: un arreglo de offsets por nodo
+ *   y columnas primitivas (destino, dist_km, tiempo_min, peaje) por arista.
+ *   Aparte hay un índice de entrantes (por destino) que apunta a esas mismas aristas,
+ *   para búsquedas hacia atrás.
+ * - También guarda las listas de vecinos sin dirección que usan BFS y DFS
+ *   (solo Hubs, o Hubs + Clientes por :ATIENDE).
+ *
+ * Nunca se modifica: un cambio en la base produce una foto nueva
+ * (ver {@link #conCambios}) que se publica reemplazando la referencia.
+ *
+ * Se puede guardar en un archivo binario ({@link #guardarEn}) y volver a levantar
+ * sin pasar por Cypher ({@link #leerDe}), para arrancar en caliente.
+ */
+public final class SnapshotGrafo {
+
+    private static final byte[] MAGIA = {'T', 'P', 'O', 'G'};
+    private static final int FORMATO = 1;
+    private static final int CABECERA = 4 + 4 + 8 + 8 + 5 * 4;
+
+    /** Una :RUTA tal como viene de la base. */
+    public record Ruta(String desde, String hasta, double distKm, double tiempoMin, double peaje) {}
+
+    /** Par Hub–Cliente unido por :ATIENDE. */
+    public record Atencion(String hubId, String clienteId) {}
+
+    private final long version;       // versión de (:GraphMeta) con la que se armó
+    private final long marca;         // hora de la base (epoch ms) hasta la que está sincronizada
+
+    private final String[] ids;
+    private final Map<String, Integer> indice;
+    private final boolean[] esHub;
+    private final boolean[] esCliente;
+
+    // :RUTA salientes (CSR): las aristas de u están en [salidaInicio[u], salidaInicio[u+1])
+    private final int[] salidaInicio;
+    private final int[] salidaOrigen;
+    private final int[] salidaDestino;
+    private final double[] distKm;
+    private final double[] tiempoMin;
+    private final double[] peaje;
+
+    // :RUTA entrantes: las aristas que llegan a v son entradaArista[entradaInicio[v] .. entradaInicio[v+1])
+    private final int[] entradaInicio;
+    private final int[] entradaArista;
+
+    // vecinos Hub por :RUTA sin dirección (distintos y ordenados)
+    private final int[] hubsInicio;
+    private final int[] hubsVecino;
+
+    // vecinos por :RUTA sin dirección + Clientes por :ATIENDE (distintos y ordenados)
+    private final int[] mixtoInicio;
+    private final int[] mixtoVecino;
+
+    // al revés de mixto: quiénes tienen a v como vecino (los Clientes no tienen vecinos propios,
+    // así que solo difiere en ellos). Lo usa el BFS de abajo hacia arriba.
+    private final int[] mixtoEntranteInicio;
+    private final int[] mixtoEntrante;
+
+    private final List<Atencion> atenciones;
+
+    private SnapshotGrafo(long version, long marca, String[] ids, Map<String, Integer> indice, boolean[] esHub, boolean[] esCliente,
+                          int[] salidaInicio, int[] salidaOrigen, int[] salidaDestino,
+                          double[] distKm, double[] tiempoMin, double[] peaje,
+                          int[] hubsInicio, int[] hubsVecino, int[] mixtoInicio, int[] mixtoVecino,
+                          List<Atencion> atenciones) {
+        this.version = version;
+        this.marca = marca;
+        this.ids = ids;
+        this.indice = indice;
+        this.esHub = esHub;
+        this.esCliente = esCliente;
+        this.salidaInicio = salidaInicio;
+        this.salidaOrigen = salidaOrigen;
+        this.salidaDestino = salidaDestino;
+        this.distKm = distKm;
+        this.tiempoMin = tiempoMin;
+        this.peaje = peaje;
+        int[][] entrantes = indiceEntrantes(ids.length, salidaOrigen, salidaDestino);
+        this.entradaInicio = entrantes[0];
+        this.entradaArista = entrantes[1];
+        this.hubsInicio = hubsInicio;
+        this.hubsVecino = hubsVecino;
+        this.mixtoInicio = mixtoInicio;
+        this.mixtoVecino = mixtoVecino;
+        int[][] mixtoAlReves = alReves(ids.length, mixtoInicio, mixtoVecino);
+        this.mixtoEntranteInicio = mixtoAlReves[0];
+        this.mixtoEntrante = mixtoAlReves[1];
+        this.atenciones = atenciones;
+    }
+
+    /**
+     * Arma la foto a partir de los datos crudos.
+     * Las rutas cuyo extremo no figure entre los hubs se agregan igual como Hub.
+     */
+    public static SnapshotGrafo construir(long version,
+                                          long marca,
+                                          Collection<String> hubs,
+                                          Collection<String> clientes,
+                                          List<Ruta> rutas,
+                                          List<Atencion> atenciones) {
+
+        // 1) internar ids (orden alfabético)
+        TreeSet<String> todos = new TreeSet<>(hubs);
+        todos.addAll(clientes);
+        for (Ruta r : rutas) {
+            todos.add(r.desde());
+            todos.add(r.hasta());
+        }
+        for (Atencion a : atenciones) {
+            todos.add(a.hubId());
+            todos.add(a.clienteId());
+        }
+
+        String[] ids = todos.toArray(new String[0]);
+        int n = ids.length;
+        Map<String, Integer> indice = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) indice.put(ids[i], i);
+
+        boolean[] esHub = new boolean[n];
+        boolean[] esCliente = new boolean[n];
+        for (String h : hubs) esHub[indice.get(h)] = true;
+        for (String c : clientes) esCliente[indice.get(c)] = true;
+        for (Ruta r : rutas) {
+            esHub[indice.get(r.desde())] = true;
+            esHub[indice.get(r.hasta())] = true;
+        }
+        for (Atencion a : atenciones) {
+            esHub[indice.get(a.hubId())] = true;
+            esCliente[indice.get(a.clienteId())] = true;
+        }
+
+        // 2) :RUTA salientes ordenadas por (origen, destino) → CSR
+        int m = rutas.size();
+        int[] desde = new int[m];
+        int[] hasta = new int[m];
+        for (int e = 0; e < m; e++) {
+            desde[e] = indice.get(rutas.get(e).desde());
+            hasta[e] = indice.get(rutas.get(e).hasta());
+        }
+        Integer[] orden = new Integer[m];
+        for (int e = 0; e < m; e++) orden[e] = e;
+        Arrays.sort(orden, Comparator.<Integer>comparingInt(e -> desde[e]).thenComparingInt(e -> hasta[e]));
+
+        int[] salidaInicio = new int[n + 1];
+        int[] salidaOrigen = new int[m];
+        int[] salidaDestino = new int[m];
+        double[] distKm = new double[m];
+        double[] tiempoMin = new double[m];
+        double[] peaje = new double[m];
+        for (int k = 0; k < m; k++) {
+            int e = orden[k];
+            Ruta r = rutas.get(e);
+            salidaInicio[desde[e] + 1]++;
+            salidaOrigen[k] = desde[e];
+            salidaDestino[k] = hasta[e];
+            distKm[k] = r.distKm();
+            tiempoMin[k] = r.tiempoMin();
+            peaje[k] = r.peaje();
+        }
+        for (int u = 0; u < n; u++) salidaInicio[u + 1] += salidaInicio[u];
+
+        // 3) vecinos sin dirección (solo Hubs) y con Clientes
+        long[] paresHubs = new long[2 * m];
+        for (int e = 0; e < m; e++) {
+            paresHubs[2 * e] = par(desde[e], hasta[e]);
+            paresHubs[2 * e + 1] = par(hasta[e], desde[e]);
+        }
+        long[] paresMixtos = Arrays.copyOf(paresHubs, 2 * m + atenciones.size());
+        int k = 2 * m;
+        for (Atencion a : atenciones) {
+            paresMixtos[k++] = par(indice.get(a.hubId()), indice.get(a.clienteId()));
+        }
+
+        int[][] hubsCsr = csrDesdePares(paresHubs, n);
+        int[][] mixtoCsr = csrDesdePares(paresMixtos, n);
+
+        return new SnapshotGrafo(version, marca, ids, indice, esHub, esCliente,
+                salidaInicio, salidaOrigen, salidaDestino, distKm, tiempoMin, peaje,
+                hubsCsr[0], hubsCsr[1], mixtoCsr[0], mixtoCsr[1], List.copyOf(atenciones));
+    }
+
+    /**
+     * Arma una foto nueva aplicando un refresco incremental sobre esta:
+     * - las :RUTA salientes de cada hub en hubsTocados se reemplazan por las de rutasNuevas
+     * - los :ATIENDE de cada cliente en clientesTocados se reemplazan por los de atencionesNuevas
+     * Esta foto no se modifica (los lectores que la tengan siguen viéndola entera).
+     */
+    public SnapshotGrafo conCambios(long nuevaVersion,
+                                    long nuevaMarca,
+                                    Set<String> hubsTocados,
+                                    List<Ruta> rutasNuevas,
+                                    Set<String> clientesTocados,
+                                    List<Atencion> atencionesNuevas) {
+
+        List<String> hubs = new ArrayList<>(hubs());
+        hubs.addAll(hubsTocados);
+        List<String> clientes = new ArrayList<>(clientes());
+        clientes.addAll(clientesTocados);
+
+        List<Ruta> rutas = new ArrayList<>(cantidadAristas() + rutasNuevas.size());
+        for (int e = 0; e < cantidadAristas(); e++) {
+            if (hubsTocados.contains(ids[salidaOrigen[e]])) continue;
+            rutas.add(new Ruta(ids[salidaOrigen[e]], ids[salidaDestino[e]], distKm[e], tiempoMin[e], peaje[e]));
+        }
+        rutas.addAll(rutasNuevas);
+
+        List<Atencion> nuevas = new ArrayList<>(atenciones.size() + atencionesNuevas.size());
+        for (Atencion a : atenciones) {
+            if (!clientesTocados.contains(a.clienteId())) nuevas.add(a);
+        }
+        nuevas.addAll(atencionesNuevas);
+
+        return construir(nuevaVersion, nuevaMarca, hubs, clientes, rutas, nuevas);
+    }
+
+    // =========================
+    //  VERSIÓN
+    // =========================
+
+    public long version() { return version; }
+
+    public long marca() { return marca; }
+
+    // =========================
+    //  NODOS
+    // =========================
+
+    public int cantidadNodos() { return ids.length; }
+
+    public int cantidadAristas() { return salidaDestino.length; }
+
+    public String id(int nodo) { return ids[nodo]; }
+
+    /** Índice interno del id, o -1 si no está en la foto. */
+    public int indiceDe(String id) {
+        Integer i = id == null ? null : indice.get(id);
+        return i == null ? -1 : i;
+    }
+
+    public boolean esHub(int nodo) { return esHub[nodo]; }
+
+    public boolean esCliente(int nodo) { return esCliente[nodo]; }
+
+    /** Ids de todos los Hubs, ordenados. */
+    public List<String> hubs() {
+        List<String> res = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) if (esHub[i]) res.add(ids[i]);
+        return res;
+    }
+
+    /** Ids de todos los Clientes, ordenados. */
+    public List<String> clientes() {
+        List<String> res = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) if (esCliente[i]) res.add(ids[i]);
+        return res;
+    }
+
+    public int cantidadAtenciones() { return atenciones.size(); }
+
+    // =========================
+    //  :RUTA SALIENTES (CSR)
+    // =========================
+
+    public int inicioSalida(int nodo) { return salidaInicio[nodo]; }
+
+    public int finSalida(int nodo) { return salidaInicio[nodo + 1]; }
+
+    public int origen(int arista) { return salidaOrigen[arista]; }
+
+    public int destino(int arista) { return salidaDestino[arista]; }
+
+    public double distKm(int arista) { return distKm[arista]; }
+
+    public double tiempoMin(int arista) { return tiempoMin[arista]; }
+
+    public double peaje(int arista) { return peaje[arista]; }
+
+    /** Peso de la arista según el criterio elegido. */
+    public double peso(int arista, CriterioPeso criterio, double factorPeaje) {
+        return switch (criterio) {
+            case DISTANCIA -> distKm[arista];
+            case TIEMPO -> tiempoMin[arista];
+            case COSTO -> peaje[arista] * factorPeaje;
+        };
+    }
+
+    // =========================
+    //  :RUTA ENTRANTES (búsqueda hacia atrás)
+    // =========================
+
+    public int inicioEntrada(int nodo) { return entradaInicio[nodo]; }
+
+    public int finEntrada(int nodo) { return entradaInicio[nodo + 1]; }
+
+    /** Índice de arista (el mismo que usan origen/destino/peso) en esa posición de entrantes. */
+    public int aristaEntrante(int posicion) { return entradaArista[posicion]; }
+
+    public AristaRuta arista(int arista) {
+        return new AristaRuta(ids[salidaOrigen[arista]], ids[salidaDestino[arista]],
+                distKm[arista], tiempoMin[arista], peaje[arista]);
+    }
+
+    // =========================
+    //  VECINOS SIN DIRECCIÓN (BFS / DFS)
+    // =========================
+
+    public int inicioVecinos(int nodo, boolean incluirClientes) {
+        return incluirClientes ? mixtoInicio[nodo] : hubsInicio[nodo];
+    }
+
+    public int finVecinos(int nodo, boolean incluirClientes) {
+        return incluirClientes ? mixtoInicio[nodo + 1] : hubsInicio[nodo + 1];
+    }
+
+    public int vecino(int posicion, boolean incluirClientes) {
+        return incluirClientes ? mixtoVecino[posicion] : hubsVecino[posicion];
+    }
+
+    public int cantidadVecinos(boolean incluirClientes) {
+        return incluirClientes ? mixtoVecino.length : hubsVecino.length;
+    }
+
+    /**
+     * Nodos que tienen a este como vecino, en [inicioVecinosEntrantes, finVecinosEntrantes)
+     * (ordenados). Sin Clientes la relación es simétrica y son los mismos vecinos.
+     */
+    public int inicioVecinosEntrantes(int nodo, boolean incluirClientes) {
+        return incluirClientes ? mixtoEntranteInicio[nodo] : hubsInicio[nodo];
+    }
+
+    public int finVecinosEntrantes(int nodo, boolean incluirClientes) {
+        return incluirClientes ? mixtoEntranteInicio[nodo + 1] : hubsInicio[nodo + 1];
+    }
+
+    public int vecinoEntrante(int posicion, boolean incluirClientes) {
+        return incluirClientes ? mixtoEntrante[posicion] : hubsVecino[posicion];
+    }
+
+    /** Equivalente en memoria de vecinosHubs / vecinosIncluyendoClientes del repositorio. */
+    public List<String> vecinos(String id, boolean incluirClientes) {
+        int u = indiceDe(id);
+        if (u < 0) return List.of();
+        int ini = inicioVecinos(u, incluirClientes);
+        int fin = finVecinos(u, incluirClientes);
+        List<String> res = new ArrayList<>(fin - ini);
+        for (int k = ini; k < fin; k++) res.add(ids[vecino(k, incluirClientes)]);
+        return res;
+    }
+
+    /** Equivalente en memoria de vecinosHubsDe / vecinosIncluyendoClientesDe del repositorio. */
+    public Map<String, List<String>> vecinosDe(Collection<String> frontera, boolean incluirClientes) {
+        Map<String, List<String>> res = new HashMap<>(frontera.size() * 2);
+        for (String id : frontera) {
+            List<String> vecinos = vecinos(id, incluirClientes);
+            if (!vecinos.isEmpty()) res.put(id, vecinos);
+        }
+        return res;
+    }
+
+    // =========================
+    //  FORMATO BINARIO (arranque en caliente)
+    // =========================
+    //  cabecera:  "TPOG" | formato | version | marca | n | m | #hubsVecino | #mixtoVecino | #atenciones
+    //  ids:       por nodo, largo + bytes UTF-8 (en el orden interno); después un byte por nodo (1 = Hub, 2 = Cliente)
+    //  columnas:  salidaInicio[n+1] salidaOrigen[m] salidaDestino[m] distKm[m] tiempoMin[m] peaje[m]
+    //             hubsInicio[n+1] hubsVecino[] mixtoInicio[n+1] mixtoVecino[] atenciones[(hub, cliente)]
+    //  Todo big-endian; los enteros son int de 32 bits y los pesos double.
+
+    /**
+     * Guarda la foto en un archivo binario. Se escribe a un temporal y se mueve
+     * encima del destino, así un lector nunca ve un archivo a medio escribir.
+     */
+    public void guardarEn(Path destino) throws IOException {
+        int n = ids.length;
+        int m = salidaDestino.length;
+        byte[][] bytesIds = new byte[n][];
+        long tam = CABECERA + n;
+        for (int i = 0; i < n; i++) {
+            bytesIds[i] = ids[i].getBytes(StandardCharsets.UTF_8);
+            tam += 4 + bytesIds[i].length;
+        }
+        tam += 4L * (3L * (n + 1) + 2L * m + hubsVecino.length + mixtoVecino.length + 2L * atenciones.size());
+        tam += 8L * 3 * m;
+
+        Path tmp = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = canal.map(FileChannel.MapMode.READ_WRITE, 0, tam);
+            out.put(MAGIA).putInt(FORMATO).putLong(version).putLong(marca)
+                    .putInt(n).putInt(m).putInt(hubsVecino.length).putInt(mixtoVecino.length).putInt(atenciones.size());
+            for (byte[] b : bytesIds) out.putInt(b.length).put(b);
+            for (int i = 0; i < n; i++) out.put((byte) ((esHub[i] ? 1 : 0) | (esCliente[i] ? 2 : 0)));
+
+            escribir(out, salidaInicio);
+            escribir(out, salidaOrigen);
+            escribir(out, salidaDestino);
+            escribir(out, distKm);
+            escribir(out, tiempoMin);
+            escribir(out, peaje);
+            escribir(out, hubsInicio);
+            escribir(out, hubsVecino);
+            escribir(out, mixtoInicio);
+            escribir(out, mixtoVecino);
+            for (Atencion a : atenciones) out.putInt(indice.get(a.hubId())).putInt(indice.get(a.clienteId()));
+            out.force();
+        }
+        Files.move(tmp, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Levanta una foto guardada con {@link #guardarEn}. El archivo se mapea a memoria
+     * y las columnas se copian en bloque a arreglos propios, así la foto no depende
+     * del archivo (que se puede reemplazar con la próxima exportación).
+     */
+    public static SnapshotGrafo leerDe(Path origen) throws IOException {
+        try (FileChannel canal = FileChannel.open(origen, StandardOpenOption.READ)) {
+            MappedByteBuffer in = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            byte[] magia = new byte[MAGIA.length];
+            in.get(magia);
+            if (!Arrays.equals(magia, MAGIA) || in.getInt() != FORMATO) {
+                throw new IOException(origen + " no es una foto del grafo en un formato conocido");
+            }
+            long version = in.getLong();
+            long marca = in.getLong();
+            int n = in.getInt();
+            int m = in.getInt();
+            int cantHubsVecino = in.getInt();
+            int cantMixtoVecino = in.getInt();
+            int cantAtenciones = in.getInt();
+            for (int cant : new int[]{n, m, cantHubsVecino, cantMixtoVecino, cantAtenciones}) {
+                if (cant < 0 || cant > in.remaining()) throw new IOException(origen + " está incompleto o dañado");
+            }
+
+            String[] ids = new String[n];
+            Map<String, Integer> indice = new HashMap<>(n * 2);
+            for (int i = 0; i < n; i++) {
+                byte[] b = new byte[in.getInt()];
+                in.get(b);
+                ids[i] = new String(b, StandardCharsets.UTF_8);
+                indice.put(ids[i], i);
+            }
+            boolean[] esHub = new boolean[n];
+            boolean[] esCliente = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                byte flags = in.get();
+                esHub[i] = (flags & 1) != 0;
+                esCliente[i] = (flags & 2) != 0;
+            }
+
+            int[] salidaInicio = enteros(in, n + 1);
+            int[] salidaOrigen = enteros(in, m);
+            int[] salidaDestino = enteros(in, m);
+            double[] distKm = decimales(in, m);
+            double[] tiempoMin = decimales(in, m);
+            double[] peaje = decimales(in, m);
+            int[] hubsInicio = enteros(in, n + 1);
+            int[] hubsVecino = enteros(in, cantHubsVecino);
+            int[] mixtoInicio = enteros(in, n + 1);
+            int[] mixtoVecino = enteros(in, cantMixtoVecino);
+            List<Atencion> atenciones = new ArrayList<>(cantAtenciones);
+            for (int k = 0; k < cantAtenciones; k++) {
+                atenciones.add(new Atencion(ids[in.getInt()], ids[in.getInt()]));
+            }
+
+            return new SnapshotGrafo(version, marca, ids, indice, esHub, esCliente,
+                    salidaInicio, salidaOrigen, salidaDestino, distKm, tiempoMin, peaje,
+                    hubsInicio, hubsVecino, mixtoInicio, mixtoVecino, List.copyOf(atenciones));
+        } catch (RuntimeException ex) {
+            // BufferUnderflow, índices fuera de rango, etc.: archivo truncado o corrupto
+            throw new IOException(origen + " está incompleto o dañado", ex);
+        }
+    }
+
+    // =========================
+    //  helpers
+    // =========================
+
+    private static void escribir(ByteBuffer out, int[] columna) {
+        out.asIntBuffer().put(columna);
+        out.position(out.position() + 4 * columna.length);
+    }
+
+    private static void escribir(ByteBuffer out, double[] columna) {
+        out.asDoubleBuffer().put(columna);
+        out.position(out.position() + 8 * columna.length);
+    }
+
+    private static int[] enteros(ByteBuffer in, int cant) {
+        int[] res = new int[cant];
+        in.asIntBuffer().get(res);
+        in.position(in.position() + 4 * cant);
+        return res;
+    }
+
+    private static double[] decimales(ByteBuffer in, int cant) {
+        double[] res = new double[cant];
+        in.asDoubleBuffer().get(res);
+        in.position(in.position() + 8 * cant);
+        return res;
+    }
+
+    /** Aristas agrupadas por destino (y por origen dentro de cada destino). */
+    private static int[][] indiceEntrantes(int n, int[] origen, int[] destino) {
+        int m = destino.length;
+        int[] inicio = new int[n + 1];
+        for (int e = 0; e < m; e++) inicio[destino[e] + 1]++;
+        for (int v = 0; v < n; v++) inicio[v + 1] += inicio[v];
+        int[] siguiente = Arrays.copyOf(inicio, n);
+        int[] aristas = new int[m];
+        // las salientes ya están ordenadas por origen: recorrerlas en orden deja cada grupo ordenado
+        for (int e = 0; e < m; e++) aristas[siguiente[destino[e]]++] = e;
+        return new int[][]{inicio, aristas};
+    }
+
+    /** CSR invertido de {inicio, vecinos}: recorrer u en orden deja cada lista ordenada. */
+    private static int[][] alReves(int n, int[] inicio, int[] vecinos) {
+        int[] res = new int[n + 1];
+        for (int v : vecinos) res[v + 1]++;
+        for (int v = 0; v < n; v++) res[v + 1] += res[v];
+        int[] siguiente = Arrays.copyOf(res, n);
+        int[] entrantes = new int[vecinos.length];
+        for (int u = 0; u < n; u++) {
+            for (int k = inicio[u]; k < inicio[u + 1]; k++) entrantes[siguiente[vecinos[k]]++] = u;
+        }
+        return new int[][]{res, entrantes};
+    }
+
+    private static long par(int u, int v) {
+        return ((long) u << 32) | (v & 0xffffffffL);
+    }
+
+    /** Ordena los pares (u,v), descarta repetidos y devuelve {offsets, vecinos}. */
+    private static int[][] csrDesdePares(long[] pares, int n) {
+        long[] ordenados = pares.clone();
+        Arrays.sort(ordenados);
+        int[] inicio = new int[n + 1];
+        int[] vecinos = new int[ordenados.length];
+        int cant = 0;
+        for (int i = 0; i < ordenados.length; i++) {
+            if (i > 0 && ordenados[i] == ordenados[i - 1]) continue;
+            int u = (int) (ordenados[i] >>> 32);
+            inicio[u + 1]++;
+            vecinos[cant++] = (int) ordenados[i];
+        }
+        for (int u = 0; u < n; u++) inicio[u + 1] += inicio[u];
+        return new int[][]{inicio, Arrays.copyOf(vecinos, cant)};
+    }
+}
@@ -0,0 +1,217 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache acotada (LRU por memoria) de árboles de caminos mínimos completos desde un origen.
+ *
+ * - Clave: (origen, criterio, factorPeaje, versión de la foto). Una foto nueva cambia la
+ *   versión, así que los árboles viejos ya no se piden y salen solos por LRU.
+ * - Cada árbol guarda, por índice de nodo: distancia, arista padre y orden en que se asentó
+ *   (para resolver varios destinos igual que Dijkstra: gana el que se asienta primero).
+ * - El límite es en bytes (tpo.arboles.max-mb): al pasarlo se desalojan los menos usados.
+ *   Un árbol que solo no entra se usa para la consulta pero no se guarda.
+ * - Una consulta punto a punto ({@link #buscar}) no arma el árbol la primera vez: corta en el
+ *   destino como un Dijkstra común. Recién cuando el mismo origen se pidió tpo.arboles.min-pedidos
+ *   veces en la foto se arma el árbol completo y se guarda. Los lotes y los caminos alternativos,
+ *   que sí recorren el árbol entero, lo piden directo con {@link #obtener}.
+ * - Cuenta aciertos, fallos, búsquedas cortas y desalojos, y la memoria ocupada, para poder monitorearla.
+ * - También guarda árboles hacia atrás (todos los caminos mínimos que llegan a un destino),
+ *   que usan los caminos alternativos como cota exacta en la foto completa.
+ */
+@Component
+public class CacheArbolesCaminos {
+
+    private record Clave(String raiz, boolean haciaAtras, CriterioPeso criterio, double factorPeaje, long version) {}
+
+    /**
+     * Árbol de caminos mínimos desde origen sobre la foto grafo (solo lectura una vez armado).
+     * En un árbol hacia atrás dist es la distancia hasta la raíz y aristaPadre la arista por la
+     * que se sale de cada nodo hacia ella.
+     */
+    static final class Arbol {
+        final SnapshotGrafo grafo;
+        final double[] dist;
+        final int[] aristaPadre;   // -1 en la raíz y en los no alcanzados
+        final int[] orden;         // posición en secuencia, -1 si no se alcanzó
+        final int[] secuencia;     // nodos en el orden en que se asentaron
+        final int cantidad;        // nodos alcanzados
+
+        private Arbol(SnapshotGrafo grafo, double[] dist, int[] aristaPadre, int[] orden, int[] secuencia, int cantidad) {
+            this.grafo = grafo;
+            this.dist = dist;
+            this.aristaPadre = aristaPadre;
+            this.orden = orden;
+            this.secuencia = secuencia;
+            this.cantidad = cantidad;
+        }
+
+        long bytes() {
+            return 64L + (long) dist.length * Double.BYTES
+                    + ((long) aristaPadre.length + orden.length + secuencia.length) * Integer.BYTES;
+        }
+    }
+
+    /** Árbol pedido y si salió de la cache (si no, se acaba de armar). */
+    record Busqueda(Arbol arbol, boolean acierto) {}
+
+    /** Orígenes distintos de los que se recuerda cuántas veces se pidieron (LRU). */
+    private static final int MAX_PEDIDOS = 4096;
+
+    private final long maxBytes;
+    private final int minPedidos;
+    private final LinkedHashMap<Clave, Arbol> arboles = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytesUsados;
+    private final LinkedHashMap<Clave, Integer> pedidos = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Clave, Integer> eldest) {
+            return size() > MAX_PEDIDOS;
+        }
+    };
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+    private final AtomicLong cortas = new AtomicLong();
+
+    public CacheArbolesCaminos(@Value("${tpo.arboles.max-mb:64}") long maxMb,
+                               @Value("${tpo.arboles.min-pedidos:2}") int minPedidos) {
+        this.maxBytes = maxMb * 1024L * 1024L;
+        this.minPedidos = Math.max(1, minPedidos);
+    }
+
+    /** Con tpo.arboles.max-mb=0 no se cachea y Dijkstra corta en el destino como siempre. */
+    boolean habilitada() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Para una consulta punto a punto: el árbol desde origen si está en la cache, o armado y
+     * guardado si el origen ya se pidió minPedidos veces en esta foto. null = todavía no
+     * conviene: el llamador busca cortando en el destino.
+     */
+    Busqueda buscar(SnapshotGrafo g, String origenId, int origen, CriterioPeso criterio, double factorPeaje) {
+        Clave clave = new Clave(origenId, false, criterio, factorPeaje, g.version());
+        synchronized (arboles) {
+            Arbol a = arboles.get(clave);
+            if (a != null && a.grafo == g) {
+                aciertos.incrementAndGet();
+                return new Busqueda(a, true);
+            }
+            int veces = pedidos.merge(clave, 1, Integer::sum);
+            if (veces < minPedidos) {
+                cortas.incrementAndGet();
+                return null;
+            }
+            pedidos.remove(clave);
+        }
+        fallos.incrementAndGet();
+        return new Busqueda(armarYGuardar(clave, g, origen, false, criterio, factorPeaje), false);
+    }
+
+    /** El árbol desde origen (índice en g); si no está en la cache, lo arma con un Dijkstra completo. */
+    Busqueda obtener(SnapshotGrafo g, String origenId, int origen, CriterioPeso criterio, double factorPeaje) {
+        return obtener(g, origenId, origen, false, criterio, factorPeaje);
+    }
+
+    /** El árbol hacia destino (índice en g): Dijkstra completo por las :RUTA entrantes. */
+    Busqueda obtenerHaciaAtras(SnapshotGrafo g, String destinoId, int destino, CriterioPeso criterio, double factorPeaje) {
+        return obtener(g, destinoId, destino, true, criterio, factorPeaje);
+    }
+
+    private Busqueda obtener(SnapshotGrafo g, String raizId, int raiz, boolean haciaAtras,
+                             CriterioPeso criterio, double factorPeaje) {
+        Clave clave = new Clave(raizId, haciaAtras, criterio, factorPeaje, g.version());
+        synchronized (arboles) {
+            Arbol a = arboles.get(clave);
+            if (a != null && a.grafo == g) {
+                aciertos.incrementAndGet();
+                return new Busqueda(a, true);
+            }
+        }
+        fallos.incrementAndGet();
+        return new Busqueda(armarYGuardar(clave, g, raiz, haciaAtras, criterio, factorPeaje), false);
+    }
+
+    public Map<String, Object> estadisticas() {
+        long a = aciertos.get();
+        long f = fallos.get();
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("aciertos", a);
+        res.put("fallos", f);
+        res.put("busquedasCortas", cortas.get());
+        res.put("desalojos", desalojos.get());
+        res.put("tasaAciertos", a + f == 0 ? 0.0 : (double) a / (a + f));
+        synchronized (arboles) {
+            res.put("arboles", arboles.size());
+            res.put("bytesUsados", bytesUsados);
+        }
+        res.put("maxBytes", maxBytes);
+        res.put("minPedidos", minPedidos);
+        return res;
+    }
+
+    // ---------- helpers ----------
+
+    /** Arma el árbol y lo guarda si entra, desalojando los menos usados. */
+    private Arbol armarYGuardar(Clave clave, SnapshotGrafo g, int raiz, boolean haciaAtras,
+                                CriterioPeso criterio, double factorPeaje) {
+        Arbol nuevo = armar(g, raiz, haciaAtras, criterio, factorPeaje);
+        if (nuevo.bytes() <= maxBytes) {
+            synchronized (arboles) {
+                Arbol previo = arboles.put(clave, nuevo);
+                if (previo != null) bytesUsados -= previo.bytes();
+                bytesUsados += nuevo.bytes();
+                Iterator<Arbol> it = arboles.values().iterator();
+                while (bytesUsados > maxBytes && it.hasNext()) {
+                    Arbol viejo = it.next();
+                    it.remove();
+                    bytesUsados -= viejo.bytes();
+                    desalojos.incrementAndGet();
+                }
+            }
+        }
+        return nuevo;
+    }
+
+    /** El mismo Dijkstra de ServicioDijkstra (mismo heap y empates), pero sin cortar en un destino. */
+    private static Arbol armar(SnapshotGrafo g, int raiz, boolean haciaAtras, CriterioPeso criterio, double factorPeaje) {
+        int n = g.cantidadNodos();
+        EspacioDijkstra ws = EspacioDijkstra.delHilo(n);
+        MonticuloIndexado pq = ws.heap;
+        int[] orden = new int[n];
+        Arrays.fill(orden, -1);
+        int[] secuencia = new int[n];
+        int cant = 0;
+        ws.etiquetar(raiz, 0.0, -1);
+        while (!pq.vacio()) {
+            int u = pq.extraerMin();
+            ws.asentar(u);
+            orden[u] = cant;
+            secuencia[cant++] = u;
+            double du = ws.dist(u);
+            int ini = haciaAtras ? g.inicioEntrada(u) : g.inicioSalida(u);
+            int fin = haciaAtras ? g.finEntrada(u) : g.finSalida(u);
+            for (int p = ini; p < fin; p++) {
+                int e = haciaAtras ? g.aristaEntrante(p) : p;
+                int v = haciaAtras ? g.origen(e) : g.destino(e);
+                if (ws.asentado(v)) continue;
+                double alt = du + g.peso(e, criterio, factorPeaje);
+                if (alt < ws.dist(v)) ws.etiquetar(v, alt, e);
+            }
+        }
+        double[] dist = new double[n];
+        int[] aristaPadre = new int[n];
+        for (int v = 0; v < n; v++) {
+            dist[v] = ws.dist(v);
+            aristaPadre[v] = ws.aristaPadre(v);
+        }
+        return new Arbol(g, dist, aristaPadre, orden, Arrays.copyOf(secuencia, cant), cant);
+    }
+}
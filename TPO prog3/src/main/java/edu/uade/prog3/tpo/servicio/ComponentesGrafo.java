@@ -0,0 +1,255 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+
+import java.util.Arrays;
+
+/**
+ * Componentes conexas de una foto, para descartar en O(1) los pares sin camino antes de buscar.
+ *
+ * - Fuertes (Tarjan iterativo) sobre las :RUTA con dirección: Dijkstra, caminos alternativos,
+ *   Pareto y los tramos de Backtracking / Branch & Bound.
+ * - Tarjan numera las componentes en orden topológico inverso del DAG de condensación:
+ *   una :RUTA entre dos componentes distintas va siempre de la mayor a la menor.
+ * - Cierre transitivo del DAG, un bitset por componente, si hay hasta maxCierre componentes
+ *   (ocupa c² / 8 bytes). Si hay más quedan solo los filtros de orden topológico y de componente
+ *   débil: lo que descartan no tiene camino seguro, lo que no descartan lo decide la búsqueda.
+ * - Débiles (union-find) sobre las :RUTA sin dirección: BFS y DFS. Con Clientes, un Cliente es
+ *   final de camino (solo hay pares sucursal → cliente), así que se llega a él si alguna de sus
+ *   sucursales está en la componente del origen.
+ *
+ * Es inmutable y vale solo para la foto con la que se armó ({@link #paraFoto} la reusa en una
+ * foto nueva que solo cambió pesos).
+ */
+final class ComponentesGrafo {
+
+    private static final int SIN_SUCURSAL = -1;
+    private static final int VARIAS = -2;
+
+    private final SnapshotGrafo grafo;
+    private final int[] fuerte;          // componente fuerte de cada nodo (orden topológico inverso)
+    private final int cantFuertes;
+    private final int mayorFuerte;       // nodos de la componente fuerte más grande
+    private final int[] debil;           // representante de la componente débil de cada nodo
+    private final int cantDebiles;       // componentes débiles con algún Hub
+    private final int[] debilSucursales; // por Cliente: componente de sus sucursales, SIN_SUCURSAL o VARIAS
+    private final long[][] cierre;       // cierre[c] = componentes alcanzables desde c; null si no se armó
+    private final long ms;
+    private final boolean reusado;
+
+    private ComponentesGrafo(SnapshotGrafo grafo, int[] fuerte, int cantFuertes, int mayorFuerte,
+                             int[] debil, int cantDebiles, int[] debilSucursales, long[][] cierre,
+                             long ms, boolean reusado) {
+        this.grafo = grafo;
+        this.fuerte = fuerte;
+        this.cantFuertes = cantFuertes;
+        this.mayorFuerte = mayorFuerte;
+        this.debil = debil;
+        this.cantDebiles = cantDebiles;
+        this.debilSucursales = debilSucursales;
+        this.cierre = cierre;
+        this.ms = ms;
+        this.reusado = reusado;
+    }
+
+    /** Arma las componentes de g; el cierre solo si hay hasta maxCierre componentes fuertes. */
+    static ComponentesGrafo construir(SnapshotGrafo g, int maxCierre) {
+        long t0 = System.nanoTime();
+        int n = g.cantidadNodos();
+
+        // 1) fuertes: Tarjan con pila explícita (sin recursión, la foto puede ser grande)
+        int[] fuerte = new int[n];
+        int[] indice = new int[n];
+        int[] bajo = new int[n];
+        int[] pila = new int[n];
+        boolean[] enPila = new boolean[n];
+        int[] llamadas = new int[n];
+        int[] siguiente = new int[n];   // próxima arista saliente a mirar de cada nodo en llamadas
+        Arrays.fill(indice, -1);
+        int contador = 0, tope = 0, c = 0, mayor = 0;
+        for (int s = 0; s < n; s++) {
+            if (indice[s] >= 0) continue;
+            int prof = 0;
+            llamadas[prof++] = s;
+            indice[s] = bajo[s] = contador++;
+            pila[tope++] = s;
+            enPila[s] = true;
+            siguiente[s] = g.inicioSalida(s);
+            while (prof > 0) {
+                int u = llamadas[prof - 1];
+                if (siguiente[u] < g.finSalida(u)) {
+                    int w = g.destino(siguiente[u]++);
+                    if (indice[w] < 0) {
+                        indice[w] = bajo[w] = contador++;
+                        pila[tope++] = w;
+                        enPila[w] = true;
+                        siguiente[w] = g.inicioSalida(w);
+                        llamadas[prof++] = w;
+                    } else if (enPila[w]) {
+                        bajo[u] = Math.min(bajo[u], indice[w]);
+                    }
+                    continue;
+                }
+                prof--;
+                if (prof > 0) {
+                    int p = llamadas[prof - 1];
+                    bajo[p] = Math.min(bajo[p], bajo[u]);
+                }
+                if (bajo[u] == indice[u]) {
+                    int w, tam = 0;
+                    do {
+                        w = pila[--tope];
+                        enPila[w] = false;
+                        fuerte[w] = c;
+                        tam++;
+                    } while (w != u);
+                    mayor = Math.max(mayor, tam);
+                    c++;
+                }
+            }
+        }
+
+        // 2) débiles: union-find sobre las :RUTA sin dirección
+        int[] debil = new int[n];
+        for (int v = 0; v < n; v++) debil[v] = v;
+        for (int e = 0; e < g.cantidadAristas(); e++) {
+            int a = raiz(debil, g.origen(e)), b = raiz(debil, g.destino(e));
+            if (a != b) debil[Math.max(a, b)] = Math.min(a, b);
+        }
+        int cantDebiles = 0;
+        for (int v = 0; v < n; v++) {
+            debil[v] = raiz(debil, v);
+            if (debil[v] == v && g.esHub(v)) cantDebiles++;
+        }
+        int[] debilSucursales = new int[n];
+        for (int v = 0; v < n; v++) {
+            int d = SIN_SUCURSAL;
+            if (g.esCliente(v)) {
+                for (int k = g.inicioVecinosEntrantes(v, true); k < g.finVecinosEntrantes(v, true); k++) {
+                    int h = debil[g.vecinoEntrante(k, true)];
+                    if (d == SIN_SUCURSAL) d = h;
+                    else if (d != h) {
+                        d = VARIAS;
+                        break;
+                    }
+                }
+            }
+            debilSucursales[v] = d;
+        }
+
+        long[][] cierre = c <= maxCierre ? cierre(g, fuerte, c) : null;
+        return new ComponentesGrafo(g, fuerte, c, mayor, debil, cantDebiles, debilSucursales, cierre,
+                (System.nanoTime() - t0) / 1_000_000, false);
+    }
+
+    /**
+     * Las mismas componentes para otra foto, si tiene los mismos nodos y los mismos pares
+     * (:RUTA y sucursal → cliente): un refresco que solo cambió pesos no rearma nada.
+     * null si la estructura cambió.
+     */
+    ComponentesGrafo paraFoto(SnapshotGrafo nueva) {
+        if (nueva == grafo) return this;
+        if (!mismaEstructura(grafo, nueva)) return null;
+        return new ComponentesGrafo(nueva, fuerte, cantFuertes, mayorFuerte, debil, cantDebiles,
+                debilSucursales, cierre, ms, true);
+    }
+
+    SnapshotGrafo grafo() { return grafo; }
+
+    /** true si seguro no hay camino por :RUTA de u a v (índices de la foto); false = hay o no se sabe. */
+    boolean sinCamino(int u, int v) {
+        int cu = fuerte[u], cv = fuerte[v];
+        if (cu == cv) return false;
+        if (cu < cv || debil[u] != debil[v]) return true;
+        return cierre != null && (cierre[cu][cv >>> 6] & (1L << cv)) == 0;
+    }
+
+    /** Igual para los vecinos sin dirección de BFS / DFS (solo Hubs o con Clientes). */
+    boolean sinCaminoSinDireccion(int u, int v, boolean incluirClientes) {
+        if (u == v) return false;
+        if (!incluirClientes) return debil[u] != debil[v];
+        if (grafo.esCliente(u)) return true;   // un Cliente no tiene vecinos hacia adelante
+        int dv = grafo.esCliente(v) ? debilSucursales[v] : debil[v];
+        return dv != VARIAS && dv != debil[u];
+    }
+
+    int cantidadFuertes() { return cantFuertes; }
+
+    int mayorFuerte() { return mayorFuerte; }
+
+    int cantidadDebiles() { return cantDebiles; }
+
+    boolean conCierre() { return cierre != null; }
+
+    long bytesCierre() {
+        return cierre == null ? 0 : (long) cantFuertes * cierre[0].length * Long.BYTES;
+    }
+
+    long msConstruccion() { return ms; }
+
+    boolean reusado() { return reusado; }
+
+    // ---------- helpers ----------
+
+    /** Bitsets de alcance por componente, de los sumideros para arriba (orden de Tarjan). */
+    private static long[][] cierre(SnapshotGrafo g, int[] fuerte, int c) {
+        int n = g.cantidadNodos();
+        // nodos agrupados por componente (conteo)
+        int[] inicio = new int[c + 1];
+        for (int v = 0; v < n; v++) inicio[fuerte[v] + 1]++;
+        for (int k = 0; k < c; k++) inicio[k + 1] += inicio[k];
+        int[] miembros = new int[n];
+        int[] pos = Arrays.copyOf(inicio, c);
+        for (int v = 0; v < n; v++) miembros[pos[fuerte[v]]++] = v;
+
+        int palabras = (c + 63) >>> 6;
+        long[][] alcanza = new long[c][];
+        int[] visto = new int[c];   // última componente que ya sumó a esta (evita repetir aristas del DAG)
+        for (int k = 0; k < c; k++) {
+            long[] bits = new long[palabras];
+            bits[k >>> 6] |= 1L << k;
+            for (int i = inicio[k]; i < inicio[k + 1]; i++) {
+                int u = miembros[i];
+                for (int e = g.inicioSalida(u); e < g.finSalida(u); e++) {
+                    int d = fuerte[g.destino(e)];
+                    if (d == k || visto[d] == k + 1) continue;
+                    visto[d] = k + 1;
+                    long[] otro = alcanza[d];   // d < k: ya está armado
+                    for (int w = 0; w < palabras; w++) bits[w] |= otro[w];
+                }
+            }
+            alcanza[k] = bits;
+        }
+        return alcanza;
+    }
+
+    private static int raiz(int[] padre, int v) {
+        while (padre[v] != v) {
+            padre[v] = padre[padre[v]];
+            v = padre[v];
+        }
+        return v;
+    }
+
+    private static boolean mismaEstructura(SnapshotGrafo a, SnapshotGrafo b) {
+        int n = a.cantidadNodos();
+        if (n != b.cantidadNodos() || a.cantidadAristas() != b.cantidadAristas()
+                || a.cantidadVecinos(true) != b.cantidadVecinos(true)) {
+            return false;
+        }
+        for (int v = 0; v < n; v++) {
+            if (!a.id(v).equals(b.id(v)) || a.esHub(v) != b.esHub(v) || a.esCliente(v) != b.esCliente(v)
+                    || a.inicioSalida(v) != b.inicioSalida(v)
+                    || a.inicioVecinos(v, true) != b.inicioVecinos(v, true)) {
+                return false;
+            }
+        }
+        for (int e = 0; e < a.cantidadAristas(); e++) {
+            if (a.destino(e) != b.destino(e)) return false;
+        }
+        for (int k = 0; k < a.cantidadVecinos(true); k++) {
+            if (a.vecino(k, true) != b.vecino(k, true)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,100 @@
+package edu.uade.prog3.tpo.servicio;
+
+import java.util.Arrays;
+
+/**
+ * Arreglos de trabajo de Dijkstra sobre la foto en memoria: distancia, arista por la
+ * que se llegó (el padre es su origen), nodos asentados y el heap indexado.
+ *
+ * Hay uno por hilo ({@link #delHilo}) y se reutiliza entre consultas: en vez de limpiar
+ * los arreglos, cada consulta usa un sello nuevo y un valor solo vale si su sello es
+ * el de la consulta actual. El ciclo principal no crea objetos ni hace boxing.
+ *
+ * No se puede usar para dos búsquedas a la vez en el mismo hilo (el bidireccional usa
+ * el segundo espacio, {@link #delHiloHaciaAtras}).
+ */
+final class EspacioDijkstra {
+
+    private static final ThreadLocal<EspacioDijkstra> POR_HILO = ThreadLocal.withInitial(EspacioDijkstra::new);
+    private static final ThreadLocal<EspacioDijkstra> HACIA_ATRAS = ThreadLocal.withInitial(EspacioDijkstra::new);
+
+    private double[] dist = new double[0];
+    private int[] aristaPadre = new int[0];
+    private int[] sello = new int[0];           // sello[v] == actual → dist/aristaPadre de v valen
+    private int[] selloAsentado = new int[0];   // selloAsentado[v] == actual → v ya salió del heap
+    private int actual;
+
+    private int[] tocados = new int[0];          // nodos con distancia en esta consulta
+    private int cantTocados;
+
+    final MonticuloIndexado heap = new MonticuloIndexado();
+
+    /** El espacio del hilo actual, listo para una consulta sobre n nodos. */
+    static EspacioDijkstra delHilo(int n) {
+        EspacioDijkstra e = POR_HILO.get();
+        e.preparar(n);
+        return e;
+    }
+
+    /** Un segundo espacio del hilo, para la búsqueda hacia atrás del modo bidireccional. */
+    static EspacioDijkstra delHiloHaciaAtras(int n) {
+        EspacioDijkstra e = HACIA_ATRAS.get();
+        e.preparar(n);
+        return e;
+    }
+
+    private void preparar(int n) {
+        if (sello.length < n) {
+            int cap = Math.max(n, sello.length * 2);
+            dist = new double[cap];
+            aristaPadre = new int[cap];
+            sello = new int[cap];
+            selloAsentado = new int[cap];
+            tocados = new int[cap];
+            actual = 0;
+        }
+        if (++actual == Integer.MAX_VALUE) {
+            Arrays.fill(sello, 0);
+            Arrays.fill(selloAsentado, 0);
+            actual = 1;
+        }
+        cantTocados = 0;
+        heap.preparar(n);
+    }
+
+    /** Distancia tentativa (o final, si está asentado); infinito si no se alcanzó. */
+    double dist(int v) {
+        return sello[v] == actual ? dist[v] : Double.POSITIVE_INFINITY;
+    }
+
+    /** Arista por la que se llegó a v, o -1 (origen o no alcanzado). */
+    int aristaPadre(int v) {
+        return sello[v] == actual ? aristaPadre[v] : -1;
+    }
+
+    boolean alcanzado(int v) { return sello[v] == actual; }
+
+    boolean asentado(int v) { return selloAsentado[v] == actual; }
+
+    void asentar(int v) { selloAsentado[v] = actual; }
+
+    /** Nueva distancia para v (llegando por la arista e, o -1) y la encola o le baja la clave. */
+    void etiquetar(int v, double d, int e) {
+        etiquetar(v, d, e, d);
+    }
+
+    /** Igual, pero con otra clave en el heap (A*: distancia + cota hasta el destino). */
+    void etiquetar(int v, double d, int e, double clave) {
+        if (sello[v] != actual) {
+            sello[v] = actual;
+            tocados[cantTocados++] = v;
+        }
+        dist[v] = d;
+        aristaPadre[v] = e;
+        heap.insertarOBajar(v, clave);
+    }
+
+    int cantidadTocados() { return cantTocados; }
+
+    int tocado(int i) { return tocados[i]; }
+}
@@ -0,0 +1,128 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Recorrido completo por niveles (sincronizado por nivel) sobre los índices de la foto,
+ * repartiendo la expansión de cada frontera grande entre los hilos de un ForkJoinPool.
+ *
+ * - Cada tarea expande un tramo contiguo de la frontera. Los visitados de niveles anteriores
+ *   son un bitset que no cambia durante el nivel; los descubiertos del nivel, un bitset atómico
+ *   (AtomicLongArray): el primero que marca un nodo con compareAndSet se lo queda.
+ * - Quién lo marca depende de los hilos, pero además cada nodo guarda la menor posición de la
+ *   frontera que lo vio (mínimo atómico). Al juntar el nivel se ordena por (esa posición, índice),
+ *   que es exactamente el orden de una cola FIFO: el resultado no depende de los hilos.
+ * - Una frontera de menos de MIN_TAREA nodos se expande en el hilo actual (sin pool).
+ */
+final class ExploracionParalela {
+
+    private static final int MIN_TAREA = 1024;
+
+    /** Nodos en orden de visita; el nivel i ocupa [inicioNivel[i], inicioNivel[i + 1]). */
+    record Recorrido(int[] orden, int[] inicioNivel, int cantidadNiveles) {}
+
+    private ExploracionParalela() {}
+
+    /** Todo lo alcanzable desde origen (hasta maxProfundidad saltos; 0 = sin límite). */
+    static Recorrido recorrer(SnapshotGrafo g, int origen, int maxProfundidad, boolean incluirClientes,
+                              ForkJoinPool pool) {
+        int n = g.cantidadNodos();
+        long[] visitados = new long[(n + 63) >>> 6];
+        AtomicLongArray descubiertos = new AtomicLongArray(visitados.length);
+        AtomicIntegerArray primerPadre = new AtomicIntegerArray(n);   // posición en orden + 1 (0 = ninguno)
+        int[] orden = new int[n];
+        int[] inicioNivel = new int[16];
+
+        orden[0] = origen;
+        marcar(visitados, origen);
+        int ini = 0, fin = 1, niveles = 1;
+
+        while (ini < fin && (maxProfundidad <= 0 || niveles <= maxProfundidad)) {
+            int a = ini, b = fin;
+            int tareas = Math.min((b - a + MIN_TAREA - 1) / MIN_TAREA, pool.getParallelism() * 4);
+            int[][] partes = new int[Math.max(tareas, 1)][];
+            if (tareas <= 1) {
+                partes[0] = expandir(g, orden, a, b, visitados, descubiertos, primerPadre, incluirClientes);
+            } else {
+                pool.submit(() -> IntStream.range(0, tareas).parallel().forEach(t -> partes[t] = expandir(
+                        g, orden, a + (int) ((long) (b - a) * t / tareas), a + (int) ((long) (b - a) * (t + 1) / tareas),
+                        visitados, descubiertos, primerPadre, incluirClientes))).join();
+            }
+
+            // juntar el nivel en orden FIFO: (primera posición que lo vio, índice)
+            int total = 0;
+            for (int[] p : partes) total += p.length;
+            long[] claves = new long[total];
+            int k = 0;
+            for (int[] p : partes) {
+                for (int v : p) claves[k++] = ((long) (primerPadre.get(v) - 1) << 32) | v;
+            }
+            if (total > MIN_TAREA) Arrays.parallelSort(claves);
+            else Arrays.sort(claves);
+            for (long c : claves) {
+                int v = (int) c;
+                marcar(visitados, v);
+                orden[fin++] = v;
+            }
+
+            if (niveles == inicioNivel.length) inicioNivel = Arrays.copyOf(inicioNivel, niveles * 2);
+            inicioNivel[niveles] = b;
+            if (fin > b) niveles++;
+            ini = b;
+        }
+        if (niveles == inicioNivel.length) inicioNivel = Arrays.copyOf(inicioNivel, niveles + 1);
+        inicioNivel[niveles] = fin;
+        return new Recorrido(Arrays.copyOf(orden, fin), Arrays.copyOf(inicioNivel, niveles + 1), niveles);
+    }
+
+    // ---------- helpers ----------
+
+    /** Vecinos nuevos de orden[desde, hasta): los que esta tarea marcó primero. */
+    private static int[] expandir(SnapshotGrafo g, int[] orden, int desde, int hasta, long[] visitados,
+                                  AtomicLongArray descubiertos, AtomicIntegerArray primerPadre,
+                                  boolean incluirClientes) {
+        int[] res = new int[16];
+        int cant = 0;
+        for (int p = desde; p < hasta; p++) {
+            int u = orden[p];
+            for (int k = g.inicioVecinos(u, incluirClientes); k < g.finVecinos(u, incluirClientes); k++) {
+                int v = g.vecino(k, incluirClientes);
+                if (marcado(visitados, v)) continue;
+                minimo(primerPadre, v, p + 1);
+                if (!reclamar(descubiertos, v)) continue;
+                if (cant == res.length) res = Arrays.copyOf(res, cant * 2);
+                res[cant++] = v;
+            }
+        }
+        return Arrays.copyOf(res, cant);
+    }
+
+    private static void minimo(AtomicIntegerArray a, int i, int valor) {
+        int actual;
+        while (((actual = a.get(i)) == 0 || valor < actual) && !a.compareAndSet(i, actual, valor)) {
+            // otro hilo lo cambió: se vuelve a comparar
+        }
+    }
+
+    /** Marca v en el bitset; true si lo marcó esta llamada. */
+    private static boolean reclamar(AtomicLongArray bits, int v) {
+        int w = v >>> 6;
+        long bit = 1L << v;
+        long viejo = bits.get(w);
+        while ((viejo & bit) == 0) {
+            if (bits.compareAndSet(w, viejo, viejo | bit)) return true;
+            viejo = bits.get(w);
+        }
+        return false;
+    }
+
+    private static boolean marcado(long[] bits, int v) { return (bits[v >>> 6] & (1L << v)) != 0; }
+
+    private static void marcar(long[] bits, int v) { bits[v >>> 6] |= 1L << v; }
+}
@@ -0,0 +1,437 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+
+import java.util.Arrays;
+
+/**
+ * Contraction Hierarchy de una foto para un criterio (COSTO con factorPeaje = 1).
+ *
+ * Preproceso:
+ * - Se contraen los nodos de a uno, de menor a mayor "edge difference"
+ *   (atajos que agregaría - aristas que saca, más los vecinos ya contraídos para repartir).
+ *   La prioridad se recalcula al sacarlo del heap: si empeoró, vuelve a entrar.
+ * - Al contraer v, por cada par u → v → x se busca un testigo u → x que no pase por v
+ *   (Dijkstra local acotado); si no lo hay, se agrega el atajo u → x.
+ *   Cada atajo guarda sus dos aristas hijas, así el camino se desarma hasta las :RUTA originales.
+ * - Las aristas se reparten en "sube" (salientes hacia un nodo de mayor rango) y
+ *   "baja" (entrantes desde un nodo de mayor rango), en formato CSR.
+ *
+ * Consulta: Dijkstra bidireccional solo hacia arriba (adelante por "sube" desde el origen,
+ * atrás por "baja" desde los destinos); cada lado para cuando su mínimo ya no mejora el mejor encuentro.
+ *
+ * Los ids de arista menores a la cantidad de :RUTA de la foto son las aristas originales;
+ * los demás son atajos. Es inmutable y vale solo para la foto con la que se armó.
+ */
+final class JerarquiaContraccion {
+
+    /** Nodos que asienta como máximo cada búsqueda de testigo (si no alcanza, se agrega el atajo). */
+    private static final int MAX_ASENTADOS_TESTIGO = 200;
+
+    private final SnapshotGrafo grafo;
+    private final CriterioPeso criterio;
+    private final int originales;
+
+    // todas las aristas: [0, originales) = :RUTA de la foto, después los atajos
+    private final int[] aristaDesde;
+    private final int[] aristaHasta;
+    private final double[] aristaPeso;
+    private final int[] hijoA;   // por atajo (id - originales): primera y segunda mitad
+    private final int[] hijoB;
+
+    private final int[] subeInicio;
+    private final int[] subeArista;
+    private final int[] bajaInicio;
+    private final int[] bajaArista;
+
+    private JerarquiaContraccion(SnapshotGrafo grafo, CriterioPeso criterio, int originales,
+                                 int[] aristaDesde, int[] aristaHasta, double[] aristaPeso, int[] hijoA, int[] hijoB,
+                                 int[] subeInicio, int[] subeArista, int[] bajaInicio, int[] bajaArista) {
+        this.grafo = grafo;
+        this.criterio = criterio;
+        this.originales = originales;
+        this.aristaDesde = aristaDesde;
+        this.aristaHasta = aristaHasta;
+        this.aristaPeso = aristaPeso;
+        this.hijoA = hijoA;
+        this.hijoB = hijoB;
+        this.subeInicio = subeInicio;
+        this.subeArista = subeArista;
+        this.bajaInicio = bajaInicio;
+        this.bajaArista = bajaArista;
+    }
+
+    /**
+     * Resultado de una consulta: destino alcanzado (-1 si no hay camino),
+     * aristas originales del camino en orden, su costo (factor 1) y nodos asentados.
+     */
+    record Camino(int llegada, int[] aristas, double costo, int asentados) {}
+
+    SnapshotGrafo grafo() { return grafo; }
+
+    CriterioPeso criterio() { return criterio; }
+
+    int cantidadAtajos() { return aristaDesde.length - originales; }
+
+    /** Contrae toda la foto con los pesos del criterio (devuelve null si alguno es negativo). */
+    static JerarquiaContraccion construir(SnapshotGrafo g, CriterioPeso criterio) {
+        for (int e = 0; e < g.cantidadAristas(); e++) {
+            if (!(g.peso(e, criterio, 1.0) >= 0)) return null;
+        }
+        return new Contraccion(g, criterio).contraer();
+    }
+
+    /**
+     * Camino mínimo desde el origen al más cercano de los destinos.
+     * Usa los espacios de trabajo del hilo (como el bidireccional de ServicioDijkstra).
+     */
+    Camino consultar(int origen, int[] destinos) {
+        int n = grafo.cantidadNodos();
+        EspacioDijkstra adelante = EspacioDijkstra.delHilo(n);
+        EspacioDijkstra atras = EspacioDijkstra.delHiloHaciaAtras(n);
+        adelante.etiquetar(origen, 0.0, -1);
+        for (int d : destinos) atras.etiquetar(d, 0.0, -1);
+
+        double mejor = Double.POSITIVE_INFINITY;
+        int encuentro = -1;
+        for (int d : destinos) {
+            if (d == origen) {
+                mejor = 0.0;
+                encuentro = origen;
+            }
+        }
+        int asentados = 0;
+        while (true) {
+            boolean sigueAdelante = !adelante.heap.vacio() && adelante.heap.claveMinima() < mejor;
+            boolean sigueAtras = !atras.heap.vacio() && atras.heap.claveMinima() < mejor;
+            if (!sigueAdelante && !sigueAtras) break;
+            boolean lado = sigueAdelante && (!sigueAtras || adelante.heap.claveMinima() <= atras.heap.claveMinima());
+
+            EspacioDijkstra este = lado ? adelante : atras;
+            EspacioDijkstra otro = lado ? atras : adelante;
+            int[] inicio = lado ? subeInicio : bajaInicio;
+            int[] aristas = lado ? subeArista : bajaArista;
+
+            int u = este.heap.extraerMin();
+            este.asentar(u);
+            asentados++;
+            double du = este.dist(u);
+            if (otro.alcanzado(u) && du + otro.dist(u) < mejor) {
+                mejor = du + otro.dist(u);
+                encuentro = u;
+            }
+            for (int p = inicio[u]; p < inicio[u + 1]; p++) {
+                int e = aristas[p];
+                int v = lado ? aristaHasta[e] : aristaDesde[e];
+                double alt = du + aristaPeso[e];
+                if (alt < este.dist(v)) este.etiquetar(v, alt, e);
+            }
+        }
+        if (encuentro < 0) return new Camino(-1, new int[0], Double.POSITIVE_INFINITY, asentados);
+
+        // origen → encuentro con los padres de adelante, encuentro → destino con los de atrás
+        int[] pila = new int[8];
+        int tope = 0;
+        for (int e = adelante.aristaPadre(encuentro); e >= 0; e = adelante.aristaPadre(aristaDesde[e])) {
+            if (tope == pila.length) pila = Arrays.copyOf(pila, tope * 2);
+            pila[tope++] = e;
+        }
+        int[] subidas = new int[tope];
+        for (int i = 0; i < tope; i++) subidas[i] = pila[tope - 1 - i];
+
+        ListaEnteros res = new ListaEnteros();
+        for (int e : subidas) desarmar(e, res);
+        int llegada = encuentro;
+        for (int e = atras.aristaPadre(encuentro); e >= 0; e = atras.aristaPadre(llegada)) {
+            desarmar(e, res);
+            llegada = aristaHasta[e];
+        }
+        return new Camino(llegada, res.aArreglo(), mejor, asentados);
+    }
+
+    /** Agrega a res las :RUTA originales de la arista e (desarmando atajos), en orden. */
+    private void desarmar(int e, ListaEnteros res) {
+        int[] pila = new int[16];
+        int tope = 0;
+        pila[tope++] = e;
+        while (tope > 0) {
+            int a = pila[--tope];
+            if (a < originales) {
+                res.agregar(a);
+                continue;
+            }
+            if (tope + 2 > pila.length) pila = Arrays.copyOf(pila, pila.length * 2);
+            pila[tope++] = hijoB[a - originales];   // la segunda mitad sale después
+            pila[tope++] = hijoA[a - originales];
+        }
+    }
+
+    // =========================================================
+    //  preproceso
+    // =========================================================
+
+    /** Estado mutable de la contracción (grafo dinámico con las aristas que se van agregando). */
+    private static final class Contraccion {
+
+        private final SnapshotGrafo g;
+        private final CriterioPeso criterio;
+        private final int n;
+        private final int originales;
+
+        private final ListaEnteros desde = new ListaEnteros();
+        private final ListaEnteros hasta = new ListaEnteros();
+        private final ListaDecimales peso = new ListaDecimales();
+        private final ListaEnteros hijoA = new ListaEnteros();
+        private final ListaEnteros hijoB = new ListaEnteros();
+
+        private final ListaEnteros[] salen;
+        private final ListaEnteros[] entran;
+        private final boolean[] contraido;
+        private final int[] vecinosContraidos;
+
+        // búsqueda de testigos (sellos, como EspacioDijkstra)
+        private final MonticuloIndexado heapTestigo = new MonticuloIndexado();
+        private final double[] distTestigo;
+        private final int[] selloTestigo;
+        private int selloActual;
+
+        // vecinos de v sin repetir (la arista más barata de cada uno)
+        private final int[] posVecino;
+        private final int[] selloVecino;
+        private int selloVecinos;
+
+        Contraccion(SnapshotGrafo g, CriterioPeso criterio) {
+            this.g = g;
+            this.criterio = criterio;
+            this.n = g.cantidadNodos();
+            this.originales = g.cantidadAristas();
+            this.salen = new ListaEnteros[n];
+            this.entran = new ListaEnteros[n];
+            for (int v = 0; v < n; v++) {
+                salen[v] = new ListaEnteros();
+                entran[v] = new ListaEnteros();
+            }
+            for (int e = 0; e < originales; e++) {
+                desde.agregar(g.origen(e));
+                hasta.agregar(g.destino(e));
+                peso.agregar(g.peso(e, criterio, 1.0));
+                if (g.origen(e) != g.destino(e)) {
+                    salen[g.origen(e)].agregar(e);
+                    entran[g.destino(e)].agregar(e);
+                }
+            }
+            this.contraido = new boolean[n];
+            this.vecinosContraidos = new int[n];
+            this.distTestigo = new double[n];
+            this.selloTestigo = new int[n];
+            this.posVecino = new int[n];
+            this.selloVecino = new int[n];
+        }
+
+        JerarquiaContraccion contraer() {
+            MonticuloIndexado cola = new MonticuloIndexado();
+            cola.preparar(n);
+            for (int v = 0; v < n; v++) cola.insertarOBajar(v, prioridad(v));
+
+            int[] rango = new int[n];
+            int siguienteRango = 0;
+            while (!cola.vacio()) {
+                int v = cola.extraerMin();
+                // actualización perezosa: si ahora conviene otro, v vuelve a la cola
+                double p = prioridad(v);
+                if (!cola.vacio() && p > cola.claveMinima()) {
+                    cola.insertarOBajar(v, p);
+                    continue;
+                }
+                contraerNodo(v, true);
+                contraido[v] = true;
+                rango[v] = siguienteRango++;
+            }
+            return armar(rango);
+        }
+
+        /** Edge difference: atajos necesarios - aristas que desaparecen (+ vecinos ya contraídos). */
+        private double prioridad(int v) {
+            int atajos = contraerNodo(v, false);
+            int quitadas = 0;
+            for (int i = 0; i < salen[v].tam; i++) if (!contraido[hasta.get(salen[v].get(i))]) quitadas++;
+            for (int i = 0; i < entran[v].tam; i++) if (!contraido[desde.get(entran[v].get(i))]) quitadas++;
+            return atajos - quitadas + vecinosContraidos[v];
+        }
+
+        /** Cuenta (y si agregar = true, agrega) los atajos que hacen falta al sacar v. */
+        private int contraerNodo(int v, boolean agregar) {
+            // salientes de v sin repetir destino
+            ListaEnteros destinos = new ListaEnteros();
+            ListaEnteros aristasSalida = new ListaEnteros();
+            selloVecinos++;
+            for (int i = 0; i < salen[v].tam; i++) {
+                int e = salen[v].get(i);
+                int x = hasta.get(e);
+                if (contraido[x]) continue;
+                if (selloVecino[x] == selloVecinos) {
+                    int pos = posVecino[x];
+                    if (peso.get(e) < peso.get(aristasSalida.get(pos))) aristasSalida.poner(pos, e);
+                } else {
+                    selloVecino[x] = selloVecinos;
+                    posVecino[x] = destinos.tam;
+                    destinos.agregar(x);
+                    aristasSalida.agregar(e);
+                }
+            }
+            // entrantes a v sin repetir origen
+            ListaEnteros origenes = new ListaEnteros();
+            ListaEnteros aristasEntrada = new ListaEnteros();
+            selloVecinos++;
+            for (int i = 0; i < entran[v].tam; i++) {
+                int e = entran[v].get(i);
+                int u = desde.get(e);
+                if (contraido[u]) continue;
+                if (selloVecino[u] == selloVecinos) {
+                    int pos = posVecino[u];
+                    if (peso.get(e) < peso.get(aristasEntrada.get(pos))) aristasEntrada.poner(pos, e);
+                } else {
+                    selloVecino[u] = selloVecinos;
+                    posVecino[u] = origenes.tam;
+                    origenes.agregar(u);
+                    aristasEntrada.agregar(e);
+                }
+            }
+            if (agregar) {
+                for (int i = 0; i < destinos.tam; i++) vecinosContraidos[destinos.get(i)]++;
+                for (int i = 0; i < origenes.tam; i++) vecinosContraidos[origenes.get(i)]++;
+            }
+            if (destinos.tam == 0 || origenes.tam == 0) return 0;
+
+            int atajos = 0;
+            for (int i = 0; i < origenes.tam; i++) {
+                int u = origenes.get(i);
+                int eu = aristasEntrada.get(i);
+                double pu = peso.get(eu);
+                double limite = 0;
+                for (int j = 0; j < destinos.tam; j++) {
+                    if (destinos.get(j) != u) limite = Math.max(limite, pu + peso.get(aristasSalida.get(j)));
+                }
+                buscarTestigos(u, v, limite);
+                for (int j = 0; j < destinos.tam; j++) {
+                    int x = destinos.get(j);
+                    if (x == u) continue;
+                    int ex = aristasSalida.get(j);
+                    double porV = pu + peso.get(ex);
+                    if (distanciaTestigo(x) <= porV) continue;
+                    atajos++;
+                    if (agregar) agregarAtajo(u, x, porV, eu, ex);
+                }
+            }
+            return atajos;
+        }
+
+        /** Dijkstra local desde u sin pasar por v ni por contraídos, hasta limite o MAX_ASENTADOS_TESTIGO. */
+        private void buscarTestigos(int u, int v, double limite) {
+            if (++selloActual == Integer.MAX_VALUE) {
+                Arrays.fill(selloTestigo, 0);
+                selloActual = 1;
+            }
+            heapTestigo.preparar(n);
+            distTestigo[u] = 0;
+            selloTestigo[u] = selloActual;
+            heapTestigo.insertarOBajar(u, 0);
+            int asentados = 0;
+            while (!heapTestigo.vacio() && asentados < MAX_ASENTADOS_TESTIGO) {
+                if (heapTestigo.claveMinima() > limite) break;
+                int a = heapTestigo.extraerMin();
+                asentados++;
+                double da = distTestigo[a];
+                for (int i = 0; i < salen[a].tam; i++) {
+                    int e = salen[a].get(i);
+                    int b = hasta.get(e);
+                    if (b == v || contraido[b]) continue;
+                    double alt = da + peso.get(e);
+                    if (selloTestigo[b] != selloActual || alt < distTestigo[b]) {
+                        selloTestigo[b] = selloActual;
+                        distTestigo[b] = alt;
+                        heapTestigo.insertarOBajar(b, alt);
+                    }
+                }
+            }
+        }
+
+        private double distanciaTestigo(int x) {
+            return selloTestigo[x] == selloActual ? distTestigo[x] : Double.POSITIVE_INFINITY;
+        }
+
+        private void agregarAtajo(int u, int x, double p, int ea, int eb) {
+            int id = desde.tam;
+            desde.agregar(u);
+            hasta.agregar(x);
+            peso.agregar(p);
+            hijoA.agregar(ea);
+            hijoB.agregar(eb);
+            salen[u].agregar(id);
+            entran[x].agregar(id);
+        }
+
+        /** Reparte las aristas en "sube" y "baja" según el rango de sus extremos (CSR). */
+        private JerarquiaContraccion armar(int[] rango) {
+            int total = desde.tam;
+            int[] cantSube = new int[n + 1];
+            int[] cantBaja = new int[n + 1];
+            for (int e = 0; e < total; e++) {
+                int a = desde.get(e), b = hasta.get(e);
+                if (a == b) continue;
+                if (rango[b] > rango[a]) cantSube[a + 1]++;
+                else cantBaja[b + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                cantSube[v + 1] += cantSube[v];
+                cantBaja[v + 1] += cantBaja[v];
+            }
+            int[] subeArista = new int[cantSube[n]];
+            int[] bajaArista = new int[cantBaja[n]];
+            int[] ps = Arrays.copyOf(cantSube, n);
+            int[] pb = Arrays.copyOf(cantBaja, n);
+            for (int e = 0; e < total; e++) {
+                int a = desde.get(e), b = hasta.get(e);
+                if (a == b) continue;
+                if (rango[b] > rango[a]) subeArista[ps[a]++] = e;
+                else bajaArista[pb[b]++] = e;
+            }
+            return new JerarquiaContraccion(g, criterio, originales,
+                    desde.aArreglo(), hasta.aArreglo(), peso.aArreglo(), hijoA.aArreglo(), hijoB.aArreglo(),
+                    cantSube, subeArista, cantBaja, bajaArista);
+        }
+    }
+
+    // ---------- listas primitivas (sin boxing) ----------
+
+    private static final class ListaEnteros {
+        int[] datos = new int[4];
+        int tam;
+
+        void agregar(int x) {
+            if (tam == datos.length) datos = Arrays.copyOf(datos, tam * 2);
+            datos[tam++] = x;
+        }
+
+        int get(int i) { return datos[i]; }
+
+        void poner(int i, int x) { datos[i] = x; }
+
+        int[] aArreglo() { return Arrays.copyOf(datos, tam); }
+    }
+
+    private static final class ListaDecimales {
+        double[] datos = new double[4];
+        int tam;
+
+        void agregar(double x) {
+            if (tam == datos.length) datos = Arrays.copyOf(datos, tam * 2);
+            datos[tam++] = x;
+        }
+
+        double get(int i) { return datos[i]; }
+
+        double[] aArreglo() { return Arrays.copyOf(datos, tam); }
+    }
+}
@@ -0,0 +1,220 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+
+import java.util.Arrays;
+
+/**
+ * Landmarks para A* con cotas ALT (A*, Landmarks, desigualdad triangular) sobre una foto.
+ *
+ * - Se eligen k landmarks por el más lejano (farthest-point) con dist_km: cada nuevo
+ *   landmark es el nodo con :RUTA más alejado de todos los ya elegidos (los que ninguno
+ *   alcanza van primero, así cada componente queda cubierta).
+ * - Por cada criterio se guarda d(L, v) (desde el landmark, por salientes) y d(v, L)
+ *   (hacia el landmark, por entrantes), intercalados por nodo: [v * k + i].
+ * - Cota de d(v, t): max sobre L de d(L, t) - d(L, v) y d(v, L) - d(t, L).
+ *
+ * COSTO se calcula con factorPeaje = 1 y se escala en la consulta (peaje * f es lineal);
+ * un criterio con algún peso negativo no tiene landmarks y se resuelve sin ALT.
+ * Es inmutable y vale solo para la foto con la que se armó.
+ */
+final class LandmarksALT {
+
+    private static final CriterioPeso[] CRITERIOS = CriterioPeso.values();
+
+    private final SnapshotGrafo grafo;
+    private final int[] nodos;
+    private final double[][] desde;   // [criterio][v * k + i] = d(L_i, v)
+    private final double[][] hacia;   // [criterio][v * k + i] = d(v, L_i)
+    private final long msConstruccion;
+
+    private LandmarksALT(SnapshotGrafo grafo, int[] nodos, double[][] desde, double[][] hacia, long msConstruccion) {
+        this.grafo = grafo;
+        this.nodos = nodos;
+        this.desde = desde;
+        this.hacia = hacia;
+        this.msConstruccion = msConstruccion;
+    }
+
+    /** Elige hasta k landmarks en la foto y precalcula sus distancias para cada criterio. */
+    static LandmarksALT construir(SnapshotGrafo g, int k) {
+        long t0 = System.nanoTime();
+        int n = g.cantidadNodos();
+        MonticuloIndexado heap = new MonticuloIndexado();
+        double[] ida = new double[n];
+        double[] vuelta = new double[n];
+
+        // candidatos: nodos con alguna :RUTA (los Clientes no tienen y nunca se alcanzan)
+        boolean[] candidato = new boolean[n];
+        int primero = -1;
+        for (int v = 0; v < n; v++) {
+            candidato[v] = g.finSalida(v) > g.inicioSalida(v) || g.finEntrada(v) > g.inicioEntrada(v);
+            if (candidato[v] && primero < 0) primero = v;
+        }
+
+        // farthest-point con dist_km: lejania[v] = min sobre lo elegido de min(d(L, v), d(v, L))
+        int[] elegidos = new int[Math.max(k, 0)];
+        int cant = 0;
+        double[][] idaDist = new double[elegidos.length][];
+        double[][] vueltaDist = new double[elegidos.length][];
+        double[] lejania = new double[n];
+        Arrays.fill(lejania, Double.POSITIVE_INFINITY);
+        int siguiente = primero;
+        if (primero >= 0 && k > 0) {
+            // el primero es el más lejano de un nodo cualquiera (el de menor índice)
+            distancias(g, heap, primero, CriterioPeso.DISTANCIA, true, ida);
+            distancias(g, heap, primero, CriterioPeso.DISTANCIA, false, vuelta);
+            actualizarLejania(lejania, ida, vuelta);
+            siguiente = masLejano(candidato, lejania, primero);
+        }
+        while (cant < elegidos.length && siguiente >= 0) {
+            double[] d1 = new double[n];
+            double[] d2 = new double[n];
+            distancias(g, heap, siguiente, CriterioPeso.DISTANCIA, true, d1);
+            distancias(g, heap, siguiente, CriterioPeso.DISTANCIA, false, d2);
+            elegidos[cant] = siguiente;
+            idaDist[cant] = d1;
+            vueltaDist[cant] = d2;
+            cant++;
+            // el nodo de arranque no es landmark: su lejanía no cuenta
+            if (cant == 1) Arrays.fill(lejania, Double.POSITIVE_INFINITY);
+            actualizarLejania(lejania, d1, d2);
+            siguiente = masLejano(candidato, lejania, -1);
+        }
+        int[] nodos = Arrays.copyOf(elegidos, cant);
+
+        double[][] desde = new double[CRITERIOS.length][];
+        double[][] hacia = new double[CRITERIOS.length][];
+        for (CriterioPeso c : CRITERIOS) {
+            if (cant == 0 || !pesosNoNegativos(g, c)) continue;
+            double[] de = new double[n * cant];
+            double[] ha = new double[n * cant];
+            for (int i = 0; i < cant; i++) {
+                double[] d1 = idaDist[i];
+                double[] d2 = vueltaDist[i];
+                if (c != CriterioPeso.DISTANCIA) {
+                    // dist_km ya quedó calculado al elegirlos; los otros criterios se corren acá
+                    distancias(g, heap, nodos[i], c, true, ida);
+                    distancias(g, heap, nodos[i], c, false, vuelta);
+                    d1 = ida;
+                    d2 = vuelta;
+                }
+                for (int v = 0; v < n; v++) {
+                    de[v * cant + i] = d1[v];
+                    ha[v * cant + i] = d2[v];
+                }
+            }
+            desde[c.ordinal()] = de;
+            hacia[c.ordinal()] = ha;
+        }
+        return new LandmarksALT(g, nodos, desde, hacia, (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    /** Foto con la que se armaron (se compara por identidad). */
+    SnapshotGrafo grafo() { return grafo; }
+
+    int cantidad() { return nodos.length; }
+
+    long msConstruccion() { return msConstruccion; }
+
+    /** Ids de los landmarks elegidos, en orden de elección. */
+    String[] ids() {
+        String[] res = new String[nodos.length];
+        for (int i = 0; i < nodos.length; i++) res[i] = grafo.id(nodos[i]);
+        return res;
+    }
+
+    /** Hay cotas válidas para ese criterio y factor (pesos no negativos). */
+    boolean sirvePara(CriterioPeso criterio, double factorPeaje) {
+        return desde[criterio.ordinal()] != null
+                && (criterio != CriterioPeso.COSTO || factorPeaje >= 0);
+    }
+
+    /**
+     * Cota inferior de la distancia de v al más cercano de los destinos.
+     * Infinito si ya se sabe que v no llega a ninguno.
+     */
+    double cota(CriterioPeso criterio, double factorPeaje, int v, int[] destinos) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int t : destinos) {
+            min = Math.min(min, cota(criterio, v, t));
+            if (min == 0) return 0;
+        }
+        if (min == Double.POSITIVE_INFINITY) return min;
+        return criterio == CriterioPeso.COSTO ? min * factorPeaje : min;
+    }
+
+    private double cota(CriterioPeso criterio, int v, int t) {
+        double[] de = desde[criterio.ordinal()];
+        double[] ha = hacia[criterio.ordinal()];
+        int k = nodos.length;
+        int bv = v * k, bt = t * k;
+        double mejor = 0;
+        for (int i = 0; i < k; i++) {
+            double lv = de[bv + i], lt = de[bt + i];   // d(L, v), d(L, t)
+            if (lv < Double.POSITIVE_INFINITY) {
+                if (lt == Double.POSITIVE_INFINITY) return lt;   // L llega a v pero no a t
+                mejor = Math.max(mejor, lt - lv);
+            }
+            double vl = ha[bv + i], tl = ha[bt + i];   // d(v, L), d(t, L)
+            if (tl < Double.POSITIVE_INFINITY) {
+                if (vl == Double.POSITIVE_INFINITY) return vl;   // t llega a L pero v no
+                mejor = Math.max(mejor, vl - tl);
+            }
+        }
+        return mejor;
+    }
+
+    // ---------- helpers ----------
+
+    /** Dijkstra completo desde (o hacia, por entrantes) un nodo; deja las distancias en dist. */
+    private static void distancias(SnapshotGrafo g, MonticuloIndexado heap, int fuente,
+                                   CriterioPeso criterio, boolean salientes, double[] dist) {
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        heap.preparar(g.cantidadNodos());
+        dist[fuente] = 0;
+        heap.insertarOBajar(fuente, 0);
+        while (!heap.vacio()) {
+            int u = heap.extraerMin();
+            double du = dist[u];
+            int ini = salientes ? g.inicioSalida(u) : g.inicioEntrada(u);
+            int fin = salientes ? g.finSalida(u) : g.finEntrada(u);
+            for (int p = ini; p < fin; p++) {
+                int e = salientes ? p : g.aristaEntrante(p);
+                int v = salientes ? g.destino(e) : g.origen(e);
+                double alt = du + g.peso(e, criterio, 1.0);
+                if (alt < dist[v]) {
+                    dist[v] = alt;
+                    heap.insertarOBajar(v, alt);
+                }
+            }
+        }
+    }
+
+    private static void actualizarLejania(double[] lejania, double[] ida, double[] vuelta) {
+        for (int v = 0; v < lejania.length; v++) {
+            lejania[v] = Math.min(lejania[v], Math.min(ida[v], vuelta[v]));
+        }
+    }
+
+    /** Candidato con mayor lejanía (a igual, el de menor índice); -1 si ya están todos cubiertos. */
+    private static int masLejano(boolean[] candidato, double[] lejania, int excluir) {
+        int res = -1;
+        double max = 0;
+        for (int v = 0; v < lejania.length; v++) {
+            if (candidato[v] && v != excluir && lejania[v] > max) {
+                max = lejania[v];
+                res = v;
+            }
+        }
+        return res;
+    }
+
+    private static boolean pesosNoNegativos(SnapshotGrafo g, CriterioPeso criterio) {
+        for (int e = 0; e < g.cantidadAristas(); e++) {
+            if (!(g.peso(e, criterio, 1.0) >= 0)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,138 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Distancias mínimas entre todos los pares de Hubs de una foto, para un criterio
+ * (COSTO con factorPeaje = 1).
+ *
+ * - Fila s = un Dijkstra completo desde el Hub s (corren en paralelo, uno por fuente).
+ * - Se guarda en arreglos planos de h * h: distancia y la última :RUTA del camino
+ *   (la arista por la que se llega a t en el árbol de s). Con eso el costo es O(1)
+ *   y el camino se rearma de atrás para adelante sin volver a buscar.
+ * - Cada fila es el mismo árbol que arma Dijkstra desde s (mismo heap, mismos empates),
+ *   así que los caminos salen idénticos a los de servicioDijkstra.dijkstra.
+ *
+ * Es inmutable y vale solo para la foto con la que se armó.
+ */
+final class MatrizDistancias {
+
+    private final SnapshotGrafo grafo;
+    private final CriterioPeso criterio;
+    private final int h;
+    private final int[] posicion;     // índice de la foto → posición en la matriz (-1 si no es Hub)
+    private final int[] hubs;         // posición en la matriz → índice de la foto
+    private final double[] dist;      // [s * h + t]
+    private final int[] ultima;       // [s * h + t] = arista que llega a t, -1 si t == s o no se llega
+
+    private MatrizDistancias(SnapshotGrafo grafo, CriterioPeso criterio, int h, int[] posicion, int[] hubs,
+                             double[] dist, int[] ultima) {
+        this.grafo = grafo;
+        this.criterio = criterio;
+        this.h = h;
+        this.posicion = posicion;
+        this.hubs = hubs;
+        this.dist = dist;
+        this.ultima = ultima;
+    }
+
+    /** Arma la matriz en el pool dado; null si el criterio tiene pesos negativos. */
+    static MatrizDistancias construir(SnapshotGrafo g, CriterioPeso criterio, ForkJoinPool pool) {
+        for (int e = 0; e < g.cantidadAristas(); e++) {
+            if (!(g.peso(e, criterio, 1.0) >= 0)) return null;
+        }
+        int n = g.cantidadNodos();
+        int[] posicion = new int[n];
+        int[] hubs = new int[n];
+        int h = 0;
+        for (int v = 0; v < n; v++) {
+            if (g.esHub(v)) {
+                posicion[v] = h;
+                hubs[h++] = v;
+            } else {
+                posicion[v] = -1;
+            }
+        }
+        int cant = h;
+        double[] dist = new double[cant * cant];
+        int[] ultima = new int[cant * cant];
+
+        // una tarea por fuente; cada hilo del pool usa su propio EspacioDijkstra
+        pool.submit(() -> IntStream.range(0, cant).parallel()
+                .forEach(s -> fila(g, criterio, hubs[s], hubs, cant, s, dist, ultima))).join();
+
+        return new MatrizDistancias(g, criterio, cant, posicion, Arrays.copyOf(hubs, cant), dist, ultima);
+    }
+
+    SnapshotGrafo grafo() { return grafo; }
+
+    CriterioPeso criterio() { return criterio; }
+
+    int cantidadHubs() { return h; }
+
+    /** Posición del Hub en la matriz, o -1 si no está en la foto. */
+    int posicion(String id) {
+        int v = grafo.indiceDe(id);
+        return v < 0 ? -1 : posicion[v];
+    }
+
+    /** Id del Hub en esa posición. */
+    String id(int pos) {
+        return grafo.id(hubs[pos]);
+    }
+
+    /** Distancia de s a t (posiciones); infinito si no hay camino. */
+    double distancia(int s, int t) {
+        return dist[s * h + t];
+    }
+
+    /** Ids del camino de s a t (posiciones), o vacío si no hay. */
+    List<String> camino(int s, int t) {
+        if (dist[s * h + t] == Double.POSITIVE_INFINITY) return List.of();
+        int[] nodos = new int[8];
+        int cant = 0;
+        int v = hubs[t];
+        nodos[cant++] = v;
+        for (int e = ultima[s * h + t]; e >= 0; e = ultima[s * h + posicion[v]]) {
+            v = grafo.origen(e);
+            if (cant == nodos.length) nodos = Arrays.copyOf(nodos, cant * 2);
+            nodos[cant++] = v;
+        }
+        List<String> res = new ArrayList<>(cant);
+        for (int i = cant - 1; i >= 0; i--) res.add(grafo.id(nodos[i]));
+        return res;
+    }
+
+    // ---------- helpers ----------
+
+    /** Dijkstra completo desde el Hub origen; llena la fila s de la matriz. */
+    private static void fila(SnapshotGrafo g, CriterioPeso criterio, int origen, int[] hubs,
+                             int h, int s, double[] dist, int[] ultima) {
+        EspacioDijkstra ws = EspacioDijkstra.delHilo(g.cantidadNodos());
+        MonticuloIndexado pq = ws.heap;
+        ws.etiquetar(origen, 0.0, -1);
+        while (!pq.vacio()) {
+            int u = pq.extraerMin();
+            ws.asentar(u);
+            double du = ws.dist(u);
+            for (int e = g.inicioSalida(u); e < g.finSalida(u); e++) {
+                int v = g.destino(e);
+                if (ws.asentado(v)) continue;
+                double alt = du + g.peso(e, criterio, 1.0);
+                if (alt < ws.dist(v)) ws.etiquetar(v, alt, e);
+            }
+        }
+        int base = s * h;
+        for (int t = 0; t < h; t++) {
+            dist[base + t] = ws.dist(hubs[t]);
+            ultima[base + t] = ws.aristaPadre(hubs[t]);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package edu.uade.prog3.tpo.servicio;
+
+import java.util.Arrays;
+
+/**
+ * Min-heap binario de nodos (índices int) con clave double y decrease-key en O(log n).
+ *
+ * - pos[v] dice dónde está v dentro del heap (-1 si no está), así bajar la clave
+ *   de un nodo no requiere buscarlo (a diferencia de PriorityQueue.remove, que es O(n)).
+ * - A igual clave sale primero el índice menor (orden alfabético de ids en la foto),
+ *   para que los empates se resuelvan siempre igual.
+ * - Pensado para reutilizarse: {@link #preparar} solo agranda los arreglos si hace falta
+ *   y limpia lo que quedó de la consulta anterior.
+ */
+final class MonticuloIndexado {
+
+    private int[] heap = new int[0];
+    private double[] clave = new double[0];   // clave[i] = prioridad de heap[i]
+    private int[] pos = new int[0];
+    private int tam;
+
+    /** Deja el heap vacío y listo para nodos en [0, n). */
+    void preparar(int n) {
+        if (pos.length < n) {
+            int cap = Math.max(n, pos.length * 2);
+            heap = new int[cap];
+            clave = new double[cap];
+            pos = new int[cap];
+            Arrays.fill(pos, -1);
+        } else {
+            for (int i = 0; i < tam; i++) pos[heap[i]] = -1;
+        }
+        tam = 0;
+    }
+
+    boolean vacio() { return tam == 0; }
+
+    boolean contiene(int v) { return pos[v] >= 0; }
+
+    /** Inserta v o, si ya está, le baja la clave (si la nueva es mayor, no hace nada). */
+    void insertarOBajar(int v, double k) {
+        int i = pos[v];
+        if (i < 0) {
+            i = tam++;
+            heap[i] = v;
+            clave[i] = k;
+            pos[v] = i;
+        } else if (k < clave[i]) {
+            clave[i] = k;
+        } else {
+            return;
+        }
+        subir(i);
+    }
+
+    /** Clave mínima (sin sacarla). */
+    double claveMinima() { return clave[0]; }
+
+    /** Saca y devuelve el nodo de clave mínima. */
+    int extraerMin() {
+        int v = heap[0];
+        pos[v] = -1;
+        tam--;
+        if (tam > 0) {
+            heap[0] = heap[tam];
+            clave[0] = clave[tam];
+            pos[heap[0]] = 0;
+            bajar(0);
+        }
+        return v;
+    }
+
+    // ---------- helpers ----------
+
+    private boolean menor(int i, int j) {
+        return clave[i] < clave[j] || (clave[i] == clave[j] && heap[i] < heap[j]);
+    }
+
+    private void subir(int i) {
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (!menor(i, p)) break;
+            intercambiar(i, p);
+            i = p;
+        }
+    }
+
+    private void bajar(int i) {
+        while (true) {
+            int izq = 2 * i + 1;
+            if (izq >= tam) break;
+            int m = izq + 1 < tam && menor(izq + 1, izq) ? izq + 1 : izq;
+            if (!menor(m, i)) break;
+            intercambiar(i, m);
+            i = m;
+        }
+    }
+
+    private void intercambiar(int i, int j) {
+        int v = heap[i];
+        heap[i] = heap[j];
+        heap[j] = v;
+        double k = clave[i];
+        clave[i] = clave[j];
+        clave[j] = k;
+        pos[heap[i]] = i;
+        pos[heap[j]] = j;
+    }
+}
@@ -0,0 +1,102 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.repositorio.GrafoPublicado;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Arma y guarda las Contraction Hierarchies (ver {@link JerarquiaContraccion}) de la foto vigente,
+ * una por criterio.
+ *
+ * - Cada foto publicada ({@link GrafoPublicado}) encola una reconstrucción en un hilo propio;
+ *   si mientras tanto llegó otra foto, la vieja se descarta sin armar.
+ * - Hasta que estén las de la foto que usa una consulta, esa consulta no tiene jerarquía
+ *   y ServicioDijkstra resuelve con el Dijkstra clásico (nunca espera el preproceso).
+ * - Un criterio con pesos negativos no tiene jerarquía. COSTO se arma con factorPeaje = 1
+ *   y se reusa para cualquier factor >= 0 (escalar todos los pesos no cambia el camino).
+ *
+ * Con tpo.dijkstra.jerarquias=false no se arma nada.
+ */
+@Service
+public class MotorJerarquias {
+
+    private static final Logger log = LoggerFactory.getLogger(MotorJerarquias.class);
+
+    private record Jerarquias(SnapshotGrafo grafo, Map<CriterioPeso, JerarquiaContraccion> porCriterio, long ms) {}
+
+    private final boolean habilitado;
+    private final ExecutorService constructor;
+
+    private volatile Jerarquias vigentes;
+    private volatile SnapshotGrafo pedida;
+
+    public MotorJerarquias(@Value("${tpo.dijkstra.jerarquias:true}") boolean habilitado) {
+        this.habilitado = habilitado;
+        this.constructor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "jerarquias-contraccion");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Encola la reconstrucción para la foto nueva (el preproceso no corre en el hilo del refresco). */
+    @EventListener
+    public void alPublicarGrafo(GrafoPublicado evento) {
+        if (!habilitado) return;
+        pedida = evento.snapshot();
+        constructor.execute(() -> construir(evento.snapshot()));
+    }
+
+    /** Jerarquía del criterio armada para esa misma foto, o null si todavía no está (o no hay). */
+    JerarquiaContraccion para(SnapshotGrafo g, CriterioPeso criterio) {
+        Jerarquias j = vigentes;
+        return j != null && j.grafo() == g ? j.porCriterio().get(criterio) : null;
+    }
+
+    /** Foto, atajos por criterio y duración del último preproceso. */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> res = new LinkedHashMap<>();
+        Jerarquias j = vigentes;
+        res.put("habilitado", habilitado);
+        res.put("versionGrafo", j == null ? -1 : j.grafo().version());
+        Map<String, Object> atajos = new LinkedHashMap<>();
+        if (j != null) j.porCriterio().forEach((c, ch) -> atajos.put(c.name(), ch.cantidadAtajos()));
+        res.put("atajos", atajos);
+        res.put("msConstruccion", j == null ? 0 : j.ms());
+        return res;
+    }
+
+    @PreDestroy
+    public void detener() {
+        constructor.shutdownNow();
+    }
+
+    private void construir(SnapshotGrafo g) {
+        if (pedida != g) return;   // ya llegó una foto más nueva
+        try {
+            long t0 = System.nanoTime();
+            Map<CriterioPeso, JerarquiaContraccion> porCriterio = new EnumMap<>(CriterioPeso.class);
+            for (CriterioPeso c : CriterioPeso.values()) {
+                if (pedida != g) return;
+                JerarquiaContraccion ch = JerarquiaContraccion.construir(g, c);
+                if (ch != null) porCriterio.put(c, ch);
+            }
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+            vigentes = new Jerarquias(g, porCriterio, ms);
+            log.info("Contraction Hierarchies de la versión {} listas en {} ms ({} criterios)",
+                    g.version(), ms, porCriterio.size());
+        } catch (RuntimeException ex) {
+            log.warn("No se pudieron armar las jerarquías de la versión {}: {}", g.version(), ex.getMessage());
+        }
+    }
+}
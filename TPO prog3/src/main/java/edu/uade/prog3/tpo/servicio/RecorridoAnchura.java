@@ -0,0 +1,298 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+
+import java.util.Arrays;
+
+/**
+ * BFS por niveles sobre los índices de la foto, con dirección optimizada (Beamer):
+ *
+ * - De arriba hacia abajo: cada nodo de la frontera recorre sus vecinos (conviene con frontera chica).
+ * - De abajo hacia arriba: cada nodo no visitado busca un vecino entrante en la frontera
+ *   (conviene cuando la frontera tiene más aristas que lo que queda sin visitar / ALFA).
+ *   Se vuelve a arriba-abajo cuando la frontera baja de n / BETA nodos.
+ * - Visitados y frontera son bitsets long[]; padre, nivel y posición en la frontera son int[].
+ *   Hay uno por hilo y se reutiliza: no se crean objetos por nodo.
+ *
+ * Los dos modos dan el mismo resultado que la cola FIFO: el padre de un nodo es el vecino que
+ * está primero en la frontera, y la frontera siguiente queda ordenada por (posición del padre,
+ * índice del nodo), que es el orden en que la descubre el modo de arriba hacia abajo.
+ *
+ * {@link #caminoBidireccional} crece una frontera desde cada punta (usa el segundo recorrido
+ * del hilo, {@link #delHiloHaciaAtras}, para la del destino).
+ */
+final class RecorridoAnchura {
+
+    private static final ThreadLocal<RecorridoAnchura> POR_HILO = ThreadLocal.withInitial(RecorridoAnchura::new);
+    private static final ThreadLocal<RecorridoAnchura> HACIA_ATRAS = ThreadLocal.withInitial(RecorridoAnchura::new);
+    private static final int ALFA = 14;
+    private static final int BETA = 24;
+
+    private long[] visitados = new long[0];
+    private long[] enFrontera = new long[0];
+    private int[] padre = new int[0];
+    private int[] nivel = new int[0];
+    private int[] posicion = new int[0];     // posición en la frontera actual
+    private int[] frontera = new int[0];
+    private int[] siguiente = new int[0];
+    private int[] cuenta = new int[0];       // para ordenar por posición del padre (abajo-arriba)
+    private int[] ordenados = new int[0];
+    private int cantSiguiente;               // largo de siguiente tras expandirLado
+
+    /** El recorrido del hilo actual, con espacio para n nodos. */
+    static RecorridoAnchura delHilo(int n) {
+        RecorridoAnchura r = POR_HILO.get();
+        r.preparar(n);
+        return r;
+    }
+
+    /** Un segundo recorrido del hilo, para la frontera del destino en el modo bidireccional. */
+    static RecorridoAnchura delHiloHaciaAtras(int n) {
+        RecorridoAnchura r = HACIA_ATRAS.get();
+        r.preparar(n);
+        return r;
+    }
+
+    private void preparar(int n) {
+        int palabras = (n + 63) >>> 6;
+        if (padre.length < n) {
+            int cap = Math.max(n, padre.length * 2);
+            visitados = new long[(cap + 63) >>> 6];
+            enFrontera = new long[(cap + 63) >>> 6];
+            padre = new int[cap];
+            nivel = new int[cap];
+            posicion = new int[cap];
+            frontera = new int[cap];
+            siguiente = new int[cap];
+            cuenta = new int[cap + 1];
+            ordenados = new int[cap];
+        } else {
+            Arrays.fill(visitados, 0, palabras, 0L);
+            Arrays.fill(enFrontera, 0, palabras, 0L);
+        }
+    }
+
+    /**
+     * Camino (índices) de origen a destino con la menor cantidad de saltos, o null si no hay
+     * o si queda más lejos que maxProfundidad (0 = sin límite).
+     */
+    int[] camino(SnapshotGrafo g, int origen, int destino, int maxProfundidad, boolean incluirClientes) {
+        int n = g.cantidadNodos();
+        sembrar(origen);
+        if (origen == destino) return new int[]{origen};
+
+        int cantFrontera = 1;
+        marcar(enFrontera, origen);
+        posicion[origen] = 0;
+
+        long aristasFrontera = grado(g, origen, incluirClientes);
+        long aristasSinVisitar = g.cantidadVecinos(incluirClientes) - gradoEntrante(g, origen, incluirClientes);
+        boolean abajoArriba = false;
+        int nivelActual = 0;
+
+        while (cantFrontera > 0) {
+            if (maxProfundidad > 0 && nivelActual >= maxProfundidad) break;
+
+            if (!abajoArriba && aristasFrontera > aristasSinVisitar / ALFA) abajoArriba = true;
+            else if (abajoArriba && cantFrontera < n / BETA) abajoArriba = false;
+
+            int cantSiguiente = abajoArriba
+                    ? abajoArriba(g, cantFrontera, nivelActual + 1, incluirClientes)
+                    : arribaAbajo(g, cantFrontera, nivelActual + 1, destino, incluirClientes);
+            if (visitado(destino)) return reconstruir(destino);
+
+            // la siguiente pasa a ser la frontera
+            for (int i = 0; i < cantFrontera; i++) desmarcar(enFrontera, frontera[i]);
+            int[] tmp = frontera;
+            frontera = siguiente;
+            siguiente = tmp;
+            cantFrontera = cantSiguiente;
+            aristasFrontera = 0;
+            for (int i = 0; i < cantFrontera; i++) {
+                int v = frontera[i];
+                marcar(enFrontera, v);
+                posicion[v] = i;
+                aristasFrontera += grado(g, v, incluirClientes);
+                aristasSinVisitar -= gradoEntrante(g, v, incluirClientes);
+            }
+            nivelActual++;
+        }
+        return null;
+    }
+
+    /**
+     * Igual que {@link #camino}, pero creciendo por niveles completos desde el origen (vecinos)
+     * y desde el destino (vecinos entrantes), siempre del lado con menos aristas por recorrer.
+     * Al terminar el primer nivel en que se tocan, el camino pasa por el nodo de encuentro con
+     * menor suma de niveles. Con maxProfundidad no se expande si el camino ya no entraría.
+     * Tiene la misma cantidad de saltos que el unidireccional (a igual largo, puede ser otro camino).
+     */
+    static int[] caminoBidireccional(SnapshotGrafo g, int origen, int destino, int maxProfundidad,
+                                     boolean incluirClientes) {
+        int n = g.cantidadNodos();
+        if (origen == destino) return new int[]{origen};
+        RecorridoAnchura ida = delHilo(n);
+        RecorridoAnchura vuelta = delHiloHaciaAtras(n);
+        ida.sembrar(origen);
+        vuelta.sembrar(destino);
+
+        int cantIda = 1, cantVuelta = 1;
+        int nivelIda = 0, nivelVuelta = 0;
+        long aristasIda = grado(g, origen, incluirClientes);
+        long aristasVuelta = gradoEntrante(g, destino, incluirClientes);
+
+        while (cantIda > 0 && cantVuelta > 0) {
+            if (maxProfundidad > 0 && nivelIda + nivelVuelta >= maxProfundidad) break;
+            int encuentro;
+            if (aristasIda <= aristasVuelta) {
+                encuentro = ida.expandirLado(g, cantIda, ++nivelIda, vuelta, true, incluirClientes);
+                cantIda = ida.cantSiguiente;
+                aristasIda = ida.avanzar(g, true, incluirClientes);
+            } else {
+                encuentro = vuelta.expandirLado(g, cantVuelta, ++nivelVuelta, ida, false, incluirClientes);
+                cantVuelta = vuelta.cantSiguiente;
+                aristasVuelta = vuelta.avanzar(g, false, incluirClientes);
+            }
+            if (encuentro >= 0) {
+                int[] res = new int[ida.nivel[encuentro] + vuelta.nivel[encuentro] + 1];
+                int i = ida.nivel[encuentro];
+                for (int v = encuentro; v >= 0; v = ida.padre[v]) res[i--] = v;
+                i = ida.nivel[encuentro];
+                for (int v = vuelta.padre[encuentro]; v >= 0; v = vuelta.padre[v]) res[++i] = v;
+                return res;
+            }
+        }
+        return null;
+    }
+
+    // ---------- helpers ----------
+
+    private void sembrar(int raiz) {
+        marcar(visitados, raiz);
+        padre[raiz] = -1;
+        nivel[raiz] = 0;
+        frontera[0] = raiz;
+    }
+
+    /**
+     * Un nivel completo de arriba hacia abajo de un lado del bidireccional (por salientes si
+     * adelante, si no por entrantes). Devuelve el nodo nuevo ya visitado por el otro lado con
+     * menor nivel allá, o -1.
+     */
+    private int expandirLado(SnapshotGrafo g, int cantFrontera, int nivelNuevo, RecorridoAnchura otro,
+                             boolean adelante, boolean incluirClientes) {
+        int cant = 0;
+        int encuentro = -1;
+        for (int i = 0; i < cantFrontera; i++) {
+            int u = frontera[i];
+            int ini = adelante ? g.inicioVecinos(u, incluirClientes) : g.inicioVecinosEntrantes(u, incluirClientes);
+            int fin = adelante ? g.finVecinos(u, incluirClientes) : g.finVecinosEntrantes(u, incluirClientes);
+            for (int k = ini; k < fin; k++) {
+                int v = adelante ? g.vecino(k, incluirClientes) : g.vecinoEntrante(k, incluirClientes);
+                if (visitado(v)) continue;
+                marcar(visitados, v);
+                padre[v] = u;
+                nivel[v] = nivelNuevo;
+                siguiente[cant++] = v;
+                if (otro.visitado(v) && (encuentro < 0 || otro.nivel[v] < otro.nivel[encuentro])) encuentro = v;
+            }
+        }
+        cantSiguiente = cant;
+        return encuentro;
+    }
+
+    /** La siguiente pasa a ser la frontera; devuelve las aristas que tiene para el próximo nivel. */
+    private long avanzar(SnapshotGrafo g, boolean adelante, boolean incluirClientes) {
+        int[] tmp = frontera;
+        frontera = siguiente;
+        siguiente = tmp;
+        long aristas = 0;
+        for (int i = 0; i < cantSiguiente; i++) {
+            int v = frontera[i];
+            aristas += adelante ? grado(g, v, incluirClientes) : gradoEntrante(g, v, incluirClientes);
+        }
+        return aristas;
+    }
+
+    /** Cada nodo de la frontera, en orden, agrega sus vecinos no visitados. Corta al descubrir el destino. */
+    private int arribaAbajo(SnapshotGrafo g, int cantFrontera, int nivelNuevo, int destino, boolean incluirClientes) {
+        int cant = 0;
+        for (int i = 0; i < cantFrontera; i++) {
+            int u = frontera[i];
+            for (int k = g.inicioVecinos(u, incluirClientes); k < g.finVecinos(u, incluirClientes); k++) {
+                int v = g.vecino(k, incluirClientes);
+                if (visitado(v)) continue;
+                marcar(visitados, v);
+                padre[v] = u;
+                nivel[v] = nivelNuevo;
+                if (v == destino) return cant;
+                siguiente[cant++] = v;
+            }
+        }
+        return cant;
+    }
+
+    /**
+     * Cada nodo no visitado busca, entre los que lo tienen de vecino, el que está primero
+     * en la frontera. Después se ordenan por esa posición (counting sort estable).
+     */
+    private int abajoArriba(SnapshotGrafo g, int cantFrontera, int nivelNuevo, boolean incluirClientes) {
+        int n = g.cantidadNodos();
+        int cant = 0;
+        for (int w = 0; w < visitados.length && (w << 6) < n; w++) {
+            long libres = ~visitados[w];
+            while (libres != 0) {
+                int v = (w << 6) + Long.numberOfTrailingZeros(libres);
+                libres &= libres - 1;
+                if (v >= n) break;
+                int mejor = -1;
+                for (int k = g.inicioVecinosEntrantes(v, incluirClientes); k < g.finVecinosEntrantes(v, incluirClientes); k++) {
+                    int u = g.vecinoEntrante(k, incluirClientes);
+                    if (marcado(enFrontera, u) && (mejor < 0 || posicion[u] < posicion[mejor])) mejor = u;
+                }
+                if (mejor < 0) continue;
+                padre[v] = mejor;
+                nivel[v] = nivelNuevo;
+                siguiente[cant++] = v;
+            }
+        }
+        // marcar recién ahora: durante la pasada "visitado" tiene que ser el del nivel anterior
+        Arrays.fill(cuenta, 0, cantFrontera + 1, 0);
+        for (int i = 0; i < cant; i++) {
+            int v = siguiente[i];
+            marcar(visitados, v);
+            cuenta[posicion[padre[v]] + 1]++;
+        }
+        for (int p = 0; p < cantFrontera; p++) cuenta[p + 1] += cuenta[p];
+        for (int i = 0; i < cant; i++) {
+            int v = siguiente[i];
+            ordenados[cuenta[posicion[padre[v]]]++] = v;
+        }
+        int[] tmp = siguiente;
+        siguiente = ordenados;
+        ordenados = tmp;
+        return cant;
+    }
+
+    private int[] reconstruir(int destino) {
+        int[] res = new int[nivel[destino] + 1];
+        for (int v = destino, i = res.length - 1; v >= 0; v = padre[v], i--) res[i] = v;
+        return res;
+    }
+
+    private static long grado(SnapshotGrafo g, int v, boolean incluirClientes) {
+        return g.finVecinos(v, incluirClientes) - g.inicioVecinos(v, incluirClientes);
+    }
+
+    private static long gradoEntrante(SnapshotGrafo g, int v, boolean incluirClientes) {
+        return g.finVecinosEntrantes(v, incluirClientes) - g.inicioVecinosEntrantes(v, incluirClientes);
+    }
+
+    private boolean visitado(int v) { return marcado(visitados, v); }
+
+    private static boolean marcado(long[] bits, int v) { return (bits[v >>> 6] & (1L << v)) != 0; }
+
+    private static void marcar(long[] bits, int v) { bits[v >>> 6] |= 1L << v; }
+
+    private static void desmarcar(long[] bits, int v) { bits[v >>> 6] &= ~(1L << v); }
+}
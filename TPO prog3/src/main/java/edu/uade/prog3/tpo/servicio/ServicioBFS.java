@@ -1,8 +1,13 @@
 // src/main/java/edu/uade/prog3/tpo/servicio/ServicioBFS.java
 package edu.uade.prog3.tpo.servicio;
 
+import edu.uade.prog3.tpo.dominio.ModoBusqueda;
 import edu.uade.prog3.tpo.dominio.ResultadoBFS;
+import edu.uade.prog3.tpo.repositorio.CacheNombres;
+import edu.uade.prog3.tpo.repositorio.GrafoEnMemoria;
 import edu.uade.prog3.tpo.repositorio.IRepositorioGrafo;
+import edu.uade.prog3.tpo.repositorio.RegistroNodos;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -11,9 +16,18 @@ import java.util.*;
 public class ServicioBFS {
 
     private final IRepositorioGrafo repo;
+    private final GrafoEnMemoria grafo;
+    private final CacheNombres nombres;
+    private final RegistroNodos registro;
+    private final ServicioComponentes componentes;
 
-    public ServicioBFS(IRepositorioGrafo repo) {
+    public ServicioBFS(IRepositorioGrafo repo, GrafoEnMemoria grafo, CacheNombres nombres, RegistroNodos registro,
+                       ServicioComponentes componentes) {
         this.repo = repo;
+        this.grafo = grafo;
+        this.nombres = nombres;
+        this.registro = registro;
+        this.componentes = componentes;
     }
 
     /**
@@ -24,6 +38,19 @@ public class ServicioBFS {
      * Recomendado: usar IDs reales (DEP_*, SUC_*, CLI_*).
      */
     public ResultadoBFS bfs(String origenId, String destinoId, Integer maxProfundidad, boolean incluirClientes) {
+        return bfs(origenId, destinoId, maxProfundidad, incluirClientes, ModoBusqueda.UNIDIRECCIONAL);
+    }
+
+    /**
+     * Igual, con modo BIDIRECCIONAL: crece una frontera desde el origen y otra desde el destino
+     * (siempre la más chica) sobre la foto en memoria. Mismo largo que el unidireccional; si hay
+     * varios caminos igual de cortos puede devolver otro. Sin foto en memoria usa el unidireccional.
+     */
+    public ResultadoBFS bfs(String origenId, String destinoId, Integer maxProfundidad, boolean incluirClientes,
+                            ModoBusqueda modo) {
+        if (modo != ModoBusqueda.UNIDIRECCIONAL && modo != ModoBusqueda.BIDIRECCIONAL) {
+            throw new IllegalArgumentException("BFS admite modo UNIDIRECCIONAL o BIDIRECCIONAL");
+        }
         validarExistencia(origenId, incluirClientes);
         validarExistencia(destinoId, incluirClientes);
 
@@ -32,48 +59,69 @@ public class ServicioBFS {
             return construirResultado(origenId, destinoId, List.of(origenId));
         }
 
-        // BFS
-        Deque<String> cola = new ArrayDeque<>();
+        // en memoria: bitsets e índices, con dirección optimizada (ver RecorridoAnchura)
+        if (grafo.habilitado()) {
+            SnapshotGrafo g = grafo.snapshot();
+            int origen = g.indiceDe(origenId);
+            int destino = g.indiceDe(destinoId);
+            if (origen < 0 || destino < 0) return construirResultado(origenId, destinoId, List.of());
+            // en otra componente: sin camino, sin recorrer nada
+            if (componentes.sinCaminoSinDireccion(g, origen, destino, incluirClientes)) {
+                return construirResultado(origenId, destinoId, List.of());
+            }
+            int max = maxProfundidad == null ? 0 : maxProfundidad;
+            int[] indices = modo == ModoBusqueda.BIDIRECCIONAL
+                    ? RecorridoAnchura.caminoBidireccional(g, origen, destino, max, incluirClientes)
+                    : RecorridoAnchura.delHilo(g.cantidadNodos()).camino(g, origen, destino, max, incluirClientes);
+            if (indices == null) return construirResultado(origenId, destinoId, List.of());
+            List<String> camino = new ArrayList<>(indices.length);
+            for (int v : indices) camino.add(g.id(v));
+            return construirResultado(origenId, destinoId, camino);
+        }
+
+        // BFS sincronizado por niveles contra la base: se expande toda la frontera
+        // de una vez (con UNWIND en un solo viaje por nivel).
+        // Se procesa la frontera en orden de descubrimiento, así el resultado
+        // es el mismo que con la cola FIFO de a un nodo.
         Set<String> visitados = new HashSet<>();
         Map<String, String> padre = new HashMap<>();
-        Map<String, Integer> nivel = new HashMap<>();
 
-        cola.add(origenId);
+        List<String> frontera = List.of(origenId);
         visitados.add(origenId);
-        nivel.put(origenId, 0);
-
-        while (!cola.isEmpty()) {
-            String actual = cola.removeFirst();
-            int nl = nivel.getOrDefault(actual, 0);
+        int nivel = 0;
 
-            if (maxProfundidad != null && maxProfundidad > 0 && nl >= maxProfundidad) {
-                continue;
+        while (!frontera.isEmpty()) {
+            if (maxProfundidad != null && maxProfundidad > 0 && nivel >= maxProfundidad) {
+                break;
             }
 
-            List<String> vecinos = incluirClientes
-                    ? repo.vecinosIncluyendoClientes(actual)
-                    : repo.vecinosHubs(actual);
+            Map<String, List<String>> vecinosPorNodo = incluirClientes
+                    ? repo.vecinosIncluyendoClientesDe(frontera)
+                    : repo.vecinosHubsDe(frontera);
+            List<String> siguiente = new ArrayList<>();
 
-            for (String v : vecinos) {
-                if (visitados.contains(v)) continue;
+            for (String actual : frontera) {
+                for (String v : vecinosPorNodo.getOrDefault(actual, List.of())) {
+                    if (!visitados.add(v)) continue;
 
-                visitados.add(v);
-                padre.put(v, actual);
-                nivel.put(v, nl + 1);
+                    padre.put(v, actual);
 
-                if (v.equals(destinoId)) {
-                    List<String> camino = reconstruirCamino(padre, origenId, destinoId);
-                    return construirResultado(origenId, destinoId, camino);
+                    if (v.equals(destinoId)) {
+                        List<String> camino = reconstruirCamino(padre, origenId, destinoId);
+                        return construirResultado(origenId, destinoId, camino);
+                    }
+                    siguiente.add(v);
                 }
-                cola.addLast(v);
             }
+            frontera = siguiente;
+            nivel++;
         }
         // No hay camino
         return construirResultado(origenId, destinoId, List.of());
     }
 
     private void validarExistencia(String id, boolean incluirClientes) {
-        boolean existe = repo.existeHubPorId(id) || (incluirClientes && repo.existeClientePorId(id));
+        boolean existe = registro.esHub(id) || (incluirClientes && registro.esCliente(id));
         if (!existe) {
             throw new IllegalArgumentException("No existe un nodo Hub/Cliente con id=" + id);
         }
@@ -92,10 +140,7 @@ public class ServicioBFS {
     }
 
     private ResultadoBFS construirResultado(String origen, String destino, List<String> caminoIds) {
-        List<String> nombres = caminoIds.stream()
-                .map(id -> repo.nombreDe(id).orElse(id))
-                .toList();
-        return new ResultadoBFS(origen, destino, caminoIds, nombres);
+        return new ResultadoBFS(origen, destino, caminoIds, nombres.nombresDe(caminoIds));
     }
 
     /**
@@ -103,7 +148,7 @@ public class ServicioBFS {
      * Útil cuando querés que el recorrido “real” termine en la sucursal y el cliente sea un apéndice.
      */
     public ResultadoBFS bfsHastaClienteViaSucursal(String origenId, String clienteId, Integer maxProfundidad) {
-        String sucursal = repo.sucursalQueAtiendeCliente(clienteId)
+        String sucursal = registro.sucursalesQueAtienden(clienteId).stream().findFirst()
                 .orElseThrow(() -> new IllegalArgumentException("El cliente " + clienteId + " no está atendido por ninguna sucursal"));
         ResultadoBFS r = bfs(origenId, sucursal, maxProfundidad, false);
         if (r.getCaminoIds().isEmpty()) return r;
@@ -111,6 +156,6 @@ public class ServicioBFS {
         List<String> caminoIds = new ArrayList<>(r.getCaminoIds());
         caminoIds.add(clienteId);
         return new ResultadoBFS(origenId, clienteId, caminoIds,
-                caminoIds.stream().map(id -> repo.nombreDe(id).orElse(id)).toList());
+                nombres.nombresDe(caminoIds));
     }
 }
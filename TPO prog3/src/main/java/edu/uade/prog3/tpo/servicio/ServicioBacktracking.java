@@ -2,8 +2,9 @@
 package edu.uade.prog3.tpo.servicio;
 
 import edu.uade.prog3.tpo.dominio.CriterioPeso;
-import edu.uade.prog3.tpo.dominio.ResultadoDijkstra;
-import edu.uade.prog3.tpo.repositorio.IRepositorioGrafo;
+import edu.uade.prog3.tpo.dominio.TipoNodo;
+import edu.uade.prog3.tpo.repositorio.CacheNombres;
+import edu.uade.prog3.tpo.repositorio.RegistroNodos;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -11,13 +12,16 @@ import java.util.*;
 @Service
 public class ServicioBacktracking {
 
-    private final IRepositorioGrafo repo;
-    private final ServicioDijkstra servicioDijkstra;
+    private final RegistroNodos registro;
+    private final ServicioMatrizDistancias matriz;
+    private final CacheNombres nombres;
 
-    public ServicioBacktracking(IRepositorioGrafo repo,
-                                ServicioDijkstra servicioDijkstra) {
-        this.repo = repo;
-        this.servicioDijkstra = servicioDijkstra;
+    public ServicioBacktracking(RegistroNodos registro,
+                                ServicioMatrizDistancias matriz,
+                                CacheNombres nombres) {
+        this.registro = registro;
+        this.matriz = matriz;
+        this.nombres = nombres;
     }
 
     /**
@@ -26,56 +30,50 @@ public class ServicioBacktracking {
      *  - visite TODAS las paradas (en cualquier orden)
      *  - termine en destino (hub o cliente)
      *
-     * Usa backtracking sobre las paradas + Dijkstra entre ellas.
+     * Usa backtracking sobre las paradas + distancias mínimas entre ellas
+     * (de la matriz entre Hubs, o Dijkstra si todavía no está).
      */
     public Map<String, Object> rutaConParadas(String origenId,
                                               String destinoId,
                                               List<String> paradasObligatorias) {
 
-        if (!repo.existeHubPorId(origenId)) {
+        if (!registro.esHub(origenId)) {
             throw new IllegalArgumentException("El origen debe ser un Hub válido: " + origenId);
         }
 
-        // Normalizamos paradas (todas deben existir como Hubs)
+        // Normalizamos paradas (todas deben existir como Hubs; se resuelven todas juntas)
         List<String> paradas = new ArrayList<>();
         if (paradasObligatorias != null) {
-            for (String p : paradasObligatorias) {
-                if (p == null || p.isBlank()) continue;
-                String pp = p.trim();
-                if (!repo.existeHubPorId(pp)) {
+            List<String> candidatas = paradasObligatorias.stream()
+                    .filter(p -> p != null && !p.isBlank())
+                    .map(String::trim)
+                    .toList();
+            Map<String, Optional<TipoNodo>> tipos = registro.tiposDe(candidatas);
+            for (String pp : candidatas) {
+                if (!tipos.get(pp).map(TipoNodo::esHub).orElse(false)) {
                     throw new IllegalArgumentException("La parada obligatoria no existe o no es Hub: " + pp);
                 }
                 paradas.add(pp);
             }
         }
 
-        boolean destinoEsCliente = repo.existeClientePorId(destinoId);
-        boolean destinoEsHub = repo.existeHubPorId(destinoId);
+        boolean destinoEsHub = registro.esHub(destinoId);
+        boolean destinoEsCliente = !destinoEsHub && registro.esCliente(destinoId);
 
         // Caso 1: destino es HUB
         if (destinoEsHub) {
-            return resolverBacktracking(origenId, destinoId, paradas);
+            return resolverBacktracking(origenId, List.of(destinoId), paradas);
         }
 
         // Caso 2: destino es CLIENTE
         if (destinoEsCliente) {
-            List<String> sucs = repo.sucursalesQueAtiendenCliente(destinoId);
+            List<String> sucs = registro.sucursalesQueAtienden(destinoId);
             if (sucs == null || sucs.isEmpty()) {
                 throw new IllegalArgumentException("El cliente " + destinoId + " no es atendido por ninguna sucursal.");
             }
 
-            Map<String, Object> mejor = null;
-            double mejorCosto = Double.POSITIVE_INFINITY;
-
-            for (String sucFinal : sucs) {
-                Map<String, Object> res = resolverBacktracking(origenId, sucFinal, paradas);
-                if (res == null) continue;
-                double costo = (double) res.get("costo");
-                if (costo < mejorCosto) {
-                    mejor = res;
-                    mejorCosto = costo;
-                }
-            }
+            // un solo backtracking: el último tramo termina en la sucursal más cercana de todas
+            Map<String, Object> mejor = resolverBacktracking(origenId, sucs, paradas);
 
             if (mejor == null) {
                 throw new IllegalStateException("No se encontró ruta que pase por las paradas y llegue a una sucursal que atienda al cliente " + destinoId);
@@ -88,7 +86,7 @@ public class ServicioBacktracking {
             caminoFinal.add(destinoId);
 
             // Agrego nombres
-            List<String> nombresFinal = repo.nombresDe(caminoFinal);
+            List<String> nombresFinal = nombres.nombresDe(caminoFinal);
 
             mejor.put("destino", destinoId);
             mejor.put("camino", caminoFinal);
@@ -101,58 +99,73 @@ public class ServicioBacktracking {
 
     /**
      * Backtracking sobre las PARADAS:
-     * prueba todas las permutaciones de orden de visita
-     * y usa Dijkstra para calcular cada tramo.
+     * prueba todas las permutaciones de orden de visita; cada tramo es una
+     * lectura de la matriz de distancias (solo se guarda el orden de los nodos).
+     * El último tramo va al más cercano de destinosHub.
+     * El camino completo se arma una sola vez, para el mejor orden.
      */
     private Map<String, Object> resolverBacktracking(String origenId,
-                                                     String destinoHubId,
+                                                     List<String> destinosHub,
                                                      List<String> paradas) {
 
+        Tramos tramos = matriz.tramos(CriterioPeso.DISTANCIA);
+        if (tramos.sinSolucion(origenId, paradas, destinosHub)) return null;
+
         if (paradas.isEmpty()) {
-            ResultadoDijkstra fin = servicioDijkstra.dijkstra(origenId, destinoHubId, CriterioPeso.DISTANCIA, 1.0);
-            if (fin.getCaminoIds().isEmpty()) return null;
+            Tramos.Llegada fin = tramos.masCercano(origenId, destinosHub);
+            if (fin == null) return null;
+            List<String> camino = tramos.camino(origenId, fin.id());
 
             Map<String, Object> resp = new LinkedHashMap<>();
             resp.put("origen", origenId);
-            resp.put("destino", destinoHubId);
+            resp.put("destino", fin.id());
             resp.put("obligatorias", List.of());
-            resp.put("camino", fin.getCaminoIds());
-            resp.put("nombres", repo.nombresDe(fin.getCaminoIds()));  // 🔹 NOMBRES
-            resp.put("costo", fin.getPesoTotal());
+            resp.put("camino", camino);
+            resp.put("nombres", nombres.nombresDe(camino));  // 🔹 NOMBRES
+            resp.put("costo", fin.costo());
             return resp;
         }
 
         double[] mejorCosto = {Double.POSITIVE_INFINITY};
-        List<String> mejorCamino = new ArrayList<>();
-        backtrackParadas(origenId, destinoHubId, paradas,
-                new ArrayList<>(), new ArrayList<>(), 0.0,
-                mejorCosto, mejorCamino, 0);
+        List<String> mejorOrden = new ArrayList<>();
+        List<String> orden = new ArrayList<>(List.of(origenId));
+        backtrackParadas(tramos, origenId, destinosHub, paradas,
+                orden, 0.0,
+                mejorCosto, mejorOrden, 0);
 
         if (mejorCosto[0] == Double.POSITIVE_INFINITY) {
             return null;
         }
 
+        // camino completo: concatenar los tramos del mejor orden
+        List<String> mejorCamino = new ArrayList<>();
+        mejorCamino.add(origenId);
+        for (int i = 1; i < mejorOrden.size(); i++) {
+            List<String> tramo = tramos.camino(mejorOrden.get(i - 1), mejorOrden.get(i));
+            mejorCamino.addAll(tramo.subList(1, tramo.size()));
+        }
+
         // Agregamos también los nombres del camino
-        List<String> nombres = repo.nombresDe(mejorCamino);
+        List<String> nombresCamino = nombres.nombresDe(mejorCamino);
 
         Map<String, Object> resp = new LinkedHashMap<>();
         resp.put("origen", origenId);
-        resp.put("destino", destinoHubId);
+        resp.put("destino", mejorCamino.get(mejorCamino.size() - 1));
         resp.put("obligatorias", paradas);
         resp.put("camino", mejorCamino);
-        resp.put("nombres", nombres);
+        resp.put("nombres", nombresCamino);
         resp.put("costo", mejorCosto[0]);
         return resp;
     }
 
-    private void backtrackParadas(String actual,
-                                  String destinoFinal,
+    private void backtrackParadas(Tramos tramos,
+                                  String actual,
+                                  List<String> destinosFinales,
                                   List<String> faltan,
-                                  List<String> ordenVisitado,
-                                  List<String> caminoAcumulado,
+                                  List<String> orden,
                                   double costoAcumulado,
                                   double[] mejorCosto,
-                                  List<String> mejorCamino,
+                                  List<String> mejorOrden,
                                   int profundidad) {
 
         if (profundidad > 15) return;
@@ -160,17 +173,15 @@ public class ServicioBacktracking {
 
         // caso base: ya no quedan paradas → voy al destino
         if (faltan.isEmpty()) {
-            ResultadoDijkstra hastaDestino = servicioDijkstra.dijkstra(actual, destinoFinal, CriterioPeso.DISTANCIA, 1.0);
-            if (hastaDestino.getCaminoIds().isEmpty()) return;
+            Tramos.Llegada hastaDestino = tramos.masCercano(actual, destinosFinales);
+            if (hastaDestino == null) return;
 
-            double costoFinal = costoAcumulado + hastaDestino.getPesoTotal();
+            double costoFinal = costoAcumulado + hastaDestino.costo();
             if (costoFinal < mejorCosto[0]) {
                 mejorCosto[0] = costoFinal;
-                List<String> nuevoCamino = new ArrayList<>(caminoAcumulado);
-                List<String> tramo = hastaDestino.getCaminoIds();
-                for (int i = 1; i < tramo.size(); i++) nuevoCamino.add(tramo.get(i));
-                mejorCamino.clear();
-                mejorCamino.addAll(nuevoCamino);
+                mejorOrden.clear();
+                mejorOrden.addAll(orden);
+                mejorOrden.add(hastaDestino.id());
             }
             return;
         }
@@ -178,22 +189,19 @@ public class ServicioBacktracking {
         // probar cada parada como siguiente
         for (int i = 0; i < faltan.size(); i++) {
             String siguiente = faltan.get(i);
-            ResultadoDijkstra hasta = servicioDijkstra.dijkstra(actual, siguiente, CriterioPeso.DISTANCIA, 1.0);
-            if (hasta.getCaminoIds().isEmpty()) continue;
+            double tramo = tramos.costo(actual, siguiente);
+            if (tramo == Double.POSITIVE_INFINITY) continue;
 
-            double nuevoCosto = costoAcumulado + hasta.getPesoTotal();
+            double nuevoCosto = costoAcumulado + tramo;
             if (nuevoCosto >= mejorCosto[0]) continue;
 
-            List<String> nuevoCaminoAcum = new ArrayList<>(caminoAcumulado);
-            List<String> tramo = hasta.getCaminoIds();
-            if (caminoAcumulado.isEmpty()) nuevoCaminoAcum.addAll(tramo);
-            else for (int j = 1; j < tramo.size(); j++) nuevoCaminoAcum.add(tramo.get(j));
-
             List<String> nuevaFaltan = new ArrayList<>(faltan);
             nuevaFaltan.remove(i);
 
-            backtrackParadas(siguiente, destinoFinal, nuevaFaltan, ordenVisitado,
-                    nuevoCaminoAcum, nuevoCosto, mejorCosto, mejorCamino, profundidad + 1);
+            orden.add(siguiente);
+            backtrackParadas(tramos, siguiente, destinosFinales, nuevaFaltan, orden,
+                    nuevoCosto, mejorCosto, mejorOrden, profundidad + 1);
+            orden.remove(orden.size() - 1);
         }
     }
 }
@@ -2,21 +2,29 @@
 package edu.uade.prog3.tpo.servicio;
 
 import edu.uade.prog3.tpo.dominio.CriterioPeso;
-import edu.uade.prog3.tpo.dominio.ResultadoDijkstra;
-import edu.uade.prog3.tpo.repositorio.IRepositorioGrafo;
+import edu.uade.prog3.tpo.dominio.TipoNodo;
+import edu.uade.prog3.tpo.repositorio.CacheNombres;
+import edu.uade.prog3.tpo.repositorio.RegistroNodos;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class ServicioBranchAndBound {
 
-    private final IRepositorioGrafo repo;
-    private final ServicioDijkstra servicioDijkstra;
+    private final RegistroNodos registro;
+    private final ServicioMatrizDistancias matriz;
+    private final CacheNombres nombres;
 
-    public ServicioBranchAndBound(IRepositorioGrafo repo, ServicioDijkstra servicioDijkstra) {
-        this.repo = repo;
-        this.servicioDijkstra = servicioDijkstra;
+    // estados expandidos y podados por la cota, de todas las búsquedas (para las pruebas)
+    final LongAdder estadosExpandidos = new LongAdder();
+    final LongAdder estadosPodados = new LongAdder();
+
+    public ServicioBranchAndBound(RegistroNodos registro, ServicioMatrizDistancias matriz, CacheNombres nombres) {
+        this.registro = registro;
+        this.matriz = matriz;
+        this.nombres = nombres;
     }
 
     /**
@@ -31,20 +39,23 @@ public class ServicioBranchAndBound {
                                           List<String> paradas) {
 
         // Validaciones
-        if (!repo.existeHubPorId(origenId)) {
+        if (!registro.esHub(origenId)) {
             throw new IllegalArgumentException("El origen debe ser un Hub válido: " + origenId);
         }
 
-        boolean destinoEsCliente = repo.existeClientePorId(destinoId);
-        boolean destinoEsHub = repo.existeHubPorId(destinoId);
+        boolean destinoEsHub = registro.esHub(destinoId);
+        boolean destinoEsCliente = !destinoEsHub && registro.esCliente(destinoId);
 
-        // Normalizamos paradas (deben ser hubs)
+        // Normalizamos paradas (deben ser hubs; se resuelven todas juntas)
         List<String> paradasValidas = new ArrayList<>();
         if (paradas != null) {
-            for (String p : paradas) {
-                if (p == null || p.isBlank()) continue;
-                String id = p.trim();
-                if (!repo.existeHubPorId(id)) {
+            List<String> candidatas = paradas.stream()
+                    .filter(p -> p != null && !p.isBlank())
+                    .map(String::trim)
+                    .toList();
+            Map<String, Optional<TipoNodo>> tipos = registro.tiposDe(candidatas);
+            for (String id : candidatas) {
+                if (!tipos.get(id).map(TipoNodo::esHub).orElse(false)) {
                     throw new IllegalArgumentException("La parada obligatoria no existe o no es Hub: " + id);
                 }
                 paradasValidas.add(id);
@@ -52,27 +63,17 @@ public class ServicioBranchAndBound {
         }
 
         if (destinoEsHub) {
-            return resolverBranchAndBound(origenId, destinoId, paradasValidas);
+            return resolverBranchAndBound(origenId, List.of(destinoId), paradasValidas);
         }
 
         if (destinoEsCliente) {
-            List<String> sucs = repo.sucursalesQueAtiendenCliente(destinoId);
+            List<String> sucs = registro.sucursalesQueAtienden(destinoId);
             if (sucs == null || sucs.isEmpty()) {
                 throw new IllegalArgumentException("El cliente " + destinoId + " no es atendido por ninguna sucursal.");
             }
 
-            Map<String, Object> mejor = null;
-            double mejorCosto = Double.POSITIVE_INFINITY;
-
-            for (String sucFinal : sucs) {
-                Map<String, Object> parcial = resolverBranchAndBound(origenId, sucFinal, paradasValidas);
-                if (parcial == null) continue;
-                double costo = (double) parcial.get("costo");
-                if (costo < mejorCosto) {
-                    mejor = parcial;
-                    mejorCosto = costo;
-                }
-            }
+            // una sola búsqueda: el tramo final termina en la sucursal más cercana de todas
+            Map<String, Object> mejor = resolverBranchAndBound(origenId, sucs, paradasValidas);
 
             if (mejor == null) {
                 throw new IllegalStateException("No se encontró ruta que pase por las paradas y llegue a una sucursal que atienda al cliente " + destinoId);
@@ -83,7 +84,7 @@ public class ServicioBranchAndBound {
             camino.add(destinoId);
             mejor.put("destino", destinoId);
             mejor.put("camino", camino);
-            mejor.put("nombres", repo.nombresDe(camino));
+            mejor.put("nombres", nombres.nombresDe(camino));
             return mejor;
         }
 
@@ -92,13 +93,18 @@ public class ServicioBranchAndBound {
 
     /**
      * Algoritmo Branch & Bound: prueba combinaciones pero poda las ramas no prometedoras.
+     * Los tramos salen de la matriz de distancias entre Hubs (O(1) cada uno); cada estado
+     * guarda solo el orden de los nodos y el camino completo se arma al final.
+     * El tramo final va al más cercano de destinosHub.
      */
     private Map<String, Object> resolverBranchAndBound(String origenId,
-                                                       String destinoHubId,
+                                                       List<String> destinosHub,
                                                        List<String> paradas) {
 
+        Tramos tramos = matriz.tramos(CriterioPeso.DISTANCIA);
+        if (tramos.sinSolucion(origenId, paradas, destinosHub)) return null;
         double mejorCosto = Double.POSITIVE_INFINITY;
-        List<String> mejorCamino = new ArrayList<>();
+        List<String> mejorOrden = new ArrayList<>();
 
         // Cola de estados a explorar (min-heap por costo estimado)
         PriorityQueue<Estado> frontera = new PriorityQueue<>(Comparator.comparingDouble(e -> e.costoEstimado));
@@ -109,83 +115,92 @@ public class ServicioBranchAndBound {
         while (!frontera.isEmpty()) {
             Estado actual = frontera.poll();
 
-            // poda
-            if (actual.costoAcumulado >= mejorCosto) continue;
+            // poda: ni con la cota optimista mejora lo que ya se tiene
+            if (actual.costoEstimado >= mejorCosto) {
+                estadosPodados.increment();
+                continue;
+            }
+            estadosExpandidos.increment();
 
             // si no quedan paradas, ir al destino final
             if (actual.paradasRestantes.isEmpty()) {
-                ResultadoDijkstra hastaDestino = servicioDijkstra.dijkstra(actual.nodoActual, destinoHubId, CriterioPeso.DISTANCIA, 1.0);
-                if (hastaDestino.getCaminoIds().isEmpty()) continue;
+                Tramos.Llegada hastaDestino = tramos.masCercano(actual.nodoActual, destinosHub);
+                if (hastaDestino == null) continue;
 
-                double costoTotal = actual.costoAcumulado + hastaDestino.getPesoTotal();
+                double costoTotal = actual.costoAcumulado + hastaDestino.costo();
                 if (costoTotal < mejorCosto) {
                     mejorCosto = costoTotal;
-                    List<String> nuevoCamino = new ArrayList<>(actual.camino);
-                    List<String> tramo = hastaDestino.getCaminoIds();
-                    for (int i = 1; i < tramo.size(); i++) nuevoCamino.add(tramo.get(i));
-                    mejorCamino = nuevoCamino;
+                    List<String> nuevoOrden = new ArrayList<>(actual.camino);
+                    nuevoOrden.add(hastaDestino.id());
+                    mejorOrden = nuevoOrden;
                 }
                 continue;
             }
 
             // expandir: elegir una parada siguiente y crear un nuevo estado
             for (String siguiente : actual.paradasRestantes) {
-                ResultadoDijkstra hasta = servicioDijkstra.dijkstra(actual.nodoActual, siguiente, CriterioPeso.DISTANCIA, 1.0);
-                if (hasta.getCaminoIds().isEmpty()) continue;
+                double tramo = tramos.costo(actual.nodoActual, siguiente);
+                if (tramo == Double.POSITIVE_INFINITY) continue;
 
-                double nuevoCosto = actual.costoAcumulado + hasta.getPesoTotal();
+                double nuevoCosto = actual.costoAcumulado + tramo;
                 if (nuevoCosto >= mejorCosto) continue; // poda por cota superior
 
-                // estimación optimista (bound inferior): costo actual + mínima distancia a cualquier nodo restante
-                double minHeuristica = estimarCotaInferior(siguiente, actual.paradasRestantes, destinoHubId);
+                List<String> nuevasRestantes = new ArrayList<>(actual.paradasRestantes);
+                nuevasRestantes.remove(siguiente);
+
+                // estimación optimista (bound inferior): costo actual + el próximo tramo más corto posible
+                double minHeuristica = estimarCotaInferior(tramos, siguiente, nuevasRestantes, destinosHub);
                 double costoEstimado = nuevoCosto + minHeuristica;
+                if (costoEstimado >= mejorCosto) {
+                    estadosPodados.increment();
+                    continue;
+                }
 
                 List<String> nuevoCamino = new ArrayList<>(actual.camino);
-                List<String> tramo = hasta.getCaminoIds();
-                for (int i = 1; i < tramo.size(); i++) nuevoCamino.add(tramo.get(i));
-
-                List<String> nuevasRestantes = new ArrayList<>(actual.paradasRestantes);
-                nuevasRestantes.remove(siguiente);
+                nuevoCamino.add(siguiente);
 
                 frontera.add(new Estado(siguiente, nuevasRestantes, nuevoCamino, nuevoCosto, costoEstimado));
             }
         }
 
-        if (mejorCamino.isEmpty()) return null;
+        if (mejorOrden.isEmpty()) return null;
+
+        // camino completo: concatenar los tramos del mejor orden
+        List<String> mejorCamino = new ArrayList<>();
+        mejorCamino.add(origenId);
+        for (int i = 1; i < mejorOrden.size(); i++) {
+            List<String> tramo = tramos.camino(mejorOrden.get(i - 1), mejorOrden.get(i));
+            mejorCamino.addAll(tramo.subList(1, tramo.size()));
+        }
 
         Map<String, Object> resp = new LinkedHashMap<>();
         resp.put("origen", origenId);
-        resp.put("destino", destinoHubId);
+        resp.put("destino", mejorCamino.get(mejorCamino.size() - 1));
         resp.put("obligatorias", paradas);
         resp.put("camino", mejorCamino);
-        resp.put("nombres", repo.nombresDe(mejorCamino));
+        resp.put("nombres", nombres.nombresDe(mejorCamino));
         resp.put("costo", mejorCosto);
         return resp;
     }
 
     /**
-     * Estima una cota inferior (heurística): la distancia más corta entre
-     * el nodo actual, las paradas restantes y el destino final.
+     * Estima una cota inferior (heurística): lo que sigue desde el nodo actual empieza con un
+     * tramo a alguna de las paradas que faltan (sin contar la actual) o, si no falta ninguna,
+     * a alguno de los destinos finales; vale al menos el más corto de esos tramos.
      */
-    private double estimarCotaInferior(String actual, List<String> restantes, String destinoFinal) {
-        double min = Double.POSITIVE_INFINITY;
-        List<String> candidatos = new ArrayList<>(restantes);
-        candidatos.add(destinoFinal);
-
-        for (String n : candidatos) {
-            ResultadoDijkstra r = servicioDijkstra.dijkstra(actual, n, CriterioPeso.DISTANCIA, 1.0);
-            if (!r.getCaminoIds().isEmpty()) {
-                min = Math.min(min, r.getPesoTotal());
-            }
-        }
-        return min == Double.POSITIVE_INFINITY ? 0 : min;
+    private double estimarCotaInferior(Tramos tramos, String actual, List<String> restantes, List<String> destinosFinales) {
+        List<String> candidatos = restantes.isEmpty() ? destinosFinales : restantes;
+
+        Tramos.Llegada r = tramos.masCercano(actual, candidatos);
+        // sin ninguno alcanzable la rama no tiene solución: se poda entera
+        return r == null ? Double.POSITIVE_INFINITY : r.costo();
     }
 
     // Estado interno de la búsqueda
     private static class Estado {
         String nodoActual;
         List<String> paradasRestantes;
-        List<String> camino;
+        List<String> camino;        // nodos visitados en orden (origen y paradas; los tramos se arman al final)
         double costoAcumulado;
         double costoEstimado; // para el bound
 
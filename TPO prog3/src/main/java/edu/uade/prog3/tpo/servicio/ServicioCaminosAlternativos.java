@@ -0,0 +1,258 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.dominio.ModoBusqueda;
+import edu.uade.prog3.tpo.dominio.ResultadoDijkstra;
+import edu.uade.prog3.tpo.repositorio.GrafoEnMemoria;
+import edu.uade.prog3.tpo.repositorio.RegistroNodos;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Los k caminos más cortos sin ciclos entre dos Hubs (algoritmo de Yen), para ofrecer
+ * rutas alternativas cuando la mejor está cortada.
+ *
+ * - El primero es el mismo camino que devuelve Dijkstra (sale del árbol cacheado del origen).
+ * - Para cada camino nuevo se prueba desviarse en cada nodo del anterior (nodo de desvío):
+ *   se fija el prefijo (raíz), se sacan sus nodos y las aristas que ya usaron los caminos
+ *   con la misma raíz, y se busca el resto hasta el destino. Esos desvíos no dependen
+ *   entre sí y corren en paralelo en el pool compartido (tpo.paralelo.hilos).
+ * - Cada búsqueda de desvío usa el árbol hacia atrás del destino (cacheado): si el camino del
+ *   árbol no toca lo sacado es directamente el desvío; si no, A* con esa distancia como cota
+ *   (exacta en la foto completa, así que nunca sobreestima).
+ * - Poda: con suficientes candidatos, un desvío cuya cota ya supera al k-ésimo candidato no se busca.
+ *
+ * Solo destinos Hub y pesos no negativos (COSTO con factorPeaje >= 0).
+ */
+@Service
+public class ServicioCaminosAlternativos {
+
+    /** Camino como aristas de la foto, con su peso total sumado en orden. */
+    private record Camino(List<Integer> aristas, double costo, int asentados) {}
+
+    private static final Comparator<Camino> POR_COSTO = Comparator
+            .comparingDouble(Camino::costo)
+            .thenComparingInt(c -> c.aristas().size())
+            .thenComparing(Camino::aristas, ServicioCaminosAlternativos::compararAristas);
+
+    private final RegistroNodos registro;
+    private final GrafoEnMemoria grafo;
+    private final CacheArbolesCaminos arboles;
+    private final ServicioDijkstra servicioDijkstra;
+    private final ServicioComponentes componentes;
+    private final int maxK;
+    private final ForkJoinPool pool;
+
+    public ServicioCaminosAlternativos(RegistroNodos registro, GrafoEnMemoria grafo,
+                                       CacheArbolesCaminos arboles, ServicioDijkstra servicioDijkstra,
+                                       ServicioComponentes componentes,
+                                       @Value("${tpo.alternativas.max-k:10}") int maxK,
+                                       ForkJoinPool pool) {
+        this.registro = registro;
+        this.grafo = grafo;
+        this.arboles = arboles;
+        this.servicioDijkstra = servicioDijkstra;
+        this.componentes = componentes;
+        this.maxK = maxK;
+        this.pool = pool;
+    }
+
+    /**
+     * Hasta k caminos de origen a destino, de menor a mayor peso (a igual peso, el de menos tramos).
+     * Lista vacía si no hay ninguno; menos de k si no hay tantos caminos sin ciclos.
+     */
+    public List<ResultadoDijkstra> caminos(String origenId, String destinoId, int k,
+                                           CriterioPeso criterio, double factorPeaje) {
+        if (k < 1 || k > maxK) {
+            throw new IllegalArgumentException("k tiene que estar entre 1 y " + maxK);
+        }
+        if (!registro.esHub(origenId)) {
+            throw new IllegalArgumentException("No existe Hub con id=" + origenId);
+        }
+        if (!registro.esHub(destinoId)) {
+            throw new IllegalArgumentException("Los caminos alternativos necesitan un Hub como destino: " + destinoId);
+        }
+        if (criterio == CriterioPeso.COSTO && factorPeaje < 0) {
+            throw new IllegalArgumentException("Los caminos alternativos necesitan factorPeaje >= 0");
+        }
+        if (origenId.equals(destinoId)) {
+            return List.of(servicioDijkstra.dijkstra(origenId, destinoId, criterio, factorPeaje));
+        }
+
+        SnapshotGrafo g = grafo.snapshot();
+        int s = g.indiceDe(origenId);
+        int t = g.indiceDe(destinoId);
+        if (s < 0 || t < 0 || componentes.sinCamino(g, s, t)) return List.of();
+        CacheArbolesCaminos.Arbol haciaDestino = arboles.obtenerHaciaAtras(g, destinoId, t, criterio, factorPeaje).arbol();
+        if (haciaDestino.orden[s] < 0) return List.of();
+
+        // A: caminos elegidos; B: candidatos (sin repetir)
+        List<Camino> elegidos = new ArrayList<>();
+        elegidos.add(primero(g, origenId, s, t, criterio, factorPeaje));
+        PriorityQueue<Camino> candidatos = new PriorityQueue<>(POR_COSTO);
+        Set<List<Integer>> vistos = new HashSet<>();
+        vistos.add(elegidos.get(0).aristas());
+
+        while (elegidos.size() < k) {
+            Camino previo = elegidos.get(elegidos.size() - 1);
+            double umbral = umbral(candidatos, k - elegidos.size());
+            List<Camino> elegidosAhora = List.copyOf(elegidos);
+            List<Camino> desvios = pool.submit(() -> IntStream.range(0, previo.aristas().size()).parallel()
+                    .mapToObj(i -> desvio(g, haciaDestino, elegidosAhora, previo, i, t, criterio, factorPeaje, umbral))
+                    .filter(Objects::nonNull)
+                    .toList()).join();
+            for (Camino c : desvios) {
+                if (vistos.add(c.aristas())) candidatos.add(c);
+            }
+            if (candidatos.isEmpty()) break;
+            elegidos.add(candidatos.poll());
+        }
+
+        List<ResultadoDijkstra> res = new ArrayList<>(elegidos.size());
+        for (Camino c : elegidos) {
+            res.add(servicioDijkstra.conCamino(g, origenId, destinoId, c.aristas(), c.costo(), criterio,
+                    acumulados(g, c, s, criterio, factorPeaje), ModoBusqueda.UNIDIRECCIONAL, c.asentados()));
+        }
+        return res;
+    }
+
+    // ---------- helpers ----------
+
+    /** El camino de Dijkstra, caminando el árbol cacheado del origen hacia atrás desde t. */
+    private Camino primero(SnapshotGrafo g, String origenId, int s, int t, CriterioPeso criterio, double factorPeaje) {
+        CacheArbolesCaminos.Busqueda b = arboles.obtener(g, origenId, s, criterio, factorPeaje);
+        CacheArbolesCaminos.Arbol desde = b.arbol();
+        LinkedList<Integer> aristas = new LinkedList<>();
+        for (int e = desde.aristaPadre[t]; e >= 0; e = desde.aristaPadre[g.origen(e)]) {
+            aristas.addFirst(e);
+        }
+        return new Camino(List.copyOf(aristas), costo(g, aristas, criterio, factorPeaje),
+                b.acierto() ? 0 : desde.cantidad);
+    }
+
+    /**
+     * Desvío en el i-ésimo nodo del camino previo: raíz = sus primeras i aristas.
+     * null si no hay desvío o si su cota ya no puede entrar entre los k.
+     */
+    private static Camino desvio(SnapshotGrafo g, CacheArbolesCaminos.Arbol haciaDestino, List<Camino> elegidos,
+                                 Camino previo, int i, int t, CriterioPeso criterio, double factorPeaje,
+                                 double umbral) {
+        List<Integer> raiz = previo.aristas().subList(0, i);
+        int nodoDesvio = i == 0 ? g.origen(previo.aristas().get(0)) : g.destino(raiz.get(i - 1));
+        double costoRaiz = costo(g, raiz, criterio, factorPeaje);
+        if (supera(costoRaiz + haciaDestino.dist[nodoDesvio], umbral)) return null;
+
+        // nodos de la raíz (menos el de desvío) y aristas que ya salieron de esta misma raíz
+        Set<Integer> sinNodos = new HashSet<>();
+        for (int e : raiz) sinNodos.add(g.origen(e));
+        Set<Integer> sinAristas = new HashSet<>();
+        for (Camino c : elegidos) {
+            if (c.aristas().size() > i && c.aristas().subList(0, i).equals(raiz)) {
+                sinAristas.add(c.aristas().get(i));
+            }
+        }
+
+        List<Integer> resto = porArbol(g, haciaDestino, nodoDesvio, sinNodos, sinAristas);
+        int[] asentados = {0};
+        if (resto == null) {
+            resto = aEstrella(g, haciaDestino, nodoDesvio, t, sinNodos, sinAristas, criterio, factorPeaje,
+                    umbral - costoRaiz, asentados);
+            if (resto == null) return null;
+        }
+
+        List<Integer> aristas = new ArrayList<>(raiz.size() + resto.size());
+        aristas.addAll(raiz);
+        aristas.addAll(resto);
+        return new Camino(List.copyOf(aristas), costo(g, aristas, criterio, factorPeaje), asentados[0]);
+    }
+
+    /** El camino del árbol hacia atrás desde v, si no usa nada de lo sacado; si no, null. */
+    private static List<Integer> porArbol(SnapshotGrafo g, CacheArbolesCaminos.Arbol haciaDestino, int v,
+                                          Set<Integer> sinNodos, Set<Integer> sinAristas) {
+        List<Integer> res = new ArrayList<>();
+        for (int e = haciaDestino.aristaPadre[v]; e >= 0; e = haciaDestino.aristaPadre[g.destino(e)]) {
+            if (sinAristas.contains(e) || sinNodos.contains(g.destino(e))) return null;
+            res.add(e);
+        }
+        return res;
+    }
+
+    /**
+     * A* de v a t sin los nodos ni aristas sacados, con la distancia al destino del árbol
+     * hacia atrás como cota. Corta (null) si la mejor clave supera el tope; suma en asentados[0].
+     */
+    private static List<Integer> aEstrella(SnapshotGrafo g, CacheArbolesCaminos.Arbol haciaDestino,
+                                           int v, int t, Set<Integer> sinNodos, Set<Integer> sinAristas,
+                                           CriterioPeso criterio, double factorPeaje, double tope, int[] asentados) {
+        EspacioDijkstra ws = EspacioDijkstra.delHilo(g.cantidadNodos());
+        MonticuloIndexado pq = ws.heap;
+        ws.etiquetar(v, 0.0, -1, haciaDestino.dist[v]);
+        while (!pq.vacio()) {
+            if (supera(pq.claveMinima(), tope)) return null;
+            int u = pq.extraerMin();
+            ws.asentar(u);
+            asentados[0]++;
+            if (u == t) {
+                LinkedList<Integer> res = new LinkedList<>();
+                for (int e = ws.aristaPadre(t); e >= 0; e = ws.aristaPadre(g.origen(e))) res.addFirst(e);
+                return res;
+            }
+            double du = ws.dist(u);
+            for (int e = g.inicioSalida(u); e < g.finSalida(u); e++) {
+                int w = g.destino(e);
+                double h = haciaDestino.dist[w];
+                if (ws.asentado(w) || h == Double.POSITIVE_INFINITY || sinAristas.contains(e) || sinNodos.contains(w)) {
+                    continue;
+                }
+                double alt = du + g.peso(e, criterio, factorPeaje);
+                if (alt < ws.dist(w)) ws.etiquetar(w, alt, e, alt + h);
+            }
+        }
+        return null;
+    }
+
+    /** Costo del candidato en la posición faltantes (el último que todavía entra); infinito si no hay tantos. */
+    private static double umbral(PriorityQueue<Camino> candidatos, int faltantes) {
+        if (candidatos.size() < faltantes) return Double.POSITIVE_INFINITY;
+        List<Camino> orden = new ArrayList<>(candidatos);
+        orden.sort(POR_COSTO);
+        return orden.get(faltantes - 1).costo();
+    }
+
+    /** cota > umbral con un margen por redondeo (podar de menos nunca cambia el resultado). */
+    private static boolean supera(double cota, double umbral) {
+        return cota > umbral + 1e-9 * Math.max(1.0, Math.abs(umbral));
+    }
+
+    private static double costo(SnapshotGrafo g, List<Integer> aristas, CriterioPeso criterio, double factorPeaje) {
+        double total = 0;
+        for (int e : aristas) total += g.peso(e, criterio, factorPeaje);
+        return total;
+    }
+
+    /** Peso acumulado en cada nodo del camino. */
+    private static Map<String, Double> acumulados(SnapshotGrafo g, Camino c, int s,
+                                                  CriterioPeso criterio, double factorPeaje) {
+        Map<String, Double> res = new LinkedHashMap<>();
+        double total = 0;
+        res.put(g.id(s), total);
+        for (int e : c.aristas()) {
+            total += g.peso(e, criterio, factorPeaje);
+            res.put(g.id(g.destino(e)), total);
+        }
+        return res;
+    }
+
+    private static int compararAristas(List<Integer> a, List<Integer> b) {
+        for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
+            int c = Integer.compare(a.get(i), b.get(i));
+            if (c != 0) return c;
+        }
+        return Integer.compare(a.size(), b.size());
+    }
+}
@@ -0,0 +1,110 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.repositorio.GrafoPublicado;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Componentes conexas (ver {@link ComponentesGrafo}) de la foto vigente, para que las búsquedas
+ * descarten en O(1) los pares sin camino antes de arrancar.
+ *
+ * - Cada foto publicada ({@link GrafoPublicado}) las rearma en el hilo del refresco (es lineal
+ *   en la foto, más el cierre); si la foto nueva tiene la misma estructura se reusan tal cual.
+ * - Las consultas nunca esperan ese armado: sobre una foto que todavía no las tiene (entre el
+ *   cambio de foto y el fin del armado) responden "no se sabe" y la búsqueda sigue normal.
+ * - Las consultas solo preguntan "¿seguro que no hay camino?": false nunca corta una búsqueda.
+ *
+ * Con tpo.componentes.habilitado=false no se arma nada y no se descarta ningún par.
+ */
+@Service
+public class ServicioComponentes {
+
+    private final boolean habilitado;
+    private final int maxCierre;
+
+    /** Componentes de la última foto para la que se armaron (null si todavía ninguna). */
+    private volatile ComponentesGrafo vigentes;
+    /** Solo entre armados (dos fotos avisadas a la vez); las consultas no lo toman. */
+    private final Object armado = new Object();
+
+    private final LongAdder consultas = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+
+    public ServicioComponentes(@Value("${tpo.componentes.habilitado:true}") boolean habilitado,
+                               @Value("${tpo.componentes.max-cierre:8192}") int maxCierre) {
+        this.habilitado = habilitado;
+        this.maxCierre = maxCierre;
+    }
+
+    /** Rearma (o reusa) las componentes apenas se publica una foto nueva, en el hilo que la publica. */
+    @EventListener
+    public void alPublicarGrafo(GrafoPublicado evento) {
+        if (!habilitado) return;
+        SnapshotGrafo g = evento.snapshot();
+        synchronized (armado) {
+            ComponentesGrafo previas = vigentes;
+            if (previas != null && (previas.grafo() == g || previas.grafo().version() > g.version())) return;
+            ComponentesGrafo c = previas == null ? null : previas.paraFoto(g);
+            vigentes = c != null ? c : ComponentesGrafo.construir(g, maxCierre);
+        }
+    }
+
+    /** true si seguro que desde origen no se llega por :RUTA a ninguno de los destinos (índices de g). */
+    boolean sinCamino(SnapshotGrafo g, int origen, int[] destinos) {
+        ComponentesGrafo c = habilitado ? para(g) : null;
+        if (c == null) return false;
+        consultas.increment();
+        for (int d : destinos) {
+            if (!c.sinCamino(origen, d)) return false;
+        }
+        descartados.increment();
+        return true;
+    }
+
+    boolean sinCamino(SnapshotGrafo g, int origen, int destino) {
+        return sinCamino(g, origen, new int[]{destino});
+    }
+
+    /** Igual sobre los vecinos sin dirección de BFS / DFS. */
+    boolean sinCaminoSinDireccion(SnapshotGrafo g, int origen, int destino, boolean incluirClientes) {
+        ComponentesGrafo c = habilitado ? para(g) : null;
+        if (c == null) return false;
+        consultas.increment();
+        if (!c.sinCaminoSinDireccion(origen, destino, incluirClientes)) return false;
+        descartados.increment();
+        return true;
+    }
+
+    /** Foto, tamaño de las componentes y del cierre, y cuántas consultas se descartaron sin buscar. */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> res = new LinkedHashMap<>();
+        ComponentesGrafo c = vigentes;
+        res.put("habilitado", habilitado);
+        res.put("versionGrafo", c == null ? -1 : c.grafo().version());
+        res.put("componentesFuertes", c == null ? 0 : c.cantidadFuertes());
+        res.put("mayorFuerte", c == null ? 0 : c.mayorFuerte());
+        res.put("componentesDebiles", c == null ? 0 : c.cantidadDebiles());
+        res.put("cierre", c != null && c.conCierre());
+        res.put("bytesCierre", c == null ? 0 : c.bytesCierre());
+        res.put("maxCierre", maxCierre);
+        res.put("msConstruccion", c == null ? 0 : c.msConstruccion());
+        res.put("reusadas", c != null && c.reusado());
+        res.put("consultas", consultas.sum());
+        res.put("descartados", descartados.sum());
+        return res;
+    }
+
+    // ---------- helpers ----------
+
+    /** Componentes de la foto g, o null si todavía no están armadas (no se espera a que lo estén). */
+    private ComponentesGrafo para(SnapshotGrafo g) {
+        ComponentesGrafo c = vigentes;
+        return c != null && c.grafo() == g ? c : null;
+    }
+}
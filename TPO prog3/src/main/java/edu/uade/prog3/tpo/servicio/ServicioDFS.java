@@ -2,17 +2,36 @@
 package edu.uade.prog3.tpo.servicio;
 
 import edu.uade.prog3.tpo.dominio.ResultadoDFS;
+import edu.uade.prog3.tpo.dominio.ResultadoExploracion;
+import edu.uade.prog3.tpo.repositorio.CacheNombres;
+import edu.uade.prog3.tpo.repositorio.GrafoEnMemoria;
 import edu.uade.prog3.tpo.repositorio.IRepositorioGrafo;
+import edu.uade.prog3.tpo.repositorio.RegistroNodos;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 @Service
 public class ServicioDFS {
 
     private final IRepositorioGrafo repo;
-
-    public ServicioDFS(IRepositorioGrafo repo) { this.repo = repo; }
+    private final GrafoEnMemoria grafo;
+    private final CacheNombres nombres;
+    private final RegistroNodos registro;
+    private final ServicioComponentes componentes;
+    private final ForkJoinPool pool;
+
+    public ServicioDFS(IRepositorioGrafo repo, GrafoEnMemoria grafo, CacheNombres nombres, RegistroNodos registro,
+                       ServicioComponentes componentes, ForkJoinPool pool) {
+        this.repo = repo;
+        this.grafo = grafo;
+        this.nombres = nombres;
+        this.registro = registro;
+        this.componentes = componentes;
+        this.pool = pool;
+    }
 
     /**
      * DFS para encontrar UN camino de origen a destino.
@@ -26,10 +45,14 @@ public class ServicioDFS {
         validarExistencia(destinoId, incluirClientes);
 
         if (origenId.equals(destinoId)) {
-            var nombres = repo.nombresDe(List.of(origenId));
-            return new ResultadoDFS(origenId, destinoId, List.of(origenId), nombres, List.of(), List.of());
+            var nombresOrigen = nombres.nombresDe(List.of(origenId));
+            return new ResultadoDFS(origenId, destinoId, List.of(origenId), nombresOrigen, List.of(), List.of());
         }
 
+        SnapshotGrafo g = grafo.habilitado() ? grafo.snapshot() : null;
+        if (g != null && sinCamino(g, origenId, destinoId, incluirClientes)) {
+            return new ResultadoDFS(origenId, destinoId, List.of(), List.of(), List.of(), List.of());
+        }
         Set<String> visitados = new HashSet<>();
         Deque<String> pila = new ArrayDeque<>();
         Map<String, String> padre = new HashMap<>();
@@ -47,7 +70,7 @@ public class ServicioDFS {
 
             if (actual.equals(destinoId)) {
                 List<String> camino = reconstruirCamino(padre, origenId, destinoId);
-                return new ResultadoDFS(origenId, destinoId, camino, repo.nombresDe(camino), orden, repo.nombresDe(orden));
+                return new ResultadoDFS(origenId, destinoId, camino, nombres.nombresDe(camino), orden, nombres.nombresDe(orden));
             }
 
             int nl = nivel.getOrDefault(actual, 0);
@@ -55,9 +78,7 @@ public class ServicioDFS {
                 continue; // no expandimos más este nodo
             }
 
-            List<String> vecinos = incluirClientes
-                    ? repo.vecinosIncluyendoClientes(actual)
-                    : vecinosSoloHubs(actual);
+            List<String> vecinos = vecinos(g, actual, incluirClientes);
 
             // Para que el recorrido sea más "determinista" respecto del orden,
             // apilamos en orden inverso (LIFO) para visitar alfabéticamente.
@@ -82,6 +103,7 @@ public class ServicioDFS {
     public ResultadoDFS dfsRecorrido(String origenId, Integer maxProfundidad, boolean incluirClientes) {
         validarExistencia(origenId, incluirClientes);
 
+        SnapshotGrafo g = grafo.habilitado() ? grafo.snapshot() : null;
         Set<String> visitados = new HashSet<>();
         Deque<String> pila = new ArrayDeque<>();
         Map<String, Integer> nivel = new HashMap<>();
@@ -101,9 +123,7 @@ public class ServicioDFS {
                 continue;
             }
 
-            List<String> vecinos = incluirClientes
-                    ? repo.vecinosIncluyendoClientes(actual)
-                    : vecinosSoloHubs(actual);
+            List<String> vecinos = vecinos(g, actual, incluirClientes);
 
             ListIterator<String> it = vecinos.listIterator(vecinos.size());
             while (it.hasPrevious()) {
@@ -118,30 +138,88 @@ public class ServicioDFS {
         return new ResultadoDFS(
                 origenId, null,
                 List.of(), List.of(),
-                orden, repo.nombresDe(orden)
+                orden, nombres.nombresDe(orden)
         );
     }
 
+    /**
+     * Exploración completa desde un origen, para recorrer toda la red rápido.
+     * - No es el preorden de DFS: sale nivel por nivel (saltos desde el origen), en el mismo
+     *   orden que una BFS con cola FIFO, con el nivel de cada nodo.
+     * - Con la foto en memoria los niveles grandes se expanden en paralelo (ver ExploracionParalela);
+     *   el orden no depende de los hilos. Sin foto se expande contra la base, un viaje por nivel.
+     * - maxProfundidad: si null/<=0, sin límite.
+     */
+    public ResultadoExploracion exploracion(String origenId, Integer maxProfundidad, boolean incluirClientes) {
+        validarExistencia(origenId, incluirClientes);
+        int max = maxProfundidad == null ? 0 : maxProfundidad;
+
+        List<String> ids = new ArrayList<>();
+        List<Integer> niveles = new ArrayList<>();
+        List<Integer> porNivel = new ArrayList<>();
+        SnapshotGrafo g = grafo.habilitado() ? grafo.snapshot() : null;
+        int origen = g == null ? -1 : g.indiceDe(origenId);
+
+        if (origen >= 0) {
+            ExploracionParalela.Recorrido r = ExploracionParalela.recorrer(g, origen, max, incluirClientes, pool);
+            for (int l = 0; l < r.cantidadNiveles(); l++) {
+                int ini = r.inicioNivel()[l], fin = r.inicioNivel()[l + 1];
+                for (int i = ini; i < fin; i++) {
+                    ids.add(g.id(r.orden()[i]));
+                    niveles.add(l);
+                }
+                porNivel.add(fin - ini);
+            }
+        } else if (g != null) {
+            // hub sin rutas: no está en la foto
+            ids.add(origenId);
+            niveles.add(0);
+            porNivel.add(1);
+        } else {
+            Set<String> visitados = new HashSet<>();
+            List<String> frontera = List.of(origenId);
+            visitados.add(origenId);
+            while (!frontera.isEmpty()) {
+                int nivel = porNivel.size();
+                ids.addAll(frontera);
+                for (int i = 0; i < frontera.size(); i++) niveles.add(nivel);
+                porNivel.add(frontera.size());
+                if (max > 0 && nivel >= max) break;
+
+                Map<String, List<String>> vecinosPorNodo = incluirClientes
+                        ? repo.vecinosIncluyendoClientesDe(frontera)
+                        : repo.vecinosHubsDe(frontera);
+                List<String> siguiente = new ArrayList<>();
+                for (String actual : frontera) {
+                    for (String v : vecinosPorNodo.getOrDefault(actual, List.of())) {
+                        if (visitados.add(v)) siguiente.add(v);
+                    }
+                }
+                frontera = siguiente;
+            }
+        }
+        return new ResultadoExploracion(origenId, ids, nombres.nombresDe(ids), niveles, porNivel);
+    }
+
     // ---------- helpers ----------
 
     private void validarExistencia(String id, boolean incluirClientes) {
-        boolean existe = repo.existeHubPorId(id) || (incluirClientes && existeCliente(id));
+        boolean existe = registro.esHub(id) || (incluirClientes && registro.esCliente(id));
         if (!existe) throw new IllegalArgumentException("No existe Hub/Cliente con id=" + id);
     }
 
-    private boolean existeCliente(String id) {
-        try {
-            // si no tenés este método público, añadilo en tu repo como en BFS
-            var m = repo.getClass().getMethod("existeClientePorId", String.class);
-            return (boolean) m.invoke(repo, id);
-        } catch (Exception e) {
-            return false;
-        }
+    /** Origen y destino en la foto pero en componentes distintas (ver ServicioComponentes). */
+    private boolean sinCamino(SnapshotGrafo g, String origenId, String destinoId, boolean incluirClientes) {
+        int origen = g.indiceDe(origenId);
+        int destino = g.indiceDe(destinoId);
+        return origen >= 0 && destino >= 0
+                && componentes.sinCaminoSinDireccion(g, origen, destino, incluirClientes);
     }
 
-    private List<String> vecinosSoloHubs(String id) {
-        // Si tu repo ya expone vecinosHubs(id) (como en BFS), usalo directo:
-        return repo.vecinosHubs(id);
+    /** Vecinos desde la foto en memoria o, si está deshabilitada (g == null), desde la base. */
+    private List<String> vecinos(SnapshotGrafo g, String id, boolean incluirClientes) {
+        if (g != null) return g.vecinos(id, incluirClientes);
+        return incluirClientes ? repo.vecinosIncluyendoClientes(id) : repo.vecinosHubs(id);
     }
 
     private static List<String> reconstruirCamino(Map<String, String> padre, String origen, String destino) {
@@ -2,152 +2,590 @@ package edu.uade.prog3.tpo.servicio;
 
 import edu.uade.prog3.tpo.dominio.AristaRuta;
 import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.dominio.ModoBusqueda;
+import edu.uade.prog3.tpo.dominio.NodoAlcanzado;
 import edu.uade.prog3.tpo.dominio.ResultadoDijkstra;
-import edu.uade.prog3.tpo.repositorio.IRepositorioGrafo;
+import edu.uade.prog3.tpo.repositorio.CacheNombres;
+import edu.uade.prog3.tpo.repositorio.GrafoEnMemoria;
+import edu.uade.prog3.tpo.repositorio.GrafoPublicado;
+import edu.uade.prog3.tpo.repositorio.RegistroNodos;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 @Service
 public class ServicioDijkstra {
 
-    private final IRepositorioGrafo repo;
+    private final RegistroNodos registro;
+    private final GrafoEnMemoria grafo;
+    private final CacheNombres nombres;
+    private final MotorJerarquias jerarquias;
+    private final CacheArbolesCaminos arboles;
+    private final ServicioComponentes componentes;
+    private final int cantidadLandmarks;
+
+    /** Landmarks de la última foto para la que se armaron (null si todavía ninguna). */
+    private volatile LandmarksALT landmarks;
+
+    // consultas y nodos asentados por modo (para comparar modos sobre los datos reales)
+    private final Map<ModoBusqueda, LongAdder> consultas = new EnumMap<>(ModoBusqueda.class);
+    private final Map<ModoBusqueda, LongAdder> asentadosTotales = new EnumMap<>(ModoBusqueda.class);
+
+    public ServicioDijkstra(RegistroNodos registro, GrafoEnMemoria grafo, CacheNombres nombres,
+                            MotorJerarquias jerarquias,
+                            CacheArbolesCaminos arboles,
+                            ServicioComponentes componentes,
+                            @Value("${tpo.dijkstra.landmarks:8}") int cantidadLandmarks) {
+        this.registro = registro;
+        this.grafo = grafo;
+        this.nombres = nombres;
+        this.jerarquias = jerarquias;
+        this.arboles = arboles;
+        this.componentes = componentes;
+        this.cantidadLandmarks = cantidadLandmarks;
+        for (ModoBusqueda m : ModoBusqueda.values()) {
+            consultas.put(m, new LongAdder());
+            asentadosTotales.put(m, new LongAdder());
+        }
+    }
 
-    public ServicioDijkstra(IRepositorioGrafo repo) {
-        this.repo = repo;
+    /** Rearma los landmarks apenas se publica una foto nueva (en el hilo del refresco). */
+    @EventListener
+    public void alPublicarGrafo(GrafoPublicado evento) {
+        if (cantidadLandmarks > 0) landmarksPara(evento.snapshot());
+    }
+
+    public ResultadoDijkstra dijkstra(String origenId, String destinoId,
+                                      CriterioPeso criterio, double factorPeaje) {
+        return dijkstra(origenId, destinoId, criterio, factorPeaje, ModoBusqueda.UNIDIRECCIONAL);
     }
 
     /**
      * Ahora soporta:
      * - destino HUB (como siempre)
      * - destino CLIENTE (elige la sucursal que lo atiende con menor costo)
+     * - modo BIDIRECCIONAL: busca desde el origen y desde el destino a la vez
+     * - modo ALT: A* guiado por cotas de landmarks (tpo.dijkstra.landmarks)
+     * - modo CH: Contraction Hierarchies (si todavía se están armando para la foto vigente,
+     *   responde el unidireccional)
+     * Con pesos negativos (COSTO con factorPeaje < 0) esos modos usan el unidireccional.
      */
     public ResultadoDijkstra dijkstra(String origenId, String destinoId,
-                                      CriterioPeso criterio, double factorPeaje) {
-
-        boolean destinoEsCliente = repo.existeClientePorId(destinoId);
-        boolean destinoEsHub = repo.existeHubPorId(destinoId);
+                                      CriterioPeso criterio, double factorPeaje, ModoBusqueda modo) {
 
         // origen siempre es hub
         validarHub(origenId);
 
-        if (destinoEsHub) {
-            return dijkstraSoloHubs(origenId, destinoId, criterio, factorPeaje);
+        ResultadoDijkstra r = resolver(origenId, destinoId, criterio, factorPeaje, modo, null);
+        contar(r);
+        return r;
+    }
+
+    /**
+     * Varios destinos (Hubs o Clientes) desde un mismo origen, con un solo árbol de caminos
+     * mínimos para todos (para los lotes). Los pares ya tienen que estar validados
+     * ({@link #validarPar}); un Cliente sin camino vuelve con el camino vacío, como un Hub.
+     * nodosAsentados se cuenta en el primer resultado (el que armó el árbol).
+     */
+    List<ResultadoDijkstra> dijkstraDesde(String origenId, List<String> destinoIds,
+                                          CriterioPeso criterio, double factorPeaje) {
+        SnapshotGrafo g = grafo.snapshot();
+        int origen = g.indiceDe(origenId);
+        CacheArbolesCaminos.Busqueda arbol = origen < 0 ? null
+                : arboles.obtener(g, origenId, origen, criterio, factorPeaje);
+
+        List<ResultadoDijkstra> res = new ArrayList<>(destinoIds.size());
+        for (String destinoId : destinoIds) {
+            ResultadoDijkstra r;
+            try {
+                r = resolver(origenId, destinoId, criterio, factorPeaje, ModoBusqueda.UNIDIRECCIONAL, arbol);
+            } catch (IllegalStateException ex) {
+                r = sinCamino(origenId, destinoId, criterio, Map.of(), ModoBusqueda.UNIDIRECCIONAL, 0);
+            }
+            contar(r);
+            res.add(r);
+            if (arbol != null && !arbol.acierto()) arbol = new CacheArbolesCaminos.Busqueda(arbol.arbol(), true);
+        }
+        return res;
+    }
+
+    /**
+     * Todo lo que se alcanza desde alguno de los orígenes sin pasar el presupuesto
+     * (Dijkstra multi-origen: todos arrancan en 0 y se corta al pasar el presupuesto).
+     *
+     * - Se emite en orden de costo, de a un nodo, a medida que se asientan (sin juntar todo).
+     * - Cada Hub sale con su costo, el Hub anterior en el camino y el origen del que viene.
+     * - Con incluirClientes, al asentar un Hub salen también los Clientes que atiende y que
+     *   todavía no salieron, con el mismo costo y ese Hub como predecesor.
+     */
+    public void alcanzables(List<String> origenIds, CriterioPeso criterio, double factorPeaje,
+                            double presupuesto, boolean incluirClientes, Consumer<NodoAlcanzado> salida) {
+        validarAlcance(origenIds, criterio, factorPeaje, presupuesto);
+        SnapshotGrafo g = grafo.snapshot();
+        int n = g.cantidadNodos();
+        EspacioDijkstra ws = EspacioDijkstra.delHilo(n);
+        MonticuloIndexado pq = ws.heap;
+        int[] raiz = new int[n];   // origen de cada nodo asentado
+        BitSet clientesEmitidos = new BitSet(n);
+
+        for (String id : origenIds) {
+            int o = g.indiceDe(id);
+            if (o >= 0 && !ws.alcanzado(o)) {
+                ws.etiquetar(o, 0.0, -1);
+            } else if (o < 0) {
+                // hub sin rutas: solo se alcanza a sí mismo
+                salida.accept(new NodoAlcanzado(id, nombres.nombreDe(id).orElse(null), false, 0.0, null, id));
+            }
+        }
+
+        while (!pq.vacio() && pq.claveMinima() <= presupuesto) {
+            int u = pq.extraerMin();
+            ws.asentar(u);
+            int e = ws.aristaPadre(u);
+            raiz[u] = e < 0 ? u : raiz[g.origen(e)];
+            double du = ws.dist(u);
+            String origenId = g.id(raiz[u]);
+            salida.accept(new NodoAlcanzado(g.id(u), nombres.nombreDe(g.id(u)).orElse(null), false, du,
+                    e < 0 ? null : g.id(g.origen(e)), origenId));
+
+            if (incluirClientes) {
+                for (int k = g.inicioVecinos(u, true); k < g.finVecinos(u, true); k++) {
+                    int c = g.vecino(k, true);
+                    if (!g.esCliente(c) || clientesEmitidos.get(c)) continue;
+                    clientesEmitidos.set(c);
+                    salida.accept(new NodoAlcanzado(g.id(c), nombres.nombreDe(g.id(c)).orElse(null), true, du,
+                            g.id(u), origenId));
+                }
+            }
+
+            for (int a = g.inicioSalida(u); a < g.finSalida(u); a++) {
+                int v = g.destino(a);
+                if (ws.asentado(v)) continue;
+                double alt = du + g.peso(a, criterio, factorPeaje);
+                if (alt <= presupuesto && alt < ws.dist(v)) ws.etiquetar(v, alt, a);
+            }
         }
+    }
 
-        if (destinoEsCliente) {
-            return dijkstraHastaCliente(origenId, destinoId, criterio, factorPeaje);
+    /** Los chequeos de {@link #alcanzables}, para poder rechazar el pedido antes de empezar a emitir. */
+    public void validarAlcance(List<String> origenIds, CriterioPeso criterio, double factorPeaje, double presupuesto) {
+        if (origenIds == null || origenIds.isEmpty()) {
+            throw new IllegalArgumentException("Falta al menos un origen");
+        }
+        for (String id : origenIds) validarHub(id);
+        if (!(presupuesto >= 0)) {
+            throw new IllegalArgumentException("El presupuesto tiene que ser >= 0");
+        }
+        if (criterio == CriterioPeso.COSTO && factorPeaje < 0) {
+            throw new IllegalArgumentException("El alcance necesita factorPeaje >= 0");
         }
+    }
+
+    /** Origen Hub y destino Hub o Cliente atendido por alguna sucursal; si no, IllegalArgumentException. */
+    void validarPar(String origenId, String destinoId) {
+        validarHub(origenId);
+        if (registro.esHub(destinoId)) return;
+        if (!registro.esCliente(destinoId)) {
+            throw new IllegalArgumentException("No existe destino con id=" + destinoId);
+        }
+        if (registro.sucursalesQueAtienden(destinoId).isEmpty()) {
+            throw new IllegalArgumentException("El cliente " + destinoId + " no es atendido por ninguna sucursal");
+        }
+    }
 
+    /**
+     * Por modo: consultas, nodos asentados en total y en promedio por consulta
+     * (así se ve cuánto menos recorren ALT, CH o el bidireccional que el clásico).
+     * También los landmarks y las jerarquías vigentes.
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> res = new LinkedHashMap<>();
+        for (ModoBusqueda m : ModoBusqueda.values()) {
+            long c = consultas.get(m).sum();
+            long a = asentadosTotales.get(m).sum();
+            Map<String, Object> modo = new LinkedHashMap<>();
+            modo.put("consultas", c);
+            modo.put("nodosAsentados", a);
+            modo.put("promedioAsentados", c == 0 ? 0.0 : (double) a / c);
+            res.put(m.name(), modo);
+        }
+        LandmarksALT lm = landmarks;
+        Map<String, Object> alt = new LinkedHashMap<>();
+        alt.put("configurados", cantidadLandmarks);
+        alt.put("versionGrafo", lm == null ? -1 : lm.grafo().version());
+        alt.put("landmarks", lm == null ? List.of() : List.of(lm.ids()));
+        alt.put("msConstruccion", lm == null ? 0 : lm.msConstruccion());
+        res.put("landmarks", alt);
+        res.put("jerarquias", jerarquias.estadisticas());
+        return res;
+    }
+
+    /** Hub o Cliente según el registro; arbol (puede ser null) es un árbol ya armado desde el origen. */
+    private ResultadoDijkstra resolver(String origenId, String destinoId, CriterioPeso criterio, double factorPeaje,
+                                       ModoBusqueda modo, CacheArbolesCaminos.Busqueda arbol) {
+        // tipo del destino desde el registro cacheado (sin ir a la base en cada llamada)
+        boolean destinoEsHub = registro.esHub(destinoId);
+        boolean destinoEsCliente = !destinoEsHub && registro.esCliente(destinoId);
+
+        if (destinoEsHub) {
+            return dijkstraSoloHubs(origenId, destinoId, criterio, factorPeaje, modo, arbol);
+        } else if (destinoEsCliente) {
+            return dijkstraHastaCliente(origenId, destinoId, criterio, factorPeaje, modo, arbol);
+        }
         throw new IllegalArgumentException("No existe destino con id=" + destinoId);
     }
 
+    private void contar(ResultadoDijkstra r) {
+        consultas.get(r.getModo()).increment();
+        asentadosTotales.get(r.getModo()).add(r.getNodosAsentados());
+    }
+
     // =========================================================
     //  CASO 1: HUB → HUB  (lo que ya tenías)
     // =========================================================
-    private ResultadoDijkstra dijkstraSoloHubs(String origenId, String destinoId,
-                                               CriterioPeso criterio, double factorPeaje) {
+    private ResultadoDijkstra dijkstraSoloHubs(String origenId, String destinoId, CriterioPeso criterio,
+                                               double factorPeaje, ModoBusqueda modo,
+                                               CacheArbolesCaminos.Busqueda arbol) {
 
         if (origenId.equals(destinoId)) {
             return new ResultadoDijkstra(
                     origenId,
                     destinoId,
                     List.of(origenId),
-                    repo.nombresDe(List.of(origenId)),
+                    nombres.nombresDe(List.of(origenId)),
                     List.of(),
                     0.0,
                     criterio,
-                    Map.of(origenId, 0.0)
+                    Map.of(origenId, 0.0),
+                    modo,
+                    0
             );
         }
 
-        Map<String, Double> dist = new HashMap<>();
-        Map<String, String> padre = new HashMap<>();
-        Map<String, AristaRuta> aristaTomada = new HashMap<>();
-        PriorityQueue<String> pq = new PriorityQueue<>(Comparator.comparingDouble(dist::get));
-        Set<String> visitados = new HashSet<>();
+        return dijkstraHastaAlguno(origenId, List.of(destinoId), criterio, factorPeaje, modo, arbol);
+    }
 
-        dist.put(origenId, 0.0);
-        pq.add(origenId);
+    /**
+     * Una sola búsqueda desde el origen que termina al asentar el primero de los destinos
+     * (el más cercano). El destinoId del resultado es el destino alcanzado.
+     * Los destinos tienen que ser Hubs y el origen ya tiene que estar validado.
+     */
+    public ResultadoDijkstra dijkstraHastaAlguno(String origenId, List<String> destinoIds,
+                                                 CriterioPeso criterio, double factorPeaje) {
+        return dijkstraHastaAlguno(origenId, destinoIds, criterio, factorPeaje, ModoBusqueda.UNIDIRECCIONAL, null);
+    }
 
-        while (!pq.isEmpty()) {
-            String u = pq.poll();
-            if (!visitados.add(u)) continue;
-            if (u.equals(destinoId)) break;
+    private ResultadoDijkstra dijkstraHastaAlguno(String origenId, List<String> destinoIds, CriterioPeso criterio,
+                                                  double factorPeaje, ModoBusqueda modo,
+                                                  CacheArbolesCaminos.Busqueda arbol) {
+        if (destinoIds.contains(origenId)) {
+            return dijkstraSoloHubs(origenId, origenId, criterio, factorPeaje, modo, null);
+        }
+        String pedido = String.join(",", destinoIds);
+        SnapshotGrafo g = grafo.snapshot();
+        int origen = g.indiceDe(origenId);
+        int[] destinos = destinoIds.stream().mapToInt(g::indiceDe).filter(i -> i >= 0).toArray();
+        if (origen < 0) {
+            // hub sin rutas: no está en la foto
+            return new ResultadoDijkstra(origenId, pedido, List.of(), List.of(), List.of(),
+                    Double.POSITIVE_INFINITY, criterio, Map.of(origenId, 0.0), modo, 0);
+        }
+        // ningún destino en una componente alcanzable: se responde sin buscar
+        if (componentes.sinCamino(g, origen, destinos)) {
+            return sinCamino(origenId, pedido, criterio, Map.of(origenId, 0.0), modo, 0);
+        }
 
-            for (var row : repo.vecinosConPesos(u)) {
-                String v = (String) row.get("vecino");
-                double dKm = toDouble(row.get("dist"));
-                double tMin = toDouble(row.get("tiempo"));
-                double peaje = toDouble(row.get("peaje"));
+        boolean pesosNoNegativos = criterio != CriterioPeso.COSTO || factorPeaje >= 0;
+        if (modo == ModoBusqueda.BIDIRECCIONAL && pesosNoNegativos && destinos.length > 0) {
+            return bidireccional(g, origenId, pedido, origen, destinos, criterio, factorPeaje);
+        }
+        if (modo == ModoBusqueda.ALT && pesosNoNegativos && destinos.length > 0 && cantidadLandmarks > 0) {
+            LandmarksALT lm = landmarksPara(g);
+            if (lm.sirvePara(criterio, factorPeaje)) {
+                return aEstrella(g, lm, origenId, pedido, origen, destinos, criterio, factorPeaje);
+            }
+        }
+        if (modo == ModoBusqueda.CH && pesosNoNegativos && destinos.length > 0) {
+            JerarquiaContraccion ch = jerarquias.para(g, criterio);
+            if (ch != null) {
+                return porJerarquia(g, ch, origenId, pedido, origen, destinos, criterio, factorPeaje);
+            }
+        }
+
+        // árbol completo desde el origen, cacheado: los depósitos se repiten mucho
+        if (arbol != null && arbol.arbol().grafo == g) {
+            return desdeArbol(g, arbol, origenId, pedido, destinos, criterio);
+        }
+        CacheArbolesCaminos.Busqueda cacheado = arboles.habilitada()
+                ? arboles.buscar(g, origenId, origen, criterio, factorPeaje) : null;
+        if (cacheado != null) {
+            return desdeArbol(g, cacheado, origenId, pedido, destinos, criterio);
+        }
+        // origen pedido por primera vez (o sin cache): se corta en el destino
+
+        // heap indexado + arreglos por índice, reutilizados por hilo
+        EspacioDijkstra ws = EspacioDijkstra.delHilo(g.cantidadNodos());
+        MonticuloIndexado pq = ws.heap;
+        ws.etiquetar(origen, 0.0, -1);
+        int asentados = 0;
+        int llegada = -1;
+
+        while (!pq.vacio()) {
+            int u = pq.extraerMin();
+            ws.asentar(u);
+            asentados++;
+            if (contiene(destinos, u)) {
+                llegada = u;
+                break;
+            }
 
-                double w = peso(dKm, tMin, peaje, criterio, factorPeaje);
-                double alt = dist.getOrDefault(u, Double.POSITIVE_INFINITY) + w;
+            double du = ws.dist(u);
+            // RUTAs salientes desde la foto en memoria (ya vienen ordenadas por vecino)
+            for (int e = g.inicioSalida(u); e < g.finSalida(u); e++) {
+                int v = g.destino(e);
+                if (ws.asentado(v)) continue;
 
-                if (alt < dist.getOrDefault(v, Double.POSITIVE_INFINITY)) {
-                    dist.put(v, alt);
-                    padre.put(v, u);
-                    aristaTomada.put(v, new AristaRuta(u, v, dKm, tMin, peaje));
-                    pq.remove(v);
-                    pq.add(v);
+                double alt = du + g.peso(e, criterio, factorPeaje);
+                if (alt < ws.dist(v)) {
+                    ws.etiquetar(v, alt, e);   // decrease-key en O(log n)
                 }
             }
         }
 
-        List<String> camino = reconstruirCamino(padre, origenId, destinoId);
-        if (camino.isEmpty()) {
-            return new ResultadoDijkstra(
-                    origenId,
-                    destinoId,
-                    List.of(),
-                    List.of(),
-                    List.of(),
-                    Double.POSITIVE_INFINITY,
-                    criterio,
-                    dist
-            );
+        Map<String, Double> dist = acumulados(g, ws);
+        if (llegada < 0) {
+            return sinCamino(origenId, pedido, criterio, dist, ModoBusqueda.UNIDIRECCIONAL, asentados);
         }
 
-        List<AristaRuta> aristas = reconstruirAristas(aristaTomada, camino);
-        double total = dist.getOrDefault(destinoId, Double.POSITIVE_INFINITY);
-        List<String> nombres = repo.nombresDe(camino);
+        // reconstruir aristas siguiendo la arista por la que se llegó a cada nodo
+        LinkedList<Integer> aristas = new LinkedList<>();
+        for (int e = ws.aristaPadre(llegada); e >= 0; e = ws.aristaPadre(g.origen(e))) {
+            aristas.addFirst(e);
+        }
+        return conCamino(g, origenId, g.id(llegada), aristas, ws.dist(llegada), criterio, dist,
+                ModoBusqueda.UNIDIRECCIONAL, asentados);
+    }
 
-        return new ResultadoDijkstra(
-                origenId,
-                destinoId,
-                camino,
-                nombres,
-                aristas,
-                total,
-                criterio,
-                dist
-        );
+    /**
+     * Respuesta a partir de un árbol de caminos mínimos completo (ver {@link CacheArbolesCaminos}).
+     * El destino alcanzado es el primero de los destinos que se asentó (igual que cortando la búsqueda),
+     * y en acumulados van los nodos asentados hasta él. nodosAsentados es 0 si el árbol salió de la cache.
+     */
+    private ResultadoDijkstra desdeArbol(SnapshotGrafo g, CacheArbolesCaminos.Busqueda busqueda,
+                                         String origenId, String pedido, int[] destinos, CriterioPeso criterio) {
+        CacheArbolesCaminos.Arbol a = busqueda.arbol();
+        int asentados = busqueda.acierto() ? 0 : a.cantidad;
+        int llegada = -1;
+        for (int d : destinos) {
+            if (a.orden[d] >= 0 && (llegada < 0 || a.orden[d] < a.orden[llegada])) llegada = d;
+        }
+
+        int hasta = llegada < 0 ? a.cantidad : a.orden[llegada] + 1;
+        Map<String, Double> dist = new HashMap<>(hasta * 2);
+        for (int i = 0; i < hasta; i++) {
+            int v = a.secuencia[i];
+            dist.put(g.id(v), a.dist[v]);
+        }
+        if (llegada < 0) {
+            return sinCamino(origenId, pedido, criterio, dist, ModoBusqueda.UNIDIRECCIONAL, asentados);
+        }
+
+        // caminar el arreglo de padres desde el destino
+        LinkedList<Integer> aristas = new LinkedList<>();
+        for (int e = a.aristaPadre[llegada]; e >= 0; e = a.aristaPadre[g.origen(e)]) {
+            aristas.addFirst(e);
+        }
+        return conCamino(g, origenId, g.id(llegada), aristas, a.dist[llegada], criterio, dist,
+                ModoBusqueda.UNIDIRECCIONAL, asentados);
+    }
+
+    /**
+     * Dijkstra bidireccional: hacia adelante por :RUTA salientes desde el origen y hacia
+     * atrás por :RUTA entrantes desde los destinos (todos arrancan en 0, así la búsqueda
+     * de atrás mide la distancia al destino más cercano), avanzando siempre el lado de
+     * menor clave. mejor = menor d(origen, v) + d(v, destinos) visto hasta ahora; se corta
+     * cuando la suma de los mínimos de ambos heaps ya no puede mejorarlo.
+     * En acumulados quedan solo las distancias desde el origen.
+     */
+    private ResultadoDijkstra bidireccional(SnapshotGrafo g, String origenId, String pedido,
+                                            int origen, int[] destinos,
+                                            CriterioPeso criterio, double factorPeaje) {
+        EspacioDijkstra adelante = EspacioDijkstra.delHilo(g.cantidadNodos());
+        EspacioDijkstra atras = EspacioDijkstra.delHiloHaciaAtras(g.cantidadNodos());
+        adelante.etiquetar(origen, 0.0, -1);
+        for (int d : destinos) atras.etiquetar(d, 0.0, -1);
+
+        double mejor = contiene(destinos, origen) ? 0.0 : Double.POSITIVE_INFINITY;
+        int encuentro = contiene(destinos, origen) ? origen : -1;
+        int asentados = 0;
+        while (!adelante.heap.vacio() && !atras.heap.vacio()) {
+            double minAdelante = adelante.heap.claveMinima();
+            double minAtras = atras.heap.claveMinima();
+            if (minAdelante + minAtras >= mejor) break;
+
+            if (minAdelante <= minAtras) {
+                int u = adelante.heap.extraerMin();
+                adelante.asentar(u);
+                asentados++;
+                double du = adelante.dist(u);
+                for (int e = g.inicioSalida(u); e < g.finSalida(u); e++) {
+                    int v = g.destino(e);
+                    if (adelante.asentado(v)) continue;
+                    double alt = du + g.peso(e, criterio, factorPeaje);
+                    if (alt < adelante.dist(v)) adelante.etiquetar(v, alt, e);
+                    if (atras.alcanzado(v) && adelante.dist(v) + atras.dist(v) < mejor) {
+                        mejor = adelante.dist(v) + atras.dist(v);
+                        encuentro = v;
+                    }
+                }
+            } else {
+                int u = atras.heap.extraerMin();
+                atras.asentar(u);
+                asentados++;
+                double du = atras.dist(u);
+                for (int k = g.inicioEntrada(u); k < g.finEntrada(u); k++) {
+                    int e = g.aristaEntrante(k);
+                    int v = g.origen(e);
+                    if (atras.asentado(v)) continue;
+                    double alt = du + g.peso(e, criterio, factorPeaje);
+                    if (alt < atras.dist(v)) atras.etiquetar(v, alt, e);
+                    if (adelante.alcanzado(v) && adelante.dist(v) + atras.dist(v) < mejor) {
+                        mejor = adelante.dist(v) + atras.dist(v);
+                        encuentro = v;
+                    }
+                }
+            }
+        }
+
+        Map<String, Double> dist = acumulados(g, adelante);
+        if (encuentro < 0) {
+            return sinCamino(origenId, pedido, criterio, dist, ModoBusqueda.BIDIRECCIONAL, asentados);
+        }
+
+        // origen → encuentro con los padres de adelante, encuentro → destino con los de atrás
+        LinkedList<Integer> aristas = new LinkedList<>();
+        for (int e = adelante.aristaPadre(encuentro); e >= 0; e = adelante.aristaPadre(g.origen(e))) {
+            aristas.addFirst(e);
+        }
+        int llegada = encuentro;
+        for (int e = atras.aristaPadre(encuentro); e >= 0; e = atras.aristaPadre(llegada)) {
+            aristas.addLast(e);
+            llegada = g.destino(e);
+        }
+        return conCamino(g, origenId, g.id(llegada), aristas, mejor, criterio, dist,
+                ModoBusqueda.BIDIRECCIONAL, asentados);
+    }
+
+    /**
+     * A* con cotas ALT: la clave de cada nodo en el heap es dist(origen, v) + cota(v, destinos).
+     * Como la cota es consistente, al asentar el primer destino su distancia es la mínima.
+     * Los nodos que según los landmarks no llegan a ningún destino no se encolan.
+     * Si por redondeo aparece una distancia menor para un nodo ya asentado, se reabre.
+     */
+    private ResultadoDijkstra aEstrella(SnapshotGrafo g, LandmarksALT lm, String origenId, String pedido,
+                                        int origen, int[] destinos,
+                                        CriterioPeso criterio, double factorPeaje) {
+        EspacioDijkstra ws = EspacioDijkstra.delHilo(g.cantidadNodos());
+        MonticuloIndexado pq = ws.heap;
+        double h0 = lm.cota(criterio, factorPeaje, origen, destinos);
+        if (h0 < Double.POSITIVE_INFINITY) ws.etiquetar(origen, 0.0, -1, h0);
+        int asentados = 0;
+        int llegada = -1;
+
+        while (!pq.vacio()) {
+            int u = pq.extraerMin();
+            ws.asentar(u);
+            asentados++;
+            if (contiene(destinos, u)) {
+                llegada = u;
+                break;
+            }
+
+            double du = ws.dist(u);
+            for (int e = g.inicioSalida(u); e < g.finSalida(u); e++) {
+                int v = g.destino(e);
+                double alt = du + g.peso(e, criterio, factorPeaje);
+                if (alt < ws.dist(v)) {
+                    double h = lm.cota(criterio, factorPeaje, v, destinos);
+                    if (h == Double.POSITIVE_INFINITY) continue;
+                    ws.etiquetar(v, alt, e, alt + h);
+                }
+            }
+        }
+
+        Map<String, Double> dist = acumulados(g, ws);
+        if (llegada < 0) {
+            return sinCamino(origenId, pedido, criterio, dist, ModoBusqueda.ALT, asentados);
+        }
+        LinkedList<Integer> aristas = new LinkedList<>();
+        for (int e = ws.aristaPadre(llegada); e >= 0; e = ws.aristaPadre(g.origen(e))) {
+            aristas.addFirst(e);
+        }
+        return conCamino(g, origenId, g.id(llegada), aristas, ws.dist(llegada), criterio, dist,
+                ModoBusqueda.ALT, asentados);
+    }
+
+    /**
+     * Consulta sobre la Contraction Hierarchy. Las distancias de la búsqueda hacia arriba no son
+     * las reales de cada nodo, así que en acumulados van las del camino encontrado (ya desarmado).
+     */
+    private ResultadoDijkstra porJerarquia(SnapshotGrafo g, JerarquiaContraccion ch, String origenId, String pedido,
+                                           int origen, int[] destinos,
+                                           CriterioPeso criterio, double factorPeaje) {
+        JerarquiaContraccion.Camino c = ch.consultar(origen, destinos);
+        if (c.llegada() < 0) {
+            return sinCamino(origenId, pedido, criterio, Map.of(origenId, 0.0), ModoBusqueda.CH, c.asentados());
+        }
+        Map<String, Double> dist = new LinkedHashMap<>();
+        List<Integer> aristas = new ArrayList<>(c.aristas().length);
+        double total = 0.0;
+        dist.put(origenId, total);
+        for (int e : c.aristas()) {
+            aristas.add(e);
+            total += g.peso(e, criterio, factorPeaje);
+            dist.put(g.id(g.destino(e)), total);
+        }
+        return conCamino(g, origenId, g.id(c.llegada()), aristas, total, criterio, dist,
+                ModoBusqueda.CH, c.asentados());
+    }
+
+    /** Landmarks de la foto g; si todavía no están (la foto es nueva), se arman una sola vez. */
+    private LandmarksALT landmarksPara(SnapshotGrafo g) {
+        LandmarksALT lm = landmarks;
+        if (lm != null && lm.grafo() == g) return lm;
+        synchronized (this) {
+            lm = landmarks;
+            if (lm == null || lm.grafo() != g) {
+                lm = LandmarksALT.construir(g, cantidadLandmarks);
+                // no pisar los de una foto más nueva que se haya armado mientras tanto
+                if (landmarks == null || landmarks.grafo().version() <= g.version()) landmarks = lm;
+            }
+            return lm;
+        }
     }
 
     // =========================================================
     //  CASO 2: HUB → CLIENTE
     // =========================================================
-    private ResultadoDijkstra dijkstraHastaCliente(String origenId, String clienteId,
-                                                   CriterioPeso criterio, double factorPeaje) {
+    private ResultadoDijkstra dijkstraHastaCliente(String origenId, String clienteId, CriterioPeso criterio,
+                                                   double factorPeaje, ModoBusqueda modo,
+                                                   CacheArbolesCaminos.Busqueda arbol) {
 
         // 1) todas las sucursales que atienden a ese cliente
-        List<String> sucursales = repo.sucursalesQueAtiendenCliente(clienteId);
+        List<String> sucursales = registro.sucursalesQueAtienden(clienteId);
         if (sucursales.isEmpty()) {
             throw new IllegalArgumentException("El cliente " + clienteId + " no es atendido por ninguna sucursal");
         }
 
-        ResultadoDijkstra mejor = null;
+        // 2) una sola búsqueda que termina en la primera (la más barata) de esas sucursales
+        ResultadoDijkstra mejor = dijkstraHastaAlguno(origenId, sucursales, criterio, factorPeaje, modo, arbol);
 
-        // 2) probamos llegar a cada sucursal y nos quedamos con la de menor pesoTotal
-        for (String suc : sucursales) {
-            ResultadoDijkstra parcial = dijkstraSoloHubs(origenId, suc, criterio, factorPeaje);
-            // OJO: tu clase se llama getPesoTotal(), no getDistancia()
-            if (mejor == null || parcial.getPesoTotal() < mejor.getPesoTotal()) {
-                mejor = parcial;
-            }
-        }
-
-        if (mejor == null || mejor.getCaminoIds() == null || mejor.getCaminoIds().isEmpty()) {
+        if (mejor.getCaminoIds().isEmpty()) {
             throw new IllegalStateException(
                     "No hay camino desde " + origenId + " hacia las sucursales que atienden al cliente " + clienteId
             );
@@ -159,7 +597,7 @@ public class ServicioDijkstra {
 
         // 4) nombres: los que ya tenías + nombre del cliente
         List<String> nombresFinal = new ArrayList<>(mejor.getCaminoNombres());
-        repo.nombreDe(clienteId).ifPresent(nombresFinal::add);
+        nombres.nombreDe(clienteId).ifPresent(nombresFinal::add);
 
         // 5) aristas: las mismas + una arista “virtual” sucursal→cliente
         List<AristaRuta> aristasFinal = new ArrayList<>(mejor.getAristas());
@@ -175,7 +613,9 @@ public class ServicioDijkstra {
                 aristasFinal,
                 mejor.getPesoTotal(),    // si querés podés sumar 0 o 1 acá
                 criterio,
-                mejor.getAcumulados()
+                mejor.getAcumulados(),
+                mejor.getModo(),
+                mejor.getNodosAsentados()
         );
     }
 
@@ -183,45 +623,63 @@ public class ServicioDijkstra {
     // helpers
     // =========================================================
     private void validarHub(String id) {
-        if (!repo.existeHubPorId(id)) {
+        if (!registro.esHub(id)) {
             throw new IllegalArgumentException("No existe Hub con id=" + id);
         }
     }
 
-    private static double toDouble(Object o) {
-        if (o == null) return 0.0;
-        if (o instanceof Number n) return n.doubleValue();
-        return Double.parseDouble(o.toString());
+    private static ResultadoDijkstra sinCamino(String origenId, String destinoId, CriterioPeso criterio,
+                                               Map<String, Double> dist, ModoBusqueda modo, int asentados) {
+        return new ResultadoDijkstra(
+                origenId,
+                destinoId,
+                List.of(),
+                List.of(),
+                List.of(),
+                Double.POSITIVE_INFINITY,
+                criterio,
+                dist,
+                modo,
+                asentados
+        );
     }
 
-    private static double peso(double distKm, double tiempoMin, double peaje,
-                               CriterioPeso criterio, double factorPeaje) {
-        return switch (criterio) {
-            case DISTANCIA -> distKm;
-            case TIEMPO -> tiempoMin;
-            case COSTO -> peaje * factorPeaje;
-        };
+    /** Arma el resultado a partir de los índices de arista del camino, en orden. */
+    ResultadoDijkstra conCamino(SnapshotGrafo g, String origenId, String destinoId,
+                                List<Integer> indicesAristas, double total, CriterioPeso criterio,
+                                Map<String, Double> dist, ModoBusqueda modo, int asentados) {
+        List<String> camino = new ArrayList<>(indicesAristas.size() + 1);
+        List<AristaRuta> aristas = new ArrayList<>(indicesAristas.size());
+        camino.add(origenId);
+        for (int e : indicesAristas) {
+            aristas.add(g.arista(e));
+            camino.add(g.id(g.destino(e)));
+        }
+        return new ResultadoDijkstra(
+                origenId,
+                destinoId,
+                camino,
+                nombres.nombresDe(camino),
+                aristas,
+                total,
+                criterio,
+                dist,
+                modo,
+                asentados
+        );
     }
 
-    private static List<String> reconstruirCamino(Map<String, String> padre, String origen, String destino) {
-        LinkedList<String> camino = new LinkedList<>();
-        String cur = destino;
-        while (cur != null) {
-            camino.addFirst(cur);
-            if (cur.equals(origen)) break;
-            cur = padre.get(cur);
-        }
-        if (!camino.isEmpty() && camino.getFirst().equals(origen)) return camino;
-        return List.of();
+    private static boolean contiene(int[] nodos, int v) {
+        for (int n : nodos) if (n == v) return true;
+        return false;
     }
 
-    private static List<AristaRuta> reconstruirAristas(Map<String, AristaRuta> aristaTomada, List<String> camino) {
-        if (camino.size() < 2) return List.of();
-        List<AristaRuta> res = new ArrayList<>();
-        for (int i = 1; i < camino.size(); i++) {
-            String v = camino.get(i);
-            AristaRuta a = aristaTomada.get(v);
-            if (a != null) res.add(a);
+    /** Distancias de todos los nodos alcanzados en la búsqueda (como el mapa dist de antes). */
+    private static Map<String, Double> acumulados(SnapshotGrafo g, EspacioDijkstra ws) {
+        Map<String, Double> res = new HashMap<>(ws.cantidadTocados() * 2);
+        for (int i = 0; i < ws.cantidadTocados(); i++) {
+            int v = ws.tocado(i);
+            res.put(g.id(v), ws.dist(v));
         }
         return res;
     }
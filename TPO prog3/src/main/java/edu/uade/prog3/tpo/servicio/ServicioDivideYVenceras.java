@@ -1,19 +1,25 @@
 package edu.uade.prog3.tpo.servicio;
 
 import edu.uade.prog3.tpo.repositorio.IRepositorioGrafo;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
 public class ServicioDivideYVenceras {
 
     private final IRepositorioGrafo repo;
+    private final int tamPagina;
 
-    public ServicioDivideYVenceras(IRepositorioGrafo repo) {
+    public ServicioDivideYVenceras(IRepositorioGrafo repo,
+                                   @Value("${tpo.paquetes.tam-pagina:500}") int tamPagina) {
         this.repo = repo;
+        this.tamPagina = tamPagina;
     }
 
     /**
@@ -23,15 +29,27 @@ public class ServicioDivideYVenceras {
      *  2) peso_kg ASC
      */
     public List<Map<String, Object>> ordenarPaquetesPorDyV(String depositoId) {
+        List<Map<String, Object>> res = new ArrayList<>();
+        ordenarPaquetesPorDyV(depositoId, res::add);
+        return res;
+    }
 
-        // 1) traer datos de Neo4j
-        List<Map<String, Object>> paquetesFromDb = repo.paquetesPendientesDeDeposito(depositoId);
-
-        // los copio porque la lista puede ser inmodificable
-        List<Map<String, Object>> paquetes = new ArrayList<>(paquetesFromDb);
-
-        // 2) aplicar merge sort
-        return mergeSort(paquetes);
+    /**
+     * Igual que arriba pero entregando los paquetes ya ordenados de a uno, sin juntar
+     * todo el depósito en memoria: se lee de a una página (que la base entrega por
+     * rangos consecutivos de la misma clave), se ordena con MergeSort y se emite.
+     * Concatenar las páginas ordenadas da el orden total.
+     */
+    public void ordenarPaquetesPorDyV(String depositoId, Consumer<Map<String, Object>> salida) {
+        Iterator<Map<String, Object>> paquetes = repo.recorrerPaquetesPendientes(depositoId, tamPagina);
+        List<Map<String, Object>> pagina = new ArrayList<>(tamPagina);
+        while (paquetes.hasNext()) {
+            pagina.add(paquetes.next());
+            if (pagina.size() == tamPagina || !paquetes.hasNext()) {
+                mergeSort(pagina).forEach(salida);
+                pagina.clear();
+            }
+        }
     }
 
     // =========================
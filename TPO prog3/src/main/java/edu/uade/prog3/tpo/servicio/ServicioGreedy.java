@@ -1,6 +1,8 @@
 package edu.uade.prog3.tpo.servicio;
 
+import edu.uade.prog3.tpo.repositorio.DiarioAsignaciones;
 import edu.uade.prog3.tpo.repositorio.IRepositorioGrafo;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -9,18 +11,45 @@ import java.util.*;
 public class ServicioGreedy {
 
     private final IRepositorioGrafo repo;
-
-    public ServicioGreedy(IRepositorioGrafo repo) {
+    private final DiarioAsignaciones diario;
+    private final int tamPagina;
+    private final int maxNoAsignados;
+
+    public ServicioGreedy(IRepositorioGrafo repo,
+                          DiarioAsignaciones diario,
+                          @Value("${tpo.paquetes.tam-pagina:500}") int tamPagina,
+                          @Value("${tpo.paquetes.max-no-asignados:1000}") int maxNoAsignados) {
         this.repo = repo;
+        this.diario = diario;
+        this.tamPagina = tamPagina;
+        this.maxNoAsignados = maxNoAsignados;
     }
 
     public Map<String, Object> ejecutarGreedy(String depositoId, String vehiculoId, String destino) {
+        return ejecutarGreedy(depositoId, vehiculoId, destino, false);
+    }
+
+    public Map<String, Object> ejecutarGreedy(String depositoId, String vehiculoId, String destino, boolean asincrono) {
+        return ejecutarGreedy(depositoId, vehiculoId, destino, asincrono, 0, null);
+    }
 
-        // 1) paquetes pendientes (puede venir como lista inmodificable → la copio)
-        List<Map<String, Object>> paquetesFromDb = repo.paquetesPendientesDeDeposito(depositoId);
-        List<Map<String, Object>> paquetes = new ArrayList<>(paquetesFromDb);   // <-- FIX
+    /**
+     * Los pendientes se recorren de a una página (ya vienen en el orden heurístico).
+     * paquetesNoAsignados trae una página de los que no entraron: desde noAsignadosDesde,
+     * como mucho maxNoAsignados (null o más que tpo.paquetes.max-no-asignados = ese tope),
+     * así en memoria nunca quedan más que el tope; cantidadNoAsignados dice cuántos fueron
+     * en total y con noAsignadosDesde se piden los siguientes.
+     * Con asincrono=true la asignación se persiste en segundo plano y se devuelve un ticket.
+     */
+    public Map<String, Object> ejecutarGreedy(String depositoId, String vehiculoId, String destino, boolean asincrono,
+                                              int noAsignadosDesde, Integer maxNoAsignados) {
+        if (noAsignadosDesde < 0 || (maxNoAsignados != null && maxNoAsignados < 0)) {
+            throw new IllegalArgumentException("noAsignadosDesde y maxNoAsignados no pueden ser negativos.");
+        }
+        int limite = maxNoAsignados == null ? this.maxNoAsignados : Math.min(maxNoAsignados, this.maxNoAsignados);
+        long hastaNoAsignados = (long) noAsignadosDesde + limite;
 
-        // 2) vehículos del depósito
+        // 1) vehículos del depósito
         List<Map<String, Object>> vehiculosFromDb = repo.vehiculosDeDeposito(depositoId);
         List<Map<String, Object>> vehiculos = new ArrayList<>(vehiculosFromDb); // por las dudas
 
@@ -28,7 +57,7 @@ public class ServicioGreedy {
             throw new RuntimeException("El depósito " + depositoId + " no tiene vehículos.");
         }
 
-        // 3) elegir vehículo
+        // 2) elegir vehículo
         Map<String, Object> vehiculoSel = null;
         if (vehiculoId != null && !vehiculoId.isBlank()) {
             for (Map<String, Object> v : vehiculos) {
@@ -48,26 +77,24 @@ public class ServicioGreedy {
         double capPeso = ((Number) vehiculoSel.get("capacidad_kg")).doubleValue();
         double capVol = ((Number) vehiculoSel.get("volumen_m3")).doubleValue();
 
-        // 4) ORDEN HEURÍSTICO
-        // prioridad ASC (1 primero), y dentro de misma prioridad, peso ASC
-        paquetes.sort(Comparator
-                .comparing((Map<String, Object> p) -> {
-                    Object pr = p.get("prioridad");
-                    return pr == null ? 999 : ((Number) pr).intValue();
-                })
-                .thenComparing(p -> {
-                    Object pes = p.get("peso_kg");
-                    return pes == null ? Double.MAX_VALUE : ((Number) pes).doubleValue();
-                })
-        );
+        // 3) ORDEN HEURÍSTICO: prioridad ASC (1 primero), y dentro de misma prioridad, peso ASC.
+        //    Lo resuelve la consulta; acá se consumen de a una página.
+        Iterator<Map<String, Object>> paquetes = repo.recorrerPaquetesPendientes(depositoId, tamPagina);
 
         List<Map<String, Object>> asignados = new ArrayList<>();
         List<Map<String, Object>> noAsignados = new ArrayList<>();
+        long cantidadNoAsignados = 0;
+
+        List<String> idsAsignados = new ArrayList<>();
 
         double pesoUsado = 0.0;
         double volUsado = 0.0;
 
-        for (Map<String, Object> p : paquetes) {
+        while (paquetes.hasNext()) {
+            Map<String, Object> p = paquetes.next();
+            // los que ya se asignaron en modo asíncrono y todavía no se escribieron
+            if (diario.estaEnCola((String) p.get("id"))) continue;
+
             double peso = ((Number) p.get("peso_kg")).doubleValue();
             double vol = ((Number) p.get("volumen_m3")).doubleValue();
 
@@ -77,21 +104,22 @@ public class ServicioGreedy {
                 pesoUsado += peso;
                 volUsado += vol;
 
-                String paqueteId = (String) p.get("id");
-
-                // actualizar en Neo4j
-                repo.actualizarEstadoPaquete(paqueteId, "asignado");
-                if (destino != null && !destino.isBlank()) {
-                    repo.setearDestinoPaquete(paqueteId, destino);
-                }
-                // opcional: relación
-                repo.crearRelacionTransporte((String) vehiculoSel.get("id"), paqueteId, destino);
+                idsAsignados.add((String) p.get("id"));
 
             } else {
-                noAsignados.add(p);
+                if (cantidadNoAsignados >= noAsignadosDesde && cantidadNoAsignados < hastaNoAsignados) noAsignados.add(p);
+                cantidadNoAsignados++;
             }
         }
 
+        // actualizar en Neo4j: estado, destino y relación de todos los asignados en un solo viaje
+        String ticket = null;
+        if (asincrono && !idsAsignados.isEmpty()) {
+            ticket = diario.encolar((String) vehiculoSel.get("id"), idsAsignados, "asignado", destino);
+        } else {
+            repo.asignarPaquetes((String) vehiculoSel.get("id"), idsAsignados, "asignado", destino);
+        }
+
         // armo respuesta
         Map<String, Object> resp = new LinkedHashMap<>();
         resp.put("depositoId", depositoId);
@@ -101,6 +129,8 @@ public class ServicioGreedy {
         resp.put("volumenTotal", volUsado);
         resp.put("paquetesAsignados", asignados);
         resp.put("paquetesNoAsignados", noAsignados);
+        resp.put("cantidadNoAsignados", cantidadNoAsignados);
+        if (ticket != null) resp.put("ticket", ticket);
 
         return resp;
     }
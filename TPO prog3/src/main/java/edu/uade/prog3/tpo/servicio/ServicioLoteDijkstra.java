@@ -0,0 +1,66 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.dominio.ParOrigenDestino;
+import edu.uade.prog3.tpo.dominio.ResultadoDijkstra;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Muchos pares origen → destino en una sola llamada (planificación).
+ *
+ * - Se validan todos los pares antes de buscar: uno inválido rechaza el lote entero.
+ * - Los pares se agrupan por origen: cada origen arma un solo árbol de caminos mínimos
+ *   y de ahí salen todos sus destinos (ver {@link ServicioDijkstra#dijkstraDesde}).
+ * - Los grupos corren en paralelo en el pool compartido (tpo.paralelo.hilos).
+ * - Los resultados vuelven en el mismo orden que los pares.
+ */
+@Service
+public class ServicioLoteDijkstra {
+
+    private final ServicioDijkstra servicioDijkstra;
+    private final int maxPares;
+    private final ForkJoinPool pool;
+
+    public ServicioLoteDijkstra(ServicioDijkstra servicioDijkstra,
+                                @Value("${tpo.lote.max-pares:1000}") int maxPares,
+                                ForkJoinPool pool) {
+        this.servicioDijkstra = servicioDijkstra;
+        this.maxPares = maxPares;
+        this.pool = pool;
+    }
+
+    public List<ResultadoDijkstra> resolver(List<ParOrigenDestino> pares, CriterioPeso criterio, double factorPeaje) {
+        if (pares == null || pares.isEmpty()) {
+            throw new IllegalArgumentException("El lote no tiene pares");
+        }
+        if (pares.size() > maxPares) {
+            throw new IllegalArgumentException("El lote tiene " + pares.size() + " pares (máximo " + maxPares + ")");
+        }
+
+        // origen → posiciones de sus pares en el lote
+        Map<String, List<Integer>> porOrigen = new LinkedHashMap<>();
+        for (int i = 0; i < pares.size(); i++) {
+            ParOrigenDestino par = pares.get(i);
+            if (par == null || par.getOrigenId() == null || par.getDestinoId() == null) {
+                throw new IllegalArgumentException("Par " + i + " sin origenId o destinoId");
+            }
+            servicioDijkstra.validarPar(par.getOrigenId(), par.getDestinoId());
+            porOrigen.computeIfAbsent(par.getOrigenId(), k -> new ArrayList<>()).add(i);
+        }
+
+        ResultadoDijkstra[] res = new ResultadoDijkstra[pares.size()];
+        List<Map.Entry<String, List<Integer>>> grupos = new ArrayList<>(porOrigen.entrySet());
+        pool.submit(() -> grupos.parallelStream().forEach(grupo -> {
+            List<Integer> posiciones = grupo.getValue();
+            List<String> destinos = new ArrayList<>(posiciones.size());
+            for (int i : posiciones) destinos.add(pares.get(i).getDestinoId());
+            List<ResultadoDijkstra> rs = servicioDijkstra.dijkstraDesde(grupo.getKey(), destinos, criterio, factorPeaje);
+            for (int j = 0; j < posiciones.size(); j++) res[posiciones.get(j)] = rs.get(j);
+        })).join();
+        return Arrays.asList(res);
+    }
+}
@@ -0,0 +1,128 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.repositorio.GrafoEnMemoria;
+import edu.uade.prog3.tpo.repositorio.GrafoPublicado;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Matrices de distancias entre todos los Hubs (ver {@link MatrizDistancias}) de la foto vigente,
+ * para los criterios de tpo.matriz.criterios.
+ *
+ * - Cada foto publicada ({@link GrafoPublicado}) encola una reconstrucción; los Dijkstra
+ *   por fuente corren en el pool compartido (tpo.paralelo.hilos). Si llega otra foto antes, la vieja se descarta.
+ * - Con más de tpo.matriz.max-hubs Hubs no se arma (h * h no entraría en memoria).
+ * - Backtracking y Branch & Bound piden {@link #tramos}: si la matriz de la foto vigente está
+ *   lista, cada tramo es una lectura O(1); si no, se resuelve con Dijkstra (con memo por consulta).
+ */
+@Service
+public class ServicioMatrizDistancias {
+
+    private static final Logger log = LoggerFactory.getLogger(ServicioMatrizDistancias.class);
+
+    private record Matrices(SnapshotGrafo grafo, Map<CriterioPeso, MatrizDistancias> porCriterio, long ms) {}
+
+    private final GrafoEnMemoria grafo;
+    private final ServicioDijkstra servicioDijkstra;
+    private final ServicioComponentes componentes;
+    private final Set<CriterioPeso> criterios;
+    private final int maxHubs;
+    private final ForkJoinPool pool;
+    private final ExecutorService constructor;
+
+    private volatile Matrices vigentes;
+    private volatile SnapshotGrafo pedida;
+
+    public ServicioMatrizDistancias(GrafoEnMemoria grafo,
+                                    ServicioDijkstra servicioDijkstra,
+                                    ServicioComponentes componentes,
+                                    @Value("${tpo.matriz.criterios:DISTANCIA}") List<CriterioPeso> criterios,
+                                    @Value("${tpo.matriz.max-hubs:3000}") int maxHubs,
+                                    ForkJoinPool pool) {
+        this.grafo = grafo;
+        this.servicioDijkstra = servicioDijkstra;
+        this.componentes = componentes;
+        this.criterios = criterios.isEmpty() ? EnumSet.noneOf(CriterioPeso.class) : EnumSet.copyOf(criterios);
+        this.maxHubs = maxHubs;
+        this.pool = pool;
+        this.constructor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "matriz-distancias");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Encola la reconstrucción de las matrices para la foto nueva. */
+    @EventListener
+    public void alPublicarGrafo(GrafoPublicado evento) {
+        if (criterios.isEmpty()) return;
+        pedida = evento.snapshot();
+        constructor.execute(() -> construir(evento.snapshot()));
+    }
+
+    /**
+     * Tramos entre Hubs con el criterio dado, para una consulta: sobre la matriz de la foto
+     * vigente si ya está, o con Dijkstra si no. Usar el mismo objeto durante toda la consulta.
+     */
+    Tramos tramos(CriterioPeso criterio) {
+        Matrices m = vigentes;
+        SnapshotGrafo g = grafo.snapshot();
+        MatrizDistancias matriz = m != null && m.grafo() == g ? m.porCriterio().get(criterio) : null;
+        return new Tramos(matriz, servicioDijkstra, criterio, componentes, g);
+    }
+
+    /** Foto, Hubs por criterio y duración del último armado. */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> res = new LinkedHashMap<>();
+        Matrices m = vigentes;
+        res.put("criterios", criterios);
+        res.put("maxHubs", maxHubs);
+        res.put("versionGrafo", m == null ? -1 : m.grafo().version());
+        Map<String, Object> hubs = new LinkedHashMap<>();
+        if (m != null) m.porCriterio().forEach((c, mat) -> hubs.put(c.name(), mat.cantidadHubs()));
+        res.put("hubs", hubs);
+        res.put("msConstruccion", m == null ? 0 : m.ms());
+        return res;
+    }
+
+    @PreDestroy
+    public void detener() {
+        constructor.shutdownNow();
+    }
+
+    private void construir(SnapshotGrafo g) {
+        if (pedida != g) return;   // ya llegó una foto más nueva
+        int hubs = g.hubs().size();
+        if (hubs > maxHubs) {
+            log.warn("La foto {} tiene {} Hubs (máximo {}): no se arma la matriz de distancias", g.version(), hubs, maxHubs);
+            vigentes = null;
+            return;
+        }
+        try {
+            long t0 = System.nanoTime();
+            Map<CriterioPeso, MatrizDistancias> porCriterio = new EnumMap<>(CriterioPeso.class);
+            for (CriterioPeso c : criterios) {
+                if (pedida != g) return;
+                MatrizDistancias mat = MatrizDistancias.construir(g, c, pool);
+                if (mat != null) porCriterio.put(c, mat);
+            }
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+            vigentes = new Matrices(g, porCriterio, ms);
+            log.info("Matriz de distancias de la versión {} lista en {} ms ({} Hubs, {} criterios)",
+                    g.version(), ms, hubs, porCriterio.size());
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo armar la matriz de distancias de la versión {}: {}", g.version(), ex.getMessage());
+        }
+    }
+}
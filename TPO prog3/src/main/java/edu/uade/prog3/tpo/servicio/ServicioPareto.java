@@ -0,0 +1,306 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.AristaRuta;
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.dominio.ResultadoPareto;
+import edu.uade.prog3.tpo.dominio.RutaPareto;
+import edu.uade.prog3.tpo.repositorio.CacheNombres;
+import edu.uade.prog3.tpo.repositorio.GrafoEnMemoria;
+import edu.uade.prog3.tpo.repositorio.RegistroNodos;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Rutas Pareto-óptimas en (dist_km, tiempo_min, peaje) en una sola búsqueda
+ * (label-setting multicriterio, estilo Martins).
+ *
+ * - Cada etiqueta es un camino parcial con sus tres totales; salen del heap en orden
+ *   lexicográfico (dist, tiempo, peaje), así que una etiqueta asentada nunca queda dominada después.
+ * - Dominancia: a domina a b si no es peor en ningún total (a igual vector queda la primera).
+ *   Se descarta la etiqueta dominada por alguna ya asentada en su nodo o en los destinos.
+ * - Una etiqueta nueva también se compara con las que su nodo tiene en el heap: si alguna la
+ *   domina se descarta, y las que ella domina se marcan descartadas (se saltean al salir).
+ * - Tope de etiquetas por nodo (tpo.pareto.max-etiquetas, asentadas + vivas en el heap): lo que no
+ *   entra se descarta. El resultado avisa recortado=true solo si alguna descartada por el tope no
+ *   quedó dominada al final por las asentadas de su nodo (el frente puede quedar incompleto).
+ * - Destino Hub o Cliente (las sucursales que lo atienden son destinos, como en Dijkstra).
+ */
+@Service
+public class ServicioPareto {
+
+    private final RegistroNodos registro;
+    private final GrafoEnMemoria grafo;
+    private final CacheNombres nombres;
+    private final ServicioComponentes componentes;
+    private final int maxEtiquetas;
+
+    public ServicioPareto(RegistroNodos registro, GrafoEnMemoria grafo, CacheNombres nombres,
+                          ServicioComponentes componentes,
+                          @Value("${tpo.pareto.max-etiquetas:64}") int maxEtiquetas) {
+        this.registro = registro;
+        this.grafo = grafo;
+        this.nombres = nombres;
+        this.componentes = componentes;
+        this.maxEtiquetas = maxEtiquetas;
+    }
+
+    public ResultadoPareto rutas(String origenId, String destinoId) {
+        if (!registro.esHub(origenId)) {
+            throw new IllegalArgumentException("No existe Hub con id=" + origenId);
+        }
+        boolean esCliente = !registro.esHub(destinoId);
+        List<String> hubsDestino;
+        if (!esCliente) {
+            hubsDestino = List.of(destinoId);
+        } else if (registro.esCliente(destinoId)) {
+            hubsDestino = registro.sucursalesQueAtienden(destinoId);
+            if (hubsDestino.isEmpty()) {
+                throw new IllegalArgumentException("El cliente " + destinoId + " no es atendido por ninguna sucursal");
+            }
+        } else {
+            throw new IllegalArgumentException("No existe destino con id=" + destinoId);
+        }
+
+        if (hubsDestino.contains(origenId)) {
+            List<RutaPareto> una = List.of(ruta(List.of(origenId), List.of(), 0, 0, 0, esCliente ? destinoId : null));
+            return new ResultadoPareto(origenId, destinoId, una, 0, false);
+        }
+
+        SnapshotGrafo g = grafo.snapshot();
+        int origen = g.indiceDe(origenId);
+        boolean[] esDestino = new boolean[g.cantidadNodos()];
+        int[] destinos = hubsDestino.stream().mapToInt(g::indiceDe).filter(t -> t >= 0).toArray();
+        for (int t : destinos) esDestino[t] = true;
+        if (origen < 0 || destinos.length == 0 || componentes.sinCamino(g, origen, destinos)) {
+            return new ResultadoPareto(origenId, destinoId, List.of(), 0, false);
+        }
+
+        Busqueda b = new Busqueda(g, esDestino, maxEtiquetas);
+        b.correr(origen);
+
+        List<RutaPareto> rutas = new ArrayList<>(b.cantDestino);
+        for (int i = 0; i < b.cantDestino; i++) {
+            int l = b.enDestino[i];
+            LinkedList<Integer> aristas = new LinkedList<>();
+            for (int x = l; b.arista[x] >= 0; x = b.padre[x]) aristas.addFirst(b.arista[x]);
+            List<String> camino = new ArrayList<>(aristas.size() + 2);
+            List<AristaRuta> detalle = new ArrayList<>(aristas.size() + 1);
+            camino.add(origenId);
+            for (int e : aristas) {
+                detalle.add(g.arista(e));
+                camino.add(g.id(g.destino(e)));
+            }
+            rutas.add(ruta(camino, detalle, b.dist[l], b.tiempo[l], b.peaje[l], esCliente ? destinoId : null));
+        }
+        return new ResultadoPareto(origenId, destinoId, rutas, b.asentadas, b.recortado);
+    }
+
+    // ---------- helpers ----------
+
+    /** Con cliente, agrega el tramo virtual sucursal → cliente (igual que Dijkstra). */
+    private RutaPareto ruta(List<String> camino, List<AristaRuta> aristas, double d, double t, double p,
+                            String clienteId) {
+        if (clienteId != null) {
+            camino = new ArrayList<>(camino);
+            aristas = new ArrayList<>(aristas);
+            aristas.add(new AristaRuta(camino.get(camino.size() - 1), clienteId, 0.0, 0.0, 0.0));
+            camino.add(clienteId);
+        }
+        return new RutaPareto(camino, nombres.nombresDe(camino), aristas, d, t, p);
+    }
+
+    /**
+     * Estado de una búsqueda: etiquetas en arreglos paralelos (índice = etiqueta),
+     * bolsas de etiquetas asentadas por nodo y un heap binario de índices de etiqueta.
+     */
+    private static final class Busqueda {
+        final SnapshotGrafo g;
+        final boolean[] esDestino;
+        final int tope;
+
+        double[] dist = new double[64];
+        double[] tiempo = new double[64];
+        double[] peaje = new double[64];
+        int[] nodo = new int[64];
+        int[] padre = new int[64];
+        int[] arista = new int[64];     // arista por la que se llegó, -1 en el origen
+        int cant;
+
+        final int[][] bolsa;            // etiquetas asentadas por nodo (null hasta la primera)
+        final int[] cantBolsa;
+        final int[][] enCola;           // etiquetas vivas de cada nodo que siguen en el heap
+        final int[] pendientes;         // cuántas hay en enCola[v]
+        boolean[] descartada = new boolean[64];   // dominada mientras esperaba en el heap
+        int[] porTope = new int[8];     // etiquetas que no entraron por el tope
+        int cantPorTope;
+        int[] enDestino = new int[8];   // etiquetas asentadas en algún destino
+        int cantDestino;
+
+        int[] heap = new int[64];
+        int tam;
+
+        int asentadas;
+        boolean recortado;
+
+        Busqueda(SnapshotGrafo g, boolean[] esDestino, int tope) {
+            this.g = g;
+            this.esDestino = esDestino;
+            this.tope = tope;
+            int n = g.cantidadNodos();
+            bolsa = new int[n][];
+            cantBolsa = new int[n];
+            enCola = new int[n][];
+            pendientes = new int[n];
+        }
+
+        void correr(int origen) {
+            int inicial = nueva(origen, 0, 0, 0, -1, -1);
+            agregarEnCola(origen, inicial);
+            encolar(inicial);
+            while (tam > 0) {
+                int l = sacar();
+                if (descartada[l]) continue;
+                int v = nodo[l];
+                quitarDeCola(v, l);
+                if (dominada(dist[l], tiempo[l], peaje[l], bolsa[v], cantBolsa[v])
+                        || dominada(dist[l], tiempo[l], peaje[l], enDestino, cantDestino)) {
+                    continue;
+                }
+                asentar(v, l);
+                asentadas++;
+                if (esDestino[v]) {
+                    // seguir de largo hacia otro destino solo da etiquetas dominadas por esta
+                    if (cantDestino == enDestino.length) enDestino = Arrays.copyOf(enDestino, cantDestino * 2);
+                    enDestino[cantDestino++] = l;
+                    continue;
+                }
+                for (int e = g.inicioSalida(v); e < g.finSalida(v); e++) {
+                    int w = g.destino(e);
+                    double d = dist[l] + g.peso(e, CriterioPeso.DISTANCIA, 1.0);
+                    double t = tiempo[l] + g.peso(e, CriterioPeso.TIEMPO, 1.0);
+                    double p = peaje[l] + g.peso(e, CriterioPeso.COSTO, 1.0);
+                    if (dominada(d, t, p, bolsa[w], cantBolsa[w]) || dominada(d, t, p, enDestino, cantDestino)) {
+                        continue;
+                    }
+                    if (dominada(d, t, p, enCola[w], pendientes[w])) continue;
+                    descartarDominadas(w, d, t, p);
+                    int nl = nueva(w, d, t, p, l, e);
+                    if (cantBolsa[w] + pendientes[w] >= tope) {
+                        if (cantPorTope == porTope.length) porTope = Arrays.copyOf(porTope, cantPorTope * 2);
+                        porTope[cantPorTope++] = nl;
+                        continue;
+                    }
+                    agregarEnCola(w, nl);
+                    encolar(nl);
+                }
+            }
+            // recortado solo si el tope dejó afuera algo que ninguna asentada domina
+            for (int i = 0; i < cantPorTope && !recortado; i++) {
+                int x = porTope[i], w = nodo[x];
+                recortado = !dominada(dist[x], tiempo[x], peaje[x], bolsa[w], cantBolsa[w])
+                        && !dominada(dist[x], tiempo[x], peaje[x], enDestino, cantDestino);
+            }
+        }
+
+        /** Marca descartadas las etiquetas de w en el heap que (d, t, p) domina. */
+        private void descartarDominadas(int w, double d, double t, double p) {
+            int[] cola = enCola[w];
+            for (int i = pendientes[w] - 1; i >= 0; i--) {
+                int o = cola[i];
+                if (d <= dist[o] && t <= tiempo[o] && p <= peaje[o]) {
+                    descartada[o] = true;
+                    cola[i] = cola[--pendientes[w]];
+                }
+            }
+        }
+
+        private void agregarEnCola(int v, int l) {
+            if (enCola[v] == null) enCola[v] = new int[4];
+            else if (pendientes[v] == enCola[v].length) enCola[v] = Arrays.copyOf(enCola[v], pendientes[v] * 2);
+            enCola[v][pendientes[v]++] = l;
+        }
+
+        private void quitarDeCola(int v, int l) {
+            int[] cola = enCola[v];
+            for (int i = 0; i < pendientes[v]; i++) {
+                if (cola[i] == l) {
+                    cola[i] = cola[--pendientes[v]];
+                    return;
+                }
+            }
+        }
+
+        private boolean dominada(double d, double t, double p, int[] etiquetas, int cantidad) {
+            for (int i = 0; i < cantidad; i++) {
+                int o = etiquetas[i];
+                if (dist[o] <= d && tiempo[o] <= t && peaje[o] <= p) return true;
+            }
+            return false;
+        }
+
+        private void asentar(int v, int l) {
+            if (bolsa[v] == null) bolsa[v] = new int[4];
+            else if (cantBolsa[v] == bolsa[v].length) bolsa[v] = Arrays.copyOf(bolsa[v], cantBolsa[v] * 2);
+            bolsa[v][cantBolsa[v]++] = l;
+        }
+
+        private int nueva(int v, double d, double t, double p, int desde, int e) {
+            if (cant == dist.length) {
+                int cap = cant * 2;
+                dist = Arrays.copyOf(dist, cap);
+                tiempo = Arrays.copyOf(tiempo, cap);
+                peaje = Arrays.copyOf(peaje, cap);
+                nodo = Arrays.copyOf(nodo, cap);
+                padre = Arrays.copyOf(padre, cap);
+                arista = Arrays.copyOf(arista, cap);
+                descartada = Arrays.copyOf(descartada, cap);
+            }
+            dist[cant] = d;
+            tiempo[cant] = t;
+            peaje[cant] = p;
+            nodo[cant] = v;
+            padre[cant] = desde;
+            arista[cant] = e;
+            return cant++;
+        }
+
+        /** Orden lexicográfico (dist, tiempo, peaje); a igual, la etiqueta más vieja. */
+        private boolean menor(int a, int b) {
+            if (dist[a] != dist[b]) return dist[a] < dist[b];
+            if (tiempo[a] != tiempo[b]) return tiempo[a] < tiempo[b];
+            if (peaje[a] != peaje[b]) return peaje[a] < peaje[b];
+            return a < b;
+        }
+
+        private void encolar(int l) {
+            if (tam == heap.length) heap = Arrays.copyOf(heap, tam * 2);
+            int i = tam++;
+            while (i > 0) {
+                int p = (i - 1) >>> 1;
+                if (!menor(l, heap[p])) break;
+                heap[i] = heap[p];
+                i = p;
+            }
+            heap[i] = l;
+        }
+
+        private int sacar() {
+            int min = heap[0];
+            int ultimo = heap[--tam];
+            int i = 0;
+            while (true) {
+                int h = 2 * i + 1;
+                if (h >= tam) break;
+                if (h + 1 < tam && menor(heap[h + 1], heap[h])) h++;
+                if (!menor(heap[h], ultimo)) break;
+                heap[i] = heap[h];
+                i = h;
+            }
+            if (tam > 0) heap[i] = ultimo;
+            return min;
+        }
+    }
+}
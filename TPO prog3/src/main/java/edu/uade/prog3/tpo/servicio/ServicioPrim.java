@@ -3,7 +3,9 @@ package edu.uade.prog3.tpo.servicio;
 import edu.uade.prog3.tpo.dominio.AristaRuta;
 import edu.uade.prog3.tpo.dominio.CriterioPeso;
 import edu.uade.prog3.tpo.dominio.ResultadoPrim;
-import edu.uade.prog3.tpo.repositorio.IRepositorioGrafo;
+import edu.uade.prog3.tpo.repositorio.GrafoEnMemoria;
+import edu.uade.prog3.tpo.repositorio.RegistroNodos;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -15,10 +17,12 @@ import java.util.*;
 @Service
 public class ServicioPrim {
 
-    private final IRepositorioGrafo repo;
+    private final RegistroNodos registro;
+    private final GrafoEnMemoria grafo;
 
-    public ServicioPrim(IRepositorioGrafo repo) {
-        this.repo = repo;
+    public ServicioPrim(RegistroNodos registro, GrafoEnMemoria grafo) {
+        this.registro = registro;
+        this.grafo = grafo;
     }
 
     /**
@@ -34,13 +38,15 @@ public class ServicioPrim {
                               List<String> idsPermitidos) {
 
         // 1. validar que existe
-        if (!repo.existeHubPorId(inicioId)) {
+        if (!registro.esHub(inicioId)) {
             throw new IllegalArgumentException("No existe Hub con id=" + inicioId);
         }
 
+        SnapshotGrafo g = grafo.snapshot();
+
         // 2. armar universo de trabajo (la “zona”)
         List<String> zona = (idsPermitidos == null || idsPermitidos.isEmpty())
-                ? repo.todosLosHubs()
+                ? g.hubs()
                 : idsPermitidos;
 
         if (!zona.contains(inicioId)) {
@@ -57,7 +63,7 @@ public class ServicioPrim {
         List<AristaRuta> aristasElegidas = new ArrayList<>();
 
         // 4. inicializamos la frontera con lo que sale del inicio
-        agregarFrontera(inicioId, criterio, factorPeaje, enMST, frontera, zona);
+        agregarFrontera(g, inicioId, criterio, factorPeaje, enMST, frontera, zona);
 
         // 5. loop principal
         while (enMST.size() < zona.size() && !frontera.isEmpty()) {
@@ -72,7 +78,7 @@ public class ServicioPrim {
             aristasElegidas.add(f.arista);
 
             // expandimos desde el nuevo nodo
-            agregarFrontera(f.hastaId, criterio, factorPeaje, enMST, frontera, zona);
+            agregarFrontera(g, f.hastaId, criterio, factorPeaje, enMST, frontera, zona);
         }
 
         // 6. peso total según criterio
@@ -90,27 +96,27 @@ public class ServicioPrim {
      * Agrega a la priority queue todas las aristas salientes de 'desdeId'
      * que vayan a nodos NO visitados y que además estén dentro de la zona.
      */
-    private void agregarFrontera(String desdeId,
+    private void agregarFrontera(SnapshotGrafo g,
+                                 String desdeId,
                                  CriterioPeso criterio,
                                  double factorPeaje,
                                  Set<String> enMST,
                                  PriorityQueue<Frontera> frontera,
                                  List<String> zona) {
 
-        // Traemos las RUTAs salientes con pesos
-        for (var row : repo.vecinosConPesos(desdeId)) {
-            String hastaId = (String) row.get("vecino");
+        int desde = g.indiceDe(desdeId);
+        if (desde < 0) return;
+
+        // RUTAs salientes con pesos, desde la foto en memoria
+        for (int e = g.inicioSalida(desde); e < g.finSalida(desde); e++) {
+            String hastaId = g.id(g.destino(e));
 
             // filtrar por zona
             if (!zona.contains(hastaId)) continue;
             // filtrar los ya metidos en el MST
             if (enMST.contains(hastaId)) continue;
 
-            double dist = toDouble(row.get("dist"));
-            double tiempo = toDouble(row.get("tiempo"));
-            double peaje = toDouble(row.get("peaje"));
-
-            AristaRuta arista = new AristaRuta(desdeId, hastaId, dist, tiempo, peaje);
+            AristaRuta arista = g.arista(e);
             double p = peso(arista, criterio, factorPeaje);
 
             frontera.add(new Frontera(p, hastaId, arista));
@@ -128,12 +134,6 @@ public class ServicioPrim {
         };
     }
 
-    private static double toDouble(Object o) {
-        if (o == null) return 0.0;
-        if (o instanceof Number n) return n.doubleValue();
-        return Double.parseDouble(o.toString());
-    }
-
     /**
      * Wrapper interno para la priority queue
      */
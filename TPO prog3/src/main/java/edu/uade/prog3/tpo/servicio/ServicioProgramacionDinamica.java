@@ -1,5 +1,6 @@
 package edu.uade.prog3.tpo.servicio;
 
+import edu.uade.prog3.tpo.repositorio.DiarioAsignaciones;
 import edu.uade.prog3.tpo.repositorio.IRepositorioGrafo;
 import org.springframework.stereotype.Service;
 
@@ -9,24 +10,35 @@ import java.util.*;
 public class ServicioProgramacionDinamica {
 
     private final IRepositorioGrafo repo;
+    private final DiarioAsignaciones diario;
 
-    public ServicioProgramacionDinamica(IRepositorioGrafo repo) {
+    public ServicioProgramacionDinamica(IRepositorioGrafo repo, DiarioAsignaciones diario) {
         this.repo = repo;
+        this.diario = diario;
+    }
+
+    public Map<String, Object> ejecutarMochilaDp(String depositoId,
+                                                 String vehiculoId,
+                                                 String destino) {
+        return ejecutarMochilaDp(depositoId, vehiculoId, destino, false);
     }
 
     /**
      * Mochila 0/1 con Programación Dinámica.
      * - Usa SOLO el peso (peso_kg) como restricción.
      * - Usa la prioridad para armar un "valor" (prioridad 1 = más valor).
-     * - Actualiza en Neo4j los paquetes elegidos.
+     * - Actualiza en Neo4j los paquetes elegidos (con asincrono=true, en segundo plano
+     *   y la respuesta trae un ticket).
      */
     public Map<String, Object> ejecutarMochilaDp(String depositoId,
                                                  String vehiculoId,
-                                                 String destino) {
+                                                 String destino,
+                                                 boolean asincrono) {
 
-        // 1) Traer paquetes pendientes
+        // 1) Traer paquetes pendientes (sin los asignados en modo asíncrono que todavía no se escribieron)
         List<Map<String, Object>> paquetesDb = repo.paquetesPendientesDeDeposito(depositoId);
         List<Map<String, Object>> paquetes = new ArrayList<>(paquetesDb);
+        paquetes.removeIf(p -> diario.estaEnCola((String) p.get("id")));
 
         // 2) Traer vehículos
         List<Map<String, Object>> vehiculosDb = repo.vehiculosDeDeposito(depositoId);
@@ -107,6 +119,7 @@ public class ServicioProgramacionDinamica {
         int w = capacidad;
         List<Map<String, Object>> seleccionados = new ArrayList<>();
         List<Map<String, Object>> noSeleccionados = new ArrayList<>();
+        List<String> idsSeleccionados = new ArrayList<>();
 
         for (int i = n; i >= 1; i--) {
             Map<String, Object> p = paquetes.get(i - 1);
@@ -119,18 +132,20 @@ public class ServicioProgramacionDinamica {
                 seleccionados.add(p);
                 w = w - peso;
 
-                String paqueteId = (String) p.get("id");
-                // persistimos
-                repo.actualizarEstadoPaquete(paqueteId, "asignado_dp");
-                if (destino != null && !destino.isBlank()) {
-                    repo.setearDestinoPaquete(paqueteId, destino);
-                }
-                repo.crearRelacionTransporte((String) vehiculoSel.get("id"), paqueteId, destino);
+                idsSeleccionados.add((String) p.get("id"));
             } else {
                 noSeleccionados.add(p);
             }
         }
 
+        // persistimos todo el lote en un solo viaje
+        String ticket = null;
+        if (asincrono && !idsSeleccionados.isEmpty()) {
+            ticket = diario.encolar((String) vehiculoSel.get("id"), idsSeleccionados, "asignado_dp", destino);
+        } else {
+            repo.asignarPaquetes((String) vehiculoSel.get("id"), idsSeleccionados, "asignado_dp", destino);
+        }
+
         // como fuimos de atrás para adelante, la lista quedó invertida
         Collections.reverse(seleccionados);
 
@@ -148,6 +163,7 @@ public class ServicioProgramacionDinamica {
         resp.put("valorTotal", dp[n][capacidad]);
         resp.put("paquetesSeleccionados", seleccionados);
         resp.put("paquetesNoSeleccionados", noSeleccionados);
+        if (ticket != null) resp.put("ticket", ticket);
 
         return resp;
     }
@@ -0,0 +1,107 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.dominio.ResultadoDijkstra;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Costos y caminos de los tramos entre Hubs para UNA consulta de Backtracking o Branch & Bound.
+ *
+ * Con matriz (ver {@link ServicioMatrizDistancias}) cada costo es una lectura O(1) y el camino
+ * se rearma solo cuando se pide. Sin matriz se usa Dijkstra y se memoriza cada resultado,
+ * así un mismo tramo no se busca dos veces en la misma consulta.
+ * Los costos y caminos son los mismos que daría servicioDijkstra.dijkstra / dijkstraHastaAlguno;
+ * solo entre varios destinos igual de cercanos la matriz elige el primero en orden de la foto.
+ * Antes de buscar, {@link #sinSolucion} descarta con las componentes de la foto las consultas
+ * con alguna parada inalcanzable.
+ */
+final class Tramos {
+
+    /** Destino alcanzado por un tramo y su costo. */
+    record Llegada(String id, double costo) {}
+
+    private final MatrizDistancias matriz;   // null = sin matriz, se usa Dijkstra
+    private final ServicioDijkstra dijkstra;
+    private final CriterioPeso criterio;
+    private final ServicioComponentes componentes;
+    private final SnapshotGrafo grafo;
+    private final Map<String, ResultadoDijkstra> memo = new HashMap<>();
+
+    Tramos(MatrizDistancias matriz, ServicioDijkstra dijkstra, CriterioPeso criterio,
+           ServicioComponentes componentes, SnapshotGrafo grafo) {
+        this.matriz = matriz;
+        this.dijkstra = dijkstra;
+        this.criterio = criterio;
+        this.componentes = componentes;
+        this.grafo = grafo;
+    }
+
+    /**
+     * true si seguro no hay recorrido: alguna parada no se alcanza desde el origen o no llega
+     * a ningún destino, o (sin paradas) ningún destino se alcanza. O(1) por par, sin buscar.
+     */
+    boolean sinSolucion(String origen, List<String> paradas, List<String> destinos) {
+        int o = grafo.indiceDe(origen);
+        int[] finales = destinos.stream().mapToInt(grafo::indiceDe).filter(i -> i >= 0).toArray();
+        if (o < 0 || finales.length == 0) return false;
+        if (componentes.sinCamino(grafo, o, finales)) return true;
+        for (String p : paradas) {
+            int v = grafo.indiceDe(p);
+            if (v < 0) continue;
+            if (componentes.sinCamino(grafo, o, v) || componentes.sinCamino(grafo, v, finales)) return true;
+        }
+        return false;
+    }
+
+    /** Costo mínimo de desde a hasta; infinito si no hay camino. */
+    double costo(String desde, String hasta) {
+        if (desde.equals(hasta)) return 0.0;
+        if (matriz != null) {
+            int s = matriz.posicion(desde), t = matriz.posicion(hasta);
+            return s < 0 || t < 0 ? Double.POSITIVE_INFINITY : matriz.distancia(s, t);
+        }
+        return buscar(desde, List.of(hasta)).getPesoTotal();
+    }
+
+    /** El más cercano de los destinos (con matriz, a igual costo el primero en orden de la foto), o null. */
+    Llegada masCercano(String desde, List<String> destinos) {
+        if (destinos.contains(desde)) return new Llegada(desde, 0.0);
+        if (matriz != null) {
+            int s = matriz.posicion(desde);
+            if (s < 0) return null;
+            int mejor = -1;
+            double mejorCosto = Double.POSITIVE_INFINITY;
+            for (String d : destinos) {
+                int t = matriz.posicion(d);
+                if (t < 0) continue;
+                double c = matriz.distancia(s, t);
+                if (c < mejorCosto || (c == mejorCosto && c < Double.POSITIVE_INFINITY && t < mejor)) {
+                    mejor = t;
+                    mejorCosto = c;
+                }
+            }
+            return mejor < 0 ? null : new Llegada(matriz.id(mejor), mejorCosto);
+        }
+        ResultadoDijkstra r = buscar(desde, destinos);
+        return r.getCaminoIds().isEmpty() ? null : new Llegada(r.getDestinoId(), r.getPesoTotal());
+    }
+
+    /** Ids del camino mínimo de desde a hasta (incluye ambos), o vacío si no hay. */
+    List<String> camino(String desde, String hasta) {
+        if (desde.equals(hasta)) return List.of(desde);
+        if (matriz != null) {
+            int s = matriz.posicion(desde), t = matriz.posicion(hasta);
+            return s < 0 || t < 0 ? List.of() : matriz.camino(s, t);
+        }
+        return buscar(desde, List.of(hasta)).getCaminoIds();
+    }
+
+    private ResultadoDijkstra buscar(String desde, List<String> destinos) {
+        return memo.computeIfAbsent(desde + "→" + String.join(",", destinos),
+                k -> dijkstra.dijkstraHastaAlguno(desde, destinos, criterio, 1.0));
+    }
+}
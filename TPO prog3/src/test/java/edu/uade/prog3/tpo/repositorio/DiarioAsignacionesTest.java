@@ -0,0 +1,192 @@
+package edu.uade.prog3.tpo.repositorio;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class DiarioAsignacionesTest {
+
+    @TempDir
+    Path carpeta;
+
+    /** Cada asignarPaquetes que llegó a la base: vehículo, estado, destino e ids. */
+    private final List<List<Object>> escritas = Collections.synchronizedList(new ArrayList<>());
+    /** Vehículos para los que la base falla. */
+    private final Set<String> fallan = ConcurrentHashMap.newKeySet();
+    /** El vehículo V_LENTO avisa en adentro y se queda esperando a liberar. */
+    private final CountDownLatch adentro = new CountDownLatch(1);
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private final IRepositorioGrafo repo = (IRepositorioGrafo) Proxy.newProxyInstance(
+            DiarioAsignacionesTest.class.getClassLoader(), new Class<?>[]{IRepositorioGrafo.class},
+            (proxy, metodo, args) -> {
+                if (!metodo.getName().equals("asignarPaquetes")) throw new UnsupportedOperationException(metodo.getName());
+                if (fallan.contains((String) args[0])) throw new IllegalStateException("base caída para " + args[0]);
+                if (args[0].equals("V_LENTO")) {
+                    adentro.countDown();
+                    liberar.await(10, TimeUnit.SECONDS);
+                }
+                escritas.add(List.of(args[0], args[2], String.valueOf(args[3]), args[1]));
+                return null;
+            });
+
+    private final List<DiarioAsignaciones> abiertos = new ArrayList<>();
+
+    @AfterEach
+    void detener() {
+        liberar.countDown();
+        abiertos.forEach(DiarioAsignaciones::detener);
+    }
+
+    @Test
+    void alArrancarSeEscribeSoloLoAnotadoSinMarcaDeEscrito() throws Exception {
+        Files.writeString(archivo(), String.join("\n",
+                "A\tT1\tV1\tasignado\t\tP1,P2",
+                "A\tT2\tV%C3%A9\tasignado\tSUC%20NORTE\tP3,P%2C4",
+                "F\tT1",
+                "A\tT3\tV3\tasig") + "\n");   // el último quedó cortado por la caída
+        DiarioAsignaciones diario = diario(10, 1000, 3);
+
+        esperar(diario, "T2", DiarioAsignaciones.EstadoTicket.ESCRITO);
+        assertEquals(List.of(List.of("Vé", "asignado", "SUC NORTE", List.of("P3", "P,4"))), escritas);
+        assertTrue(diario.estadoDe("T1").isEmpty());
+        assertFalse(diario.estaEnCola("P3"));
+        // compactado al arrancar: no queda ni T1 ni el renglón cortado
+        assertTrue(Files.readAllLines(archivo()).stream().noneMatch(r -> r.contains("T1") || r.contains("T3")));
+    }
+
+    @Test
+    void alJuntarCompactarRenglonesSeReescribeSoloLoQueFalta() throws Exception {
+        fallan.add("V_MALO");
+        DiarioAsignaciones diario = diario(10, 5, 1);
+        String malo = diario.encolar("V_MALO", List.of("P0"), "asignado", null);
+        esperar(diario, malo, DiarioAsignaciones.EstadoTicket.FALLIDO);
+        List<String> buenos = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            buenos.add(diario.encolar("V_BUENO", List.of("P" + i), "asignado", null));
+        }
+        for (String t : buenos) esperar(diario, t, DiarioAsignaciones.EstadoTicket.ESCRITO);
+
+        // se anotaron 9 renglones (5 altas y 4 marcas); después de compactar quedan menos y sigue el de V_MALO
+        List<String> renglones = Files.readAllLines(archivo());
+        assertTrue(renglones.size() < 9, renglones.toString());
+        assertTrue(renglones.stream().anyMatch(r -> r.startsWith("A\t" + malo + "\t")), renglones.toString());
+        for (String t : buenos) {
+            boolean alta = renglones.stream().anyMatch(r -> r.startsWith("A\t" + t + "\t"));
+            assertEquals(alta, renglones.contains("F\t" + t), "alta sin marca de escrito: " + t);
+        }
+    }
+
+    @Test
+    void unPaqueteReservadoSeRechazaConConflicto() throws Exception {
+        fallan.add("V_MALO");
+        DiarioAsignaciones diario = diario(10, 1000, 1);
+        String malo = diario.encolar("V_MALO", List.of("P1", "P2"), "asignado", null);
+
+        PaqueteEnColaException ex = assertThrows(PaqueteEnColaException.class,
+                () -> diario.encolar("V_BUENO", List.of("P2", "P3"), "asignado", null));
+        assertEquals(List.of("P2"), ex.getPaqueteIds());
+        assertFalse(diario.estaEnCola("P3"));
+        assertEquals(1L, diario.estadisticas().get("rechazados"));
+
+        // tampoco después de fallar: la reserva sigue hasta que se retome
+        esperar(diario, malo, DiarioAsignaciones.EstadoTicket.FALLIDO);
+        assertThrows(PaqueteEnColaException.class, () -> diario.encolar("V_BUENO", List.of("P1"), "asignado", null));
+    }
+
+    @Test
+    void conLaColaLlenaSeRechazaYNoQuedaReservado() throws Exception {
+        DiarioAsignaciones diario = diario(1, 1000, 3);
+        diario.encolar("V_LENTO", List.of("P1"), "asignado", null);
+        assertTrue(adentro.await(5, TimeUnit.SECONDS));
+        String enCola = diario.encolar("V_BUENO", List.of("P2"), "asignado", null);
+
+        assertThrows(ColaAsignacionesLlenaException.class, () -> diario.encolar("V_BUENO", List.of("P3"), "asignado", null));
+        assertFalse(diario.estaEnCola("P3"));
+        assertEquals(1L, diario.estadisticas().get("rechazados"));
+        // el rechazado queda marcado como escrito: no se retoma al arrancar
+        List<String> renglones = Files.readAllLines(archivo());
+        String rechazado = renglones.get(renglones.size() - 1);
+        assertTrue(rechazado.startsWith("F\t"), renglones.toString());
+        assertTrue(renglones.contains("A\t" + rechazado.substring(2) + "\tV_BUENO\tasignado\t\tP3"), renglones.toString());
+
+        liberar.countDown();
+        esperar(diario, enCola, DiarioAsignaciones.EstadoTicket.ESCRITO);
+        assertEquals(List.of("V_LENTO", "V_BUENO"), escritas.stream().map(e -> e.get(0)).toList());
+    }
+
+    @Test
+    void trasLosIntentosElTicketQuedaFallidoYSeRetomaAlArrancar() throws Exception {
+        fallan.add("V_MALO");
+        DiarioAsignaciones diario = diario(10, 1000, 3);
+        String malo = diario.encolar("V_MALO", List.of("P1", "P2"), "asignado", "SUC");
+        String bueno = diario.encolar("V_BUENO", List.of("P3"), "asignado", null);
+
+        // el grupo que falla no frena al otro
+        esperar(diario, bueno, DiarioAsignaciones.EstadoTicket.ESCRITO);
+        esperar(diario, malo, DiarioAsignaciones.EstadoTicket.FALLIDO);
+        Map<String, Object> estado = diario.estadoDe(malo).orElseThrow();
+        assertEquals(3, estado.get("intentos"));
+        assertEquals("base caída para V_MALO", estado.get("ultimoError"));
+        assertEquals(List.of(List.of("V_BUENO", "asignado", "null", List.of("P3"))), escritas);
+        assertEquals(1L, diario.estadisticas().get("asignacionesFallidas"));
+
+        // sigue reservado y anotado sin marca de escrito
+        assertTrue(diario.estaEnCola("P1"));
+        assertFalse(diario.estaEnCola("P3"));
+        List<String> renglones = Files.readAllLines(archivo());
+        assertTrue(renglones.stream().anyMatch(r -> r.startsWith("A\t" + malo + "\t")), renglones.toString());
+        assertFalse(renglones.contains("F\t" + malo), renglones.toString());
+
+        // al arrancar de nuevo, con la base andando, se escribe
+        diario.detener();
+        fallan.clear();
+        DiarioAsignaciones otro = diario(10, 1000, 3);
+        esperar(otro, malo, DiarioAsignaciones.EstadoTicket.ESCRITO);
+        assertEquals(List.of("V_MALO", "asignado", "SUC", List.of("P1", "P2")), escritas.get(1));
+        assertFalse(otro.estaEnCola("P1"));
+    }
+
+    // ---------- helpers ----------
+
+    private Path archivo() {
+        return carpeta.resolve("asignaciones.diario");
+    }
+
+    private DiarioAsignaciones diario(int capacidad, int compactarRenglones, int maxIntentos) throws IOException {
+        DiarioAsignaciones d = new DiarioAsignaciones(repo, archivo().toString(), capacidad, 0, 10, 100,
+                compactarRenglones, maxIntentos);
+        abiertos.add(d);
+        d.iniciar();
+        return d;
+    }
+
+    /** Espera (con tope) a que el escritor deje el ticket en el estado pedido. */
+    private static void esperar(DiarioAsignaciones diario, String ticket, DiarioAsignaciones.EstadoTicket estado)
+            throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            Map<String, Object> actual = diario.estadoDe(ticket).orElse(null);
+            if (actual != null && actual.get("estado") == estado) return;
+            Thread.sleep(10);
+        }
+        fail("el ticket " + ticket + " no llegó a " + estado + ": " + diario.estadoDe(ticket));
+    }
+}
@@ -0,0 +1,144 @@
+package edu.uade.prog3.tpo.repositorio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "tpo.grafo.archivo=",
+        "tpo.diario.archivo=target/prueba-archivo/asignaciones.diario"})
+@ActiveProfiles("archivo")
+class RepositorioGrafoArchivoTest {
+
+    @Autowired
+    IRepositorioGrafo repo;
+
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void elPerfilArchivoCargaLaCarpetaDatos() {
+        assertInstanceOf(RepositorioGrafoArchivo.class, repo);
+        assertEquals(Set.of("DEP_CENTRO", "SUC_NORTE", "SUC_SUR", "SUC_OESTE"), Set.copyOf(repo.todosLosHubs()));
+        assertEquals(Set.of("CLI_1", "CLI_2"), Set.copyOf(repo.todosLosClientes()));
+        assertEquals(8, repo.todasLasRutas().size());
+        assertEquals(List.of("SUC_NORTE"), repo.sucursalesQueAtiendenCliente("CLI_1"));
+        // comillas escapadas dentro de un campo entre comillas
+        assertEquals("Almacén \"Don Pepe\"", repo.nombreDe("CLI_1").orElseThrow());
+
+        Map<String, Object> vehiculo = repo.vehiculosDeDeposito("DEP_CENTRO").get(0);
+        assertEquals("VEH_1", vehiculo.get("id"));
+        assertEquals(40L, vehiculo.get("capacidad_kg"));
+        assertEquals(1.0, vehiculo.get("volumen_m3"));
+
+        // prioridad ASC, peso ASC
+        assertEquals(List.of("PAQ_3", "PAQ_1", "PAQ_2"), ids(repo.paquetesPendientesDeDeposito("DEP_CENTRO")));
+        assertEquals(List.of(), repo.paquetesPendientesDeDeposito("SUC_NORTE"));
+    }
+
+    @Test
+    void encabezadoConBomYCamposVacios() throws IOException {
+        Files.writeString(carpeta.resolve("hubs.csv"), "\uFEFFid,nombre,etiquetas\nDEP,,Deposito;Hub\n");
+        Files.writeString(carpeta.resolve("paquetes.csv"), "\uFEFFid,deposito,peso_kg,volumen_m3,prioridad,estado,destino\n"
+                + "P1,DEP,,1,2,pendiente,\n"
+                + "P2,DEP,5,1,,pendiente,\n"
+                + "P3,DEP,7,1,2,pendiente,\n"
+                + "\n"
+                + "P4,DEP,3.5,1,1,pendiente\n");
+        RepositorioGrafoArchivo r = cargar(carpeta);
+
+        assertTrue(r.existeHubPorId("DEP"));
+        assertNull(r.nombresPorIds(List.of("DEP")).get("DEP"));
+        List<Map<String, Object>> pendientes = r.paquetesPendientesDeDeposito("DEP");
+        // sin prioridad va al final; sin peso, último de su prioridad
+        assertEquals(List.of("P4", "P3", "P1", "P2"), ids(pendientes));
+        assertEquals(3.5, pendientes.get(0).get("peso_kg"));
+        assertEquals(7L, pendientes.get(1).get("peso_kg"));
+        assertNull(pendientes.get(2).get("peso_kg"));
+        assertNull(pendientes.get(3).get("prioridad"));
+    }
+
+    @Test
+    void paginasIgualesALaListaCompleta() throws IOException {
+        Random r = new Random(3);
+        StringBuilder csv = new StringBuilder("id,deposito,peso_kg,volumen_m3,prioridad,estado,destino\n");
+        List<String[]> filas = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            // pocas claves distintas: muchos empates de prioridad y peso que desempata el id
+            String[] f = {"P" + r.nextInt(100_000) + "_" + i, r.nextInt(8) == 0 ? "" : String.valueOf(r.nextInt(6)),
+                    r.nextInt(8) == 0 ? "" : String.valueOf(1 + r.nextInt(3)), r.nextInt(4) == 0 ? "entregado" : "pendiente"};
+            filas.add(f);
+            csv.append(f[0]).append(",DEP,").append(f[1]).append(",1,").append(f[2]).append(',').append(f[3]).append(",\n");
+        }
+        Files.writeString(carpeta.resolve("hubs.csv"), "id,nombre,etiquetas\nDEP,Depósito,Deposito\n");
+        Files.writeString(carpeta.resolve("paquetes.csv"), csv);
+        RepositorioGrafoArchivo repo = cargar(carpeta);
+
+        List<String> esperado = filas.stream()
+                .filter(f -> f[3].equals("pendiente"))
+                .sorted(Comparator.<String[]>comparingInt(f -> f[2].isEmpty() ? 999 : Integer.parseInt(f[2]))
+                        .thenComparingDouble(f -> f[1].isEmpty() ? Double.MAX_VALUE : Double.parseDouble(f[1]))
+                        .thenComparing(f -> f[0]))
+                .map(f -> f[0]).toList();
+        assertEquals(esperado, ids(repo.paquetesPendientesDeDeposito("DEP")));
+
+        for (int tamPagina : new int[]{1, 2, 13, 450, 1000}) {
+            List<Map<String, Object>> recorridos = new ArrayList<>();
+            repo.recorrerPaquetesPendientes("DEP", tamPagina).forEachRemaining(recorridos::add);
+            assertEquals(repo.paquetesPendientesDeDeposito("DEP"), recorridos, "página " + tamPagina);
+
+            // cada página sigue a la clave del último de la anterior
+            List<Map<String, Object>> pagina = repo.paginaPaquetesPendientes("DEP", null, null, null, tamPagina);
+            for (int desde = 0; !pagina.isEmpty(); desde += tamPagina) {
+                assertEquals(recorridos.subList(desde, Math.min(recorridos.size(), desde + tamPagina)), pagina);
+                Map<String, Object> ultimo = pagina.get(pagina.size() - 1);
+                pagina = repo.paginaPaquetesPendientes("DEP", CursorPaquetes.prioridadDe(ultimo),
+                        CursorPaquetes.pesoDe(ultimo), (String) ultimo.get("id"), tamPagina);
+            }
+        }
+    }
+
+    @Test
+    void asignarPaquetesLosSacaDePendientes() {
+        // una copia propia de datos/: el repositorio del contexto no se toca
+        RepositorioGrafoArchivo repo = cargar(Path.of("datos"));
+        repo.asignarPaquetes("VEH_1", List.of("PAQ_1", "PAQ_2"), "asignado", "SUC_NORTE");
+
+        assertEquals(List.of("PAQ_3"), ids(repo.paquetesPendientesDeDeposito("DEP_CENTRO")));
+        List<Map<String, Object>> recorridos = new ArrayList<>();
+        repo.recorrerPaquetesPendientes("DEP_CENTRO", 1).forEachRemaining(recorridos::add);
+        assertEquals(List.of("PAQ_3"), ids(recorridos));
+
+        // otro estado lo vuelve a poner
+        repo.asignarPaquetes("VEH_1", List.of("PAQ_2"), "pendiente", null);
+        assertEquals(List.of("PAQ_3", "PAQ_2"), ids(repo.paquetesPendientesDeDeposito("DEP_CENTRO")));
+    }
+
+    // ---------- helpers ----------
+
+    private static RepositorioGrafoArchivo cargar(Path carpeta) {
+        return new RepositorioGrafoArchivo(new DefaultResourceLoader(), carpeta.toUri().toString());
+    }
+
+    private static List<String> ids(List<Map<String, Object>> paquetes) {
+        return paquetes.stream().map(p -> (String) p.get("id")).toList();
+    }
+}
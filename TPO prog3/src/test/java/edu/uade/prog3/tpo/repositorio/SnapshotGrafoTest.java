@@ -0,0 +1,198 @@
+package edu.uade.prog3.tpo.repositorio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotGrafoTest {
+
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void csrConLasMismasRutasYVecinosQueLasListas() {
+        for (long semilla = 1; semilla <= 10; semilla++) {
+            Datos d = new Datos(semilla, 25, 3, 8);
+            SnapshotGrafo g = d.foto(1);
+
+            // cada :RUTA está una vez, saliendo de su origen, y cada origen en orden de destino
+            List<String> esperadas = new ArrayList<>();
+            for (SnapshotGrafo.Ruta r : d.rutas) esperadas.add(texto(r));
+            List<String> csr = new ArrayList<>();
+            for (int u = 0; u < g.cantidadNodos(); u++) {
+                for (int e = g.inicioSalida(u); e < g.finSalida(u); e++) {
+                    assertEquals(u, g.origen(e));
+                    if (e > g.inicioSalida(u)) assertTrue(g.destino(e - 1) <= g.destino(e));
+                    csr.add(g.id(u) + ">" + g.id(g.destino(e)) + ":" + g.distKm(e) + "/" + g.tiempoMin(e) + "/" + g.peaje(e));
+                    assertEquals(g.peaje(e) * 3, g.peso(e, CriterioPeso.COSTO, 3));
+                }
+            }
+            assertEquals(ordenadas(esperadas), ordenadas(csr));
+
+            // las entrantes de v son exactamente las aristas con destino v
+            int vistas = 0;
+            for (int v = 0; v < g.cantidadNodos(); v++) {
+                for (int k = g.inicioEntrada(v); k < g.finEntrada(v); k++) {
+                    assertEquals(v, g.destino(g.aristaEntrante(k)));
+                    vistas++;
+                }
+            }
+            assertEquals(g.cantidadAristas(), vistas);
+
+            for (String id : g.hubs()) {
+                assertEquals(vecinosSinDireccion(d, id, false), g.vecinos(id, false), id);
+                assertEquals(vecinosSinDireccion(d, id, true), g.vecinos(id, true), id);
+            }
+            // las entrantes con Clientes son la relación inversa de los vecinos
+            for (int u = 0; u < g.cantidadNodos(); u++) {
+                for (int k = g.inicioVecinosEntrantes(u, true); k < g.finVecinosEntrantes(u, true); k++) {
+                    assertTrue(g.vecinos(g.id(g.vecinoEntrante(k, true)), true).contains(g.id(u)));
+                }
+            }
+            assertEquals(d.clientes, g.clientes());
+        }
+    }
+
+    @Test
+    void conCambiosIgualAArmarDeCero() {
+        for (long semilla = 1; semilla <= 10; semilla++) {
+            Datos d = new Datos(semilla, 25, 3, 8);
+            SnapshotGrafo vieja = d.foto(1);
+            List<String> antes = descripcion(vieja);
+
+            // se reemplazan las salientes de algunos hubs y los :ATIENDE de algunos clientes
+            Random r = new Random(semilla);
+            Set<String> hubsTocados = new HashSet<>(List.of(d.hubs.get(r.nextInt(25)), d.hubs.get(r.nextInt(25)), "H099"));
+            Set<String> clientesTocados = new HashSet<>(List.of(d.clientes.get(r.nextInt(8)), "C099"));
+            List<SnapshotGrafo.Ruta> rutasNuevas = new ArrayList<>();
+            for (String h : hubsTocados) {
+                for (int k = 0; k < 3; k++) rutasNuevas.add(new SnapshotGrafo.Ruta(h, d.hubs.get(r.nextInt(25)), 1 + k, 2 + k, k));
+            }
+            List<SnapshotGrafo.Atencion> atencionesNuevas = new ArrayList<>();
+            for (String c : clientesTocados) atencionesNuevas.add(new SnapshotGrafo.Atencion(d.hubs.get(r.nextInt(25)), c));
+
+            SnapshotGrafo nueva = vieja.conCambios(2, 5, hubsTocados, rutasNuevas, clientesTocados, atencionesNuevas);
+
+            d.rutas.removeIf(x -> hubsTocados.contains(x.desde()));
+            d.rutas.addAll(rutasNuevas);
+            d.atenciones.removeIf(x -> clientesTocados.contains(x.clienteId()));
+            d.atenciones.addAll(atencionesNuevas);
+            d.hubs.add("H099");
+            d.clientes.add("C099");
+            assertEquals(descripcion(SnapshotGrafo.construir(2, 5, d.hubs, d.clientes, d.rutas, d.atenciones)),
+                    descripcion(nueva));
+            assertEquals(2, nueva.version());
+            // la foto vieja no cambió
+            assertEquals(antes, descripcion(vieja));
+        }
+    }
+
+    @Test
+    void archivoBinarioDevuelveLaMismaFoto() throws IOException {
+        Datos d = new Datos(4, 40, 3, 12);
+        SnapshotGrafo g = d.foto(7);
+        Path archivo = carpeta.resolve("grafo.bin");
+        g.guardarEn(archivo);
+        SnapshotGrafo leida = SnapshotGrafo.leerDe(archivo);
+        assertEquals(7, leida.version());
+        assertEquals(g.marca(), leida.marca());
+        assertEquals(descripcion(g), descripcion(leida));
+
+        // un archivo cortado no se levanta a medias
+        byte[] bytes = Files.readAllBytes(archivo);
+        Files.write(archivo, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> SnapshotGrafo.leerDe(archivo));
+    }
+
+    // ---------- helpers ----------
+
+    /** Red aleatoria chica con las listas crudas que recibe construir. */
+    private static final class Datos {
+        final List<String> hubs = new ArrayList<>();
+        final List<String> clientes = new ArrayList<>();
+        final List<SnapshotGrafo.Ruta> rutas = new ArrayList<>();
+        final List<SnapshotGrafo.Atencion> atenciones = new ArrayList<>();
+
+        Datos(long semilla, int cantHubs, int grado, int cantClientes) {
+            Random r = new Random(semilla);
+            for (int i = 0; i < cantHubs; i++) hubs.add(String.format("H%03d", i));
+            for (int k = 0; k < cantHubs * grado; k++) {
+                int a = r.nextInt(cantHubs), b = r.nextInt(cantHubs);
+                if (a == b) continue;
+                rutas.add(new SnapshotGrafo.Ruta(hubs.get(a), hubs.get(b), 1 + r.nextInt(20), 1 + r.nextInt(30), r.nextInt(5)));
+            }
+            for (int i = 0; i < cantClientes; i++) {
+                String c = String.format("C%03d", i);
+                clientes.add(c);
+                SnapshotGrafo.Atencion at = new SnapshotGrafo.Atencion(hubs.get(r.nextInt(cantHubs)), c);
+                if (!atenciones.contains(at)) atenciones.add(at);
+            }
+        }
+
+        SnapshotGrafo foto(long version) {
+            return SnapshotGrafo.construir(version, 1000 + version, hubs, clientes, rutas, atenciones);
+        }
+    }
+
+    private static String texto(SnapshotGrafo.Ruta r) {
+        return r.desde() + ">" + r.hasta() + ":" + r.distKm() + "/" + r.tiempoMin() + "/" + r.peaje();
+    }
+
+    private static List<String> ordenadas(List<String> l) {
+        List<String> res = new ArrayList<>(l);
+        res.sort(null);
+        return res;
+    }
+
+    /** Vecinos distintos y ordenados por :RUTA en cualquier sentido (y los Clientes que atiende). */
+    private static List<String> vecinosSinDireccion(Datos d, String id, boolean incluirClientes) {
+        TreeSet<String> res = new TreeSet<>();
+        for (SnapshotGrafo.Ruta r : d.rutas) {
+            if (r.desde().equals(id)) res.add(r.hasta());
+            if (r.hasta().equals(id)) res.add(r.desde());
+        }
+        if (incluirClientes) {
+            for (SnapshotGrafo.Atencion at : d.atenciones) if (at.hubId().equals(id)) res.add(at.clienteId());
+        }
+        return new ArrayList<>(res);
+    }
+
+    /** Todo lo que expone la foto, en texto, para comparar dos fotos entre sí. */
+    private static List<String> descripcion(SnapshotGrafo g) {
+        List<String> res = new ArrayList<>();
+        res.add("hubs " + g.hubs());
+        res.add("clientes " + g.clientes());
+        res.add("atenciones " + g.cantidadAtenciones());
+        for (int u = 0; u < g.cantidadNodos(); u++) {
+            StringBuilder s = new StringBuilder(g.id(u)).append(" ->");
+            for (int e = g.inicioSalida(u); e < g.finSalida(u); e++) {
+                s.append(' ').append(g.id(g.destino(e))).append(':').append(g.distKm(e)).append('/')
+                        .append(g.tiempoMin(e)).append('/').append(g.peaje(e));
+            }
+            s.append(" <-");
+            for (int k = g.inicioEntrada(u); k < g.finEntrada(u); k++) s.append(' ').append(g.id(g.origen(g.aristaEntrante(k))));
+            s.append(" hubs ").append(g.vecinos(g.id(u), false)).append(" mixtos ").append(g.vecinos(g.id(u), true));
+            s.append(" entrantes");
+            for (int k = g.inicioVecinosEntrantes(u, true); k < g.finVecinosEntrantes(u, true); k++) {
+                s.append(' ').append(g.id(g.vecinoEntrante(k, true)));
+            }
+            res.add(s.toString());
+        }
+        return res;
+    }
+}
@@ -0,0 +1,110 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.dominio.ResultadoDijkstra;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheArbolesCaminosTest {
+
+    @Test
+    void armaElArbolRecienConPedidosRepetidos() {
+        GrafoDePrueba f = new GrafoDePrueba(3, 40, 3);
+        SnapshotGrafo g = f.snapshot();
+        int origen = g.indiceDe("H000");
+        CacheArbolesCaminos cache = new CacheArbolesCaminos(64, 2);
+
+        assertNull(cache.buscar(g, "H000", origen, CriterioPeso.DISTANCIA, 1));
+        CacheArbolesCaminos.Busqueda armado = cache.buscar(g, "H000", origen, CriterioPeso.DISTANCIA, 1);
+        assertNotNull(armado);
+        assertFalse(armado.acierto());
+        CacheArbolesCaminos.Busqueda cacheado = cache.buscar(g, "H000", origen, CriterioPeso.DISTANCIA, 1);
+        assertTrue(cacheado.acierto());
+        assertSame(armado.arbol(), cacheado.arbol());
+
+        // otro criterio u otro factor de peaje es otro árbol
+        assertNull(cache.buscar(g, "H000", origen, CriterioPeso.COSTO, 2));
+        // obtener (lotes, Yen) lo arma sin esperar pedidos
+        assertFalse(cache.obtener(g, "H001", g.indiceDe("H001"), CriterioPeso.DISTANCIA, 1).acierto());
+        assertTrue(cache.buscar(g, "H001", g.indiceDe("H001"), CriterioPeso.DISTANCIA, 1).acierto());
+
+        Map<String, Object> est = cache.estadisticas();
+        assertEquals(2L, est.get("busquedasCortas"));
+        assertEquals(2, est.get("arboles"));
+    }
+
+    @Test
+    void arbolIgualAlDijkstraDeReferencia() {
+        GrafoDePrueba f = new GrafoDePrueba(5, 60, 3);
+        SnapshotGrafo g = f.snapshot();
+        CacheArbolesCaminos cache = new CacheArbolesCaminos(64, 1);
+        for (CriterioPeso c : CriterioPeso.values()) {
+            for (String origen : f.hubs) {
+                Map<String, Double> esperado = f.dijkstra(origen, c, 3);
+                CacheArbolesCaminos.Arbol a = cache.obtener(g, origen, g.indiceDe(origen), c, 3).arbol();
+                for (String h : f.hubs) {
+                    int v = g.indiceDe(h);
+                    double dist = v < 0 ? Double.POSITIVE_INFINITY : a.dist[v];
+                    assertEquals(esperado.get(h), dist, 1e-9, origen + " -> " + h + " " + c);
+                }
+                // la secuencia sale en orden de distancia
+                for (int i = 1; i < a.cantidad; i++) {
+                    assertTrue(a.dist[a.secuencia[i - 1]] <= a.dist[a.secuencia[i]]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void unaFotoNuevaNoUsaLosArbolesDeLaVieja() {
+        GrafoDePrueba f = new GrafoDePrueba(9, 40, 3);
+        CacheArbolesCaminos cache = new CacheArbolesCaminos(64, 1);
+        ServicioDijkstra dijkstra = new ServicioDijkstra(f.registro, f.grafo, f.nombres,
+                new MotorJerarquias(false), cache, new ServicioComponentes(true, 8192), 0);
+        Random r = new Random(9);
+        for (int ronda = 0; ronda < 5; ronda++) {
+            for (int i = 0; i < 60; i++) {
+                String o = f.hubs.get(r.nextInt(4)), d = f.hubs.get(r.nextInt(f.hubs.size()));
+                ResultadoDijkstra res = dijkstra.dijkstra(o, d, CriterioPeso.TIEMPO, 1);
+                assertEquals(f.costo(o, d, CriterioPeso.TIEMPO, 1), res.getPesoTotal(), 1e-9, o + " -> " + d);
+                if (!res.getCaminoIds().isEmpty()) {
+                    assertEquals(res.getPesoTotal(), f.costoDe(res.getCaminoIds(), CriterioPeso.TIEMPO, 1), 1e-9);
+                }
+            }
+            // cambian los tiempos y se publica otra versión
+            for (int k = 0; k < f.rutas.size(); k++) {
+                SnapshotGrafo.Ruta x = f.rutas.get(k);
+                f.rutas.set(k, new SnapshotGrafo.Ruta(x.desde(), x.hasta(), x.distKm(), 1 + r.nextInt(30), x.peaje()));
+            }
+            f.version++;
+            f.grafo.recargar();
+            SnapshotGrafo g = f.snapshot();
+            assertFalse(cache.buscar(g, "H000", g.indiceDe("H000"), CriterioPeso.TIEMPO, 1).acierto());
+        }
+    }
+
+    @Test
+    void sinPedidosRepetidosResuelveIgualCortandoEnElDestino() {
+        GrafoDePrueba f = new GrafoDePrueba(11, 50, 2);
+        CacheArbolesCaminos cache = new CacheArbolesCaminos(64, 1_000);
+        ServicioDijkstra dijkstra = new ServicioDijkstra(f.registro, f.grafo, f.nombres,
+                new MotorJerarquias(false), cache, new ServicioComponentes(true, 8192), 0);
+        for (String o : f.hubs.subList(0, 10)) {
+            for (String d : f.hubs) {
+                ResultadoDijkstra res = dijkstra.dijkstra(o, d, CriterioPeso.DISTANCIA, 1);
+                assertEquals(f.costo(o, d, CriterioPeso.DISTANCIA, 1), res.getPesoTotal(), 1e-9, o + " -> " + d);
+            }
+        }
+        assertEquals(0, cache.estadisticas().get("arboles"));
+    }
+}
@@ -0,0 +1,191 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.repositorio.GrafoPublicado;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ComponentesGrafoTest {
+
+    /** (Hubs, grado): con grado bajo quedan muchas componentes fuertes chicas. */
+    private static final int[][] TAMANOS = {{30, 1}, {60, 1}, {60, 2}, {120, 3}};
+
+    @Test
+    void conCierreDescartaExactamenteLosParesSinCamino() {
+        long semilla = 0;
+        for (int[] tam : TAMANOS) {
+            GrafoDePrueba f = new GrafoDePrueba(++semilla, tam[0], tam[1], tam[0] / 4);
+            SnapshotGrafo g = f.snapshot();
+            ComponentesGrafo comp = ComponentesGrafo.construir(g, 100_000);
+            assertTrue(comp.conCierre());
+
+            Map<String, Set<String>> alcanza = alcance(f, g);
+            // las fuertes son las clases de "se alcanzan mutuamente"
+            Set<Set<String>> clases = new HashSet<>();
+            int mayor = 0;
+            for (int u = 0; u < g.cantidadNodos(); u++) {
+                Set<String> clase = new HashSet<>();
+                for (int v = 0; v < g.cantidadNodos(); v++) {
+                    if (alcanza.get(g.id(u)).contains(g.id(v)) && alcanza.get(g.id(v)).contains(g.id(u))) clase.add(g.id(v));
+                }
+                clases.add(clase);
+                mayor = Math.max(mayor, clase.size());
+            }
+            assertEquals(clases.size(), comp.cantidadFuertes());
+            assertEquals(mayor, comp.mayorFuerte());
+
+            for (int u = 0; u < g.cantidadNodos(); u++) {
+                for (int v = 0; v < g.cantidadNodos(); v++) {
+                    boolean hay = alcanza.get(g.id(u)).contains(g.id(v));
+                    assertEquals(!hay, comp.sinCamino(u, v), g.id(u) + " -> " + g.id(v));
+                }
+            }
+        }
+    }
+
+    @Test
+    void sinCierreSoloDescartaParesSinCamino() {
+        long semilla = 20;
+        for (int[] tam : TAMANOS) {
+            GrafoDePrueba f = new GrafoDePrueba(++semilla, tam[0], tam[1], tam[0] / 4);
+            SnapshotGrafo g = f.snapshot();
+            ComponentesGrafo comp = ComponentesGrafo.construir(g, 1);
+            assertFalse(comp.conCierre());
+            Map<String, Set<String>> alcanza = alcance(f, g);
+            int descartados = 0;
+            for (int u = 0; u < g.cantidadNodos(); u++) {
+                for (int v = 0; v < g.cantidadNodos(); v++) {
+                    if (!comp.sinCamino(u, v)) continue;
+                    assertFalse(alcanza.get(g.id(u)).contains(g.id(v)), g.id(u) + " -> " + g.id(v));
+                    descartados++;
+                }
+            }
+            assertTrue(descartados > 0, "los filtros de orden y componente débil no descartaron nada");
+        }
+    }
+
+    @Test
+    void sinDireccionIgualALaBfsDeReferencia() {
+        long semilla = 40;
+        for (int[] tam : TAMANOS) {
+            GrafoDePrueba f = new GrafoDePrueba(++semilla, tam[0], tam[1], tam[0] / 4);
+            SnapshotGrafo g = f.snapshot();
+            ComponentesGrafo comp = ComponentesGrafo.construir(g, 100_000);
+            for (boolean incl : new boolean[]{false, true}) {
+                for (int u = 0; u < g.cantidadNodos(); u++) {
+                    Set<String> llega = f.hubs.contains(g.id(u)) ? f.saltos(g.id(u), incl).keySet() : Set.of(g.id(u));
+                    for (int v = 0; v < g.cantidadNodos(); v++) {
+                        if (!incl && (g.esCliente(u) || g.esCliente(v))) continue;
+                        String par = g.id(u) + " -> " + g.id(v) + (incl ? " con clientes" : "");
+                        boolean hay = llega.contains(g.id(v));
+                        if (comp.sinCaminoSinDireccion(u, v, incl)) {
+                            assertFalse(hay, par);
+                        } else if (!g.esCliente(v) || sucursalesEnUnaComponente(f, g.id(v))) {
+                            // exacto salvo un Cliente con sucursales en varias componentes (lo decide la búsqueda)
+                            assertTrue(hay, par);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void seReusaSiSoloCambianLosPesos() {
+        GrafoDePrueba f = new GrafoDePrueba(5, 40, 2, 8);
+        SnapshotGrafo g = f.snapshot();
+        ComponentesGrafo comp = ComponentesGrafo.construir(g, 100_000);
+        assertSame(comp, comp.paraFoto(g));
+
+        // mismas :RUTA con otros pesos
+        for (int k = 0; k < f.rutas.size(); k++) {
+            SnapshotGrafo.Ruta r = f.rutas.get(k);
+            f.rutas.set(k, new SnapshotGrafo.Ruta(r.desde(), r.hasta(), r.distKm() + 1, r.tiempoMin() * 2, r.peaje()));
+        }
+        f.version++;
+        f.grafo.recargar();
+        ComponentesGrafo reusado = comp.paraFoto(f.snapshot());
+        assertTrue(reusado.reusado());
+        assertSame(f.snapshot(), reusado.grafo());
+
+        // una :RUTA nueva cambia la estructura
+        f.rutas.add(new SnapshotGrafo.Ruta("H000", "H039", 1, 1, 0));
+        f.version++;
+        f.grafo.recargar();
+        assertNull(comp.paraFoto(f.snapshot()));
+    }
+
+    @Test
+    void elServicioUsaSoloLoArmadoAlPublicarLaFoto() {
+        GrafoDePrueba f = new GrafoDePrueba(9, 40, 1, 8);
+        SnapshotGrafo g = f.snapshot();
+        Map<String, Set<String>> alcanza = alcance(f, g);
+        int[] par = null;
+        for (int u = 0; u < g.cantidadNodos() && par == null; u++) {
+            for (int v = 0; v < g.cantidadNodos(); v++) {
+                if (!alcanza.get(g.id(u)).contains(g.id(v))) {
+                    par = new int[]{u, v};
+                    break;
+                }
+            }
+        }
+        assertTrue(par != null, "el grafo no tiene pares sin camino");
+
+        // sin publicar no hay componentes: "no se sabe", sin armarlas en la consulta
+        ServicioComponentes servicio = new ServicioComponentes(true, 8192);
+        assertFalse(servicio.sinCamino(g, par[0], par[1]));
+        assertEquals(-1L, servicio.estadisticas().get("versionGrafo"));
+
+        servicio.alPublicarGrafo(new GrafoPublicado(g));
+        assertTrue(servicio.sinCamino(g, par[0], par[1]));
+        assertEquals(g.version(), servicio.estadisticas().get("versionGrafo"));
+
+        // una foto nueva no usa las de la anterior hasta que se publica
+        f.rutas.add(new SnapshotGrafo.Ruta("H000", "H039", 1, 1, 0));
+        f.version++;
+        f.grafo.recargar();
+        SnapshotGrafo nueva = f.snapshot();
+        assertFalse(servicio.sinCamino(nueva, par[0], par[1]));
+        servicio.alPublicarGrafo(new GrafoPublicado(nueva));
+        assertEquals(nueva.version(), servicio.estadisticas().get("versionGrafo"));
+        // y una foto vieja avisada tarde no pisa la nueva
+        servicio.alPublicarGrafo(new GrafoPublicado(g));
+        assertEquals(nueva.version(), servicio.estadisticas().get("versionGrafo"));
+    }
+
+    // ---------- helpers ----------
+
+    /** Nodos alcanzables por :RUTA con dirección desde cada nodo (un Cliente solo se alcanza a sí mismo). */
+    private static Map<String, Set<String>> alcance(GrafoDePrueba f, SnapshotGrafo g) {
+        Map<String, Set<String>> res = new HashMap<>();
+        for (int u = 0; u < g.cantidadNodos(); u++) {
+            String id = g.id(u);
+            Set<String> llega = new HashSet<>(List.of(id));
+            if (f.hubs.contains(id)) {
+                f.dijkstra(id, CriterioPeso.DISTANCIA, 1).forEach((h, d) -> {
+                    if (d < Double.POSITIVE_INFINITY) llega.add(h);
+                });
+            }
+            res.put(id, llega);
+        }
+        return res;
+    }
+
+    /** Todas las sucursales del Cliente se conectan entre sí (BFS de referencia solo por Hubs). */
+    private static boolean sucursalesEnUnaComponente(GrafoDePrueba f, String cliente) {
+        List<String> sucursales = f.sucursalesDe(cliente);
+        return f.saltos(sucursales.get(0), false).keySet().containsAll(sucursales);
+    }
+}
@@ -0,0 +1,89 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExploracionParalelaTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void detener() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void mismoOrdenYNivelesQueLaColaFifo() {
+        // chico (todo en el hilo actual) y grande (fronteras de más de MIN_TAREA nodos, en el pool)
+        int[][] tamanos = {{50, 2, 10}, {20_000, 3, 4_000}};
+        long semilla = 0;
+        boolean huboNivelGrande = false;
+        for (int[] tam : tamanos) {
+            GrafoDePrueba f = new GrafoDePrueba(++semilla, tam[0], tam[1], tam[2]);
+            SnapshotGrafo g = f.snapshot();
+            for (boolean incl : new boolean[]{false, true}) {
+                for (String o : f.hubs.subList(0, 3)) {
+                    int origen = g.indiceDe(o);
+                    List<List<Integer>> niveles = fifo(g, origen, incl);
+                    List<Integer> esperado = niveles.stream().flatMap(List::stream).toList();
+
+                    ExploracionParalela.Recorrido r = ExploracionParalela.recorrer(g, origen, 0, incl, pool);
+                    assertEquals(esperado, lista(r.orden()), o);
+                    assertEquals(niveles.size(), r.cantidadNiveles(), o);
+                    for (int i = 0; i < niveles.size(); i++) {
+                        assertEquals(niveles.get(i), lista(Arrays.copyOfRange(r.orden(), r.inicioNivel()[i], r.inicioNivel()[i + 1])),
+                                o + " nivel " + i);
+                        huboNivelGrande |= niveles.get(i).size() > 1024;
+                    }
+
+                    // con tope: los niveles 0..max, en el mismo orden
+                    int max = Math.max(1, niveles.size() / 2);
+                    ExploracionParalela.Recorrido acotado = ExploracionParalela.recorrer(g, origen, max, incl, pool);
+                    List<Integer> hastaMax = niveles.subList(0, Math.min(max + 1, niveles.size())).stream()
+                            .flatMap(List::stream).toList();
+                    assertEquals(hastaMax, lista(acotado.orden()), o + " max " + max);
+                }
+            }
+        }
+        assertTrue(huboNivelGrande, "ningún nivel pasó por el pool: el caso no prueba el paralelo");
+    }
+
+    // ---------- helpers ----------
+
+    /** BFS con cola FIFO sobre los vecinos de la foto, agrupado por nivel. */
+    private static List<List<Integer>> fifo(SnapshotGrafo g, int origen, boolean incl) {
+        Map<Integer, Integer> nivel = new HashMap<>();
+        List<List<Integer>> niveles = new ArrayList<>();
+        nivel.put(origen, 0);
+        ArrayDeque<Integer> cola = new ArrayDeque<>(List.of(origen));
+        while (!cola.isEmpty()) {
+            int u = cola.poll();
+            int nu = nivel.get(u);
+            if (niveles.size() == nu) niveles.add(new ArrayList<>());
+            niveles.get(nu).add(u);
+            for (int k = g.inicioVecinos(u, incl); k < g.finVecinos(u, incl); k++) {
+                int v = g.vecino(k, incl);
+                if (nivel.containsKey(v)) continue;
+                nivel.put(v, nu + 1);
+                cola.add(v);
+            }
+        }
+        return niveles;
+    }
+
+    private static List<Integer> lista(int[] a) {
+        return Arrays.stream(a).boxed().toList();
+    }
+}
@@ -0,0 +1,192 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.repositorio.CacheNombres;
+import edu.uade.prog3.tpo.repositorio.GrafoEnMemoria;
+import edu.uade.prog3.tpo.repositorio.IRepositorioGrafo;
+import edu.uade.prog3.tpo.repositorio.RegistroNodos;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Grafo aleatorio chico (Hubs H000.., Clientes C000.., :RUTA con pesos enteros) servido por un
+ * repositorio falso en memoria, con las mismas piezas que arma Spring para los servicios.
+ * Trae un Dijkstra y una BFS simples sobre las listas originales para comparar resultados.
+ */
+final class GrafoDePrueba {
+
+    final List<String> hubs = new ArrayList<>();
+    final List<String> clientes = new ArrayList<>();
+    final List<SnapshotGrafo.Ruta> rutas = new ArrayList<>();
+    final List<SnapshotGrafo.Atencion> atenciones = new ArrayList<>();
+    final IRepositorioGrafo repo;
+    final GrafoEnMemoria grafo;
+    final RegistroNodos registro;
+    final CacheNombres nombres;
+
+    /** Versión que informa el repositorio (subirla y llamar a grafo.recargar() publica otra foto). */
+    long version = 1;
+
+    GrafoDePrueba(long semilla, int cantHubs, int grado) {
+        this(semilla, cantHubs, grado, 0);
+    }
+
+    /** Cada Cliente lo atienden entre una y tres sucursales al azar. */
+    GrafoDePrueba(long semilla, int cantHubs, int grado, int cantClientes) {
+        Random r = new Random(semilla);
+        for (int i = 0; i < cantHubs; i++) hubs.add(String.format("H%03d", i));
+        for (int k = 0; k < cantHubs * grado; k++) {
+            int a = r.nextInt(cantHubs), b = r.nextInt(cantHubs);
+            if (a == b) continue;
+            rutas.add(new SnapshotGrafo.Ruta(hubs.get(a), hubs.get(b),
+                    1 + r.nextInt(20), 1 + r.nextInt(30), r.nextInt(5)));
+        }
+        for (int i = 0; i < cantClientes; i++) {
+            String c = String.format("C%03d", i);
+            clientes.add(c);
+            int sucursales = 1 + r.nextInt(3);
+            for (int k = 0; k < sucursales; k++) {
+                SnapshotGrafo.Atencion at = new SnapshotGrafo.Atencion(hubs.get(r.nextInt(cantHubs)), c);
+                if (!atenciones.contains(at)) atenciones.add(at);
+            }
+        }
+
+        repo = (IRepositorioGrafo) Proxy.newProxyInstance(GrafoDePrueba.class.getClassLoader(),
+                new Class<?>[]{IRepositorioGrafo.class}, (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "estadoGrafo" -> Map.of("version", version, "ahora", 0L);
+                    case "todasLasRutas" -> rutas.stream().map(GrafoDePrueba::fila).toList();
+                    case "todasLasAtenciones" -> atenciones.stream()
+                            .map(at -> Map.<String, Object>of("hub", at.hubId(), "cliente", at.clienteId())).toList();
+                    case "todosLosHubs" -> hubs;
+                    case "todosLosClientes" -> clientes;
+                    case "nombresPorIds", "nombresDeHubsYClientes" -> Map.of();
+                    case "sucursalesQueAtiendenCliente" -> sucursalesDe((String) args[0]);
+                    case "tiposDeNodos" -> tipos((List<?>) args[0]);
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+        grafo = new GrafoEnMemoria(repo, evento -> {}, true, "");
+        registro = new RegistroNodos(repo, grafo, 100_000);
+        nombres = new CacheNombres(repo, 100_000, 60);
+    }
+
+    SnapshotGrafo snapshot() {
+        return grafo.snapshot();
+    }
+
+    List<String> sucursalesDe(String clienteId) {
+        return atenciones.stream().filter(at -> at.clienteId().equals(clienteId)).map(SnapshotGrafo.Atencion::hubId).toList();
+    }
+
+    /** Peso de una :RUTA según el criterio, igual que la foto. */
+    static double peso(SnapshotGrafo.Ruta r, CriterioPeso criterio, double factorPeaje) {
+        return switch (criterio) {
+            case DISTANCIA -> r.distKm();
+            case TIEMPO -> r.tiempoMin();
+            case COSTO -> r.peaje() * factorPeaje;
+        };
+    }
+
+    /** Costo mínimo desde origen a cada Hub (infinito si no se llega), Dijkstra con cola de prioridad. */
+    Map<String, Double> dijkstra(String origen, CriterioPeso criterio, double factorPeaje) {
+        Map<String, List<SnapshotGrafo.Ruta>> salientes = new HashMap<>();
+        for (SnapshotGrafo.Ruta r : rutas) salientes.computeIfAbsent(r.desde(), k -> new ArrayList<>()).add(r);
+        Map<String, Double> dist = new HashMap<>();
+        for (String h : hubs) dist.put(h, Double.POSITIVE_INFINITY);
+        dist.put(origen, 0.0);
+        PriorityQueue<Object[]> cola = new PriorityQueue<>((a, b) -> Double.compare((double) a[1], (double) b[1]));
+        cola.add(new Object[]{origen, 0.0});
+        while (!cola.isEmpty()) {
+            Object[] e = cola.poll();
+            String u = (String) e[0];
+            if ((double) e[1] > dist.get(u)) continue;
+            for (SnapshotGrafo.Ruta r : salientes.getOrDefault(u, List.of())) {
+                double nd = dist.get(u) + peso(r, criterio, factorPeaje);
+                if (nd < dist.get(r.hasta())) {
+                    dist.put(r.hasta(), nd);
+                    cola.add(new Object[]{r.hasta(), nd});
+                }
+            }
+        }
+        return dist;
+    }
+
+    /** Costo mínimo de desde a hasta (Hubs), o infinito. */
+    double costo(String desde, String hasta, CriterioPeso criterio, double factorPeaje) {
+        return dijkstra(desde, criterio, factorPeaje).get(hasta);
+    }
+
+    /** Costo del camino dado (Hubs consecutivos unidos por :RUTA, la más barata entre cada par). */
+    double costoDe(List<String> camino, CriterioPeso criterio, double factorPeaje) {
+        double total = 0;
+        for (int i = 1; i < camino.size(); i++) {
+            String a = camino.get(i - 1), b = camino.get(i);
+            total += rutas.stream().filter(r -> r.desde().equals(a) && r.hasta().equals(b))
+                    .mapToDouble(r -> peso(r, criterio, factorPeaje)).min()
+                    .orElseThrow(() -> new AssertionError("No hay :RUTA " + a + " -> " + b));
+        }
+        return total;
+    }
+
+    /**
+     * Saltos desde origen por las :RUTA sin dirección (como BFS / DFS), en orden de visita.
+     * Con Clientes, se llega a un Cliente desde cualquiera de sus sucursales y no se sigue de él.
+     */
+    LinkedHashMap<String, Integer> saltos(String origen, boolean incluirClientes) {
+        Map<String, List<String>> vecinos = new HashMap<>();
+        for (SnapshotGrafo.Ruta r : rutas) {
+            vecinos.computeIfAbsent(r.desde(), k -> new ArrayList<>()).add(r.hasta());
+            vecinos.computeIfAbsent(r.hasta(), k -> new ArrayList<>()).add(r.desde());
+        }
+        if (incluirClientes) {
+            for (SnapshotGrafo.Atencion at : atenciones) {
+                vecinos.computeIfAbsent(at.hubId(), k -> new ArrayList<>()).add(at.clienteId());
+            }
+        }
+        LinkedHashMap<String, Integer> res = new LinkedHashMap<>();
+        res.put(origen, 0);
+        ArrayDeque<String> cola = new ArrayDeque<>(List.of(origen));
+        while (!cola.isEmpty()) {
+            String u = cola.poll();
+            for (String v : vecinos.getOrDefault(u, List.of())) {
+                if (res.containsKey(v)) continue;
+                res.put(v, res.get(u) + 1);
+                cola.add(v);
+            }
+        }
+        return res;
+    }
+
+    // ---------- helpers ----------
+
+    private static Map<String, Object> fila(SnapshotGrafo.Ruta r) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("desde", r.desde());
+        m.put("hasta", r.hasta());
+        m.put("dist", r.distKm());
+        m.put("tiempo", r.tiempoMin());
+        m.put("peaje", r.peaje());
+        return m;
+    }
+
+    private List<Map<String, Object>> tipos(List<?> ids) {
+        List<Map<String, Object>> res = new ArrayList<>();
+        for (Object id : ids) {
+            Map<String, Object> f = new HashMap<>();
+            f.put("id", id);
+            f.put("etiquetas", hubs.contains(id) ? Arrays.asList("Hub", "Sucursal") : null);
+            f.put("esCliente", clientes.contains(id));
+            res.add(f);
+        }
+        return res;
+    }
+}
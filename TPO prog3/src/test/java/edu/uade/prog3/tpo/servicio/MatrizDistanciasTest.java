@@ -0,0 +1,89 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.repositorio.GrafoPublicado;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MatrizDistanciasTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(3);
+
+    @AfterEach
+    void detener() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void filasIgualesAlDijkstraDeReferenciaYMismosCaminos() {
+        for (long semilla = 1; semilla <= 5; semilla++) {
+            GrafoDePrueba f = new GrafoDePrueba(semilla, 50, 2);
+            SnapshotGrafo g = f.snapshot();
+            ServicioDijkstra dijkstra = new ServicioDijkstra(f.registro, f.grafo, f.nombres, new MotorJerarquias(false),
+                    new CacheArbolesCaminos(0, 2), new ServicioComponentes(true, 8192), 0);
+            for (CriterioPeso c : CriterioPeso.values()) {
+                MatrizDistancias m = MatrizDistancias.construir(g, c, pool);
+                assertNotNull(m);
+                assertEquals(f.hubs.size(), m.cantidadHubs());
+                for (String o : f.hubs) {
+                    Map<String, Double> esperado = f.dijkstra(o, c, 1);
+                    int s = m.posicion(o);
+                    assertEquals(o, m.id(s));
+                    for (String d : f.hubs) {
+                        String par = o + " -> " + d + " " + c;
+                        assertEquals(esperado.get(d), m.distancia(s, m.posicion(d)), 1e-9, par);
+                        // el camino es el mismo que arma Dijkstra (mismo heap, mismos empates)
+                        List<String> camino = m.camino(s, m.posicion(d));
+                        assertEquals(dijkstra.dijkstra(o, d, c, 1).getCaminoIds(), camino, par);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void tramosIgualesConYSinMatriz() throws InterruptedException {
+        GrafoDePrueba f = new GrafoDePrueba(8, 40, 2);
+        ServicioComponentes componentes = new ServicioComponentes(true, 8192);
+        ServicioDijkstra dijkstra = new ServicioDijkstra(f.registro, f.grafo, f.nombres, new MotorJerarquias(false),
+                new CacheArbolesCaminos(0, 2), componentes, 0);
+        ServicioMatrizDistancias servicio = new ServicioMatrizDistancias(f.grafo, dijkstra, componentes,
+                List.of(CriterioPeso.TIEMPO), 3000, pool);
+        try {
+            Tramos sinMatriz = servicio.tramos(CriterioPeso.TIEMPO);
+            servicio.alPublicarGrafo(new GrafoPublicado(f.snapshot()));
+            for (int i = 0; i < 500 && (long) servicio.estadisticas().get("versionGrafo") != f.snapshot().version(); i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(f.snapshot().version(), servicio.estadisticas().get("versionGrafo"));
+            Tramos conMatriz = servicio.tramos(CriterioPeso.TIEMPO);
+            for (String o : f.hubs) {
+                for (String d : f.hubs) {
+                    assertEquals(sinMatriz.costo(o, d), conMatriz.costo(o, d), 1e-9, o + " -> " + d);
+                    assertEquals(sinMatriz.camino(o, d), conMatriz.camino(o, d), o + " -> " + d);
+                }
+                List<String> destinos = f.hubs.subList(30, 40);
+                Tramos.Llegada a = sinMatriz.masCercano(o, destinos), b = conMatriz.masCercano(o, destinos);
+                if (a == null) {
+                    assertNull(b, o);
+                } else {
+                    assertEquals(a.costo(), b.costo(), 1e-9, o);
+                }
+            }
+            // sin matriz para el criterio se sigue resolviendo con Dijkstra
+            assertEquals(f.costo("H000", "H001", CriterioPeso.DISTANCIA, 1),
+                    servicio.tramos(CriterioPeso.DISTANCIA).costo("H000", "H001"), 1e-9);
+        } finally {
+            servicio.detener();
+        }
+    }
+}
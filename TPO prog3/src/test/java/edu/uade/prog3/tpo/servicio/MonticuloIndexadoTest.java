@@ -0,0 +1,59 @@
+package edu.uade.prog3.tpo.servicio;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MonticuloIndexadoTest {
+
+    @Test
+    void mismoOrdenQueUnConjuntoOrdenadoPorClaveEIndice() {
+        Random r = new Random(3);
+        MonticuloIndexado heap = new MonticuloIndexado();
+        for (int ronda = 0; ronda < 50; ronda++) {
+            int n = 1 + r.nextInt(200);
+            // se reusa el mismo heap (como EspacioDijkstra), a veces con restos de la ronda anterior
+            heap.preparar(n);
+            assertTrue(heap.vacio());
+
+            // referencia: (clave, nodo) ordenados, con la clave vigente de cada nodo
+            TreeSet<double[]> ref = new TreeSet<>((a, b) -> a[0] != b[0] ? Double.compare(a[0], b[0]) : Double.compare(a[1], b[1]));
+            Map<Integer, Double> claves = new HashMap<>();
+            int operaciones = r.nextInt(3 * n);
+            for (int op = 0; op < operaciones; op++) {
+                if (!ref.isEmpty() && r.nextInt(3) == 0) {
+                    double[] min = ref.pollFirst();
+                    assertEquals(min[0], heap.claveMinima());
+                    int v = heap.extraerMin();
+                    assertEquals((int) min[1], v);
+                    assertFalse(heap.contiene(v));
+                    claves.remove(v);
+                    continue;
+                }
+                int v = r.nextInt(n);
+                double k = r.nextInt(20);   // claves repetidas a propósito: desempata el índice
+                Double vieja = claves.get(v);
+                heap.insertarOBajar(v, k);
+                if (vieja == null || k < vieja) {
+                    if (vieja != null) ref.remove(new double[]{vieja, v});
+                    ref.add(new double[]{k, v});
+                    claves.put(v, k);
+                }
+                assertTrue(heap.contiene(v));
+            }
+            if (r.nextBoolean()) continue;   // queda a medio vaciar para el próximo preparar
+            while (!ref.isEmpty()) {
+                double[] min = ref.pollFirst();
+                assertEquals((int) min[1], heap.extraerMin());
+            }
+            assertTrue(heap.vacio());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.ModoBusqueda;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServicioBFSTest {
+
+    /** (Hubs, grado): ralos y densos, para que el modo de abajo hacia arriba también entre. */
+    private static final int[][] TAMANOS = {{30, 1}, {60, 2}, {200, 4}, {300, 12}};
+
+    @Test
+    void direccionOptimizadaIgualALaColaFifo() {
+        long semilla = 0;
+        for (int[] tam : TAMANOS) {
+            GrafoDePrueba f = new GrafoDePrueba(++semilla, tam[0], tam[1], tam[0] / 5);
+            SnapshotGrafo g = f.snapshot();
+            ServicioBFS bfs = new ServicioBFS(f.repo, f.grafo, f.nombres, f.registro, new ServicioComponentes(true, 8192));
+            for (boolean incl : new boolean[]{false, true}) {
+                for (String o : f.hubs.subList(0, 10)) {
+                    Map<String, String> padre = fifo(g, o, incl);
+                    LinkedHashMap<String, Integer> saltos = f.saltos(o, incl);
+                    for (int v = 0; v < g.cantidadNodos(); v++) {
+                        String d = g.id(v);
+                        String par = o + " -> " + d + (incl ? " con clientes" : "");
+                        int[] camino = RecorridoAnchura.delHilo(g.cantidadNodos()).camino(g, g.indiceDe(o), v, 0, incl);
+                        if (!saltos.containsKey(d)) {
+                            assertNull(camino, par);
+                            if (incl || g.esHub(v)) assertEquals(List.of(), bfs.bfs(o, d, null, incl).getCaminoIds(), par);
+                            continue;
+                        }
+                        // el mismo camino que la cola FIFO, nodo por nodo
+                        assertEquals(caminoFifo(padre, o, d), ids(g, camino), par);
+                        assertEquals(caminoFifo(padre, o, d), bfs.bfs(o, d, null, incl).getCaminoIds(), par);
+                        assertEquals(saltos.get(d), camino.length - 1, par);
+
+                        // con tope de profundidad, solo si entra
+                        int max = 1 + (v % 4);
+                        int[] acotado = RecorridoAnchura.delHilo(g.cantidadNodos()).camino(g, g.indiceDe(o), v, max, incl);
+                        if (camino.length - 1 <= max) {
+                            assertEquals(ids(g, camino), ids(g, acotado), par + " max " + max);
+                        } else {
+                            assertNull(acotado, par + " max " + max);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void bidireccionalConLaMismaCantidadDeSaltos() {
+        long semilla = 10;
+        for (int[] tam : TAMANOS) {
+            GrafoDePrueba f = new GrafoDePrueba(++semilla, tam[0], tam[1], tam[0] / 5);
+            SnapshotGrafo g = f.snapshot();
+            ServicioBFS bfs = new ServicioBFS(f.repo, f.grafo, f.nombres, f.registro, new ServicioComponentes(true, 8192));
+            for (boolean incl : new boolean[]{false, true}) {
+                for (String o : f.hubs.subList(0, 10)) {
+                    LinkedHashMap<String, Integer> saltos = f.saltos(o, incl);
+                    for (int v = 0; v < g.cantidadNodos(); v++) {
+                        String d = g.id(v);
+                        if (!incl && !g.esHub(v)) continue;
+                        String par = o + " -> " + d + (incl ? " con clientes" : "");
+                        List<String> camino = bfs.bfs(o, d, null, incl, ModoBusqueda.BIDIRECCIONAL).getCaminoIds();
+                        if (!saltos.containsKey(d)) {
+                            assertEquals(List.of(), camino, par);
+                            continue;
+                        }
+                        assertEquals(saltos.get(d), camino.size() - 1, par);
+                        assertEquals(o, camino.get(0), par);
+                        assertEquals(d, camino.get(camino.size() - 1), par);
+                        for (int i = 1; i < camino.size(); i++) {
+                            assertTrue(g.vecinos(camino.get(i - 1), incl).contains(camino.get(i)), par + ": " + camino);
+                        }
+
+                        int max = 1 + (v % 4);
+                        int[] acotado = RecorridoAnchura.caminoBidireccional(g, g.indiceDe(o), v, max, incl);
+                        if (camino.size() - 1 <= max) {
+                            assertEquals(camino.size(), acotado.length, par + " max " + max);
+                        } else {
+                            assertNull(acotado, par + " max " + max);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // ---------- helpers ----------
+
+    /** BFS de referencia con cola FIFO sobre las listas de vecinos de la foto: padre de cada nodo. */
+    private static Map<String, String> fifo(SnapshotGrafo g, String origen, boolean incl) {
+        Map<String, String> padre = new LinkedHashMap<>();
+        padre.put(origen, null);
+        ArrayDeque<String> cola = new ArrayDeque<>(List.of(origen));
+        while (!cola.isEmpty()) {
+            String u = cola.poll();
+            for (String v : g.vecinos(u, incl)) {
+                if (padre.containsKey(v)) continue;
+                padre.put(v, u);
+                cola.add(v);
+            }
+        }
+        return padre;
+    }
+
+    private static List<String> caminoFifo(Map<String, String> padre, String origen, String destino) {
+        List<String> res = new ArrayList<>();
+        for (String v = destino; v != null; v = padre.get(v)) res.add(0, v);
+        assertEquals(origen, res.get(0));
+        return res;
+    }
+
+    private static List<String> ids(SnapshotGrafo g, int[] camino) {
+        return camino == null ? null : Arrays.stream(camino).mapToObj(g::id).toList();
+    }
+}
@@ -0,0 +1,122 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.repositorio.GrafoPublicado;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServicioBranchAndBoundTest {
+
+    private static final int PARADAS = 5;
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterEach
+    void detener() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void costoIgualAProbarTodosLosOrdenesYPoda() throws InterruptedException {
+        long expandidos = 0, podados = 0, arbolCompleto = 0;
+        for (long semilla = 1; semilla <= 6; semilla++) {
+            GrafoDePrueba f = new GrafoDePrueba(semilla, 30, 3);
+            ServicioComponentes componentes = new ServicioComponentes(true, 8192);
+            ServicioDijkstra dijkstra = new ServicioDijkstra(f.registro, f.grafo, f.nombres,
+                    new MotorJerarquias(false), new CacheArbolesCaminos(0, 2), componentes, 0);
+            ServicioMatrizDistancias matriz = new ServicioMatrizDistancias(f.grafo, dijkstra, componentes,
+                    semilla % 2 == 0 ? List.of(CriterioPeso.DISTANCIA) : List.of(), 3000, pool);
+            if (semilla % 2 == 0) esperarMatriz(matriz, f);
+            ServicioBranchAndBound bb = new ServicioBranchAndBound(f.registro, matriz, f.nombres);
+
+            Random r = new Random(semilla);
+            for (int caso = 0; caso < 10; caso++) {
+                List<String> nodos = new ArrayList<>(f.hubs);
+                Collections.shuffle(nodos, r);
+                String origen = nodos.get(0), destino = nodos.get(1);
+                List<String> paradas = nodos.subList(2, 2 + PARADAS);
+
+                double esperado = mejorOrden(f, origen, destino, paradas);
+                if (esperado == Double.POSITIVE_INFINITY) {
+                    // sin solución el servicio lo informa (ControladorBranchAndBound responde 404)
+                    assertNull(resolver(bb, origen, destino, paradas));
+                    continue;
+                }
+                Map<String, Object> res = resolver(bb, origen, destino, paradas);
+                assertEquals(esperado, (double) res.get("costo"), 1e-9);
+                @SuppressWarnings("unchecked")
+                List<String> camino = (List<String>) res.get("camino");
+                assertEquals(esperado, f.costoDe(camino, CriterioPeso.DISTANCIA, 1), 1e-9);
+                assertTrue(camino.containsAll(paradas));
+                assertEquals(destino, camino.get(camino.size() - 1));
+                arbolCompleto += estadosSinPoda(PARADAS);
+            }
+            expandidos += bb.estadosExpandidos.sum();
+            podados += bb.estadosPodados.sum();
+            matriz.detener();
+        }
+        assertTrue(podados > 0, "la cota no podó ningún estado");
+        assertTrue(expandidos < arbolCompleto / 2,
+                "se expandieron " + expandidos + " de " + arbolCompleto + " estados posibles");
+    }
+
+    // ---------- helpers ----------
+
+    private static Map<String, Object> resolver(ServicioBranchAndBound bb, String origen, String destino,
+                                                List<String> paradas) {
+        try {
+            return bb.rutaOptima(origen, destino, paradas);
+        } catch (IllegalStateException ex) {
+            return null;
+        }
+    }
+
+    /** Todos los órdenes de las paradas, con los tramos del Dijkstra de referencia. */
+    private static double mejorOrden(GrafoDePrueba f, String origen, String destino, List<String> paradas) {
+        Map<String, Map<String, Double>> dist = new HashMap<>();
+        dist.put(origen, f.dijkstra(origen, CriterioPeso.DISTANCIA, 1));
+        for (String p : paradas) dist.put(p, f.dijkstra(p, CriterioPeso.DISTANCIA, 1));
+        return mejorOrden(dist, origen, destino, new ArrayList<>(paradas));
+    }
+
+    private static double mejorOrden(Map<String, Map<String, Double>> dist, String actual, String destino,
+                                     List<String> restantes) {
+        if (restantes.isEmpty()) return dist.get(actual).get(destino);
+        double mejor = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < restantes.size(); i++) {
+            String p = restantes.remove(i);
+            mejor = Math.min(mejor, dist.get(actual).get(p) + mejorOrden(dist, p, destino, restantes));
+            restantes.add(i, p);
+        }
+        return mejor;
+    }
+
+    /** Estados del árbol completo de órdenes parciales: sum k de p! / (p - k)!. */
+    private static long estadosSinPoda(int p) {
+        long total = 0, nivel = 1;
+        for (int k = 0; k <= p; k++) {
+            total += nivel;
+            nivel *= p - k;
+        }
+        return total;
+    }
+
+    private static void esperarMatriz(ServicioMatrizDistancias matriz, GrafoDePrueba f) throws InterruptedException {
+        matriz.alPublicarGrafo(new GrafoPublicado(f.snapshot()));
+        for (int i = 0; i < 500 && (long) matriz.estadisticas().get("versionGrafo") != f.snapshot().version(); i++) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.AristaRuta;
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.dominio.ResultadoDijkstra;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServicioCaminosAlternativosTest {
+
+    private static final int K = 6;
+
+    private final ForkJoinPool pool = new ForkJoinPool(3);
+
+    @AfterEach
+    void detener() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void kCostosIgualesALosDeTodosLosCaminosSimples() {
+        for (long semilla = 1; semilla <= 6; semilla++) {
+            GrafoDePrueba f = new GrafoDePrueba(semilla, 10, 3);
+            ServicioCaminosAlternativos yen = servicio(f);
+            for (CriterioPeso c : CriterioPeso.values()) {
+                double factor = c == CriterioPeso.COSTO ? 3 : 1;
+                for (String o : f.hubs) {
+                    for (String d : f.hubs) {
+                        if (o.equals(d)) continue;
+                        String par = o + " -> " + d + " " + c;
+                        List<Double> todos = costosDeCaminosSimples(f, o, d, c, factor);
+                        List<ResultadoDijkstra> res = yen.caminos(o, d, K, c, factor);
+
+                        assertEquals(todos.subList(0, Math.min(K, todos.size())), costos(res), par);
+                        Set<String> distintos = new HashSet<>();
+                        for (ResultadoDijkstra r : res) {
+                            List<String> camino = r.getCaminoIds();
+                            assertEquals(o, camino.get(0), par);
+                            assertEquals(d, camino.get(camino.size() - 1), par);
+                            assertEquals(camino.size(), new HashSet<>(camino).size(), "camino con ciclo " + par);
+                            assertEquals(r.getPesoTotal(), suma(r.getAristas(), c, factor), 1e-9, par);
+                            assertTrue(distintos.add(texto(r.getAristas())), "camino repetido " + par);
+                        }
+                        // el primero es el de Dijkstra
+                        if (!res.isEmpty()) assertEquals(f.costo(o, d, c, factor), res.get(0).getPesoTotal(), 1e-9, par);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void parametrosFueraDeRangoSeRechazan() {
+        GrafoDePrueba f = new GrafoDePrueba(1, 10, 3, 2);
+        ServicioCaminosAlternativos yen = servicio(f);
+        assertThrows(IllegalArgumentException.class, () -> yen.caminos("H000", "H001", 0, CriterioPeso.DISTANCIA, 1));
+        assertThrows(IllegalArgumentException.class, () -> yen.caminos("H000", "H001", 11, CriterioPeso.DISTANCIA, 1));
+        assertThrows(IllegalArgumentException.class, () -> yen.caminos("H000", "C000", 2, CriterioPeso.DISTANCIA, 1));
+        assertThrows(IllegalArgumentException.class, () -> yen.caminos("H000", "H001", 2, CriterioPeso.COSTO, -1));
+    }
+
+    // ---------- helpers ----------
+
+    private ServicioCaminosAlternativos servicio(GrafoDePrueba f) {
+        CacheArbolesCaminos arboles = new CacheArbolesCaminos(64, 2);
+        ServicioComponentes componentes = new ServicioComponentes(true, 8192);
+        ServicioDijkstra dijkstra = new ServicioDijkstra(f.registro, f.grafo, f.nombres, new MotorJerarquias(false),
+                arboles, componentes, 0);
+        return new ServicioCaminosAlternativos(f.registro, f.grafo, arboles, dijkstra, componentes, 10, pool);
+    }
+
+    private static List<Double> costos(List<ResultadoDijkstra> res) {
+        return res.stream().map(ResultadoDijkstra::getPesoTotal).toList();
+    }
+
+    /** Costos de todos los caminos sin ciclos (cada :RUTA paralela es otro camino), ordenados. */
+    private static List<Double> costosDeCaminosSimples(GrafoDePrueba f, String origen, String destino,
+                                                        CriterioPeso c, double factor) {
+        List<Double> res = new ArrayList<>();
+        caminos(f, origen, destino, new HashSet<>(Set.of(origen)), 0, c, factor, res);
+        res.sort(null);
+        return res;
+    }
+
+    private static void caminos(GrafoDePrueba f, String u, String destino, Set<String> visitados, double costo,
+                                CriterioPeso c, double factor, List<Double> res) {
+        if (u.equals(destino)) {
+            res.add(costo);
+            return;
+        }
+        for (SnapshotGrafo.Ruta r : f.rutas) {
+            if (!r.desde().equals(u) || visitados.contains(r.hasta())) continue;
+            visitados.add(r.hasta());
+            caminos(f, r.hasta(), destino, visitados, costo + GrafoDePrueba.peso(r, c, factor), c, factor, res);
+            visitados.remove(r.hasta());
+        }
+    }
+
+    private static double suma(List<AristaRuta> aristas, CriterioPeso c, double factor) {
+        double total = 0;
+        for (AristaRuta a : aristas) {
+            total += GrafoDePrueba.peso(new SnapshotGrafo.Ruta(a.getDesdeId(), a.getHastaId(),
+                    a.getDistKm(), a.getTiempoMin(), a.getPeaje()), c, factor);
+        }
+        return total;
+    }
+
+    private static String texto(List<AristaRuta> aristas) {
+        StringBuilder s = new StringBuilder();
+        for (AristaRuta a : aristas) {
+            s.append(a.getDesdeId()).append('>').append(a.getHastaId()).append(':').append(a.getDistKm())
+                    .append('/').append(a.getTiempoMin()).append('/').append(a.getPeaje()).append(' ');
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,177 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.dominio.ModoBusqueda;
+import edu.uade.prog3.tpo.dominio.NodoAlcanzado;
+import edu.uade.prog3.tpo.dominio.ResultadoDijkstra;
+import edu.uade.prog3.tpo.repositorio.GrafoPublicado;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServicioDijkstraTest {
+
+    /** Factores de peaje para COSTO: 0 deja aristas de peso cero, 3 escala todos los pesos. */
+    private static final double[] FACTORES = {1, 0, 3};
+
+    @Test
+    void unidireccionalIgualAlDijkstraDeReferencia() {
+        for (long semilla = 1; semilla <= 6; semilla++) {
+            GrafoDePrueba f = new GrafoDePrueba(semilla, 40, 2);
+            comprobar(f, servicio(f, 0), ModoBusqueda.UNIDIRECCIONAL);
+        }
+    }
+
+    @Test
+    void bidireccionalIgualAlDijkstraDeReferencia() {
+        for (long semilla = 1; semilla <= 6; semilla++) {
+            GrafoDePrueba f = new GrafoDePrueba(semilla, 40, 2);
+            comprobar(f, servicio(f, 0), ModoBusqueda.BIDIRECCIONAL);
+        }
+    }
+
+    @Test
+    void altIgualAlDijkstraDeReferencia() {
+        int semilla = 0;
+        // un solo landmark, unos pocos y más landmarks que componentes chicas
+        for (int landmarks : new int[]{1, 4, 16}) {
+            GrafoDePrueba f = new GrafoDePrueba(++semilla, 40, 2);
+            ServicioDijkstra dijkstra = servicio(f, landmarks);
+            comprobar(f, dijkstra, ModoBusqueda.ALT);
+            assertEquals(f.snapshot().version(),
+                    ((Map<?, ?>) dijkstra.estadisticas().get("landmarks")).get("versionGrafo"));
+        }
+    }
+
+    @Test
+    void chIgualAlDijkstraDeReferencia() throws InterruptedException {
+        for (long semilla = 1; semilla <= 4; semilla++) {
+            GrafoDePrueba f = new GrafoDePrueba(semilla, 40, 2 + (int) semilla % 2);
+            MotorJerarquias motor = new MotorJerarquias(true);
+            try {
+                motor.alPublicarGrafo(new GrafoPublicado(f.snapshot()));
+                for (int i = 0; i < 500 && (long) motor.estadisticas().get("versionGrafo") != f.snapshot().version(); i++) {
+                    Thread.sleep(10);
+                }
+                ServicioDijkstra dijkstra = new ServicioDijkstra(f.registro, f.grafo, f.nombres, motor,
+                        new CacheArbolesCaminos(0, 2), new ServicioComponentes(true, 8192), 0);
+                // COSTO usa la jerarquía armada con factorPeaje = 1 para los demás factores
+                comprobar(f, dijkstra, ModoBusqueda.CH);
+            } finally {
+                motor.detener();
+            }
+        }
+    }
+
+    @Test
+    void clienteSeResuelveEnLaSucursalMasBarata() {
+        for (long semilla = 1; semilla <= 6; semilla++) {
+            GrafoDePrueba f = new GrafoDePrueba(semilla, 30, 2, 12);
+            ServicioDijkstra dijkstra = servicio(f, 0);
+            for (ModoBusqueda modo : new ModoBusqueda[]{ModoBusqueda.UNIDIRECCIONAL, ModoBusqueda.BIDIRECCIONAL}) {
+                for (CriterioPeso c : CriterioPeso.values()) {
+                    for (String o : f.hubs) {
+                        Map<String, Double> dist = f.dijkstra(o, c, 2);
+                        for (String cliente : f.clientes) {
+                            String par = o + " -> " + cliente + " " + c + " " + modo;
+                            double esperado = f.sucursalesDe(cliente).stream()
+                                    .mapToDouble(dist::get).min().orElseThrow();
+                            if (esperado == Double.POSITIVE_INFINITY) {
+                                assertThrows(IllegalStateException.class, () -> dijkstra.dijkstra(o, cliente, c, 2, modo), par);
+                                continue;
+                            }
+                            ResultadoDijkstra res = dijkstra.dijkstra(o, cliente, c, 2, modo);
+                            assertEquals(esperado, res.getPesoTotal(), 1e-9, par);
+                            List<String> camino = res.getCaminoIds();
+                            assertEquals(cliente, camino.get(camino.size() - 1), par);
+                            List<String> hubs = camino.subList(0, camino.size() - 1);
+                            assertTrue(f.sucursalesDe(cliente).contains(hubs.get(hubs.size() - 1)), par);
+                            assertEquals(esperado, f.costoDe(hubs, c, 2), 1e-9, par);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void alcanzablesIgualAlMinimoDesdeLosOrigenesDentroDelPresupuesto() {
+        for (long semilla = 1; semilla <= 6; semilla++) {
+            GrafoDePrueba f = new GrafoDePrueba(semilla, 40, 2, 15);
+            ServicioDijkstra dijkstra = servicio(f, 0);
+            Random r = new Random(semilla);
+            for (CriterioPeso c : CriterioPeso.values()) {
+                for (int caso = 0; caso < 10; caso++) {
+                    List<String> origenes = List.of(f.hubs.get(r.nextInt(40)), f.hubs.get(r.nextInt(40)));
+                    double presupuesto = r.nextInt(4) == 0 ? 0 : r.nextInt(60);
+                    Map<String, Double> minimo = new HashMap<>();
+                    for (String o : origenes) f.dijkstra(o, c, 2).forEach((h, d) -> minimo.merge(h, d, Math::min));
+
+                    List<NodoAlcanzado> emitidos = new ArrayList<>();
+                    dijkstra.alcanzables(origenes, c, 2, presupuesto, true, emitidos::add);
+
+                    Map<String, Double> esperado = new TreeMap<>();
+                    minimo.forEach((h, d) -> { if (d <= presupuesto) esperado.put(h, d); });
+                    for (String cliente : f.clientes) {
+                        double d = f.sucursalesDe(cliente).stream().mapToDouble(minimo::get).min().orElseThrow();
+                        if (d <= presupuesto) esperado.put(cliente, d);
+                    }
+                    Map<String, Double> obtenido = new TreeMap<>();
+                    double anterior = 0;
+                    for (NodoAlcanzado nodo : emitidos) {
+                        String txt = nodo.getId() + " " + c + " <= " + presupuesto;
+                        assertNull(obtenido.put(nodo.getId(), nodo.getCosto()), "emitido dos veces: " + txt);
+                        assertTrue(nodo.getCosto() >= anterior, "fuera de orden: " + txt);
+                        anterior = nodo.getCosto();
+                        assertTrue(origenes.contains(nodo.getOrigenId()), txt);
+                        assertEquals(nodo.getCosto(), f.costo(nodo.getOrigenId(), nodo.isCliente()
+                                ? nodo.getPredecesorId() : nodo.getId(), c, 2), 1e-9, txt);
+                    }
+                    assertEquals(esperado, obtenido, origenes + " " + c + " <= " + presupuesto);
+                }
+            }
+        }
+    }
+
+    // ---------- helpers ----------
+
+    private static ServicioDijkstra servicio(GrafoDePrueba f, int landmarks) {
+        return new ServicioDijkstra(f.registro, f.grafo, f.nombres, new MotorJerarquias(false),
+                new CacheArbolesCaminos(0, 2), new ServicioComponentes(true, 8192), landmarks);
+    }
+
+    /** Todos los pares de Hubs, todos los criterios: mismo costo que la referencia y un camino que lo suma. */
+    private static void comprobar(GrafoDePrueba f, ServicioDijkstra dijkstra, ModoBusqueda modo) {
+        for (CriterioPeso c : CriterioPeso.values()) {
+            for (double factor : c == CriterioPeso.COSTO ? FACTORES : new double[]{1}) {
+                for (String o : f.hubs) {
+                    Map<String, Double> esperado = f.dijkstra(o, c, factor);
+                    for (String d : f.hubs) {
+                        String par = o + " -> " + d + " " + c + " x" + factor + " " + modo;
+                        ResultadoDijkstra res = dijkstra.dijkstra(o, d, c, factor, modo);
+                        assertEquals(esperado.get(d), res.getPesoTotal(), 1e-9, par);
+                        if (res.getPesoTotal() == Double.POSITIVE_INFINITY) {
+                            assertTrue(res.getCaminoIds().isEmpty(), par);
+                            continue;
+                        }
+                        assertEquals(o, res.getCaminoIds().get(0), par);
+                        assertEquals(d, res.getCaminoIds().get(res.getCaminoIds().size() - 1), par);
+                        assertEquals(res.getPesoTotal(), f.costoDe(res.getCaminoIds(), c, factor), 1e-9, par);
+                        // con pesos no negativos el modo pedido no cae al clásico
+                        if (!o.equals(d)) assertEquals(modo, res.getModo(), par);
+                    }
+                }
+            }
+        }
+    }
+}
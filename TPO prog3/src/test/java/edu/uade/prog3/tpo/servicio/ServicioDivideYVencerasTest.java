@@ -0,0 +1,94 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.repositorio.IRepositorioGrafo;
+import edu.uade.prog3.tpo.repositorio.RepositorioGrafoArchivo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServicioDivideYVencerasTest {
+
+    @TempDir
+    Path datos;
+
+    @Test
+    void ordenIgualAlDeLaConsultaConCualquierTamanoDePagina() throws IOException {
+        Random r = new Random(7);
+        StringBuilder csv = new StringBuilder("id,deposito,peso_kg,volumen_m3,prioridad,estado,destino\n");
+        for (int i = 0; i < 1000; i++) {
+            // ids al azar: el orden de id no tiene nada que ver con el de prioridad y peso
+            csv.append(String.format("P%05d", r.nextInt(100_000))).append(i).append(",DEP,")
+                    .append(r.nextInt(10) == 0 ? "" : r.nextInt(30)).append(",1,")
+                    .append(r.nextInt(10) == 0 ? "" : 1 + r.nextInt(3)).append(',')
+                    .append(r.nextInt(5) == 0 ? "asignado" : "pendiente").append(",\n");
+        }
+        Files.writeString(datos.resolve("hubs.csv"), "id,nombre,etiquetas\nDEP,Depósito,Deposito\n");
+        Files.writeString(datos.resolve("paquetes.csv"), csv);
+        RepositorioGrafoArchivo repo = new RepositorioGrafoArchivo(new DefaultResourceLoader(), datos.toUri().toString());
+
+        List<Map<String, Object>> esperado = new ArrayList<>(repo.paquetesPendientesDeDeposito("DEP"));
+        esperado.sort(Comparator.comparing((Map<String, Object> p) -> (String) p.get("id")));
+        esperado.sort(Comparator
+                .comparingLong((Map<String, Object> p) -> p.get("prioridad") == null ? 999 : ((Number) p.get("prioridad")).longValue())
+                .thenComparingDouble(p -> p.get("peso_kg") == null ? Double.MAX_VALUE : ((Number) p.get("peso_kg")).doubleValue()));
+
+        for (int tamPagina : new int[]{1, 7, 100, 5000}) {
+            assertEquals(esperado, new ServicioDivideYVenceras(repo, tamPagina).ordenarPaquetesPorDyV("DEP"));
+
+            List<Map<String, Object>> cursor = new ArrayList<>();
+            Iterator<Map<String, Object>> it = repo.recorrerPaquetesPendientes("DEP", tamPagina);
+            it.forEachRemaining(cursor::add);
+            assertEquals(esperado, cursor);
+
+            // el primero sale apenas llega la primera página, sin leer el resto del depósito
+            AtomicInteger leidos = new AtomicInteger();
+            List<Integer> leidosAlEmitir = new ArrayList<>();
+            new ServicioDivideYVenceras(contando(repo, leidos), tamPagina)
+                    .ordenarPaquetesPorDyV("DEP", p -> leidosAlEmitir.add(leidos.get()));
+            assertEquals(esperado.size(), leidosAlEmitir.size());
+            for (int i = 0; i < leidosAlEmitir.size(); i++) {
+                assertTrue(leidosAlEmitir.get(i) <= (i / tamPagina + 1) * tamPagina, "página " + tamPagina + ", paquete " + i);
+            }
+        }
+
+        // un cambio de estado invalida lo ordenado
+        String primero = (String) esperado.get(0).get("id");
+        repo.asignarPaquetes("V", List.of(primero), "asignado", null);
+        assertEquals(esperado.subList(1, esperado.size()), new ServicioDivideYVenceras(repo, 50).ordenarPaquetesPorDyV("DEP"));
+    }
+
+    // ---------- helpers ----------
+
+    /** El mismo repositorio, sumando en leidos las filas que entrega cada página de pendientes. */
+    private static IRepositorioGrafo contando(IRepositorioGrafo repo, AtomicInteger leidos) {
+        InvocationHandler h = (proxy, m, args) -> {
+            if (m.isDefault()) return InvocationHandler.invokeDefault(proxy, m, args);
+            try {
+                Object res = m.invoke(repo, args);
+                if (m.getName().equals("paginaPaquetesPendientes")) leidos.addAndGet(((List<?>) res).size());
+                return res;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (IRepositorioGrafo) Proxy.newProxyInstance(IRepositorioGrafo.class.getClassLoader(),
+                new Class<?>[]{IRepositorioGrafo.class}, h);
+    }
+}
@@ -0,0 +1,92 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.repositorio.DiarioAsignaciones;
+import edu.uade.prog3.tpo.repositorio.RepositorioGrafoArchivo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ServicioGreedyTest {
+
+    private static final int PAQUETES = 250;
+    private static final int TOPE = 40;
+
+    @TempDir
+    Path datos;
+
+    private DiarioAsignaciones diario;
+
+    @AfterEach
+    void detener() {
+        if (diario != null) diario.detener();
+    }
+
+    @Test
+    void noAsignadosAcotadosAlTopeYPaginados() throws IOException {
+        StringBuilder csv = new StringBuilder("id,deposito,peso_kg,volumen_m3,prioridad,estado,destino\n");
+        for (int i = 0; i < PAQUETES; i++) {
+            csv.append(String.format("P%04d,DEP,%d,1,%d,pendiente,\n", i, 1 + i % 7, 1 + i % 3));
+        }
+        Files.writeString(datos.resolve("hubs.csv"), "id,nombre,etiquetas\nDEP,Depósito,Deposito\n");
+        Files.writeString(datos.resolve("paquetes.csv"), csv);
+        Files.writeString(datos.resolve("vehiculos.csv"),
+                "id,deposito,patente,capacidad_kg,volumen_m3,costo_km,tipo\nV1,DEP,AAA111,30,1000,1,camion\n");
+
+        // el orden de la consulta; con 30 kg de capacidad la mayoría no entra
+        List<String> orden = ids(repo().paquetesPendientesDeDeposito("DEP"));
+
+        // cada corrida con un repositorio recién cargado: la anterior los dejó asignados
+        Map<String, Object> res = greedy().ejecutarGreedy("DEP", "V1", null, false, 0, null);
+        List<String> asignados = ids(lista(res.get("paquetesAsignados")));
+        List<String> noAsignados = new ArrayList<>(orden);
+        noAsignados.removeAll(asignados);
+        assertEquals((long) noAsignados.size(), res.get("cantidadNoAsignados"));
+        assertEquals(noAsignados.subList(0, TOPE), ids(lista(res.get("paquetesNoAsignados"))));
+
+        // más que el tope se recorta al tope; con noAsignadosDesde se sigue más allá
+        res = greedy().ejecutarGreedy("DEP", "V1", null, false, 0, TOPE * 10);
+        assertEquals(noAsignados.subList(0, TOPE), ids(lista(res.get("paquetesNoAsignados"))));
+        for (int desde = 0; desde < noAsignados.size(); desde += 15) {
+            res = greedy().ejecutarGreedy("DEP", "V1", null, false, desde, 15);
+            assertEquals(noAsignados.subList(desde, Math.min(noAsignados.size(), desde + 15)),
+                    ids(lista(res.get("paquetesNoAsignados"))), "desde " + desde);
+            assertEquals((long) noAsignados.size(), res.get("cantidadNoAsignados"));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> greedy().ejecutarGreedy("DEP", "V1", null, false, -1, null));
+    }
+
+    // ---------- helpers ----------
+
+    private RepositorioGrafoArchivo repo() {
+        return new RepositorioGrafoArchivo(new DefaultResourceLoader(), datos.toUri().toString());
+    }
+
+    private ServicioGreedy greedy() throws IOException {
+        if (diario != null) diario.detener();
+        RepositorioGrafoArchivo repo = repo();
+        diario = new DiarioAsignaciones(repo, datos.resolve("asignaciones.diario").toString(), 10, 0, 10, 100, 1000, 3);
+        diario.iniciar();
+        return new ServicioGreedy(repo, diario, 17, TOPE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> lista(Object o) {
+        return (List<Map<String, Object>>) o;
+    }
+
+    private static List<String> ids(List<Map<String, Object>> paquetes) {
+        return paquetes.stream().map(p -> (String) p.get("id")).toList();
+    }
+}
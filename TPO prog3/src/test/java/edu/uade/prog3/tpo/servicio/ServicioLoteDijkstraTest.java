@@ -0,0 +1,83 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.CriterioPeso;
+import edu.uade.prog3.tpo.dominio.ParOrigenDestino;
+import edu.uade.prog3.tpo.dominio.ResultadoDijkstra;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServicioLoteDijkstraTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(3);
+
+    @AfterEach
+    void detener() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void cadaParIgualQueResueltoSoloYEnElMismoOrden() {
+        for (long semilla = 1; semilla <= 4; semilla++) {
+            GrafoDePrueba f = new GrafoDePrueba(semilla, 40, 2, 10);
+            ServicioDijkstra dijkstra = new ServicioDijkstra(f.registro, f.grafo, f.nombres, new MotorJerarquias(false),
+                    new CacheArbolesCaminos(64, 2), new ServicioComponentes(true, 8192), 0);
+            ServicioLoteDijkstra lote = new ServicioLoteDijkstra(dijkstra, 1000, pool);
+
+            // pocos orígenes repetidos, destinos Hub y Cliente mezclados
+            Random r = new Random(semilla);
+            List<String> destinos = new ArrayList<>(f.hubs);
+            destinos.addAll(f.clientes);
+            List<ParOrigenDestino> pares = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                pares.add(new ParOrigenDestino(f.hubs.get(r.nextInt(5)), destinos.get(r.nextInt(destinos.size()))));
+            }
+
+            for (CriterioPeso c : CriterioPeso.values()) {
+                List<ResultadoDijkstra> res = lote.resolver(pares, c, 2);
+                assertEquals(pares.size(), res.size());
+                for (int i = 0; i < pares.size(); i++) {
+                    ParOrigenDestino par = pares.get(i);
+                    String txt = i + ": " + par.getOrigenId() + " -> " + par.getDestinoId() + " " + c;
+                    double esperado = esperado(f, par.getOrigenId(), par.getDestinoId(), c);
+                    assertEquals(par.getOrigenId(), res.get(i).getOrigenId(), txt);
+                    assertEquals(esperado, res.get(i).getPesoTotal(), 1e-9, txt);
+                    if (esperado == Double.POSITIVE_INFINITY) {
+                        assertTrue(res.get(i).getCaminoIds().isEmpty(), txt);
+                    } else {
+                        List<String> camino = res.get(i).getCaminoIds();
+                        assertEquals(par.getDestinoId(), camino.get(camino.size() - 1), txt);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void loteVacioOExcedidoSeRechaza() {
+        GrafoDePrueba f = new GrafoDePrueba(2, 10, 2);
+        ServicioDijkstra dijkstra = new ServicioDijkstra(f.registro, f.grafo, f.nombres, new MotorJerarquias(false),
+                new CacheArbolesCaminos(64, 2), new ServicioComponentes(true, 8192), 0);
+        ServicioLoteDijkstra lote = new ServicioLoteDijkstra(dijkstra, 3, pool);
+        ParOrigenDestino par = new ParOrigenDestino("H000", "H001");
+        assertThrows(IllegalArgumentException.class, () -> lote.resolver(List.of(), CriterioPeso.DISTANCIA, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> lote.resolver(List.of(par, par, par, par), CriterioPeso.DISTANCIA, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> lote.resolver(List.of(new ParOrigenDestino("H000", "NO_EXISTE")), CriterioPeso.DISTANCIA, 1));
+    }
+
+    /** Costo de referencia: a un Cliente, el mínimo entre las sucursales que lo atienden. */
+    private static double esperado(GrafoDePrueba f, String origen, String destino, CriterioPeso c) {
+        if (!f.clientes.contains(destino)) return f.costo(origen, destino, c, 2);
+        return f.sucursalesDe(destino).stream().mapToDouble(h -> f.costo(origen, h, c, 2)).min().orElseThrow();
+    }
+}
@@ -0,0 +1,107 @@
+package edu.uade.prog3.tpo.servicio;
+
+import edu.uade.prog3.tpo.dominio.ResultadoPareto;
+import edu.uade.prog3.tpo.dominio.RutaPareto;
+import edu.uade.prog3.tpo.repositorio.SnapshotGrafo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServicioParetoTest {
+
+    @Test
+    void frenteIgualAlDeTodosLosCaminosSimples() {
+        for (long semilla = 1; semilla <= 8; semilla++) {
+            GrafoDePrueba f = new GrafoDePrueba(semilla, 10, 2, 4);
+            ServicioPareto pareto = new ServicioPareto(f.registro, f.grafo, f.nombres,
+                    new ServicioComponentes(true, 8192), 10_000);
+            List<String> destinos = new ArrayList<>(f.hubs);
+            destinos.addAll(f.clientes);
+            for (String origen : f.hubs) {
+                for (String destino : destinos) {
+                    if (origen.equals(destino)) continue;
+                    ResultadoPareto res = pareto.rutas(origen, destino);
+                    assertEquals(frente(f, origen, destino), vectores(res), origen + " -> " + destino);
+                    assertFalse(res.isRecortado());
+                    for (RutaPareto r : res.getRutas()) {
+                        assertEquals(origen, r.getCaminoIds().get(0));
+                        assertEquals(destino, r.getCaminoIds().get(r.getCaminoIds().size() - 1));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void recortadoSoloSiFaltaAlgoDelFrente() {
+        int recortados = 0;
+        for (long semilla = 1; semilla <= 8; semilla++) {
+            GrafoDePrueba f = new GrafoDePrueba(semilla, 10, 3);
+            for (int tope : new int[]{1, 2, 3}) {
+                ServicioPareto pareto = new ServicioPareto(f.registro, f.grafo, f.nombres,
+                        new ServicioComponentes(true, 8192), tope);
+                for (String origen : f.hubs) {
+                    for (String destino : f.hubs) {
+                        if (origen.equals(destino)) continue;
+                        ResultadoPareto res = pareto.rutas(origen, destino);
+                        Set<List<Double>> esperado = frente(f, origen, destino);
+                        if (!esperado.equals(vectores(res))) {
+                            assertTrue(res.isRecortado(), "faltan rutas sin avisar: " + origen + " -> " + destino);
+                        }
+                        if (res.isRecortado()) recortados++;
+                    }
+                }
+            }
+        }
+        assertTrue(recortados > 0, "el tope nunca recortó: el caso no prueba nada");
+    }
+
+    // ---------- helpers ----------
+
+    private static Set<List<Double>> vectores(ResultadoPareto res) {
+        Set<List<Double>> v = new HashSet<>();
+        for (RutaPareto r : res.getRutas()) v.add(List.of(r.getDistKm(), r.getTiempoMin(), r.getPeaje()));
+        return v;
+    }
+
+    /** Vectores no dominados entre todos los caminos simples (con pesos positivos, los demás no suman). */
+    private static Set<List<Double>> frente(GrafoDePrueba f, String origen, String destino) {
+        Set<String> llegadas = new HashSet<>(f.clientes.contains(destino) ? f.sucursalesDe(destino) : List.of(destino));
+        List<double[]> todos = new ArrayList<>();
+        caminos(f, origen, llegadas, new TreeSet<>(Set.of(origen)), 0, 0, 0, todos);
+        Set<List<Double>> res = new HashSet<>();
+        for (double[] a : todos) {
+            boolean dominado = false;
+            for (double[] b : todos) {
+                if (b[0] <= a[0] && b[1] <= a[1] && b[2] <= a[2] && (b[0] < a[0] || b[1] < a[1] || b[2] < a[2])) {
+                    dominado = true;
+                    break;
+                }
+            }
+            if (!dominado) res.add(List.of(a[0], a[1], a[2]));
+        }
+        return res;
+    }
+
+    private static void caminos(GrafoDePrueba f, String u, Set<String> llegadas, Set<String> visitados,
+                                double d, double t, double p, List<double[]> res) {
+        if (llegadas.contains(u)) {
+            res.add(new double[]{d, t, p});
+            return;
+        }
+        for (SnapshotGrafo.Ruta r : f.rutas) {
+            if (!r.desde().equals(u) || visitados.contains(r.hasta())) continue;
+            visitados.add(r.hasta());
+            caminos(f, r.hasta(), llegadas, visitados, d + r.distKm(), t + r.tiempoMin(), p + r.peaje(), res);
+            visitados.remove(r.hasta());
+        }
+    }
+}